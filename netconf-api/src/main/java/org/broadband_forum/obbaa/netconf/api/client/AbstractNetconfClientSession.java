@@ -49,20 +49,44 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An abstract class that takes care of converting Pojo netconf requests into {@link Document}. The class delegates
  * the actual transport of
- * the {@link Document} to the subclasses via {@link #sendRpcMessage(String, Document, long)}
+ * the {@link Document} to the subclasses via {@link #sendRpcMessageAsync(String, Document, long)}
+ *
+ * Replies are correlated to their requests through a table of outstanding message-ids. Subclasses register a
+ * {@link CompletableFuture} with {@link #registerResponseFuture(String, long)} before writing a request, the future is
+ * completed by the thread that reads the reply. No thread waits for a reply, so a session can have any number of
+ * requests outstanding. The reply timeouts of all sessions are driven by a single timer thread.
+ *
+ * The number of outstanding requests can be limited with {@link #setPipeliningLimits(int, int)}, requests beyond the
+ * limit are queued and sent as replies come in.
  *
  * @author keshava
  */
@@ -70,7 +94,17 @@ public abstract class AbstractNetconfClientSession implements NetconfClientSessi
     private static final Logger LOGGER = Logger.getLogger(AbstractNetconfClientSession.class);
     public static final long DEFAULT_MESSAGE_TIMEOUT = 100000;
 
+    /**
+     * Replies received on a session that never registered a response future with
+     * {@link #registerResponseFuture(String, long)}.
+     *
+     * @deprecated kept for the subclasses that wait for their replies on it, register a response future instead.
+     */
+    @Deprecated
     protected BlockingMap<String, NetConfResponse> m_rpcResponses = new BlockingMap<String, NetConfResponse>();
+    private final ConcurrentMap<String, CompletableFuture<NetConfResponse>> m_pendingResponses = new
+            ConcurrentHashMap<>();
+    private volatile boolean m_responseFuturesUsed;
     AtomicLong m_messageId = new AtomicLong(0);
     private Set<String> m_serverCapabilities = new HashSet<String>();
     private int m_sessionId;
@@ -80,6 +114,23 @@ public abstract class AbstractNetconfClientSession implements NetconfClientSessi
     private Notification m_notificationReceived;
     private AtomicInteger m_keepAliveFailure = new AtomicInteger(0);
     private long m_idleTimeStart;
+    private final Object m_pipelineLock = new Object();
+    private final Deque<QueuedRequest> m_queuedRequests = new ArrayDeque<>();
+    private int m_maxOutstandingRequests = DEFAULT_MAX_OUTSTANDING_REQUESTS;
+    private int m_maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+    private int m_inFlightRequests;
+    private int m_peakInFlightRequests;
+    private long m_completedRequests;
+    private long m_timedOutRequests;
+    private long m_failedRequests;
+    private long m_rejectedRequests;
+    private long m_closedRequests;
+    private int m_freedSlots;
+    private boolean m_releasingSlots;
+    private boolean m_closed;
+    private long m_totalRoundTripNanos;
+    private long m_maxRoundTripNanos;
+    private long m_lastRoundTripNanos;
 
     public AbstractNetconfClientSession() {
         super();
@@ -91,11 +142,85 @@ public abstract class AbstractNetconfClientSession implements NetconfClientSessi
         return sendRpc(request);
     }
 
-    protected abstract Future<NetConfResponse> sendRpcMessage(String currentMessageId, Document requestDocument, long
-            timoutMillis);
+    /**
+     * Writes a request on the transport and returns the future completed with its reply. Subclasses override either
+     * this method or the deprecated {@link #sendRpcMessage(String, Document, long)}, the default adapts the
+     * {@link Future} returned by the latter.
+     */
+    protected CompletableFuture<NetConfResponse> sendRpcMessageAsync(String currentMessageId, Document
+            requestDocument, long timoutMillis) {
+        Future<NetConfResponse> responseFuture = sendRpcMessage(currentMessageId, requestDocument, timoutMillis);
+        if (responseFuture instanceof CompletableFuture) {
+            return (CompletableFuture<NetConfResponse>) responseFuture;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return responseFuture.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }, LegacyResponseWaiters.INSTANCE);
+    }
+
+    /**
+     * Writes a request on the transport and returns the future of its reply.
+     *
+     * @deprecated override {@link #sendRpcMessageAsync(String, Document, long)}, whose future does not need a thread
+     * to wait for the reply.
+     */
+    @Deprecated
+    protected Future<NetConfResponse> sendRpcMessage(String currentMessageId, Document requestDocument,
+                                                     long timoutMillis) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not implement sendRpcMessageAsync");
+    }
+
+    /**
+     * Registers a request that is about to be sent and returns the future completed with its reply. The future is
+     * completed with null if no reply is received within the timeout or if the session is closed before.
+     */
+    protected CompletableFuture<NetConfResponse> registerResponseFuture(final String messageId, long timeoutMillis) {
+        m_responseFuturesUsed = true;
+        final CompletableFuture<NetConfResponse> responseFuture = new CompletableFuture<>();
+        if (m_pendingResponses.putIfAbsent(messageId, responseFuture) != null) {
+            throw new IllegalStateException("A request with message-id " + messageId + " is already outstanding");
+        }
+        final Timeout timeout = ResponseTimer.INSTANCE.newTimeout(timer -> {
+            if (responseFuture.complete(null)) {
+                LogUtil.logDebug(LOGGER, "No response received from: %s for message-id: %s within %s millis",
+                        getRemoteAddress(), messageId, timeoutMillis);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        responseFuture.whenComplete((response, error) -> {
+            m_pendingResponses.remove(messageId, responseFuture);
+            timeout.cancel();
+            logResponse(response, messageId);
+        });
+        return responseFuture;
+    }
 
     protected void responseRecieved(String msgId, NetConfResponse axsNetconfResponse) {
-        m_rpcResponses.put(msgId, axsNetconfResponse);
+        CompletableFuture<NetConfResponse> responseFuture = msgId == null ? null : m_pendingResponses.get(msgId);
+        if (responseFuture == null) {
+            if (msgId != null && !m_responseFuturesUsed) {
+                // a subclass that does not register response futures waits for the reply on m_rpcResponses
+                m_rpcResponses.put(msgId, axsNetconfResponse);
+            } else {
+                LogUtil.logDebug(LOGGER, "Discarding response from: %s with message-id: %s, no request is " +
+                        "outstanding for it", getRemoteAddress(), msgId);
+            }
+            return;
+        }
+        responseFuture.complete(axsNetconfResponse);
+    }
+
+    /**
+     * Number of requests sent on this session for which no reply has been received yet.
+     */
+    public int getOutstandingRequestCount() {
+        return m_pendingResponses.size();
     }
 
     @Override
@@ -147,12 +272,160 @@ public abstract class AbstractNetconfClientSession implements NetconfClientSessi
     protected Future<NetConfResponse> sendRpcAndGetFuture(AbstractNetconfRequest request, String currentMessageId)
             throws NetconfMessageBuilderException {
         Document requestDocument = request.getRequestDocument();
-        Future<NetConfResponse> responseFuture = sendRpcMessage(currentMessageId, requestDocument, request
-                .getReplyTimeout());
+        long replyTimeout = request.getReplyTimeout();
+        synchronized (m_pipelineLock) {
+            if (m_inFlightRequests >= m_maxOutstandingRequests) {
+                if (m_queuedRequests.size() >= m_maxQueuedRequests) {
+                    m_rejectedRequests++;
+                    CompletableFuture<NetConfResponse> rejected = new CompletableFuture<>();
+                    rejected.completeExceptionally(new RejectedExecutionException(String.format("Request with " +
+                            "message-id %s rejected, %s requests are outstanding and %s queued on %s",
+                            currentMessageId, m_inFlightRequests, m_queuedRequests.size(), this)));
+                    return rejected;
+                }
+                QueuedRequest queuedRequest = new QueuedRequest(currentMessageId, requestDocument, replyTimeout);
+                m_queuedRequests.add(queuedRequest);
+                LogUtil.logDebug(LOGGER, "Request with message-id %s queued, %s requests are outstanding on %s",
+                        currentMessageId, m_inFlightRequests, this);
+                // a request cancelled while it is queued is never sent
+                queuedRequest.m_responseFuture.whenComplete((response, error) -> removeQueuedRequest(queuedRequest));
+                return queuedRequest.m_responseFuture;
+            }
+            m_inFlightRequests++;
+            m_peakInFlightRequests = Math.max(m_peakInFlightRequests, m_inFlightRequests);
+        }
+        return send(currentMessageId, requestDocument, replyTimeout);
+    }
+
+    /**
+     * Sends a request that has been given a slot in the window of outstanding requests, the slot is released or
+     * handed to the next queued request when the reply is received.
+     */
+    private CompletableFuture<NetConfResponse> send(String messageId, Document requestDocument, long replyTimeout) {
+        final long sentAt = System.nanoTime();
+        CompletableFuture<NetConfResponse> responseFuture;
+        try {
+            responseFuture = sendRpcMessageAsync(messageId, requestDocument, replyTimeout);
+        } catch (RuntimeException e) {
+            requestCompleted(null, e, sentAt);
+            throw e;
+        }
         resetIdleTimeStart();
+        responseFuture.whenComplete((response, error) -> requestCompleted(response, error, sentAt));
         return responseFuture;
     }
 
+    private void requestCompleted(NetConfResponse response, Throwable error, long sentAt) {
+        synchronized (m_pipelineLock) {
+            if (response != null) {
+                long roundTripNanos = System.nanoTime() - sentAt;
+                m_completedRequests++;
+                m_totalRoundTripNanos += roundTripNanos;
+                m_maxRoundTripNanos = Math.max(m_maxRoundTripNanos, roundTripNanos);
+                m_lastRoundTripNanos = roundTripNanos;
+            } else if (error != null) {
+                m_failedRequests++;
+            } else if (m_closed) {
+                m_closedRequests++;
+            } else {
+                m_timedOutRequests++;
+            }
+            m_freedSlots++;
+            if (m_releasingSlots) {
+                // the thread already releasing slots takes this one too, a send failing synchronously does not recurse
+                return;
+            }
+            m_releasingSlots = true;
+        }
+        releaseSlots();
+    }
+
+    /**
+     * Hands each freed slot to the next queued request, or gives it back to the window when no request is queued.
+     */
+    private void releaseSlots() {
+        while (true) {
+            QueuedRequest next;
+            synchronized (m_pipelineLock) {
+                if (m_freedSlots == 0) {
+                    m_releasingSlots = false;
+                    return;
+                }
+                m_freedSlots--;
+                next = pollQueuedRequest();
+                if (next == null) {
+                    m_inFlightRequests--;
+                    continue;
+                }
+            }
+            sendQueuedRequest(next);
+        }
+    }
+
+    private QueuedRequest pollQueuedRequest() {
+        QueuedRequest next = m_queuedRequests.poll();
+        while (next != null && next.m_responseFuture.isDone()) {
+            next = m_queuedRequests.poll();
+        }
+        if (next != null) {
+            next.m_dequeued = true;
+        }
+        return next;
+    }
+
+    private void removeQueuedRequest(QueuedRequest queuedRequest) {
+        synchronized (m_pipelineLock) {
+            if (!queuedRequest.m_dequeued) {
+                queuedRequest.m_dequeued = true;
+                m_queuedRequests.remove(queuedRequest);
+            }
+        }
+    }
+
+    private void sendQueuedRequest(QueuedRequest next) {
+        CompletableFuture<NetConfResponse> sentFuture;
+        try {
+            sentFuture = send(next.m_messageId, next.m_requestDocument, next.m_replyTimeout);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while sending queued request with message-id " + next.m_messageId, e);
+            next.m_responseFuture.completeExceptionally(e);
+            return;
+        }
+        sentFuture.whenComplete((response, error) -> {
+            if (error != null) {
+                next.m_responseFuture.completeExceptionally(error);
+            } else {
+                next.m_responseFuture.complete(response);
+            }
+        });
+        next.m_responseFuture.whenComplete((response, error) -> {
+            if (next.m_responseFuture.isCancelled()) {
+                sentFuture.cancel(false);
+            }
+        });
+    }
+
+    @Override
+    public void setPipeliningLimits(int maxOutstandingRequests, int maxQueuedRequests) {
+        if (maxOutstandingRequests < 1 || maxQueuedRequests < 0) {
+            throw new IllegalArgumentException("Invalid pipelining limits, maxOutstandingRequests: " +
+                    maxOutstandingRequests + " maxQueuedRequests: " + maxQueuedRequests);
+        }
+        synchronized (m_pipelineLock) {
+            m_maxOutstandingRequests = maxOutstandingRequests;
+            m_maxQueuedRequests = maxQueuedRequests;
+        }
+    }
+
+    @Override
+    public NetconfClientSessionStatistics getStatistics() {
+        synchronized (m_pipelineLock) {
+            return new NetconfClientSessionStatistics(m_inFlightRequests, m_peakInFlightRequests, m_queuedRequests
+                    .size(), m_completedRequests, m_timedOutRequests, m_failedRequests, m_rejectedRequests,
+                    m_closedRequests, m_totalRoundTripNanos, m_maxRoundTripNanos, m_lastRoundTripNanos);
+        }
+    }
+
     @Override
     public void setMessageId(AbstractNetconfRequest request) {
         final String currentMessageId = String.valueOf(m_messageId.addAndGet(1));
@@ -289,6 +562,23 @@ public abstract class AbstractNetconfClientSession implements NetconfClientSessi
     @Override
     public void sessionClosed() {
         LOGGER.debug("Received session closed on sessionId : " + m_sessionId);
+        // no reply will come for the outstanding requests, do not keep the callers waiting until they time out
+        List<QueuedRequest> queuedRequests;
+        synchronized (m_pipelineLock) {
+            m_closed = true;
+            queuedRequests = new ArrayList<>(m_queuedRequests);
+            m_queuedRequests.clear();
+            for (QueuedRequest queuedRequest : queuedRequests) {
+                queuedRequest.m_dequeued = true;
+            }
+            m_closedRequests += queuedRequests.size();
+        }
+        for (QueuedRequest queuedRequest : queuedRequests) {
+            queuedRequest.m_responseFuture.complete(null);
+        }
+        for (CompletableFuture<NetConfResponse> responseFuture : m_pendingResponses.values()) {
+            responseFuture.complete(null);
+        }
         for (NetconfClientSessionListener listener : m_sessionListeners) {
             listener.sessionClosed(this.m_sessionId);
         }
@@ -373,4 +663,32 @@ public abstract class AbstractNetconfClientSession implements NetconfClientSessi
     @Override
     public void closeGracefully() throws IOException {
     }
+
+    private static final class QueuedRequest {
+        private final String m_messageId;
+        private final Document m_requestDocument;
+        private final long m_replyTimeout;
+        private final CompletableFuture<NetConfResponse> m_responseFuture = new CompletableFuture<>();
+        // guarded by m_pipelineLock, set once the request left the queue
+        private boolean m_dequeued;
+
+        QueuedRequest(String messageId, Document requestDocument, long replyTimeout) {
+            m_messageId = messageId;
+            m_requestDocument = requestDocument;
+            m_replyTimeout = replyTimeout;
+        }
+    }
+
+    /**
+     * Threads that wait on the replies of subclasses that still return a plain {@link Future}.
+     */
+    private static final class LegacyResponseWaiters {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new DefaultThreadFactory(
+                "NetconfClientLegacyResponses", true));
+    }
+
+    private static final class ResponseTimer {
+        private static final Timer INSTANCE = new HashedWheelTimer(new DefaultThreadFactory(
+                "NetconfClientResponseTimer", true), 10, TimeUnit.MILLISECONDS);
+    }
 }
@@ -43,6 +43,8 @@ public class NetconfClientConfiguration {
     private final EventLoopGroup m_eventLoopGroup;
     private AsynchronousChannelGroup m_asynChannelGroup;
     private AuthenticationListener m_authenticationListener;
+    private int m_maxOutstandingRequests = NetconfClientSession.DEFAULT_MAX_OUTSTANDING_REQUESTS;
+    private int m_maxQueuedRequests = NetconfClientSession.DEFAULT_MAX_QUEUED_REQUESTS;
 
     public NetconfClientConfiguration(Long connectionTimeoutMillis, NetconfLoginProvider loginProvider, Set<String>
             caps,
@@ -134,6 +136,34 @@ public class NetconfClientConfiguration {
         this.m_asynChannelGroup = asynChannelGroup;
     }
 
+    /**
+     * Maximum number of requests a session sends without waiting for their replies, see
+     * {@link NetconfClientSession#setPipeliningLimits(int, int)}.
+     *
+     * @return
+     */
+    public int getMaxOutstandingRequests() {
+        return m_maxOutstandingRequests;
+    }
+
+    public void setMaxOutstandingRequests(int maxOutstandingRequests) {
+        this.m_maxOutstandingRequests = maxOutstandingRequests;
+    }
+
+    /**
+     * Maximum number of requests a session queues while the maximum number of requests is outstanding, see
+     * {@link NetconfClientSession#setPipeliningLimits(int, int)}.
+     *
+     * @return
+     */
+    public int getMaxQueuedRequests() {
+        return m_maxQueuedRequests;
+    }
+
+    public void setMaxQueuedRequests(int maxQueuedRequests) {
+        this.m_maxQueuedRequests = maxQueuedRequests;
+    }
+
     @Override
     public String toString() {
         return "NetconfClientConfiguration{" + "m_connectionTimeoutMillis=" + m_connectionTimeoutMillis +
@@ -142,7 +172,8 @@ public class NetconfClientConfiguration {
                 m_clientSessionListener
                 + ", m_eventLoopGroup=" + m_eventLoopGroup + ", m_asynChannelGroup=" + m_asynChannelGroup + ", " +
                 "m_authenticationListener="
-                + m_authenticationListener + '}';
+                + m_authenticationListener + ", m_maxOutstandingRequests=" + m_maxOutstandingRequests + ", " +
+                "m_maxQueuedRequests=" + m_maxQueuedRequests + '}';
     }
 
 }
@@ -62,6 +62,8 @@ public interface NetconfClientSession {
     public static int DEFAULT_KEEP_ALIVE_PROBES = 3;
     public static long DEFAULT_KEEP_ALIVE_TIMEOUT_MILLIS = 10000;
     public static final long DEFAULT_CONNECT_TIMEOUT_SECS = 10L;
+    public static final int DEFAULT_MAX_OUTSTANDING_REQUESTS = Integer.MAX_VALUE;
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = Integer.MAX_VALUE;
 
     void setMessageId(AbstractNetconfRequest request);
 
@@ -538,4 +540,23 @@ public interface NetconfClientSession {
     long getIdleTimeStart();
 
     void closeGracefully() throws IOException;
+
+    /**
+     * Limits the requests pipelined on this session. Up to maxOutstandingRequests requests are sent without waiting
+     * for their replies, further requests are queued until a reply frees a slot. When maxQueuedRequests requests are
+     * already queued, the returned Future fails with a {@link java.util.concurrent.RejectedExecutionException}.
+     * The reply timeout of a queued request starts when it is sent.
+     *
+     * @param maxOutstandingRequests - maximum number of requests waiting for a reply, at least 1.
+     * @param maxQueuedRequests      - maximum number of requests waiting to be sent, 0 rejects requests as soon as the
+     *                               window is full.
+     */
+    void setPipeliningLimits(int maxOutstandingRequests, int maxQueuedRequests);
+
+    /**
+     * Reports the in-flight and queued requests and the round trip times of this session.
+     *
+     * @return a snapshot of the session's request statistics.
+     */
+    NetconfClientSessionStatistics getStatistics();
 }
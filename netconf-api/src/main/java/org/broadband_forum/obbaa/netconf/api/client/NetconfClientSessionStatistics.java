@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the request pipeline of a {@link NetconfClientSession}.
+ *
+ * In-flight requests have been sent and wait for their reply, queued requests wait for a free slot in the window of
+ * outstanding requests. Round trip times are measured from sending a request to receiving its reply, requests that
+ * timed out, failed or were cut short by the closing of the session are not included.
+ */
+public class NetconfClientSessionStatistics {
+
+    private final int m_inFlightRequests;
+    private final int m_peakInFlightRequests;
+    private final int m_queuedRequests;
+    private final long m_completedRequests;
+    private final long m_timedOutRequests;
+    private final long m_failedRequests;
+    private final long m_rejectedRequests;
+    private final long m_closedRequests;
+    private final long m_totalRoundTripNanos;
+    private final long m_maxRoundTripNanos;
+    private final long m_lastRoundTripNanos;
+
+    NetconfClientSessionStatistics(int inFlightRequests, int peakInFlightRequests, int queuedRequests, long
+            completedRequests, long timedOutRequests, long failedRequests, long rejectedRequests, long
+            closedRequests, long totalRoundTripNanos, long maxRoundTripNanos, long lastRoundTripNanos) {
+        m_inFlightRequests = inFlightRequests;
+        m_peakInFlightRequests = peakInFlightRequests;
+        m_queuedRequests = queuedRequests;
+        m_completedRequests = completedRequests;
+        m_timedOutRequests = timedOutRequests;
+        m_failedRequests = failedRequests;
+        m_rejectedRequests = rejectedRequests;
+        m_closedRequests = closedRequests;
+        m_totalRoundTripNanos = totalRoundTripNanos;
+        m_maxRoundTripNanos = maxRoundTripNanos;
+        m_lastRoundTripNanos = lastRoundTripNanos;
+    }
+
+    public int getInFlightRequests() {
+        return m_inFlightRequests;
+    }
+
+    public int getPeakInFlightRequests() {
+        return m_peakInFlightRequests;
+    }
+
+    public int getQueuedRequests() {
+        return m_queuedRequests;
+    }
+
+    public long getCompletedRequests() {
+        return m_completedRequests;
+    }
+
+    public long getTimedOutRequests() {
+        return m_timedOutRequests;
+    }
+
+    public long getFailedRequests() {
+        return m_failedRequests;
+    }
+
+    /**
+     * Requests refused because the window of outstanding requests and the queue were both full.
+     */
+    public long getRejectedRequests() {
+        return m_rejectedRequests;
+    }
+
+    /**
+     * Requests in flight or queued when the session was closed, they are completed without a reply.
+     */
+    public long getClosedRequests() {
+        return m_closedRequests;
+    }
+
+    public double getAverageRoundTripTimeMillis() {
+        if (m_completedRequests == 0) {
+            return 0;
+        }
+        return (double) m_totalRoundTripNanos / m_completedRequests / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxRoundTripTimeMillis() {
+        return (double) m_maxRoundTripNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getLastRoundTripTimeMillis() {
+        return (double) m_lastRoundTripNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "NetconfClientSessionStatistics{" + "inFlightRequests=" + m_inFlightRequests + ", " +
+                "peakInFlightRequests=" + m_peakInFlightRequests + ", queuedRequests=" + m_queuedRequests + ", " +
+                "completedRequests=" + m_completedRequests + ", timedOutRequests=" + m_timedOutRequests + ", " +
+                "failedRequests=" + m_failedRequests + ", rejectedRequests=" + m_rejectedRequests + ", " +
+                "closedRequests=" + m_closedRequests + ", " +
+                "averageRoundTripTimeMillis=" + getAverageRoundTripTimeMillis() + ", maxRoundTripTimeMillis=" +
+                getMaxRoundTripTimeMillis() + '}';
+    }
+}
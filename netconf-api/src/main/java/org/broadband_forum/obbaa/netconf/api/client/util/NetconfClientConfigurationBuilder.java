@@ -19,6 +19,7 @@ package org.broadband_forum.obbaa.netconf.api.client.util;
 import org.broadband_forum.obbaa.netconf.api.NetconfConfigurationBuilderException;
 import org.broadband_forum.obbaa.netconf.api.authentication.AuthenticationListener;
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientConfiguration;
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientSession;
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientSessionListener;
 import org.broadband_forum.obbaa.netconf.api.client.NetconfLoginProvider;
 import org.broadband_forum.obbaa.netconf.api.transport.NetconfTransportFactory;
@@ -50,11 +51,15 @@ public class NetconfClientConfigurationBuilder {
     private EventLoopGroup m_eventLoopGroup;
     private AsynchronousChannelGroup m_asyncChannelGroup;
     private AuthenticationListener m_authenticationListener;
+    private int m_maxOutstandingRequests = NetconfClientSession.DEFAULT_MAX_OUTSTANDING_REQUESTS;
+    private int m_maxQueuedRequests = NetconfClientSession.DEFAULT_MAX_QUEUED_REQUESTS;
 
     public NetconfClientConfiguration build() {
         NetconfClientConfiguration config = new NetconfClientConfiguration(m_connectionTimeoutMillis, m_loginProvider,
                 m_caps, m_transport, m_eventLoopGroup, m_asyncChannelGroup, m_authenticationListener);
         config.setClientSessionListener(m_clientSessionListener);
+        config.setMaxOutstandingRequests(m_maxOutstandingRequests);
+        config.setMaxQueuedRequests(m_maxQueuedRequests);
         return config;
     }
 
@@ -117,6 +122,22 @@ public class NetconfClientConfigurationBuilder {
         return this;
     }
 
+    /**
+     * See {@link NetconfClientSession#setPipeliningLimits(int, int)}.
+     */
+    public NetconfClientConfigurationBuilder setMaxOutstandingRequests(int maxOutstandingRequests) {
+        this.m_maxOutstandingRequests = maxOutstandingRequests;
+        return this;
+    }
+
+    /**
+     * See {@link NetconfClientSession#setPipeliningLimits(int, int)}.
+     */
+    public NetconfClientConfigurationBuilder setMaxQueuedRequests(int maxQueuedRequests) {
+        this.m_maxQueuedRequests = maxQueuedRequests;
+        return this;
+    }
+
     public NetconfClientConfigurationBuilder addCapability(String capability) {
         ensureCapsNotNull();
         m_caps.add(capability);
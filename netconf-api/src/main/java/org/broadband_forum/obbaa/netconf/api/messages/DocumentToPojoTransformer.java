@@ -16,9 +16,8 @@
 
 package org.broadband_forum.obbaa.netconf.api.messages;
 
-import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,17 +27,15 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import org.apache.log4j.Logger;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+import org.broadband_forum.obbaa.netconf.api.util.XmlProcessors;
+import org.broadband_forum.obbaa.netconf.api.util.XmlProcessors.Format;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -52,7 +49,6 @@ import org.w3c.dom.NodeList;
  * @author keshava
  */
 public class DocumentToPojoTransformer {
-    static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
     static final String LF = "\n";
     static final String HASH = "#";
     static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE;// FIXME: FNMS-6877 this is no good, RFC 6242 says max chunk
@@ -645,23 +641,20 @@ public class DocumentToPojoTransformer {
     }
 
     public static byte[] getBytesFromDocument(Document requestDocument) throws NetconfMessageBuilderException {
-        try {
-            Transformer transformer;
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            transformer = TRANSFORMER_FACTORY.newTransformer();
-
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-
-            StreamResult result = new StreamResult(new BufferedWriter(new OutputStreamWriter(bos)));
-            DOMSource source = new DOMSource(requestDocument);
-            transformer.transform(source, result);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writeDocument(requestDocument, bos);
+        return bos.toByteArray();
+    }
 
-            return bos.toByteArray();
+    /**
+     * Serializes the document as {@link #getBytesFromDocument(Document)} does, straight to the given stream.
+     */
+    public static void writeDocument(Document document, OutputStream out) throws NetconfMessageBuilderException {
+        try {
+            XmlProcessors.transform(document, new StreamResult(out), Format.INDENTED);
         } catch (TransformerException e) {
             throw new NetconfMessageBuilderException("Error while getting bytes from document ", e);// $COVERAGE-IGNORE$
         }
-
     }
 
     static String getChunk(String reply, int startIndex, int endIndex) {
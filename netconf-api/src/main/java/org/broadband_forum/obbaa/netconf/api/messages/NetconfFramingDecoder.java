@@ -0,0 +1,380 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.messages;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+
+/**
+ * Incremental decoder for the NETCONF over SSH framing mechanisms.
+ *
+ * Bytes are fed to the decoder as they arrive from the transport. Each byte is looked at once: the end-of-message
+ * delimiter is tracked with a small state machine and chunk headers are parsed as they stream by, so the cost of
+ * decoding grows linearly with the message size. The payload is accumulated in a single byte buffer and handed to the
+ * {@link MessageListener} as an InputStream, without decoding it into a String first.
+ *
+ * The framing can be switched (from end-of-message to chunked after the hello exchange) from within the listener,
+ * the remaining bytes of the buffer being decoded are then decoded with the new framing.
+ *
+ * A framing error discards the partially decoded message. By default the error is thrown right away and the rest of
+ * the bytes are not decoded, the session is expected to be terminated. With {@link #setResynchronizeOnError(boolean)}
+ * the decoder instead skips the bytes up to the end of the broken message, the end-of-chunks marker or the
+ * end-of-message delimiter, and decodes the following messages. The first error is then thrown once all the bytes
+ * have been decoded.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc6242#section-4.2">RFC 6242 Framing Protocol</a>
+ */
+public class NetconfFramingDecoder {
+
+    public enum Framing {
+        EOM, CHUNKED
+    }
+
+    /**
+     * Receives the decoded messages. The InputStream is backed by the decoder's buffer and is valid only until the
+     * call returns.
+     */
+    public interface MessageListener {
+        void messageReceived(InputStream message) throws IOException;
+    }
+
+    private enum ChunkState {
+        HEADER_LF, HEADER_HASH, HEADER_SIZE_START, HEADER_SIZE, CHUNK_DATA, END_OF_CHUNKS_LF
+    }
+
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 256 * 1024 * 1024;
+    // RFC 6242 limits the chunk-size to 4294967295
+    private static final long MAX_CHUNK_SIZE = 4294967295L;
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final int RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] EOM_DELIMITER = NetconfResources.RPC_EOM_DELIMITER.getBytes(StandardCharsets.UTF_8);
+    private static final int[] EOM_FALLBACK = buildFallback(EOM_DELIMITER);
+    private static final byte[] END_OF_CHUNKS = "\n##\n".getBytes(StandardCharsets.UTF_8);
+    private static final int[] END_OF_CHUNKS_FALLBACK = buildFallback(END_OF_CHUNKS);
+
+    private final int m_maxMessageSize;
+    private Framing m_framing;
+    private byte[] m_buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int m_size;
+    private int m_eomMatched;
+    private ChunkState m_chunkState = ChunkState.HEADER_LF;
+    private long m_chunkRemaining;
+    private boolean m_chunkReceived;
+    private boolean m_resynchronizeOnError;
+    private boolean m_discarding;
+    private int m_markerMatched;
+    // where decoding resumes and whether the rest of the message is skipped, when the current step fails
+    private int m_resumePosition;
+    private boolean m_discardAfterError;
+
+    public NetconfFramingDecoder(Framing framing) {
+        this(framing, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    public NetconfFramingDecoder(Framing framing, int maxMessageSize) {
+        m_framing = framing;
+        m_maxMessageSize = maxMessageSize;
+    }
+
+    public Framing getFraming() {
+        return m_framing;
+    }
+
+    public void setFraming(Framing framing) {
+        m_framing = framing;
+    }
+
+    public int getMaxMessageSize() {
+        return m_maxMessageSize;
+    }
+
+    public boolean isResynchronizeOnError() {
+        return m_resynchronizeOnError;
+    }
+
+    public void setResynchronizeOnError(boolean resynchronizeOnError) {
+        m_resynchronizeOnError = resynchronizeOnError;
+    }
+
+    /**
+     * Decodes the given bytes, notifying the listener for every message completed by them.
+     *
+     * @throws NetconfMessageBuilderException if the bytes violate the framing or a message exceeds the maximum
+     *                                        message size. The partially decoded message is discarded.
+     */
+    public void decode(byte[] bytes, int offset, int length, MessageListener listener) throws
+            NetconfMessageBuilderException, IOException {
+        int position = offset;
+        int end = offset + length;
+        NetconfMessageBuilderException firstError = null;
+        while (position < end) {
+            try {
+                if (m_discarding) {
+                    position = discard(bytes, position, end);
+                } else if (m_framing == Framing.CHUNKED) {
+                    position = decodeChunked(bytes, position, end, listener);
+                } else {
+                    position = decodeEom(bytes, position, end, listener);
+                }
+            } catch (NetconfMessageBuilderException e) {
+                if (!m_resynchronizeOnError) {
+                    throw e;
+                }
+                if (firstError == null) {
+                    firstError = e;
+                }
+                position = m_resumePosition;
+                m_discarding = m_discardAfterError;
+            }
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+    }
+
+    private int decodeEom(byte[] bytes, int start, int end, MessageListener listener) throws
+            NetconfMessageBuilderException, IOException {
+        int matched = m_eomMatched;
+        for (int position = start; position < end; position++) {
+            byte current = bytes[position];
+            while (matched > 0 && EOM_DELIMITER[matched] != current) {
+                matched = EOM_FALLBACK[matched - 1];
+            }
+            if (EOM_DELIMITER[matched] == current) {
+                matched++;
+            }
+            if (matched == EOM_DELIMITER.length) {
+                m_eomMatched = 0;
+                // the message is complete, an oversized one is simply dropped
+                m_resumePosition = position + 1;
+                m_discardAfterError = false;
+                append(bytes, start, position + 1 - start, EOM_DELIMITER.length);
+                messageCompleted(m_size - EOM_DELIMITER.length, listener);
+                return position + 1;
+            }
+        }
+        m_eomMatched = matched;
+        m_resumePosition = end;
+        m_discardAfterError = true;
+        m_markerMatched = matched;
+        append(bytes, start, end - start, EOM_DELIMITER.length);
+        return end;
+    }
+
+    private int decodeChunked(byte[] bytes, int start, int end, MessageListener listener) throws
+            NetconfMessageBuilderException, IOException {
+        int position = start;
+        m_discardAfterError = true;
+        while (position < end) {
+            // a broken message is skipped from the byte in error on, the header bytes before it may already be part
+            // of the end-of-chunks marker
+            m_resumePosition = position;
+            m_markerMatched = markerBytesMatched(m_chunkState);
+            if (m_chunkState == ChunkState.CHUNK_DATA) {
+                int length = (int) Math.min(m_chunkRemaining, end - position);
+                append(bytes, position, length, 0);
+                position += length;
+                m_chunkRemaining -= length;
+                if (m_chunkRemaining == 0) {
+                    m_chunkState = ChunkState.HEADER_LF;
+                }
+                continue;
+            }
+            byte current = bytes[position++];
+            switch (m_chunkState) {
+                case HEADER_LF:
+                    expect(current, '\n');
+                    m_chunkState = ChunkState.HEADER_HASH;
+                    break;
+                case HEADER_HASH:
+                    expect(current, '#');
+                    m_chunkState = ChunkState.HEADER_SIZE_START;
+                    break;
+                case HEADER_SIZE_START:
+                    if (current == '#' && m_chunkReceived) {
+                        m_chunkState = ChunkState.END_OF_CHUNKS_LF;
+                    } else if (current >= '1' && current <= '9') {
+                        m_chunkRemaining = current - '0';
+                        m_chunkState = ChunkState.HEADER_SIZE;
+                    } else {
+                        throw framingError("Invalid chunk header, unexpected character " + printable(current));
+                    }
+                    break;
+                case HEADER_SIZE:
+                    if (current >= '0' && current <= '9') {
+                        m_chunkRemaining = m_chunkRemaining * 10 + (current - '0');
+                        if (m_chunkRemaining > MAX_CHUNK_SIZE) {
+                            throw framingError("Invalid chunk header, chunk-size exceeds " + MAX_CHUNK_SIZE);
+                        }
+                    } else if (current == '\n') {
+                        // reject before receiving the data when the header already tells it won't fit
+                        checkSize(m_chunkRemaining, 0);
+                        m_chunkReceived = true;
+                        m_chunkState = ChunkState.CHUNK_DATA;
+                    } else {
+                        throw framingError("Invalid chunk header, unexpected character " + printable(current));
+                    }
+                    break;
+                case END_OF_CHUNKS_LF:
+                    expect(current, '\n');
+                    m_chunkState = ChunkState.HEADER_LF;
+                    m_chunkReceived = false;
+                    messageCompleted(m_size, listener);
+                    return position;
+                default:
+                    throw framingError("Unexpected decoder state " + m_chunkState);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Skips the bytes of a broken message up to the marker ending it.
+     */
+    private int discard(byte[] bytes, int start, int end) {
+        byte[] marker = m_framing == Framing.CHUNKED ? END_OF_CHUNKS : EOM_DELIMITER;
+        int[] fallback = m_framing == Framing.CHUNKED ? END_OF_CHUNKS_FALLBACK : EOM_FALLBACK;
+        int matched = m_markerMatched;
+        for (int position = start; position < end; position++) {
+            byte current = bytes[position];
+            while (matched > 0 && marker[matched] != current) {
+                matched = fallback[matched - 1];
+            }
+            if (marker[matched] == current) {
+                matched++;
+            }
+            if (matched == marker.length) {
+                m_discarding = false;
+                m_markerMatched = 0;
+                return position + 1;
+            }
+        }
+        m_markerMatched = matched;
+        return end;
+    }
+
+    private void messageCompleted(int length, MessageListener listener) throws IOException {
+        byte[] message = m_buffer;
+        int offset = 0;
+        // leading white space is not part of the XML document, e.g. the new line following a previous delimiter
+        while (offset < length && isWhitespace(message[offset])) {
+            offset++;
+        }
+        m_size = 0;
+        if (m_buffer.length > RETAINED_BUFFER_SIZE) {
+            m_buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        if (offset < length) {
+            listener.messageReceived(new ByteArrayInputStream(message, offset, length - offset));
+        }
+    }
+
+    private void append(byte[] bytes, int offset, int length, int delimiterLength) throws
+            NetconfMessageBuilderException {
+        if (length == 0) {
+            return;
+        }
+        checkSize(length, delimiterLength);
+        int required = m_size + length;
+        if (required > m_buffer.length) {
+            int newCapacity = Math.max(required, m_buffer.length << 1);
+            if (newCapacity < 0) {
+                newCapacity = required;
+            }
+            m_buffer = Arrays.copyOf(m_buffer, newCapacity);
+        }
+        System.arraycopy(bytes, offset, m_buffer, m_size, length);
+        m_size = required;
+    }
+
+    private void checkSize(long additional, int delimiterLength) throws NetconfMessageBuilderException {
+        if (m_size + additional - delimiterLength > m_maxMessageSize) {
+            reset();
+            throw new NetconfMessageBuilderException("NETCONF message exceeds the maximum message size of " +
+                    m_maxMessageSize + " bytes");
+        }
+    }
+
+    private void expect(byte actual, char expected) throws NetconfMessageBuilderException {
+        if (actual != expected) {
+            throw framingError("Invalid chunk header, expected " + printable((byte) expected) + " but got " +
+                    printable(actual));
+        }
+    }
+
+    private NetconfMessageBuilderException framingError(String message) {
+        reset();
+        return new NetconfMessageBuilderException(message);
+    }
+
+    /**
+     * Discards the partially decoded message and starts over at a message boundary.
+     */
+    public void reset() {
+        m_size = 0;
+        m_eomMatched = 0;
+        m_chunkState = ChunkState.HEADER_LF;
+        m_chunkRemaining = 0;
+        m_chunkReceived = false;
+        m_discarding = false;
+        if (m_buffer.length > RETAINED_BUFFER_SIZE) {
+            m_buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+    }
+
+    private static String printable(byte value) {
+        return value >= 0x20 && value < 0x7f ? "'" + (char) value + "'" : String.format("0x%02x", value);
+    }
+
+    private static int markerBytesMatched(ChunkState state) {
+        switch (state) {
+            case HEADER_HASH:
+                return 1;
+            case HEADER_SIZE_START:
+                return 2;
+            case END_OF_CHUNKS_LF:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    private static int[] buildFallback(byte[] pattern) {
+        int[] fallback = new int[pattern.length];
+        int matched = 0;
+        for (int i = 1; i < pattern.length; i++) {
+            while (matched > 0 && pattern[i] != pattern[matched]) {
+                matched = fallback[matched - 1];
+            }
+            if (pattern[i] == pattern[matched]) {
+                matched++;
+            }
+            fallback[i] = matched;
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+
+/**
+ * Frames a single message as it is being serialized, the counterpart of {@link NetconfFramingDecoder}.
+ *
+ * The payload is collected in a buffer of the chunk size. Every time the buffer fills up it is written to the
+ * underlying stream as one frame (a chunk with its header, or plain bytes for end-of-message framing), so at most one
+ * chunk of the message is held in memory whatever the size of the message. Closing the stream writes the last frame
+ * together with the end-of-chunks or end-of-message delimiter and closes the underlying stream.
+ *
+ * Each frame is handed to the underlying stream in a single write call, a message that fits in one chunk is written
+ * with exactly one call. The frame buffer is reused, the underlying stream must not keep a reference to the written
+ * array.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc6242#section-4.2">RFC 6242 Framing Protocol</a>
+ */
+public class NetconfFramingOutputStream extends OutputStream {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    // LF HASH chunk-size LF, the chunk-size having at most 10 digits
+    private static final int MAX_HEADER_SIZE = 13;
+    private static final byte[] END_OF_CHUNKS = NetconfResources.RPC_CHUNKED_DELIMITER.getBytes(StandardCharsets
+            .UTF_8);
+    private static final byte[] END_OF_MESSAGE = NetconfResources.RPC_EOM_DELIMITER.getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream m_out;
+    private final Framing m_framing;
+    private final int m_chunkSize;
+    private final byte[] m_frame;
+    private int m_size;
+    private boolean m_closed;
+
+    public NetconfFramingOutputStream(OutputStream out, Framing framing) {
+        this(out, framing, DEFAULT_CHUNK_SIZE);
+    }
+
+    public NetconfFramingOutputStream(OutputStream out, Framing framing, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        m_out = out;
+        m_framing = framing;
+        m_chunkSize = chunkSize;
+        // room for the header in front of the payload and for the delimiter after it
+        m_frame = new byte[MAX_HEADER_SIZE + chunkSize + Math.max(END_OF_CHUNKS.length, END_OF_MESSAGE.length)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (m_size == m_chunkSize) {
+            writeFrame(null);
+        }
+        m_frame[MAX_HEADER_SIZE + m_size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        int position = offset;
+        int end = offset + length;
+        while (position < end) {
+            if (m_size == m_chunkSize) {
+                writeFrame(null);
+            }
+            int count = Math.min(m_chunkSize - m_size, end - position);
+            System.arraycopy(bytes, position, m_frame, MAX_HEADER_SIZE + m_size, count);
+            m_size += count;
+            position += count;
+        }
+    }
+
+    /**
+     * Writes the last frame and the delimiter and closes the underlying stream. A message without payload is written
+     * as the delimiter alone.
+     */
+    @Override
+    public void close() throws IOException {
+        if (m_closed) {
+            return;
+        }
+        m_closed = true;
+        try {
+            writeFrame(m_framing == Framing.CHUNKED ? END_OF_CHUNKS : END_OF_MESSAGE);
+        } finally {
+            m_out.close();
+        }
+    }
+
+    private void writeFrame(byte[] delimiter) throws IOException {
+        int start = MAX_HEADER_SIZE;
+        if (m_framing == Framing.CHUNKED && m_size > 0) {
+            // chunk = LF HASH chunk-size LF chunk-data, written right in front of the payload
+            byte[] header = ("\n#" + m_size + "\n").getBytes(StandardCharsets.US_ASCII);
+            start -= header.length;
+            System.arraycopy(header, 0, m_frame, start, header.length);
+        }
+        int end = MAX_HEADER_SIZE + m_size;
+        if (delimiter != null) {
+            System.arraycopy(delimiter, 0, m_frame, end, delimiter.length);
+            end += delimiter.length;
+        }
+        m_size = 0;
+        if (end > start) {
+            m_out.write(m_frame, start, end - start);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (m_closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+}
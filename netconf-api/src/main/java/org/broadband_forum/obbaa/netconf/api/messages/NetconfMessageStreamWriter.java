@@ -0,0 +1,276 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.messages;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Serializes NETCONF messages by walking their nodes straight into an {@link XMLStreamWriter}.
+ *
+ * A reply is written from its {@link NetConfResponse} without building the rpc-reply {@link Document}: the data of the
+ * response is walked where it is, instead of being imported into a new document by
+ * {@link NetConfResponse#getResponseDocument()} first. The output is the markup written by
+ * {@link org.broadband_forum.obbaa.netconf.api.util.DocumentUtils#documentToString(Node)}, without XML declaration,
+ * only characters that need no escaping may be escaped differently.
+ */
+public final class NetconfMessageStreamWriter {
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final String ENCODING = "UTF-8";
+
+    private NetconfMessageStreamWriter() {
+    }
+
+    /**
+     * Writes the rpc-reply of the response to the stream, the stream is flushed but not closed.
+     */
+    public static void writeResponse(NetConfResponse response, OutputStream out) throws NetconfMessageBuilderException {
+        // the envelope holds the rpc-reply element and the errors, the data is written from where it is
+        PojoToDocumentTransformer envelopeBuilder = new PojoToDocumentTransformer();
+        synchronized (response) {
+            envelopeBuilder.newNetconfRpcReplyDocument(response.getMessageId(), response.getOtherRpcAttributes())
+                    .addRpcErrors(response.getErrors());
+        }
+        Document envelope = envelopeBuilder.m_doc;
+        Element rpcReply = envelope.getDocumentElement();
+        try {
+            XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out, ENCODING);
+            NamespaceScope scope = new NamespaceScope();
+            List<String[]> declared = startElement(rpcReply, writer, scope);
+            writeChildren(rpcReply, writer, scope);
+            if (response.getData() != null) {
+                writeNode(response.getData(), writer, scope);
+            }
+            if (response.isOk()) {
+                writeNode(envelope.createElementNS(NetconfResources.NETCONF_RPC_NS_1_0, NetconfResources.OK), writer,
+                        scope);
+            }
+            writer.writeEndElement();
+            scope.restore(declared);
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new NetconfMessageBuilderException("Error while writing response ", e);
+        }
+    }
+
+    /**
+     * Writes the node and its descendants to the stream, the stream is flushed but not closed.
+     */
+    public static void writeNode(Node node, OutputStream out) throws NetconfMessageBuilderException {
+        try {
+            XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out, ENCODING);
+            writeNode(node, writer, new NamespaceScope());
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new NetconfMessageBuilderException("Error while writing document ", e);
+        }
+    }
+
+    private static void writeNode(Node node, XMLStreamWriter writer, NamespaceScope scope) throws
+            XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                Element element = (Element) node;
+                boolean empty = !element.hasChildNodes();
+                List<String[]> declared = empty ? writeEmptyElement(element, writer, scope)
+                        : startElement(element, writer, scope);
+                if (!empty) {
+                    writeChildren(element, writer, scope);
+                    writer.writeEndElement();
+                }
+                scope.restore(declared);
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(node.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(node.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                writer.writeProcessingInstruction(node.getNodeName(), node.getNodeValue());
+                break;
+            case Node.DOCUMENT_NODE:
+            case Node.DOCUMENT_FRAGMENT_NODE:
+            case Node.ENTITY_REFERENCE_NODE:
+                writeChildren(node, writer, scope);
+                break;
+            default:
+                // document types, entities and notations have no place in a NETCONF message
+                break;
+        }
+    }
+
+    private static void writeChildren(Node node, XMLStreamWriter writer, NamespaceScope scope) throws
+            XMLStreamException {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, writer, scope);
+        }
+    }
+
+    private static List<String[]> startElement(Element element, XMLStreamWriter writer, NamespaceScope scope) throws
+            XMLStreamException {
+        String localName = localName(element);
+        writer.writeStartElement(nullToEmpty(element.getPrefix()), localName, nullToEmpty(element
+                .getNamespaceURI()));
+        return writeNamespacesAndAttributes(element, writer, scope);
+    }
+
+    private static List<String[]> writeEmptyElement(Element element, XMLStreamWriter writer, NamespaceScope scope)
+            throws XMLStreamException {
+        writer.writeEmptyElement(nullToEmpty(element.getPrefix()), localName(element), nullToEmpty(element
+                .getNamespaceURI()));
+        return writeNamespacesAndAttributes(element, writer, scope);
+    }
+
+    /**
+     * Writes the namespace declarations of the element, the ones of its attributes and those missing for its own
+     * namespace and the namespaces of its attributes, the way a serializer fixes up the namespaces of a DOM. Returns
+     * the bindings to restore once the element is written.
+     */
+    private static List<String[]> writeNamespacesAndAttributes(Element element, XMLStreamWriter writer,
+                                                               NamespaceScope scope) throws XMLStreamException {
+        List<String[]> declared = new ArrayList<>();
+        NamedNodeMap attributes = element.getAttributes();
+        List<Attr> plainAttributes = new ArrayList<>(attributes.getLength());
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            String name = attribute.getName();
+            if (XMLConstants.XMLNS_ATTRIBUTE.equals(name)) {
+                declare(XMLConstants.DEFAULT_NS_PREFIX, attribute.getValue(), writer, scope, declared);
+            } else if (name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                declare(name.substring(XMLConstants.XMLNS_ATTRIBUTE.length() + 1), attribute.getValue(), writer,
+                        scope, declared);
+            } else {
+                plainAttributes.add(attribute);
+            }
+        }
+        String prefix = nullToEmpty(element.getPrefix());
+        String namespace = nullToEmpty(element.getNamespaceURI());
+        if (element.getLocalName() != null && !namespace.equals(scope.getNamespace(prefix))) {
+            declare(prefix, namespace, writer, scope, declared);
+        }
+        for (Attr attribute : plainAttributes) {
+            String attributeNamespace = attribute.getNamespaceURI();
+            if (attribute.getLocalName() == null || attributeNamespace == null || attributeNamespace.isEmpty()) {
+                writer.writeAttribute(attribute.getName(), attribute.getValue());
+                continue;
+            }
+            String attributePrefix = attribute.getPrefix();
+            if (attributePrefix == null) {
+                attributePrefix = scope.getPrefix(attributeNamespace);
+            }
+            if (!attributeNamespace.equals(scope.getNamespace(attributePrefix))) {
+                declare(attributePrefix, attributeNamespace, writer, scope, declared);
+            }
+            writer.writeAttribute(attributePrefix, attributeNamespace, attribute.getLocalName(), attribute.getValue());
+        }
+        return declared;
+    }
+
+    private static void declare(String prefix, String namespace, XMLStreamWriter writer, NamespaceScope scope,
+                                List<String[]> declared) throws XMLStreamException {
+        if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+            return;
+        }
+        if (prefix.isEmpty()) {
+            writer.writeDefaultNamespace(namespace);
+        } else {
+            writer.writeNamespace(prefix, namespace);
+        }
+        declared.add(new String[]{prefix, scope.bind(prefix, namespace)});
+    }
+
+    private static String localName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * The prefixes bound on the path to the element being written.
+     */
+    private static final class NamespaceScope {
+        private final Map<String, String> m_bindings = new HashMap<>();
+        private int m_generatedPrefixes;
+
+        NamespaceScope() {
+            m_bindings.put(XMLConstants.DEFAULT_NS_PREFIX, XMLConstants.NULL_NS_URI);
+            m_bindings.put(XMLConstants.XML_NS_PREFIX, XMLConstants.XML_NS_URI);
+        }
+
+        String getNamespace(String prefix) {
+            return m_bindings.get(prefix);
+        }
+
+        /**
+         * A non default prefix bound to the namespace, a new one if there is none.
+         */
+        String getPrefix(String namespace) {
+            for (Map.Entry<String, String> binding : m_bindings.entrySet()) {
+                if (!binding.getKey().isEmpty() && Objects.equals(binding.getValue(), namespace)) {
+                    return binding.getKey();
+                }
+            }
+            String prefix;
+            do {
+                prefix = "ns" + m_generatedPrefixes++;
+            } while (m_bindings.containsKey(prefix));
+            return prefix;
+        }
+
+        /**
+         * Binds the prefix and returns the namespace it was bound to, null if it was not bound.
+         */
+        String bind(String prefix, String namespace) {
+            return m_bindings.put(prefix, namespace);
+        }
+
+        void restore(List<String[]> declared) {
+            for (int i = declared.size() - 1; i >= 0; i--) {
+                String[] binding = declared.get(i);
+                if (binding[1] == null) {
+                    m_bindings.remove(binding[0]);
+                } else {
+                    m_bindings.put(binding[0], binding[1]);
+                }
+            }
+        }
+    }
+}
@@ -24,13 +24,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import org.apache.log4j.Logger;
@@ -38,6 +33,8 @@ import org.broadband_forum.obbaa.netconf.api.NetconfMessage;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+import org.broadband_forum.obbaa.netconf.api.util.XmlProcessors;
+import org.broadband_forum.obbaa.netconf.api.util.XmlProcessors.Format;
 import org.broadband_forum.obbaa.netconf.api.server.NetconfQueryParams;
 import org.joda.time.DateTime;
 import org.opendaylight.yangtools.yang.common.QName;
@@ -798,17 +795,9 @@ public class PojoToDocumentTransformer {
     }
 
     public static String prettyPrint(Node element) {
-        Source xmlInput = new DOMSource(element);
-        Transformer transformer;
         try {
-            transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-
             StreamResult xmlOutput = new StreamResult(new StringWriter());
-
-            transformer.transform(xmlInput, xmlOutput);
+            XmlProcessors.transform(element, xmlOutput, Format.PRETTY);
             return xmlOutput.getWriter().toString();
         } catch (TransformerFactoryConfigurationError | TransformerException e) {
             throw new RuntimeException(e);
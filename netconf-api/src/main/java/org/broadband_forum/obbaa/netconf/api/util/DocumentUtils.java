@@ -17,9 +17,11 @@
 package org.broadband_forum.obbaa.netconf.api.util;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -32,14 +34,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import org.apache.log4j.Logger;
@@ -57,6 +53,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcRequest;
+import org.broadband_forum.obbaa.netconf.api.util.XmlProcessors.Format;
 
 import com.sun.org.apache.xml.internal.serialize.OutputFormat;
 import com.sun.org.apache.xml.internal.serialize.XMLSerializer;
@@ -67,11 +64,41 @@ import com.sun.org.apache.xml.internal.serialize.XMLSerializer;
  * @author keshava
  */
 public class DocumentUtils {
-    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
     private static DocumentUtils c_instance = new DocumentUtils();
     private static final Logger LOGGER = Logger.getLogger(DocumentUtils.class);
 
     private static final String PARSE_ERROR = "Error while converting string to xml document";
+    private static final ErrorHandler LOGGING_ERROR_HANDLER = new ErrorHandler() {
+
+        @Override
+        public void warning(SAXParseException e) throws SAXException {
+            LOGGER.warn(PARSE_ERROR, e);
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            LOGGER.fatal(PARSE_ERROR, e);
+        }
+
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+            LOGGER.error(PARSE_ERROR, e);
+        }
+    };
+    private static final ErrorHandler SILENT_ERROR_HANDLER = new ErrorHandler() {
+
+        @Override
+        public void warning(SAXParseException e) throws SAXException {
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+        }
+
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+        }
+    };
 
     private DocumentUtils() {
 
@@ -82,16 +109,7 @@ public class DocumentUtils {
     }
 
     public static Document createDocument() {
-        try {
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            docFactory.setNamespaceAware(true);
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            Document doc = docBuilder.newDocument();
-            return doc;
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException(e);
-        }
-
+        return XmlProcessors.newDocument();
     }
 
     public String getMessageIdFromRpcDocument(Document request) {
@@ -516,37 +534,34 @@ public class DocumentUtils {
     }
 
     public static Document stringToDocument(String msg, boolean logging) throws NetconfMessageBuilderException {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder;
-            factory.setNamespaceAware(true);
-            builder = factory.newDocumentBuilder();
-            builder.setErrorHandler(new ErrorHandler() {
-
-                @Override
-                public void warning(SAXParseException e) throws SAXException {
-                    if (logging) {
-                        LOGGER.warn(PARSE_ERROR, e);
-                    }
-                }
+        return parse(new InputSource(new StringReader(msg.trim())), logging);
+    }
 
-                @Override
-                public void fatalError(SAXParseException e) throws SAXException {
-                    if (logging) {
-                        LOGGER.fatal(PARSE_ERROR, e);
-                    }
-                }
+    /**
+     * Parses a document straight from bytes, e.g. a message delivered by the framing decoder, without building a
+     * String first. The encoding is detected by the parser from the XML declaration.
+     */
+    public static Document inputStreamToDocument(InputStream in) throws NetconfMessageBuilderException {
+        return parse(new InputSource(in), true);
+    }
 
-                @Override
-                public void error(SAXParseException e) throws SAXException {
-                    if (logging) {
-                        LOGGER.error(PARSE_ERROR, e);
-                    }
-                }
-            });
-            return builder.parse(new InputSource(new StringReader(msg.trim())));
+    public static Document bytesToDocument(byte[] bytes) throws NetconfMessageBuilderException {
+        return bytesToDocument(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Parses a document from a region of a byte array, e.g. a message read from the transport, without building a
+     * String first. The encoding is detected by the parser from the XML declaration.
+     */
+    public static Document bytesToDocument(byte[] bytes, int offset, int length) throws
+            NetconfMessageBuilderException {
+        return parse(new InputSource(new ByteArrayInputStream(bytes, offset, length)), true);
+    }
 
-        } catch (SAXException | IOException | ParserConfigurationException e) {
+    private static Document parse(InputSource source, boolean logging) throws NetconfMessageBuilderException {
+        try {
+            return XmlProcessors.parse(source, logging ? LOGGING_ERROR_HANDLER : SILENT_ERROR_HANDLER);
+        } catch (SAXException | IOException e) {
             throw new NetconfMessageBuilderException(PARSE_ERROR, e);
         }
     }
@@ -570,13 +585,7 @@ public class DocumentUtils {
 
     public static Document parseXmlFile(String in) {
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            InputSource is = new InputSource(new StringReader(in));
-            return db.parse(is);
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException(e);
+            return XmlProcessors.parse(new InputSource(new StringReader(in)), null);
         } catch (SAXException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
@@ -585,14 +594,9 @@ public class DocumentUtils {
     }
 
     public static final String prettyPrint(Document xml) throws NetconfMessageBuilderException {
-        Transformer tf;
         try {
-            tf = TRANSFORMER_FACTORY.newTransformer();
-            tf.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            tf.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-            tf.setOutputProperty(OutputKeys.INDENT, "yes");
             Writer out = new StringWriter();
-            tf.transform(new DOMSource(xml), new StreamResult(out));
+            XmlProcessors.transform(xml, new StreamResult(out), Format.INDENTED);
             LOGGER.trace("Pretty printed doc : " + out.toString());
             return out.toString();
         } catch (TransformerException e) {
@@ -602,13 +606,9 @@ public class DocumentUtils {
     }
 
     public static final String documentToString(Node xml) throws NetconfMessageBuilderException {
-        Transformer tf;
         try {
-            tf = TRANSFORMER_FACTORY.newTransformer();
-            tf.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            tf.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
             Writer out = new StringWriter();
-            tf.transform(new DOMSource(xml), new StreamResult(out));
+            XmlProcessors.transform(xml, new StreamResult(out), Format.COMPACT);
             return out.toString();
         } catch (TransformerException e) {
             throw new NetconfMessageBuilderException("Error while converting document to String ", e);
@@ -616,15 +616,31 @@ public class DocumentUtils {
 
     }
 
+    /**
+     * Serializes the node as {@link #documentToString(Node)} does, writing the UTF-8 encoded bytes to the stream as
+     * they are produced instead of collecting them in a String.
+     */
+    public static void writeDocument(Node xml, OutputStream out) throws NetconfMessageBuilderException {
+        try {
+            XmlProcessors.transform(xml, new StreamResult(out), Format.COMPACT);
+        } catch (TransformerException e) {
+            throw new NetconfMessageBuilderException("Error while writing document ", e);
+        }
+    }
+
+    /**
+     * Serializes the node as {@link #documentToString(Node)} does, to UTF-8 encoded bytes.
+     */
+    public static byte[] documentToBytes(Node xml) throws NetconfMessageBuilderException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeDocument(xml, out);
+        return out.toByteArray();
+    }
+
     public static final String documentToPrettyString(Node xml) throws NetconfMessageBuilderException {
-        Transformer tf;
         try {
-            tf = TRANSFORMER_FACTORY.newTransformer();
-            tf.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            tf.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-            tf.setOutputProperty(OutputKeys.INDENT, "yes");
             Writer out = new StringWriter();
-            tf.transform(new DOMSource(xml), new StreamResult(out));
+            XmlProcessors.transform(xml, new StreamResult(out), Format.INDENTED);
             return out.toString();
         } catch (TransformerException e) {
             throw new NetconfMessageBuilderException("Error while converting document to String ", e);
@@ -633,32 +649,21 @@ public class DocumentUtils {
     }
 
     public static Document getNewDocument() throws ParserConfigurationException {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        dbFactory.setNamespaceAware(true);
-        return dbFactory.newDocumentBuilder().newDocument();
+        return XmlProcessors.newDocument();
     }
 
     public static Document loadXmlDocument(InputStream inputStream) {
         try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            dbFactory.setNamespaceAware(true);
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(inputStream);
-            return doc;
+            return XmlProcessors.parse(new InputSource(inputStream), null);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     public static Document getDocFromFile(File xmlFile) {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        dbFactory.setNamespaceAware(true);
-        DocumentBuilder dBuilder;
         try {
-            dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(xmlFile);
-            return doc;
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+            return XmlProcessors.parse(new InputSource(xmlFile.toURI().toASCIIString()), null);
+        } catch (SAXException | IOException e) {
             LOGGER.error(e);
         }
         return null;
@@ -738,10 +743,7 @@ public class DocumentUtils {
     public static Element getDocumentElement(String string) throws IOException, SAXException,
             ParserConfigurationException {
         try (ByteArrayInputStream input = new ByteArrayInputStream(string.getBytes())) {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            return db.parse(input).getDocumentElement();
+            return XmlProcessors.parse(new InputSource(input), null).getDocumentElement();
         }
     }
 
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.util;
+
+import java.io.IOException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Parsers and serializers shared by the messages of the stack.
+ *
+ * Looking up and configuring a JAXP factory and creating a parser or transformer from it costs more than parsing or
+ * serializing a typical netconf message. The factories are configured once, with secure processing enabled and
+ * without access to external DTDs and stylesheets, and every thread keeps its own {@link DocumentBuilder} and one
+ * {@link Transformer} per {@link Format}, as neither is thread-safe.
+ */
+public final class XmlProcessors {
+    private static final Logger LOGGER = Logger.getLogger(XmlProcessors.class);
+    private static final String INDENT_AMOUNT = "{http://xml.apache.org/xslt}indent-amount";
+
+    /**
+     * Output formats of the serializers, none of them writes an XML declaration.
+     */
+    public enum Format {
+        /** UTF-8, without any added whitespace. */
+        COMPACT,
+        /** UTF-8, with line breaks between elements. */
+        INDENTED,
+        /** UTF-8, with line breaks and elements indented by 2 spaces. */
+        PRETTY
+    }
+
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = createDocumentBuilderFactory();
+    private static final TransformerFactory TRANSFORMER_FACTORY = createTransformerFactory();
+
+    private static final ThreadLocal<DocumentBuilder[]> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> new
+            DocumentBuilder[1]);
+    private static final ThreadLocal<Transformer[]> TRANSFORMERS = ThreadLocal.withInitial(() -> new
+            Transformer[Format.values().length]);
+
+    private XmlProcessors() {
+    }
+
+    /**
+     * Parses the source with the parser of the calling thread, reporting problems to the given handler.
+     */
+    public static Document parse(InputSource source, ErrorHandler errorHandler) throws SAXException, IOException {
+        DocumentBuilder[] builders = DOCUMENT_BUILDER.get();
+        // the parser is taken from the thread while in use, a nested parse gets a parser of its own
+        DocumentBuilder builder = builders[0];
+        builders[0] = null;
+        if (builder == null) {
+            builder = newDocumentBuilder();
+        }
+        builder.setErrorHandler(errorHandler);
+        Document document = builder.parse(source);
+        builder.reset();
+        builders[0] = builder;
+        return document;
+    }
+
+    public static Document newDocument() {
+        DocumentBuilder[] builders = DOCUMENT_BUILDER.get();
+        if (builders[0] == null) {
+            builders[0] = newDocumentBuilder();
+        }
+        return builders[0].newDocument();
+    }
+
+    /**
+     * Serializes the node with the serializer of the calling thread for the given format.
+     */
+    public static void transform(Node node, Result result, Format format) throws TransformerException {
+        Transformer[] transformers = TRANSFORMERS.get();
+        int slot = format.ordinal();
+        Transformer transformer = transformers[slot];
+        transformers[slot] = null;
+        if (transformer == null) {
+            transformer = createTransformer(format);
+        }
+        transformer.transform(new DOMSource(node), result);
+        // a transformer that failed is not reused
+        transformers[slot] = transformer;
+    }
+
+    private static DocumentBuilder newDocumentBuilder() {
+        try {
+            return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Could not create a document builder", e);
+        }
+    }
+
+    private static Transformer createTransformer(Format format) throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMER_FACTORY.newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        if (format != Format.COMPACT) {
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        }
+        if (format == Format.PRETTY) {
+            transformer.setOutputProperty(INDENT_AMOUNT, "2");
+        }
+        return transformer;
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch (ParserConfigurationException e) {
+            LOGGER.warn("The XML parser does not support secure processing", e);
+        }
+        return factory;
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        } catch (TransformerConfigurationException | IllegalArgumentException e) {
+            LOGGER.warn("The XML transformer does not support secure processing", e);
+        }
+        return factory;
+    }
+}
@@ -18,9 +18,9 @@ package org.broadband_forum.obbaa.netconf.api.client;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -30,11 +30,15 @@ import java.io.File;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -79,18 +83,13 @@ public class AbstractNetconfClientSessionTest {
 
     private AbstractNetconfClientSession m_abstractNetconfClientSession;
 
-    private ExecutorService m_executorService;
-    private Future<NetConfResponse> m_futureResponse;
+    private CompletableFuture<NetConfResponse> m_futureResponse;
     private String m_obtainedXmlString;
     private NotificationListener m_notificationListener;
+    private boolean m_failSends;
 
-    @SuppressWarnings("unchecked")
     @Before
     public void setUp() {
-
-        m_executorService = mock(ExecutorService.class);
-        m_futureResponse = mock(Future.class);
-        when(m_executorService.submit(any(Callable.class))).thenReturn(m_futureResponse);
         m_abstractNetconfClientSession = spy(new AbstractNetconfClientSession() {
             Channel serverChannel = mock(Channel.class);
             ;
@@ -126,8 +125,12 @@ public class AbstractNetconfClientSessionTest {
             }
 
             @Override
-            protected Future<NetConfResponse> sendRpcMessage(final String currentMessageId, Document requestDocument,
-                                                             final long timoutMillis) {
+            protected CompletableFuture<NetConfResponse> sendRpcMessageAsync(final String currentMessageId,
+                                                                             Document requestDocument,
+                                                                             final long timoutMillis) {
+                if (m_failSends) {
+                    throw new IllegalStateException("Channel is not writable");
+                }
                 String xmlString = "";
                 try {
                     xmlString = DocumentUtils.documentToString(requestDocument) + NetconfDelimiters
@@ -137,19 +140,9 @@ public class AbstractNetconfClientSessionTest {
                     throw new RuntimeException(e);
                 }
                 m_obtainedXmlString = xmlString;
+                m_futureResponse = registerResponseFuture(currentMessageId, timoutMillis);
                 serverChannel.writeAndFlush(xmlString);
-                Future<NetConfResponse> futureResponse = m_executorService.submit(new Callable<NetConfResponse>() {
-                    @Override
-                    public NetConfResponse call() throws Exception {
-                        // wait for a certain time to get the message back
-                        NetConfResponse response = m_rpcResponses.get(currentMessageId, timoutMillis, TimeUnit
-                                .MILLISECONDS);
-                        logResponse(response, currentMessageId);
-                        return response;
-                    }
-                });
-
-                return futureResponse;
+                return m_futureResponse;
             }
         });
         m_notificationListener = mock(NotificationListener.class);
@@ -169,7 +162,8 @@ public class AbstractNetconfClientSessionTest {
     public void testGetConfig() throws NetconfMessageBuilderException {
         GetConfigRequest getConfigRequest = new GetConfigRequest();
         getConfigRequest.setSource(TEST_SOURCE);
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.getConfig(getConfigRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.getConfig(getConfigRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<get-config>"
@@ -190,7 +184,8 @@ public class AbstractNetconfClientSessionTest {
         editConfigRequest.setTestOption(TEST_OPTION);
         EditConfigElement editConfigElement = new EditConfigElement();
         editConfigRequest.setConfigElement(editConfigElement);
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.editConfig(editConfigRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.editConfig(editConfigRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<edit-config>"
@@ -210,7 +205,8 @@ public class AbstractNetconfClientSessionTest {
         CopyConfigRequest configRequest = new CopyConfigRequest();
         configRequest.setSourceRunning();
         configRequest.setTargetRunning();
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.copyConfig(configRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.copyConfig(configRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<copy-config>"
@@ -226,7 +222,8 @@ public class AbstractNetconfClientSessionTest {
     public void testDeleteConfig() throws NetconfMessageBuilderException {
         DeleteConfigRequest deleteConfigRequest = new DeleteConfigRequest();
         deleteConfigRequest.setTarget(TEST_TARGET);
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.deleteConfig(deleteConfigRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.deleteConfig(deleteConfigRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<delete-config>"
@@ -241,7 +238,8 @@ public class AbstractNetconfClientSessionTest {
     public void testLock() throws NetconfMessageBuilderException {
         LockRequest lockRequest = new LockRequest();
         lockRequest.setTargetRunning();
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.lock(lockRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.lock(lockRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<lock>"
@@ -256,7 +254,8 @@ public class AbstractNetconfClientSessionTest {
     public void testUnlock() throws NetconfMessageBuilderException {
         UnLockRequest unLockRequest = new UnLockRequest();
         unLockRequest.setTargetRunning();
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.unlock(unLockRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.unlock(unLockRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<unlock>"
@@ -270,7 +269,8 @@ public class AbstractNetconfClientSessionTest {
     @Test
     public void testGetRequest() throws NetconfMessageBuilderException {
         GetRequest request = new GetRequest();
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.get(request));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.get(request);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<get/>"
@@ -287,7 +287,8 @@ public class AbstractNetconfClientSessionTest {
                         + "</rpc>";
         NetconfRpcRequest netconfRpcRequest = DocumentToPojoTransformer
                 .getRpcRequest(DocumentUtils.stringToDocument(rpcRequest));
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.rpc(netconfRpcRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.rpc(netconfRpcRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(rpcRequest + "]]>]]>", m_obtainedXmlString);
         verify(m_abstractNetconfClientSession).resetIdleTimeStart();
     }
@@ -308,7 +309,8 @@ public class AbstractNetconfClientSessionTest {
                 "</rpc>";
 
         ActionRequest request = DocumentToPojoTransformer.getAction(DocumentUtils.stringToDocument(actionRequest));
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.action(request));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.action(request);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(actionRequest + "]]>]]>", m_obtainedXmlString);
         verify(m_abstractNetconfClientSession).resetIdleTimeStart();
     }
@@ -318,7 +320,8 @@ public class AbstractNetconfClientSessionTest {
 
         KillSessionRequest killSessionReq = new KillSessionRequest();
         killSessionReq.setSessionId(10);
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.killSession(killSessionReq));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.killSession(killSessionReq);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<kill-session>"
@@ -333,7 +336,8 @@ public class AbstractNetconfClientSessionTest {
     public void testCloseSession() throws NetconfMessageBuilderException {
 
         CloseSessionRequest closeRequest = new CloseSessionRequest();
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.closeSession(closeRequest));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.closeSession(closeRequest);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<close-session/>"
@@ -343,13 +347,14 @@ public class AbstractNetconfClientSessionTest {
     }
 
     @Test
-    public void testResponseReceivedForRpcReplyDocument() throws NetconfMessageBuilderException {
+    public void testResponseReceivedForRpcReplyDocument() throws Exception {
         URL url = Thread.currentThread().getContextClassLoader().getResource("sampleRpcReply.xml");
         File file = new File(url.getPath());
         Document rpcReplyDocument = DocumentUtils.getDocFromFile(file);
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.registerResponseFuture("1", 10000L);
         m_abstractNetconfClientSession.responseRecieved(rpcReplyDocument);
-        NetConfResponse netConfResponse = m_abstractNetconfClientSession.m_rpcResponses.get("1", 10000L, TimeUnit
-                .MILLISECONDS);
+        assertTrue(responseFuture.isDone());
+        NetConfResponse netConfResponse = responseFuture.get();
         m_abstractNetconfClientSession.logResponse(netConfResponse, "1");
         m_abstractNetconfClientSession.logResponse(null, "1");
         assertTrue(isRpcReplyDocument(netConfResponse));
@@ -358,6 +363,180 @@ public class AbstractNetconfClientSessionTest {
         verify(m_abstractNetconfClientSession).resetIdleTimeStart();
     }
 
+    @Test
+    public void testPipelinedRequestsAreCorrelatedByMessageId() throws Exception {
+        Future<NetConfResponse> first = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> second = m_abstractNetconfClientSession.get(new GetRequest());
+        assertEquals(2, m_abstractNetconfClientSession.getOutstandingRequestCount());
+
+        // replies may come in any order
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("2"));
+        assertFalse(first.isDone());
+        assertEquals("2", second.get().getMessageId());
+
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertEquals("1", first.get().getMessageId());
+        assertEquals(0, m_abstractNetconfClientSession.getOutstandingRequestCount());
+
+        // a late duplicate is discarded
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertEquals(0, m_abstractNetconfClientSession.getOutstandingRequestCount());
+    }
+
+    @Test
+    public void testRequestTimesOutWithNullResponse() throws Exception {
+        GetRequest request = new GetRequest();
+        request.setReplyTimeout(50L);
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.get(request);
+        assertNull(responseFuture.get(10, TimeUnit.SECONDS));
+        assertEquals(0, m_abstractNetconfClientSession.getOutstandingRequestCount());
+
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertNull(responseFuture.get());
+    }
+
+    @Test
+    public void testOutstandingRequestsCompletedOnSessionClosed() throws Exception {
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.get(new GetRequest());
+        m_abstractNetconfClientSession.sessionClosed();
+        assertTrue(responseFuture.isDone());
+        assertNull(responseFuture.get());
+        assertEquals(0, m_abstractNetconfClientSession.getOutstandingRequestCount());
+    }
+
+    @Test
+    public void testRequestsBeyondPipeliningWindowAreQueuedThenRejected() throws Exception {
+        m_abstractNetconfClientSession.setPipeliningLimits(2, 1);
+        Future<NetConfResponse> first = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> second = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> queued = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> rejected = m_abstractNetconfClientSession.get(new GetRequest());
+
+        NetconfClientSessionStatistics statistics = m_abstractNetconfClientSession.getStatistics();
+        assertEquals(2, statistics.getInFlightRequests());
+        assertEquals(1, statistics.getQueuedRequests());
+        assertEquals(1, statistics.getRejectedRequests());
+        assertTrue(rejected.isDone());
+        try {
+            rejected.get();
+            fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        // the queued request is sent only when a reply frees a slot
+        assertTrue(m_obtainedXmlString.contains("message-id=\"2\""));
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertEquals("1", first.get().getMessageId());
+        assertTrue(m_obtainedXmlString.contains("message-id=\"3\""));
+
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("3"));
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("2"));
+        assertEquals("3", queued.get().getMessageId());
+        assertEquals("2", second.get().getMessageId());
+
+        statistics = m_abstractNetconfClientSession.getStatistics();
+        assertEquals(0, statistics.getInFlightRequests());
+        assertEquals(2, statistics.getPeakInFlightRequests());
+        assertEquals(0, statistics.getQueuedRequests());
+        assertEquals(3, statistics.getCompletedRequests());
+        assertTrue(statistics.getMaxRoundTripTimeMillis() >= statistics.getAverageRoundTripTimeMillis());
+    }
+
+    @Test
+    public void testQueuedRequestsCompletedOnSessionClosed() throws Exception {
+        m_abstractNetconfClientSession.setPipeliningLimits(1, 10);
+        Future<NetConfResponse> sent = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> queued = m_abstractNetconfClientSession.get(new GetRequest());
+        m_abstractNetconfClientSession.sessionClosed();
+        assertNull(sent.get());
+        assertNull(queued.get());
+        assertEquals(0, m_abstractNetconfClientSession.getStatistics().getInFlightRequests());
+    }
+
+    @Test
+    public void testCancelledQueuedRequestIsNotSent() throws Exception {
+        m_abstractNetconfClientSession.setPipeliningLimits(1, 10);
+        Future<NetConfResponse> sent = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> cancelled = m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> queued = m_abstractNetconfClientSession.get(new GetRequest());
+        assertTrue(cancelled.cancel(false));
+        assertEquals(1, m_abstractNetconfClientSession.getStatistics().getQueuedRequests());
+
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertEquals("1", sent.get().getMessageId());
+        assertTrue(m_obtainedXmlString.contains("message-id=\"3\""));
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("3"));
+        assertEquals("3", queued.get().getMessageId());
+        assertEquals(0, m_abstractNetconfClientSession.getStatistics().getInFlightRequests());
+    }
+
+    @Test
+    public void testCancellingASentQueuedRequestReleasesItsSlot() throws Exception {
+        m_abstractNetconfClientSession.setPipeliningLimits(1, 10);
+        m_abstractNetconfClientSession.get(new GetRequest());
+        Future<NetConfResponse> queued = m_abstractNetconfClientSession.get(new GetRequest());
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertEquals(1, m_abstractNetconfClientSession.getOutstandingRequestCount());
+
+        assertTrue(queued.cancel(false));
+        assertEquals(0, m_abstractNetconfClientSession.getOutstandingRequestCount());
+        assertEquals(0, m_abstractNetconfClientSession.getStatistics().getInFlightRequests());
+    }
+
+    @Test
+    public void testFailingSendsOfQueuedRequestsDoNotRecurse() throws Exception {
+        m_abstractNetconfClientSession.setPipeliningLimits(1, 100000);
+        Future<NetConfResponse> sent = m_abstractNetconfClientSession.get(new GetRequest());
+        List<Future<NetConfResponse>> queued = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            queued.add(m_abstractNetconfClientSession.get(new GetRequest()));
+        }
+        m_failSends = true;
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("1"));
+        assertEquals("1", sent.get().getMessageId());
+        for (Future<NetConfResponse> future : queued) {
+            assertTrue(future.isDone());
+        }
+        NetconfClientSessionStatistics statistics = m_abstractNetconfClientSession.getStatistics();
+        assertEquals(0, statistics.getInFlightRequests());
+        assertEquals(0, statistics.getQueuedRequests());
+        assertEquals(5000, statistics.getFailedRequests());
+    }
+
+    @Test
+    public void testRequestsCutShortByCloseAreCountedAsClosed() throws Exception {
+        m_abstractNetconfClientSession.setPipeliningLimits(1, 10);
+        m_abstractNetconfClientSession.get(new GetRequest());
+        m_abstractNetconfClientSession.get(new GetRequest());
+        m_abstractNetconfClientSession.sessionClosed();
+
+        NetconfClientSessionStatistics statistics = m_abstractNetconfClientSession.getStatistics();
+        assertEquals(2, statistics.getClosedRequests());
+        assertEquals(0, statistics.getTimedOutRequests());
+        assertEquals(0, statistics.getInFlightRequests());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPipeliningLimits() {
+        m_abstractNetconfClientSession.setPipeliningLimits(0, 10);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testResponseIsKeptInRpcResponsesWhenNoResponseFutureIsRegistered() throws Exception {
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("5"));
+        assertEquals("5", m_abstractNetconfClientSession.m_rpcResponses.get("5", 1, TimeUnit.SECONDS).getMessageId());
+
+        m_abstractNetconfClientSession.registerResponseFuture("6", 10000L);
+        m_abstractNetconfClientSession.responseRecieved(getOkReply("7"));
+        assertNull(m_abstractNetconfClientSession.m_rpcResponses.get("7"));
+    }
+
+    private Document getOkReply(String messageId) throws NetconfMessageBuilderException {
+        return DocumentUtils.stringToDocument("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" " +
+                "message-id=\"" + messageId + "\"><ok/></rpc-reply>");
+    }
+
     @Test
     public void testResponseReceivedForRpcReplyDocumentForException() throws NetconfMessageBuilderException {
         URL url = Thread.currentThread().getContextClassLoader().getResource("missing-message-id-error.xml");
@@ -445,8 +624,9 @@ public class AbstractNetconfClientSessionTest {
     public void testCreateSubscription() throws NetconfMessageBuilderException {
         CreateSubscriptionRequest request = new CreateSubscriptionRequest();
         request.setStream(TEST_STREAM);
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.createSubscription(request,
-                m_notificationListener));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.createSubscription(request,
+                m_notificationListener);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<create-subscription xmlns=\"urn:ietf:params:xml:ns:netconf:notification:1.0\">"
@@ -468,8 +648,9 @@ public class AbstractNetconfClientSessionTest {
         } catch (InterruptedException e) {
             fail("interrupted while sleeping");
         }
-        assertEquals(m_futureResponse, m_abstractNetconfClientSession.createSubscription(request,
-                m_notificationListener));
+        Future<NetConfResponse> responseFuture = m_abstractNetconfClientSession.createSubscription(request,
+                m_notificationListener);
+        assertEquals(m_futureResponse, responseFuture);
         assertEquals(
                 "<rpc message-id=\"1\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
                         + "<create-subscription xmlns=\"urn:ietf:params:xml:ns:netconf:notification:1.0\">"
@@ -506,4 +687,66 @@ public class AbstractNetconfClientSessionTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSubclassReturningAPlainFutureIsStillSupported() throws Exception {
+        NetConfResponse response = new NetConfResponse();
+        FutureTask<NetConfResponse> legacyFuture = new FutureTask<>(() -> response);
+        AbstractNetconfClientSession legacySession = new LegacyNetconfClientSession(legacyFuture);
+
+        Future<NetConfResponse> responseFuture = legacySession.getConfig(new GetConfigRequest().setSourceRunning());
+        assertFalse(responseFuture.isDone());
+
+        legacyFuture.run();
+        assertEquals(response, responseFuture.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSubclassWithoutTransportFailsTheSend() throws Exception {
+        new LegacyNetconfClientSession(null).getConfig(new GetConfigRequest().setSourceRunning());
+    }
+
+    private static class LegacyNetconfClientSession extends AbstractNetconfClientSession {
+        private final Future<NetConfResponse> m_responseFuture;
+
+        LegacyNetconfClientSession(Future<NetConfResponse> responseFuture) {
+            m_responseFuture = responseFuture;
+        }
+
+        @Override
+        protected Future<NetConfResponse> sendRpcMessage(String currentMessageId, Document requestDocument,
+                                                         long timoutMillis) {
+            if (m_responseFuture == null) {
+                return super.sendRpcMessage(currentMessageId, requestDocument, timoutMillis);
+            }
+            return m_responseFuture;
+        }
+
+        @Override
+        public void sendHeartBeat(long timeout) {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public long getCreationTime() {
+            return 0;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void closeAsync() {
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+
+public class NetconfFramingDecoderTest {
+
+    private List<String> m_messages;
+    private NetconfFramingDecoder.MessageListener m_listener;
+
+    @Before
+    public void setUp() {
+        m_messages = new ArrayList<>();
+        m_listener = message -> m_messages.add(IOUtils.toString(message, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEomMessagesInOneBuffer() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.EOM);
+        decode(decoder, "<hello/>]]>]]>\n<rpc message-id=\"1\"/>]]>]]><rpc");
+        assertEquals(2, m_messages.size());
+        assertEquals("<hello/>", m_messages.get(0));
+        assertEquals("<rpc message-id=\"1\"/>", m_messages.get(1));
+
+        decode(decoder, " message-id=\"2\"/>]]>]]>");
+        assertEquals("<rpc message-id=\"2\"/>", m_messages.get(2));
+    }
+
+    @Test
+    public void testEomDelimiterSplitAcrossBuffers() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.EOM);
+        // "]]]>]]>" and "]]>]]]>]]>" contain partial delimiters that must not hide the real one
+        decodeByteByByte(decoder, "<a>]]]</a>]]]>]]>\n<b>]]>]</b>]]>]]]>]]>");
+        assertEquals(2, m_messages.size());
+        assertEquals("<a>]]]</a>]", m_messages.get(0));
+        assertEquals("<b>]]>]</b>]]>]", m_messages.get(1));
+    }
+
+    @Test
+    public void testChunkedMessagesSplitAcrossBuffers() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.CHUNKED);
+        decodeByteByByte(decoder, "\n#4\n<rpc\n#17\n message-id=\"1\"/>\n##\n\n#6\n<rpc/>\n##\n");
+        assertEquals(2, m_messages.size());
+        assertEquals("<rpc message-id=\"1\"/>", m_messages.get(0));
+        assertEquals("<rpc/>", m_messages.get(1));
+    }
+
+    @Test
+    public void testChunkSizeCountsBytesNotCharacters() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.CHUNKED);
+        String message = "<a>été</a>";
+        int byteLength = message.getBytes(StandardCharsets.UTF_8).length;
+        decode(decoder, "\n#" + byteLength + "\n" + message + "\n##\n");
+        assertEquals(message, m_messages.get(0));
+    }
+
+    @Test
+    public void testFramingSwitchedByListener() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.EOM);
+        m_listener = message -> {
+            m_messages.add(IOUtils.toString(message, StandardCharsets.UTF_8));
+            decoder.setFraming(Framing.CHUNKED);
+        };
+        decode(decoder, "<hello/>]]>]]>\n#6\n<rpc/>\n##\n");
+        assertEquals(2, m_messages.size());
+        assertEquals("<hello/>", m_messages.get(0));
+        assertEquals("<rpc/>", m_messages.get(1));
+    }
+
+    @Test
+    public void testInvalidChunkHeader() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.CHUNKED);
+        assertFramingError(decoder, "\n#0\n", "Invalid chunk header, unexpected character '0'");
+        assertFramingError(decoder, "\n##\n", "Invalid chunk header, unexpected character '#'");
+        assertFramingError(decoder, "\n#6x", "Invalid chunk header, unexpected character 'x'");
+        assertFramingError(decoder, "<rpc/>", "Invalid chunk header, expected 0x0a but got '<'");
+
+        // the decoder recovers at the next message boundary
+        decode(decoder, "\n#6\n<rpc/>\n##\n");
+        assertEquals("<rpc/>", m_messages.get(0));
+    }
+
+    @Test
+    public void testOversizedMessagesAreRejected() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.CHUNKED, 10);
+        // rejected on the chunk header, before the chunk data arrives
+        assertFramingError(decoder, "\n#6\n<rpc/>\n#5\n", "NETCONF message exceeds the maximum message size of 10 bytes");
+
+        decoder = new NetconfFramingDecoder(Framing.EOM, 10);
+        decode(decoder, "<rpc></rpc>]]>]]>".substring(0, 10));
+        decode(decoder, "]]>]]>");
+        assertEquals("<rpc></rpc", m_messages.get(0));
+        assertFramingError(decoder, "<rpc></rpc>]]>]]>", "NETCONF message exceeds the maximum message size of 10 bytes");
+    }
+
+    @Test
+    public void testChunkedDecoderResynchronizesAfterMalformedHeader() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.CHUNKED);
+        decoder.setResynchronizeOnError(true);
+        // the broken message is skipped up to its end-of-chunks marker, the next one is decoded from the same buffer
+        assertFramingError(decoder, "\n#4\n<rpc\n#x\n message-id=\"1\"/>\n##\n\n#6\n<rpc/>\n##\n",
+                "Invalid chunk header, unexpected character 'x'");
+        assertEquals(1, m_messages.size());
+        assertEquals("<rpc/>", m_messages.get(0));
+
+        // and from later buffers
+        assertFramingError(decoder, "\n#5\n<rpc/x", "Invalid chunk header, expected 0x0a but got 'x'");
+        decodeByteByByte(decoder, "\n##\n\n#7\n<rpc2/>\n##\n");
+        assertEquals(2, m_messages.size());
+        assertEquals("<rpc2/>", m_messages.get(1));
+
+        // a stray end-of-chunks marker is skipped on its own
+        assertFramingError(decoder, "\n##\n\n#7\n<rpc3/>\n##\n", "Invalid chunk header, unexpected character '#'");
+        assertEquals(3, m_messages.size());
+        assertEquals("<rpc3/>", m_messages.get(2));
+    }
+
+    @Test
+    public void testEomDecoderResynchronizesAfterOversizedMessage() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.EOM, 10);
+        decoder.setResynchronizeOnError(true);
+        assertFramingError(decoder, "<rpc></rpc>]]>]]><rpc/>]]>]]>",
+                "NETCONF message exceeds the maximum message size of 10 bytes");
+        assertEquals(1, m_messages.size());
+        assertEquals("<rpc/>", m_messages.get(0));
+
+        // the rest of an oversized message arriving in later buffers is skipped, delimiter split included
+        assertFramingError(decoder, "<rpc>0123456789ab",
+                "NETCONF message exceeds the maximum message size of 10 bytes");
+        decodeByteByByte(decoder, "</rpc>]]>]]><rpc2/>]]>]]>");
+        assertEquals(2, m_messages.size());
+        assertEquals("<rpc2/>", m_messages.get(1));
+    }
+
+    @Test
+    public void testDecoderStopsAtFirstErrorByDefault() throws Exception {
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.CHUNKED);
+        assertFramingError(decoder, "\n#x\n<rpc/>\n##\n\n#6\n<rpc/>\n##\n", "unexpected character 'x'");
+        assertTrue(m_messages.isEmpty());
+    }
+
+    @Test
+    public void testScanTimeIsLinear() throws Exception {
+        StringBuilder payload = new StringBuilder("<data>");
+        while (payload.length() < 4 * 1024 * 1024) {
+            payload.append("<leaf>]]>value]]</leaf>");
+        }
+        payload.append("</data>");
+        byte[] message = (payload + "]]>]]>").getBytes(StandardCharsets.UTF_8);
+        NetconfFramingDecoder decoder = new NetconfFramingDecoder(Framing.EOM);
+        List<Integer> sizes = new ArrayList<>();
+        NetconfFramingDecoder.MessageListener sizeListener = stream -> sizes.add(stream.available());
+        for (int offset = 0; offset < message.length; offset += 1024) {
+            decoder.decode(message, offset, Math.min(1024, message.length - offset), sizeListener);
+        }
+        assertEquals(1, sizes.size());
+        assertEquals(payload.length(), (int) sizes.get(0));
+    }
+
+    private void assertFramingError(NetconfFramingDecoder decoder, String bytes, String expectedMessage) throws
+            IOException {
+        try {
+            decode(decoder, bytes);
+            fail("Expected a framing error");
+        } catch (NetconfMessageBuilderException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+        }
+    }
+
+    private void decode(NetconfFramingDecoder decoder, String data) throws NetconfMessageBuilderException,
+            IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        decoder.decode(bytes, 0, bytes.length, m_listener);
+    }
+
+    private void decodeByteByByte(NetconfFramingDecoder decoder, String data) throws NetconfMessageBuilderException,
+            IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            decoder.decode(bytes, i, 1, m_listener);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+
+public class NetconfFramingOutputStreamTest {
+
+    @Test
+    public void testMessageWithinOneChunkIsWrittenAsOneFrame() throws Exception {
+        FrameRecorder frames = new FrameRecorder();
+        try (NetconfFramingOutputStream out = new NetconfFramingOutputStream(frames, Framing.CHUNKED, 16)) {
+            out.write("<rpc-reply/>".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(1, frames.m_frames.size());
+        assertEquals("\n#12\n<rpc-reply/>\n##\n", frames.m_frames.get(0));
+        assertTrue(frames.m_closed);
+    }
+
+    @Test
+    public void testChunkedFraming() throws Exception {
+        FrameRecorder frames = new FrameRecorder();
+        try (NetconfFramingOutputStream out = new NetconfFramingOutputStream(frames, Framing.CHUNKED, 4)) {
+            out.write("<ok/".getBytes(StandardCharsets.UTF_8));
+            out.write('>');
+            out.write("<data/>".getBytes(StandardCharsets.UTF_8), 0, 7);
+        }
+        assertEquals(3, frames.m_frames.size());
+        assertEquals("\n#4\n<ok/", frames.m_frames.get(0));
+        assertEquals("\n#4\n><da", frames.m_frames.get(1));
+        assertEquals("\n#4\nta/>\n##\n", frames.m_frames.get(2));
+    }
+
+    @Test
+    public void testEomFraming() throws Exception {
+        FrameRecorder frames = new FrameRecorder();
+        try (NetconfFramingOutputStream out = new NetconfFramingOutputStream(frames, Framing.EOM, 8)) {
+            out.write("<rpc-reply/>".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(2, frames.m_frames.size());
+        assertEquals("<rpc-rep", frames.m_frames.get(0));
+        assertEquals("ly/>]]>]]>", frames.m_frames.get(1));
+    }
+
+    @Test
+    public void testMultiByteCharactersAreCountedInBytes() throws Exception {
+        FrameRecorder frames = new FrameRecorder();
+        try (NetconfFramingOutputStream out = new NetconfFramingOutputStream(frames, Framing.CHUNKED)) {
+            out.write("<name>é</name>".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("\n#15\n<name>é</name>\n##\n", frames.m_frames.get(0));
+    }
+
+    @Test
+    public void testWriteAfterCloseFails() throws Exception {
+        NetconfFramingOutputStream out = new NetconfFramingOutputStream(new ByteArrayOutputStream(), Framing.EOM);
+        out.close();
+        try {
+            out.write(1);
+            fail("Expected the write to fail");
+        } catch (IOException e) {
+            assertEquals("Stream is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStreamedDocumentIsDecodedByFramingDecoder() throws Exception {
+        StringBuilder reply = new StringBuilder("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" "
+                + "message-id=\"1\"><data>");
+        for (int onu = 0; onu < 1000; onu++) {
+            reply.append("<onu><name>onu-").append(onu).append("</name></onu>");
+        }
+        Document document = DocumentUtils.stringToDocument(reply.append("</data></rpc-reply>").toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (NetconfFramingOutputStream out = new NetconfFramingOutputStream(bytes, Framing.CHUNKED, 1024)) {
+            DocumentUtils.writeDocument(document, out);
+        }
+
+        List<String> messages = new ArrayList<>();
+        byte[] framed = bytes.toByteArray();
+        new NetconfFramingDecoder(Framing.CHUNKED).decode(framed, 0, framed.length, message -> messages.add(IOUtils
+                .toString(message, StandardCharsets.UTF_8)));
+        assertEquals(1, messages.size());
+        assertEquals(DocumentUtils.documentToString(document), messages.get(0));
+    }
+
+    private static class FrameRecorder extends ByteArrayOutputStream {
+        private final List<String> m_frames = new ArrayList<>();
+        private boolean m_closed;
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            m_frames.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            m_closed = true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.api.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.custommonkey.xmlunit.Diff;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+
+public class NetconfMessageStreamWriterTest {
+
+    private static final String DATA = "<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+            + "<jbox:jukebox xmlns:jbox=\"http://example.com/ns/example-jukebox\">"
+            + "<jbox:library><jbox:artist><jbox:name>Lenny &amp; the &lt;Band</jbox:name>"
+            + "<jbox:album/></jbox:artist></jbox:library>"
+            + "<state xmlns=\"urn:example:state\" xmlns:if=\"urn:example:if\" if:type=\"if:ethernet\">up</state>"
+            + "</jbox:jukebox></data>";
+
+    @Test
+    public void testWriteNodeMatchesDocumentToString() throws Exception {
+        Document document = DocumentUtils.stringToDocument(DATA);
+
+        assertEquals(DocumentUtils.documentToString(document), write(document));
+    }
+
+    @Test
+    public void testWriteResponseMatchesTheResponseDocument() throws Exception {
+        NetConfResponse response = new NetConfResponse().setMessageId("101");
+        response.setData(DocumentUtils.stringToDocument(DATA).getDocumentElement());
+        response.addOtherRpcAttribute("client-ref", "c1");
+
+        assertWrittenAsResponseDocument(response);
+    }
+
+    @Test
+    public void testWriteResponseWithErrorsAndOk() throws Exception {
+        NetConfResponse response = new NetConfResponse().setMessageId("102");
+        response.addError(new NetconfRpcError(NetconfRpcErrorTag.OPERATION_FAILED, NetconfRpcErrorType.Application,
+                NetconfRpcErrorSeverity.Warning, "a warning"));
+        response.setOk(true);
+
+        assertWrittenAsResponseDocument(response);
+    }
+
+    @Test
+    public void testElementsCreatedWithoutNamespaceDeclarationsAreDeclared() throws Exception {
+        Document document = DocumentUtils.getNewDocument();
+        Element top = document.createElementNS("urn:example:top", "top");
+        Element child = document.createElementNS("urn:example:child", "ch:child");
+        child.setAttributeNS("urn:example:attr", "at:kind", "leaf");
+        top.appendChild(child);
+        top.appendChild(document.createElementNS("urn:example:top", "sibling"));
+        document.appendChild(top);
+
+        String written = write(document);
+
+        assertEquals("<top xmlns=\"urn:example:top\"><ch:child xmlns:ch=\"urn:example:child\" "
+                + "xmlns:at=\"urn:example:attr\" at:kind=\"leaf\"/><sibling/></top>", written);
+        assertTrue(new Diff(document, DocumentUtils.stringToDocument(written)).similar());
+    }
+
+    private static void assertWrittenAsResponseDocument(NetConfResponse response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NetconfMessageStreamWriter.writeResponse(response, out);
+        Document written = DocumentUtils.stringToDocument(new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        Diff diff = new Diff(response.getResponseDocument(), written);
+        assertTrue(diff.toString(), diff.identical());
+        assertEquals(NetconfResources.RPC_REPLY, written.getDocumentElement().getLocalName());
+    }
+
+    private static String write(Document document) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NetconfMessageStreamWriter.writeNode(document, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -25,9 +25,14 @@ import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -244,4 +249,59 @@ public class DocumentUtilsTest {
                 "  </nc:edit-config>\n" +
                 "</nc:rpc>";
     }
+
+    @Test
+    public void testBytesToDocumentAndDocumentToBytes() throws Exception {
+        String rpc = "<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1\"><get><filter>"
+                + "<name xmlns=\"urn:test\">\u00e9t\u00e9</name></filter></get></rpc>";
+        byte[] bytes = rpc.getBytes(StandardCharsets.UTF_8);
+        Document document = DocumentUtils.bytesToDocument(bytes);
+        assertEquals("1", DocumentUtils.getInstance().getMessageIdFromRpcDocument(document));
+        assertEquals(DocumentUtils.documentToString(document), new String(DocumentUtils.documentToBytes(document),
+                StandardCharsets.UTF_8));
+
+        byte[] framed = ("#" + rpc + "##").getBytes(StandardCharsets.UTF_8);
+        assertEquals(rpc, DocumentUtils.documentToString(DocumentUtils.bytesToDocument(framed, 1, bytes.length)));
+    }
+
+    @Test
+    public void testParsersAndSerializersAreReusedAfterErrors() throws Exception {
+        try {
+            DocumentUtils.stringToDocument("<rpc><get></rpc>", false);
+            fail("Expected the malformed message to be rejected");
+        } catch (NetconfMessageBuilderException e) {
+            assertEquals("Error while converting string to xml document", e.getMessage());
+        }
+        Document document = DocumentUtils.stringToDocument("<rpc message-id=\"2\"><get/></rpc>");
+        assertEquals("<rpc message-id=\"2\"><get/></rpc>", DocumentUtils.documentToString(document));
+        assertEquals("<rpc message-id=\"2\">\n<get/>\n</rpc>\n", DocumentUtils.documentToPrettyString(document)
+                .replace("\r", ""));
+        assertEquals("<rpc message-id=\"2\"><get/></rpc>", DocumentUtils.documentToString(document));
+    }
+
+    @Test
+    public void testParsingIsThreadConfined() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String rpc = "<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"" + i + "\"/>";
+                results.add(executor.submit(() -> DocumentUtils.documentToString(DocumentUtils.stringToDocument(
+                        rpc))));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals("<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"" + i + "\"/>",
+                        results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExternalEntitiesAreNotResolved() throws Exception {
+        Document document = DocumentUtils.stringToDocument("<!DOCTYPE rpc [<!ENTITY secret SYSTEM "
+                + "\"file:///etc/hostname\">]><rpc>&secret;</rpc>", false);
+        assertEquals("", document.getDocumentElement().getTextContent());
+    }
 }
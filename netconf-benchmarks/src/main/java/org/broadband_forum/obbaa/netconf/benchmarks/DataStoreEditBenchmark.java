@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+
+/**
+ * {@link org.broadband_forum.obbaa.netconf.mn.fwk.server.model.DataStore#edit} on an in-memory datastore holding
+ * the given number of devices, without post edit validation. The edited devices are spread over the whole list.
+ * With m_versioned, the datastore keeps its nodes in versions, each edit builds and publishes a new one.
+ *
+ * Loading 10000 devices into the in-memory datastore takes close to a minute and the largest datastores take far
+ * longer, a run can be limited to some sizes with -p m_devices=100,1000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DataStoreEditBenchmark {
+    static final int EDITS = 1024;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int m_devices;
+
+    @Param({"false", "true"})
+    public boolean m_versioned;
+
+    private NetworkDataStore m_store;
+    private EditConfigRequest[][] m_adminStateEdits;
+    private EditConfigRequest[] m_createEdits;
+    private EditConfigRequest[] m_deleteEdits;
+    private int m_invocation;
+
+    @Setup
+    public void setUp() throws Exception {
+        m_store = new NetworkDataStore(m_devices, m_versioned);
+        m_store.setValidation(false);
+        // the devices are loaded admin-state up, every pass over the edits flips them
+        m_adminStateEdits = new EditConfigRequest[2][EDITS];
+        m_createEdits = new EditConfigRequest[EDITS];
+        m_deleteEdits = new EditConfigRequest[EDITS];
+        for (int edit = 0; edit < EDITS; edit++) {
+            int device = spread(edit, m_devices);
+            m_adminStateEdits[0][edit] = NetworkDataStore.editConfig(NetworkModel.adminState(device, "down"));
+            m_adminStateEdits[1][edit] = NetworkDataStore.editConfig(NetworkModel.adminState(device, "up"));
+            m_createEdits[edit] = NetworkDataStore.editConfig(NetworkModel.operation(m_devices + edit, "create"));
+            m_deleteEdits[edit] = NetworkDataStore.editConfig(NetworkModel.operation(m_devices + edit, "delete"));
+        }
+    }
+
+    @Benchmark
+    public List<Notification> mergeLeaf() throws Exception {
+        int invocation = m_invocation++;
+        EditConfigRequest request = m_adminStateEdits[(invocation / EDITS) % 2][invocation % EDITS];
+        return m_store.edit(request);
+    }
+
+    @Benchmark
+    public List<Notification> createAndDeleteListEntry() throws Exception {
+        int edit = m_invocation++ % EDITS;
+        m_store.edit(m_createEdits[edit]);
+        return m_store.edit(m_deleteEdits[edit]);
+    }
+
+    /**
+     * The index of the edit-th of {@link #EDITS} devices spread evenly over a list of the given size.
+     */
+    static int spread(int edit, int devices) {
+        return (int) ((long) edit * devices / EDITS);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditContainmentNode;
+
+/**
+ * Post edit validation of edits changing the serial-number of an ONU, which evaluates the when statement of its
+ * onu-config and the must statement of the serial-number, on an in-memory datastore holding the given number of
+ * devices. {@link #validate()} runs the validator alone on the edit tree of an edit that has been applied,
+ * {@link #editWithValidation()} the whole edit.
+ *
+ * Loading 10000 devices into the in-memory datastore takes close to a minute and the largest datastores take far
+ * longer, a run can be limited to some sizes with -p m_devices=100,1000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DataStoreValidatorBenchmark {
+    private static final int EDITS = DataStoreEditBenchmark.EDITS;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int m_devices;
+
+    private NetworkDataStore m_store;
+    private EditConfigRequest[][] m_serialNumberEdits;
+    private EditConfigRequest[] m_appliedEdits;
+    private EditContainmentNode[] m_appliedEditTrees;
+    private int m_invocation;
+
+    @Setup
+    public void setUp() throws Exception {
+        m_store = new NetworkDataStore(m_devices);
+        m_store.setValidation(true);
+        m_serialNumberEdits = new EditConfigRequest[2][EDITS];
+        m_appliedEdits = new EditConfigRequest[EDITS];
+        m_appliedEditTrees = new EditContainmentNode[EDITS];
+        for (int edit = 0; edit < EDITS; edit++) {
+            // ONUs have odd indexes
+            int onu = DataStoreEditBenchmark.spread(edit, m_devices) | 1;
+            m_serialNumberEdits[0][edit] = NetworkDataStore.editConfig(NetworkModel.serialNumber(onu, onu + 1));
+            m_serialNumberEdits[1][edit] = NetworkDataStore.editConfig(NetworkModel.serialNumber(onu, onu));
+            m_appliedEdits[edit] = m_serialNumberEdits[1][edit];
+            m_appliedEditTrees[edit] = EditTreeBuilderBenchmark.buildEditTree(m_store, NetworkModel.toElement(
+                    NetworkModel.serialNumber(onu, onu)));
+        }
+    }
+
+    @Benchmark
+    public List<Notification> validate() throws Exception {
+        int edit = m_invocation++ % EDITS;
+        return m_store.validate(m_appliedEditTrees[edit], m_appliedEdits[edit]);
+    }
+
+    @Benchmark
+    public List<Notification> editWithValidation() throws Exception {
+        int invocation = m_invocation++;
+        EditConfigRequest request = m_serialNumberEdits[(invocation / EDITS) % 2][invocation % EDITS];
+        return m_store.edit(request);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+
+/**
+ * Parses and serializes hello, get and edit-config messages with DocumentUtils, which keeps a parser and transformers
+ * per thread. The baseline benchmarks create the JAXP factory and the parser or transformer on every call, as
+ * DocumentUtils used to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentUtilsBenchmark {
+    private static final String NETCONF_NS = "urn:ietf:params:xml:ns:netconf:base:1.0";
+
+    @Param({"hello", "get", "edit-config"})
+    public String m_message;
+
+    private String m_xml;
+    private byte[] m_bytes;
+    private Document m_document;
+
+    @Setup
+    public void setUp() throws Exception {
+        switch (m_message) {
+            case "hello":
+                m_xml = "<hello xmlns=\"" + NETCONF_NS + "\"><capabilities>" +
+                        "<capability>urn:ietf:params:netconf:base:1.0</capability>" +
+                        "<capability>urn:ietf:params:netconf:base:1.1</capability>" +
+                        "<capability>urn:ietf:params:netconf:capability:candidate:1.0</capability>" +
+                        "<capability>" + NetworkModel.NS + "?module=benchmark-network&amp;revision=" +
+                        NetworkModel.REVISION + "</capability>" +
+                        "</capabilities><session-id>47</session-id></hello>";
+                break;
+            case "get":
+                m_xml = "<rpc message-id=\"101\" xmlns=\"" + NETCONF_NS + "\"><get><filter type=\"subtree\">" +
+                        "<network xmlns=\"" + NetworkModel.NS + "\"><device><vendor>" + NetworkModel.vendor(0) +
+                        "</vendor></device></network></filter></get></rpc>";
+                break;
+            case "edit-config":
+                m_xml = "<rpc message-id=\"101\" xmlns=\"" + NETCONF_NS + "\"><edit-config><target><running/>" +
+                        "</target><default-operation>merge</default-operation><config>" +
+                        NetworkModel.network(0, 10) + "</config></edit-config></rpc>";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown message " + m_message);
+        }
+        m_bytes = m_xml.getBytes(StandardCharsets.UTF_8);
+        m_document = DocumentUtils.stringToDocument(m_xml);
+    }
+
+    @Benchmark
+    public Document baselineParse() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        return builder.parse(new InputSource(new StringReader(m_xml)));
+    }
+
+    @Benchmark
+    public Document stringToDocument() throws Exception {
+        return DocumentUtils.stringToDocument(m_xml);
+    }
+
+    @Benchmark
+    public Document bytesToDocument() throws Exception {
+        return DocumentUtils.bytesToDocument(m_bytes);
+    }
+
+    @Benchmark
+    public String baselineSerialize() throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter out = new StringWriter();
+        transformer.transform(new DOMSource(m_document), new StreamResult(out));
+        return out.toString();
+    }
+
+    @Benchmark
+    public String documentToString() throws Exception {
+        return DocumentUtils.documentToString(m_document);
+    }
+
+    @Benchmark
+    public byte[] documentToBytes() throws Exception {
+        return DocumentUtils.documentToBytes(m_document);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigDefaultOperations;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditContainmentNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.EditTreeBuilder;
+
+/**
+ * Builds the edit tree of an edit-config creating the given number of devices, as the root model node does before
+ * applying an edit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EditTreeBuilderBenchmark {
+
+    @Param({"1", "100", "10000", "100000", "1000000"})
+    public int m_devices;
+
+    private NetworkDataStore m_store;
+    private Element m_config;
+
+    @Setup
+    public void setUp() throws Exception {
+        m_store = new NetworkDataStore(0);
+        m_config = NetworkModel.toElement(NetworkModel.network(0, m_devices));
+    }
+
+    @Benchmark
+    public EditContainmentNode prepareEditSubTree() throws EditConfigException {
+        return buildEditTree(m_store, m_config);
+    }
+
+    static EditContainmentNode buildEditTree(NetworkDataStore store, Element config) throws EditConfigException {
+        EditContainmentNode editTree = new EditContainmentNode();
+        editTree.setEditOperation(EditConfigDefaultOperations.MERGE);
+        new EditTreeBuilder().prepareEditSubTree(editTree, config, NetworkModel.NETWORK_PATH, store
+                .getSchemaRegistry(), store.getModelNodeHelperRegistry(), new ModelNodeId());
+        EditContainmentNode.setParentForEditContainmentNode(editTree, null);
+        return editTree;
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.EntityAccessor;
+
+/**
+ * Reads and writes all the attributes of an entity with 40 attributes, through {@link Method#invoke(Object,
+ * Object...)} as the entity mappers used to, and through the {@link EntityAccessor}s the entity registry now builds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityAccessorBenchmark {
+
+    private final List<Method> m_getters = new ArrayList<>();
+    private final List<Method> m_setters = new ArrayList<>();
+    private final List<EntityAccessor> m_getterAccessors = new ArrayList<>();
+    private final List<EntityAccessor> m_setterAccessors = new ArrayList<>();
+    private final DeviceEntity m_entity = new DeviceEntity();
+
+    @Setup
+    public void setUp() throws Exception {
+        for (Method method : DeviceEntity.class.getDeclaredMethods()) {
+            if (method.getName().startsWith("get")) {
+                m_getters.add(method);
+            } else if (method.getName().startsWith("set")) {
+                m_setters.add(method);
+            }
+        }
+        m_getters.sort(Comparator.comparing(Method::getName));
+        m_setters.sort(Comparator.comparing(Method::getName));
+        for (Method getter : m_getters) {
+            m_getterAccessors.add(EntityAccessor.forMethod(getter));
+        }
+        for (Method setter : m_setters) {
+            m_setterAccessors.add(EntityAccessor.forMethod(setter));
+            setter.invoke(m_entity, setter.getName().substring(3));
+        }
+    }
+
+    @Benchmark
+    public void readWithReflection(Blackhole blackhole) throws IllegalAccessException, InvocationTargetException {
+        for (Method getter : m_getters) {
+            blackhole.consume(getter.invoke(m_entity));
+        }
+    }
+
+    @Benchmark
+    public void readWithAccessors(Blackhole blackhole) throws IllegalAccessException, InvocationTargetException {
+        for (EntityAccessor getter : m_getterAccessors) {
+            blackhole.consume(getter.get(m_entity));
+        }
+    }
+
+    @Benchmark
+    public DeviceEntity writeWithReflection() throws IllegalAccessException, InvocationTargetException {
+        for (Method setter : m_setters) {
+            setter.invoke(m_entity, "value");
+        }
+        return m_entity;
+    }
+
+    @Benchmark
+    public DeviceEntity writeWithAccessors() throws IllegalAccessException, InvocationTargetException {
+        for (EntityAccessor setter : m_setterAccessors) {
+            setter.set(m_entity, "value");
+        }
+        return m_entity;
+    }
+
+    /**
+     * An entity with as many attributes as the device entities of the deployed models.
+     */
+    public static class DeviceEntity {
+        private String m_attribute01;
+        private String m_attribute02;
+        private String m_attribute03;
+        private String m_attribute04;
+        private String m_attribute05;
+        private String m_attribute06;
+        private String m_attribute07;
+        private String m_attribute08;
+        private String m_attribute09;
+        private String m_attribute10;
+        private String m_attribute11;
+        private String m_attribute12;
+        private String m_attribute13;
+        private String m_attribute14;
+        private String m_attribute15;
+        private String m_attribute16;
+        private String m_attribute17;
+        private String m_attribute18;
+        private String m_attribute19;
+        private String m_attribute20;
+        private String m_attribute21;
+        private String m_attribute22;
+        private String m_attribute23;
+        private String m_attribute24;
+        private String m_attribute25;
+        private String m_attribute26;
+        private String m_attribute27;
+        private String m_attribute28;
+        private String m_attribute29;
+        private String m_attribute30;
+        private String m_attribute31;
+        private String m_attribute32;
+        private String m_attribute33;
+        private String m_attribute34;
+        private String m_attribute35;
+        private String m_attribute36;
+        private String m_attribute37;
+        private String m_attribute38;
+        private String m_attribute39;
+        private String m_attribute40;
+
+        public String getAttribute01() {
+            return m_attribute01;
+        }
+
+        public void setAttribute01(String attribute01) {
+            m_attribute01 = attribute01;
+        }
+
+        public String getAttribute02() {
+            return m_attribute02;
+        }
+
+        public void setAttribute02(String attribute02) {
+            m_attribute02 = attribute02;
+        }
+
+        public String getAttribute03() {
+            return m_attribute03;
+        }
+
+        public void setAttribute03(String attribute03) {
+            m_attribute03 = attribute03;
+        }
+
+        public String getAttribute04() {
+            return m_attribute04;
+        }
+
+        public void setAttribute04(String attribute04) {
+            m_attribute04 = attribute04;
+        }
+
+        public String getAttribute05() {
+            return m_attribute05;
+        }
+
+        public void setAttribute05(String attribute05) {
+            m_attribute05 = attribute05;
+        }
+
+        public String getAttribute06() {
+            return m_attribute06;
+        }
+
+        public void setAttribute06(String attribute06) {
+            m_attribute06 = attribute06;
+        }
+
+        public String getAttribute07() {
+            return m_attribute07;
+        }
+
+        public void setAttribute07(String attribute07) {
+            m_attribute07 = attribute07;
+        }
+
+        public String getAttribute08() {
+            return m_attribute08;
+        }
+
+        public void setAttribute08(String attribute08) {
+            m_attribute08 = attribute08;
+        }
+
+        public String getAttribute09() {
+            return m_attribute09;
+        }
+
+        public void setAttribute09(String attribute09) {
+            m_attribute09 = attribute09;
+        }
+
+        public String getAttribute10() {
+            return m_attribute10;
+        }
+
+        public void setAttribute10(String attribute10) {
+            m_attribute10 = attribute10;
+        }
+
+        public String getAttribute11() {
+            return m_attribute11;
+        }
+
+        public void setAttribute11(String attribute11) {
+            m_attribute11 = attribute11;
+        }
+
+        public String getAttribute12() {
+            return m_attribute12;
+        }
+
+        public void setAttribute12(String attribute12) {
+            m_attribute12 = attribute12;
+        }
+
+        public String getAttribute13() {
+            return m_attribute13;
+        }
+
+        public void setAttribute13(String attribute13) {
+            m_attribute13 = attribute13;
+        }
+
+        public String getAttribute14() {
+            return m_attribute14;
+        }
+
+        public void setAttribute14(String attribute14) {
+            m_attribute14 = attribute14;
+        }
+
+        public String getAttribute15() {
+            return m_attribute15;
+        }
+
+        public void setAttribute15(String attribute15) {
+            m_attribute15 = attribute15;
+        }
+
+        public String getAttribute16() {
+            return m_attribute16;
+        }
+
+        public void setAttribute16(String attribute16) {
+            m_attribute16 = attribute16;
+        }
+
+        public String getAttribute17() {
+            return m_attribute17;
+        }
+
+        public void setAttribute17(String attribute17) {
+            m_attribute17 = attribute17;
+        }
+
+        public String getAttribute18() {
+            return m_attribute18;
+        }
+
+        public void setAttribute18(String attribute18) {
+            m_attribute18 = attribute18;
+        }
+
+        public String getAttribute19() {
+            return m_attribute19;
+        }
+
+        public void setAttribute19(String attribute19) {
+            m_attribute19 = attribute19;
+        }
+
+        public String getAttribute20() {
+            return m_attribute20;
+        }
+
+        public void setAttribute20(String attribute20) {
+            m_attribute20 = attribute20;
+        }
+
+        public String getAttribute21() {
+            return m_attribute21;
+        }
+
+        public void setAttribute21(String attribute21) {
+            m_attribute21 = attribute21;
+        }
+
+        public String getAttribute22() {
+            return m_attribute22;
+        }
+
+        public void setAttribute22(String attribute22) {
+            m_attribute22 = attribute22;
+        }
+
+        public String getAttribute23() {
+            return m_attribute23;
+        }
+
+        public void setAttribute23(String attribute23) {
+            m_attribute23 = attribute23;
+        }
+
+        public String getAttribute24() {
+            return m_attribute24;
+        }
+
+        public void setAttribute24(String attribute24) {
+            m_attribute24 = attribute24;
+        }
+
+        public String getAttribute25() {
+            return m_attribute25;
+        }
+
+        public void setAttribute25(String attribute25) {
+            m_attribute25 = attribute25;
+        }
+
+        public String getAttribute26() {
+            return m_attribute26;
+        }
+
+        public void setAttribute26(String attribute26) {
+            m_attribute26 = attribute26;
+        }
+
+        public String getAttribute27() {
+            return m_attribute27;
+        }
+
+        public void setAttribute27(String attribute27) {
+            m_attribute27 = attribute27;
+        }
+
+        public String getAttribute28() {
+            return m_attribute28;
+        }
+
+        public void setAttribute28(String attribute28) {
+            m_attribute28 = attribute28;
+        }
+
+        public String getAttribute29() {
+            return m_attribute29;
+        }
+
+        public void setAttribute29(String attribute29) {
+            m_attribute29 = attribute29;
+        }
+
+        public String getAttribute30() {
+            return m_attribute30;
+        }
+
+        public void setAttribute30(String attribute30) {
+            m_attribute30 = attribute30;
+        }
+
+        public String getAttribute31() {
+            return m_attribute31;
+        }
+
+        public void setAttribute31(String attribute31) {
+            m_attribute31 = attribute31;
+        }
+
+        public String getAttribute32() {
+            return m_attribute32;
+        }
+
+        public void setAttribute32(String attribute32) {
+            m_attribute32 = attribute32;
+        }
+
+        public String getAttribute33() {
+            return m_attribute33;
+        }
+
+        public void setAttribute33(String attribute33) {
+            m_attribute33 = attribute33;
+        }
+
+        public String getAttribute34() {
+            return m_attribute34;
+        }
+
+        public void setAttribute34(String attribute34) {
+            m_attribute34 = attribute34;
+        }
+
+        public String getAttribute35() {
+            return m_attribute35;
+        }
+
+        public void setAttribute35(String attribute35) {
+            m_attribute35 = attribute35;
+        }
+
+        public String getAttribute36() {
+            return m_attribute36;
+        }
+
+        public void setAttribute36(String attribute36) {
+            m_attribute36 = attribute36;
+        }
+
+        public String getAttribute37() {
+            return m_attribute37;
+        }
+
+        public void setAttribute37(String attribute37) {
+            m_attribute37 = attribute37;
+        }
+
+        public String getAttribute38() {
+            return m_attribute38;
+        }
+
+        public void setAttribute38(String attribute38) {
+            m_attribute38 = attribute38;
+        }
+
+        public String getAttribute39() {
+            return m_attribute39;
+        }
+
+        public void setAttribute39(String attribute39) {
+            m_attribute39 = attribute39;
+        }
+
+        public String getAttribute40() {
+            return m_attribute40;
+        }
+
+        public void setAttribute40(String attribute40) {
+            m_attribute40 = attribute40;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingOutputStream;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+
+/**
+ * Chunked framing (RFC 6242) of get replies listing the given number of devices, with the String based
+ * {@link DocumentToPojoTransformer#chunkMessage(int, String)} and
+ * {@link DocumentToPojoTransformer#processChunkedMessage(String)} and with the streaming
+ * {@link NetconfFramingOutputStream} and {@link NetconfFramingDecoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FramingBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int m_devices;
+
+    private String m_reply;
+    private byte[] m_replyBytes;
+    private String m_chunkedReply;
+    private byte[] m_chunkedReplyBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        m_reply = "<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1\"><data>" +
+                NetworkModel.network(0, m_devices) + "</data></rpc-reply>";
+        m_replyBytes = m_reply.getBytes(StandardCharsets.UTF_8);
+        m_chunkedReply = DocumentToPojoTransformer.chunkMessage(NetconfFramingOutputStream.DEFAULT_CHUNK_SIZE,
+                m_reply);
+        m_chunkedReplyBytes = m_chunkedReply.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String chunkMessage() throws NetconfMessageBuilderException {
+        return DocumentToPojoTransformer.chunkMessage(NetconfFramingOutputStream.DEFAULT_CHUNK_SIZE, m_reply);
+    }
+
+    @Benchmark
+    public String processChunkedMessage() throws NetconfMessageBuilderException {
+        return DocumentToPojoTransformer.processChunkedMessage(m_chunkedReply);
+    }
+
+    @Benchmark
+    public byte[] framingOutputStream() throws IOException {
+        ByteArrayOutputStream framed = new ByteArrayOutputStream(m_replyBytes.length + 64);
+        try (NetconfFramingOutputStream out = new NetconfFramingOutputStream(framed, Framing.CHUNKED)) {
+            out.write(m_replyBytes);
+        }
+        return framed.toByteArray();
+    }
+
+    @Benchmark
+    public void framingDecoder(Blackhole blackhole) throws NetconfMessageBuilderException, IOException {
+        new NetconfFramingDecoder(Framing.CHUNKED).decode(m_chunkedReplyBytes, 0, m_chunkedReplyBytes.length,
+                blackhole::consume);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.broadband_forum.obbaa.netconf.api.messages.GetRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFilter;
+
+/**
+ * &lt;get&gt; with subtree filters on an in-memory datastore holding the given number of devices: one device selected
+ * by its key, the devices of one vendor selected by a content match (1 in {@link NetworkModel#VENDORS}) and the
+ * names of all devices.
+ *
+ * Loading 10000 devices into the in-memory datastore takes close to a minute and the largest datastores take far
+ * longer, a run can be limited to some sizes with -p m_devices=100,1000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GetWithFilterBenchmark {
+    private static final int EDITS = DataStoreEditBenchmark.EDITS;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int m_devices;
+
+    private NetworkDataStore m_store;
+    private GetRequest[] m_byKey;
+    private GetRequest[] m_byContentMatch;
+    private GetRequest m_selectNames;
+    private int m_invocation;
+
+    @Setup
+    public void setUp() throws Exception {
+        m_store = new NetworkDataStore(m_devices);
+        m_byKey = new GetRequest[EDITS];
+        for (int request = 0; request < EDITS; request++) {
+            m_byKey[request] = get("<device><name>" + NetworkModel.deviceName(DataStoreEditBenchmark.spread(request,
+                    m_devices)) + "</name></device>");
+        }
+        m_byContentMatch = new GetRequest[NetworkModel.VENDORS];
+        for (int vendor = 0; vendor < NetworkModel.VENDORS; vendor++) {
+            m_byContentMatch[vendor] = get("<device><vendor>" + NetworkModel.vendor(vendor) + "</vendor></device>");
+        }
+        m_selectNames = get("<device><name/></device>");
+    }
+
+    @Benchmark
+    public NetConfResponse getByKey() {
+        return m_store.get(m_byKey[m_invocation++ % EDITS]);
+    }
+
+    @Benchmark
+    public NetConfResponse getByContentMatch() {
+        return m_store.get(m_byContentMatch[m_invocation++ % NetworkModel.VENDORS]);
+    }
+
+    @Benchmark
+    public NetConfResponse getSelectNames() {
+        return m_store.get(m_selectNames);
+    }
+
+    private static GetRequest get(String filterContent) {
+        NetconfFilter filter = new NetconfFilter();
+        filter.setType("subtree");
+        filter.addXmlFilter(NetworkModel.toElement("<network xmlns=\"" + NetworkModel.NS + "\">" + filterContent +
+                "</network>"));
+        GetRequest request = new GetRequest();
+        request.setMessageId("1");
+        request.setFilter(filter);
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.GetRequest;
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+
+/**
+ * Turns edit-config requests carrying the given number of devices and get requests with a subtree filter into
+ * request objects, from the received String and from an already parsed document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MessageParsingBenchmark {
+    private static final String RPC = "<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1\">";
+
+    @Param({"1", "100", "10000", "100000", "1000000"})
+    public int m_devices;
+
+    private String m_editConfig;
+    private Document m_editConfigDocument;
+    private String m_get;
+    private Document m_getDocument;
+
+    @Setup
+    public void setUp() throws Exception {
+        m_editConfig = RPC + "<edit-config><target><running/></target><config>" + NetworkModel.network(0,
+                m_devices) + "</config></edit-config></rpc>";
+        m_editConfigDocument = DocumentUtils.stringToDocument(m_editConfig);
+        m_get = RPC + "<get><filter type=\"subtree\"><network xmlns=\"" + NetworkModel.NS + "\"><device><vendor>" +
+                NetworkModel.vendor(0) + "</vendor></device></network></filter></get></rpc>";
+        m_getDocument = DocumentUtils.stringToDocument(m_get);
+    }
+
+    @Benchmark
+    public EditConfigRequest parseEditConfig() throws NetconfMessageBuilderException {
+        return DocumentToPojoTransformer.getEditConfig(DocumentUtils.stringToDocument(m_editConfig));
+    }
+
+    @Benchmark
+    public EditConfigRequest getEditConfig() throws NetconfMessageBuilderException {
+        return DocumentToPojoTransformer.getEditConfig(m_editConfigDocument);
+    }
+
+    @Benchmark
+    public GetRequest parseGet() throws NetconfMessageBuilderException {
+        return DocumentToPojoTransformer.getGet(DocumentUtils.stringToDocument(m_get));
+    }
+
+    @Benchmark
+    public GetRequest getGet() throws NetconfMessageBuilderException {
+        return DocumentToPojoTransformer.getGet(m_getDocument);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigElement;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigErrorOptions;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigTestOptions;
+import org.broadband_forum.obbaa.netconf.api.messages.GetRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+import org.broadband_forum.obbaa.netconf.api.messages.StandardDataStores;
+import org.broadband_forum.obbaa.netconf.api.parser.YangParserUtil;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaBuildException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryTraverser;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryVisitor;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.typevalidators.ValidationException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.DataStore;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigTestFailedException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditContainmentNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.LockedByOtherSessionException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.NbiNotificationHelperImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.NetConfServerImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.NoopSubSystem;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystem;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDSMRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.PersistenceException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.service.ModelNodeDSMDeployer;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.service.SchemaPathRegistrar;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.service.SubsystemDeployer;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.HelperDrivenModelNodeFactory;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeFactoryException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeRegistrar;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootEntityContainerModelNodeHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootModelNodeAggregator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootModelNodeAggregatorImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DataStoreValidator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DataStoreValidatorImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.service
+        .DataStoreIntegrityServiceImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util
+        .DSExpressionValidator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.dsm.DsmModelNodeHelperDeployer;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.InMemoryDSM;
+import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
+
+/**
+ * A running datastore backed by an {@link InMemoryDSM}, wired the way the server wires it for the benchmark-network
+ * model and loaded with a given number of devices.
+ *
+ * The devices are loaded without post edit validation, in edits of {@link #LOAD_BATCH_SIZE} devices. The validator is
+ * installed once the data is in place.
+ */
+public class NetworkDataStore {
+    public static final NetconfClientInfo CLIENT_INFO = new NetconfClientInfo("benchmark", 1);
+    static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final SchemaRegistry m_schemaRegistry;
+    private final ModelNodeHelperRegistry m_modelNodeHelperRegistry;
+    private final SubSystemRegistry m_subSystemRegistry = new SubSystemRegistryImpl();
+    private final InMemoryDSM m_modelNodeDsm;
+    private final RootModelNodeAggregator m_rootModelNodeAggregator;
+    private final DataStore m_dataStore;
+    private final NetConfServerImpl m_server;
+    private final DataStoreValidator m_validator;
+    private final int m_devices;
+
+    public NetworkDataStore(int devices) throws SchemaBuildException, ModelNodeFactoryException {
+        this(devices, false);
+    }
+
+    /**
+     * Creates the datastore, with the in-memory DSM in its versioned mode when asked.
+     */
+    public NetworkDataStore(int devices, boolean versioned) throws SchemaBuildException, ModelNodeFactoryException {
+        m_devices = devices;
+        // every request gets a scope of its own, as in the server, also when the environment looks like a build box
+        RequestScope.setEnableThreadLocalInUT(true);
+        m_schemaRegistry = new SchemaRegistryImpl(Collections.singletonList(YangParserUtil.getYangSource(
+                NetworkDataStore.class.getResource(NetworkModel.YANG))), new NoLockService());
+        m_modelNodeHelperRegistry = new ModelNodeHelperRegistryImpl(m_schemaRegistry);
+        m_modelNodeDsm = new InMemoryDSM(m_schemaRegistry);
+        m_modelNodeDsm.setVersioned(versioned);
+        deployHelpers(NoopSubSystem.c_instance);
+
+        m_rootModelNodeAggregator = new RootModelNodeAggregatorImpl(m_schemaRegistry, m_modelNodeHelperRegistry,
+                m_modelNodeDsm, m_subSystemRegistry);
+        ContainerSchemaNode network = (ContainerSchemaNode) m_schemaRegistry.getDataSchemaNode(NetworkModel
+                .NETWORK_PATH);
+        m_rootModelNodeAggregator.addModelServiceRootHelper(NetworkModel.NETWORK_PATH, new
+                RootEntityContainerModelNodeHelper(network, m_modelNodeHelperRegistry, m_subSystemRegistry,
+                m_schemaRegistry, m_modelNodeDsm));
+
+        m_server = new NetConfServerImpl(m_schemaRegistry);
+        m_dataStore = new DataStore(StandardDataStores.RUNNING, m_rootModelNodeAggregator, m_subSystemRegistry);
+        m_dataStore.setNbiNotificationHelper(new NbiNotificationHelperImpl());
+        m_server.setRunningDataStore(m_dataStore);
+        m_validator = new DataStoreValidatorImpl(m_schemaRegistry, m_modelNodeHelperRegistry, m_modelNodeDsm, new
+                DataStoreIntegrityServiceImpl(m_modelNodeHelperRegistry, m_schemaRegistry, m_server), new
+                DSExpressionValidator(m_schemaRegistry, m_modelNodeHelperRegistry));
+
+        for (int from = 0; from < devices; from += LOAD_BATCH_SIZE) {
+            edit(NetworkModel.network(from, Math.min(devices, from + LOAD_BATCH_SIZE)));
+        }
+    }
+
+    /**
+     * Turns post edit validation of the datastore on or off.
+     */
+    public void setValidation(boolean validation) {
+        m_dataStore.setValidator(validation ? m_validator : null);
+    }
+
+    /**
+     * Sends an edit-config with the given config through the server, failing on an error reply.
+     */
+    public NetConfResponse edit(String config) {
+        NetConfResponse response = new NetConfResponse().setMessageId("1");
+        RequestScope.resetScope();
+        try {
+            m_server.onEditConfig(CLIENT_INFO, editConfig(config), response);
+        } finally {
+            RequestScope.resetScope();
+        }
+        if (!response.isOk()) {
+            throw new IllegalStateException("edit-config failed: " + response.responseToString());
+        }
+        return response;
+    }
+
+    public List<Notification> edit(EditConfigRequest request) throws EditConfigException,
+            EditConfigTestFailedException, PersistenceException, LockedByOtherSessionException {
+        RequestScope.resetScope();
+        try {
+            return m_dataStore.edit(request, CLIENT_INFO);
+        } finally {
+            RequestScope.resetScope();
+        }
+    }
+
+    /**
+     * Runs the post edit validation of an edit that has been applied.
+     */
+    public List<Notification> validate(EditContainmentNode editTree, EditConfigRequest request) throws
+            ValidationException {
+        RequestScope.resetScope();
+        try {
+            return m_validator.validate(m_rootModelNodeAggregator, editTree, request, CLIENT_INFO);
+        } finally {
+            RequestScope.resetScope();
+        }
+    }
+
+    public NetConfResponse get(GetRequest request) {
+        NetConfResponse response = new NetConfResponse().setMessageId("1");
+        RequestScope.resetScope();
+        try {
+            m_server.onGet(CLIENT_INFO, request, response);
+        } finally {
+            RequestScope.resetScope();
+        }
+        return response;
+    }
+
+    public static EditConfigRequest editConfig(String config) {
+        EditConfigRequest request = new EditConfigRequest()
+                .setTargetRunning()
+                .setTestOption(EditConfigTestOptions.SET)
+                .setErrorOption(EditConfigErrorOptions.STOP_ON_ERROR)
+                .setConfigElement(new EditConfigElement().addConfigElementContent(NetworkModel.toElement(config)));
+        request.setMessageId("1");
+        return request;
+    }
+
+    public int getDevices() {
+        return m_devices;
+    }
+
+    public SchemaRegistry getSchemaRegistry() {
+        return m_schemaRegistry;
+    }
+
+    public ModelNodeHelperRegistry getModelNodeHelperRegistry() {
+        return m_modelNodeHelperRegistry;
+    }
+
+
+    private void deployHelpers(SubSystem subSystem) throws ModelNodeFactoryException {
+        ModelNodeRegistrar.registerModelNodeFactory(HelperDrivenModelNodeFactory.class.getName(), new
+                HelperDrivenModelNodeFactory(), m_modelNodeHelperRegistry);
+        for (Module module : m_schemaRegistry.getAllModules()) {
+            Map<SchemaPath, SubSystem> subSystems = new HashMap<>();
+            for (DataSchemaNode child : module.getChildNodes()) {
+                subSystems.put(child.getPath(), subSystem);
+            }
+            List<SchemaRegistryVisitor> visitors = new ArrayList<>();
+            visitors.add(new SubsystemDeployer(m_subSystemRegistry, subSystems));
+            visitors.add(new DsmModelNodeHelperDeployer(m_schemaRegistry, m_modelNodeDsm, m_modelNodeHelperRegistry,
+                    m_subSystemRegistry));
+            visitors.add(new ModelNodeDSMDeployer(new ModelNodeDSMRegistryImpl(), m_modelNodeDsm));
+            visitors.add(new SchemaPathRegistrar(m_schemaRegistry, m_modelNodeHelperRegistry));
+            new SchemaRegistryTraverser(module.getName(), visitors, m_schemaRegistry, module).traverse();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.benchmarks;
+
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.w3c.dom.Element;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+
+/**
+ * Payloads of the benchmark-network YANG module: a network of OLT and ONU devices. Devices with an even index are
+ * OLTs, the others ONUs with an onu-config container guarded by when and must statements. Every device has one of
+ * {@link #VENDORS} vendors, so a content match on the vendor selects a fixed share of the list.
+ */
+public final class NetworkModel {
+    public static final String YANG = "/yangs/benchmark-network.yang";
+    public static final String NS = "urn:bbf:obbaa:benchmark:network";
+    public static final String REVISION = "2018-10-01";
+    public static final QName NETWORK_QNAME = QName.create(NS, REVISION, "network");
+    public static final SchemaPath NETWORK_PATH = SchemaPath.create(true, NETWORK_QNAME);
+    public static final int VENDORS = 100;
+
+    private NetworkModel() {
+    }
+
+    public static String deviceName(int index) {
+        return "device-" + index;
+    }
+
+    public static String vendor(int index) {
+        return "vendor-" + (index % VENDORS);
+    }
+
+    /**
+     * The network container with the devices from index {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    public static String network(int from, int to) {
+        StringBuilder xml = new StringBuilder(128 * (to - from) + 64);
+        xml.append("<network xmlns=\"").append(NS).append("\">");
+        for (int index = from; index < to; index++) {
+            appendDevice(xml, index, "up");
+        }
+        return xml.append("</network>").toString();
+    }
+
+    /**
+     * Changes the admin-state of one device.
+     */
+    public static String adminState(int index, String adminState) {
+        return "<network xmlns=\"" + NS + "\"><device><name>" + deviceName(index) + "</name><admin-state>" +
+                adminState + "</admin-state></device></network>";
+    }
+
+    /**
+     * Changes the serial-number of one ONU, which evaluates the when and must statements of its onu-config.
+     */
+    public static String serialNumber(int index, int serial) {
+        return "<network xmlns=\"" + NS + "\"><device><name>" + deviceName(index) + "</name><onu-config>" +
+                "<serial-number>" + serialNumberValue(serial) + "</serial-number></onu-config></device></network>";
+    }
+
+    public static String operation(int index, String operation) {
+        StringBuilder xml = new StringBuilder("<network xmlns=\"").append(NS).append("\" xmlns:xc=\"")
+                .append("urn:ietf:params:xml:ns:netconf:base:1.0\">");
+        xml.append("<device xc:operation=\"").append(operation).append("\"><name>").append(deviceName(index))
+                .append("</name>");
+        if (!"delete".equals(operation)) {
+            appendLeaves(xml, index, "up");
+        }
+        return xml.append("</device></network>").toString();
+    }
+
+    public static Element toElement(String xml) {
+        try {
+            return DocumentUtils.stringToDocument(xml).getDocumentElement();
+        } catch (NetconfMessageBuilderException e) {
+            throw new IllegalArgumentException("Invalid payload " + xml, e);
+        }
+    }
+
+    private static void appendDevice(StringBuilder xml, int index, String adminState) {
+        xml.append("<device><name>").append(deviceName(index)).append("</name>");
+        appendLeaves(xml, index, adminState);
+        xml.append("</device>");
+    }
+
+    private static void appendLeaves(StringBuilder xml, int index, String adminState) {
+        boolean onu = index % 2 == 1;
+        xml.append("<type>").append(onu ? "onu" : "olt").append("</type>");
+        xml.append("<admin-state>").append(adminState).append("</admin-state>");
+        xml.append("<vendor>").append(vendor(index)).append("</vendor>");
+        if (onu) {
+            xml.append("<onu-config><serial-number>").append(serialNumberValue(index))
+                    .append("</serial-number><channel-partition>").append(index % 64)
+                    .append("</channel-partition></onu-config>");
+        }
+    }
+
+    private static String serialNumberValue(int serial) {
+        return String.format("BBFO%08d", serial % 100_000_000);
+    }
+}
@@ -101,14 +101,14 @@ public class CallhomeTlsClientDispatcherImpl extends AbstractNetconfClientDispat
             CallHomeListener listener = transport.getCallHomeListener();
             ServerBootstrap b = new ServerBootstrap();
             long handshakeTimeoutMillis = transport.getTlsHandshakeTimeOutMillis();
+            CallhomeTlsNetconfClientInitializer initializer = new CallhomeTlsNetconfClientInitializer(sslCtx,
+                    listener, config.getCaps(), config.getAuthenticationListener(), config.getNotificationListener(),
+                    transport.isTlsKeepalive(), transport.isSelfSigned(), getExecutorService(),
+                    getCallHomeExecutorService(), handshakeTimeoutMillis);
+            initializer.setPipeliningLimits(config.getMaxOutstandingRequests(), config.getMaxQueuedRequests());
             b.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
-                    .childHandler(
-                            new CallhomeTlsNetconfClientInitializer(sslCtx, listener, config.getCaps(), config
-                                    .getAuthenticationListener(),
-                                    config.getNotificationListener(), transport.isTlsKeepalive(), transport
-                                    .isSelfSigned(),
-                                    getExecutorService(), getCallHomeExecutorService(), handshakeTimeoutMillis));
+                    .childHandler(initializer);
 
             Channel channel = b.bind(transport.getCallHomeIp(), Integer.valueOf(transport.getCallHomePort())).sync()
                     .channel();
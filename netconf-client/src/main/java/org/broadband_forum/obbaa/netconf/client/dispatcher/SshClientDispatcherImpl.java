@@ -152,8 +152,9 @@ public class SshClientDispatcherImpl extends AbstractNetconfClientDispatcher {
                     .NETCONF_SUBSYSTEM_NAME);
             clientChannel.setStreaming(ClientChannel.Streaming.Async);
 
-            final SshNetconfClientSession netconfSession = new SshNetconfClientSession(getExecutorService());
+            final SshNetconfClientSession netconfSession = new SshNetconfClientSession();
             netconfSession.setClientSession(clientSession);
+            netconfSession.setPipeliningLimits(config.getMaxOutstandingRequests(), config.getMaxQueuedRequests());
             netconfSession.addNotificationListener(config.getNotificationListener());
             netconfSession.addSessionListener(config.getClientSessionListener());
             // Inform the listeners about session closed
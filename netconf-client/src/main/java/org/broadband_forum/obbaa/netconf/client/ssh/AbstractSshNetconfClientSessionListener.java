@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.client.ssh;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.log4j.Logger;
+import org.apache.sshd.client.channel.ChannelSubsystem;
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.w3c.dom.Document;
+
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+
+/**
+ * Reads replies from the SSH channel and hands them to the client session.
+ *
+ * Only the newly arrived bytes of each read are passed through the framing decoder, so reassembling a reply costs
+ * time linear in its size. The completed reply is parsed from the decoder's buffer without converting it to a String.
+ */
+public abstract class AbstractSshNetconfClientSessionListener implements SshFutureListener<IoReadFuture> {
+    private static final Logger LOGGER = Logger.getLogger(AbstractSshNetconfClientSessionListener.class);
+
+    private final ChannelSubsystem m_clientChannel;
+    private final SshNetconfClientSession m_clientSession;
+    private final NetconfFramingDecoder m_decoder;
+    private final NetconfFramingDecoder.MessageListener m_replyListener = this::replyReceived;
+
+    protected AbstractSshNetconfClientSessionListener(ChannelSubsystem clientChannel, SshNetconfClientSession
+            clientSession, Framing framing) {
+        m_clientChannel = clientChannel;
+        m_clientSession = clientSession;
+        m_decoder = new NetconfFramingDecoder(framing);
+        // a malformed reply is dropped, the replies following it are still handed to the session
+        m_decoder.setResynchronizeOnError(true);
+    }
+
+    @Override
+    public void operationComplete(IoReadFuture future) {
+        try {
+            if (!(m_clientChannel.isClosed() || m_clientChannel.isClosing())) {
+                future.verify();
+                Buffer buffer = future.getBuffer();
+                try {
+                    m_decoder.decode(buffer.array(), buffer.rpos(), buffer.available(), m_replyListener);
+                } catch (NetconfMessageBuilderException e) {
+                    LOGGER.error("Error while processing reply from " + getRemoteAddress(), e);
+                }
+                buffer.rpos(buffer.rpos() + buffer.available());
+                buffer.compact();
+                m_clientChannel.getAsyncOut().read(buffer).addListener(this);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while processing async request ", e);
+        }
+    }
+
+    private void replyReceived(InputStream reply) {
+        try {
+            Document replyDoc = DocumentUtils.inputStreamToDocument(reply);
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace(String.format("NC Response received from %s : %s", getRemoteAddress(), DocumentUtils
+                        .documentToString(replyDoc)));
+            }
+            m_clientSession.responseRecieved(replyDoc);
+        } catch (NetconfMessageBuilderException e) {
+            LOGGER.error("Error while processing reply from " + getRemoteAddress(), e);
+        }
+    }
+
+    private Object getRemoteAddress() {
+        if (m_clientChannel.getSession() == null) {
+            return null;
+        }
+        return m_clientChannel.getSession().getIoSession().getRemoteAddress();
+    }
+}
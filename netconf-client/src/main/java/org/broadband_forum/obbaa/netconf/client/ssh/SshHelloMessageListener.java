@@ -17,6 +17,8 @@
 package org.broadband_forum.obbaa.netconf.client.ssh;
 
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfHelloMessage;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
@@ -28,16 +30,18 @@ import org.apache.sshd.common.io.IoReadFuture;
 import org.apache.sshd.common.util.buffer.Buffer;
 import org.w3c.dom.Document;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class SshHelloMessageListener implements SshFutureListener<IoReadFuture> {
-    ByteArrayOutputStream m_baosOut = new ByteArrayOutputStream();
+    private final NetconfFramingDecoder m_decoder = new NetconfFramingDecoder(Framing.EOM);
     private ChannelSubsystem m_clientChannel;
     private SshNetconfClientSession m_clientSession;
 
     private Object m_lockObject = new Object();
     private boolean m_isHelloMessageReceived = false;
+    private boolean m_invalidHelloReceived = false;
+    private NetconfHelloMessage m_hello;
 
     private static final Logger LOGGER = Logger.getLogger(SshHelloMessageListener.class);
 
@@ -51,51 +55,28 @@ public class SshHelloMessageListener implements SshFutureListener<IoReadFuture>
         try {
             future.verify();
             Buffer buffer = future.getBuffer();
-            m_baosOut.write(buffer.array(), buffer.rpos(), buffer.available());
-            if (m_baosOut.toString().endsWith(NetconfResources.RPC_EOM_DELIMITER)) {
-                String rpcReply = m_baosOut.toString();
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Got hello from server : " + m_baosOut.toString());
+            m_decoder.decode(buffer.array(), buffer.rpos(), buffer.available(), this::helloReceived);
+            buffer.rpos(buffer.rpos() + buffer.available());
+            buffer.compact();
+            if (m_invalidHelloReceived) {
+                // If you get a message which is not hello, close the session.
+                m_clientChannel.close(true).await();
+            } else if (m_hello != null) {
+                m_isHelloMessageReceived = true;
+                synchronized (m_lockObject) {
+                    m_lockObject.notify();
                 }
-                rpcReply = rpcReply.substring(0, rpcReply.indexOf(NetconfResources.RPC_EOM_DELIMITER));
-                Document replyDoc = DocumentUtils.stringToDocument(rpcReply);
-
-                if (!NetconfResources.HELLO.equals(replyDoc.getFirstChild().getNodeName())) {
-                    LOGGER.info("Invalid hello from server closing the channel : " + rpcReply);
-                    // If you get a message which is not hello, close the session.
-                    m_clientChannel.close(true).await();
+                if (m_hello.getCapabilities().contains(NetconfResources.NETCONF_BASE_CAP_1_1)
+                        && m_clientSession.getClientCapability(NetconfResources.NETCONF_BASE_CAP_1_1)) {
+                    m_clientSession.useChunkedFraming();
+                    m_clientChannel.getAsyncOut().read(buffer)
+                            .addListener(new SshNetconfChunkedClientSessionListener(m_clientChannel,
+                                    m_clientSession));
                 } else {
-                    // Let the client session take necessary actions for hello message
-                    if (LOGGER.isTraceEnabled()) {
-                        LOGGER.trace(String.format("NC Response received from %s : %s", m_clientChannel.getSession()
-                                .getIoSession()
-                                .getRemoteAddress(), rpcReply));
-                    }
-                    m_clientSession.responseRecieved(replyDoc);
-                    m_baosOut = new ByteArrayOutputStream();
-                    buffer.rpos(buffer.rpos() + buffer.available());
-                    buffer.compact();
-                    NetconfHelloMessage hello = DocumentToPojoTransformer.getHelloMessage(replyDoc);
-                    m_isHelloMessageReceived = true;
-                    synchronized (m_lockObject) {
-                        m_lockObject.notify();
-                    }
-                    if (hello.getCapabilities().contains(NetconfResources.NETCONF_BASE_CAP_1_1)
-                            && m_clientSession.getClientCapability(NetconfResources.NETCONF_BASE_CAP_1_1)) {
-                        m_clientSession.useChunkedFraming();
-                        m_clientChannel.getAsyncOut().read(buffer)
-                                .addListener(new SshNetconfChunkedClientSessionListener(m_clientChannel,
-                                        m_clientSession));
-                    } else {
-                        m_clientChannel.getAsyncOut().read(buffer)
-                                .addListener(new SshNetconfEOMClientSessionListener(m_clientChannel, m_clientSession));
-                    }
-
+                    m_clientChannel.getAsyncOut().read(buffer)
+                            .addListener(new SshNetconfEOMClientSessionListener(m_clientChannel, m_clientSession));
                 }
-
             } else {
-                buffer.rpos(buffer.rpos() + buffer.available());
-                buffer.compact();
                 m_clientChannel.getAsyncOut().read(buffer).addListener(this);
             }
 
@@ -105,6 +86,35 @@ public class SshHelloMessageListener implements SshFutureListener<IoReadFuture>
 
     }
 
+    private void helloReceived(InputStream message) throws IOException {
+        if (m_hello != null || m_invalidHelloReceived) {
+            LOGGER.warn("Ignoring message received from server before the hello exchange completed");
+            return;
+        }
+        try {
+            Document replyDoc = DocumentUtils.inputStreamToDocument(message);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Got hello from server : " + DocumentUtils.documentToString(replyDoc));
+            }
+            if (!NetconfResources.HELLO.equals(replyDoc.getFirstChild().getNodeName())) {
+                LOGGER.info("Invalid hello from server closing the channel : " + DocumentUtils.documentToString
+                        (replyDoc));
+                m_invalidHelloReceived = true;
+            } else {
+                // Let the client session take necessary actions for hello message
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace(String.format("NC Response received from %s : %s", m_clientChannel.getSession()
+                            .getIoSession()
+                            .getRemoteAddress(), DocumentUtils.documentToString(replyDoc)));
+                }
+                m_clientSession.responseRecieved(replyDoc);
+                m_hello = DocumentToPojoTransformer.getHelloMessage(replyDoc);
+            }
+        } catch (NetconfMessageBuilderException e) {
+            throw new IOException(e);
+        }
+    }
+
     /**
      * await for hello message received
      *
@@ -20,7 +20,10 @@ import org.broadband_forum.obbaa.netconf.api.NetconfSessionClosedException;
 import org.broadband_forum.obbaa.netconf.api.client.AbstractNetconfClientSession;
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
 import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingOutputStream;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
 import org.apache.log4j.Logger;
 import org.apache.sshd.client.ClientFactoryManager;
@@ -28,15 +31,20 @@ import org.apache.sshd.client.SshClient;
 import org.apache.sshd.client.channel.ChannelSubsystem;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.io.IoWriteFuture;
 import org.apache.sshd.common.session.Session;
 import org.apache.sshd.common.session.SessionListener;
 import org.apache.sshd.common.util.buffer.Buffer;
 import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
 import org.w3c.dom.Document;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.SocketAddress;
-import java.util.concurrent.Callable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -49,57 +57,118 @@ public class SshNetconfClientSession extends AbstractNetconfClientSession {
     private boolean m_useChunkedFraming = false;
     private ClientSession m_clientSession;
     private static final Logger LOGGER = Logger.getLogger(SshNetconfClientSession.class);
-    private final ExecutorService m_executorService;// NOSONAR
     private SshClient m_sshClient;
     private final long m_creationTime;
+    private final Deque<PendingWrite> m_pendingWrites = new ArrayDeque<>();
+    private boolean m_writeInProgress;
 
-    public SshNetconfClientSession(ExecutorService executorService) {// NOSONAR
-        m_executorService = executorService;
+    public SshNetconfClientSession() {
         m_creationTime = System.currentTimeMillis();
     }
 
+    /**
+     * @deprecated replies no longer need a thread to wait for them, use {@link #SshNetconfClientSession()}.
+     */
+    @Deprecated
+    public SshNetconfClientSession(ExecutorService executorService) {// NOSONAR
+        this();
+    }
+
+    /**
+     * @deprecated use {@link #sendRpcMessageAsync(String, Document, long)}.
+     */
+    @Deprecated
     @Override
-    public synchronized Future<NetConfResponse> sendRpcMessage(final String currentMessageId, Document
+    public Future<NetConfResponse> sendRpcMessage(final String currentMessageId, Document requestDocument,
+                                                  final long messageTimeOut) {
+        return sendRpcMessageAsync(currentMessageId, requestDocument, messageTimeOut);
+    }
+
+    @Override
+    public CompletableFuture<NetConfResponse> sendRpcMessageAsync(final String currentMessageId, Document
             requestDocument, final long messageTimeOut) {
         LOGGER.debug("Sending RPC request, message-id: " + currentMessageId);
         if (m_clientSession.isClosed() || m_clientSession.isClosing()) {
             throw new NetconfSessionClosedException("Session is closed/closing, cannot send messages now");
         }
+        byte[] bytesToSend;
         try {
-            byte[] bytesToSend;
-            LOGGER.debug("Session is opening, sending...");
             DocumentToPojoTransformer.addNetconfNamespace(requestDocument, NetconfResources.NETCONF_RPC_NS_1_0);
             if (!m_useChunkedFraming) {
                 bytesToSend = DocumentToPojoTransformer.addRpcDelimiter(DocumentToPojoTransformer
                         .getBytesFromDocument(requestDocument));
             } else {
-                bytesToSend = DocumentToPojoTransformer.chunkMessage(ByteArrayBuffer.MAX_LEN, DocumentUtils
-                        .documentToString(requestDocument))
-                        .getBytes();
+                bytesToSend = getChunkedBytes(requestDocument);
             }
-            LOGGER.debug("Byte to be sent: " + bytesToSend + " ,isUseChunkedFraming: " + m_useChunkedFraming);
-            final byte[] temp = bytesToSend;
-            logRequest(requestDocument, currentMessageId);
-            LOGGER.debug("Channel is writing, requestDocument: " + requestDocument);
-            m_clientChannel.getAsyncIn().write(new ByteArrayBuffer(temp)).await();
-            LOGGER.debug("Channel wrote successfully");
-            Future<NetConfResponse> futureResponse = m_executorService.submit(new Callable<NetConfResponse>() {
-                @Override
-                public NetConfResponse call() throws Exception {
-                    // wait for a certain time to get the message back
-                    LOGGER.debug("Waiting for response...");
-                    NetConfResponse response = m_rpcResponses.get(currentMessageId, messageTimeOut, TimeUnit
-                            .MILLISECONDS);
-                    logResponse(response, currentMessageId);
-                    LOGGER.debug("Received response: " + response);
-                    return response;
-                }
-            });
-            return futureResponse;
-        } catch (Exception e) {
+        } catch (NetconfMessageBuilderException e) {
             LOGGER.error("Error while sending a RPC message", e);
+            CompletableFuture<NetConfResponse> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(e);
+            return failedFuture;
+        }
+        logRequest(requestDocument, currentMessageId);
+        CompletableFuture<NetConfResponse> responseFuture = registerResponseFuture(currentMessageId, messageTimeOut);
+        write(new PendingWrite(new ByteArrayBuffer(bytesToSend), responseFuture));
+        return responseFuture;
+    }
+
+    private byte[] getChunkedBytes(Document requestDocument) throws NetconfMessageBuilderException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream framedOut = new NetconfFramingOutputStream(bytes, Framing.CHUNKED)) {
+            DocumentUtils.writeDocument(requestDocument, framedOut);
+        } catch (IOException e) {
+            throw new NetconfMessageBuilderException("Error while framing the request ", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The channel accepts a single write at a time, requests sent while a write is in progress are queued and written
+     * from the completion of the previous write. The sending thread never waits for the write to complete.
+     */
+    private void write(PendingWrite pendingWrite) {
+        synchronized (m_pendingWrites) {
+            if (m_writeInProgress) {
+                m_pendingWrites.add(pendingWrite);
+                return;
+            }
+            m_writeInProgress = true;
+        }
+        writeFrom(pendingWrite);
+    }
+
+    private void writeFrom(PendingWrite first) {
+        PendingWrite pendingWrite = first;
+        while (pendingWrite != null) {
+            final PendingWrite current = pendingWrite;
+            IoWriteFuture writeFuture;
+            try {
+                writeFuture = m_clientChannel.getAsyncIn().write(current.m_buffer);
+            } catch (RuntimeException e) {
+                current.writeCompleted(e);
+                pendingWrite = nextWrite();
+                continue;
+            }
+            if (!writeFuture.isDone()) {
+                writeFuture.addListener(future -> {
+                    current.writeCompleted(future.getException());
+                    writeFrom(nextWrite());
+                });
+                return;
+            }
+            current.writeCompleted(writeFuture.getException());
+            pendingWrite = nextWrite();
+        }
+    }
+
+    private PendingWrite nextWrite() {
+        synchronized (m_pendingWrites) {
+            PendingWrite next = m_pendingWrites.poll();
+            if (next == null) {
+                m_writeInProgress = false;
+            }
+            return next;
         }
-        return null;
     }
 
     public void setClientChannel(ChannelSubsystem clientChannel) {
@@ -224,4 +293,21 @@ public class SshNetconfClientSession extends AbstractNetconfClientSession {
             m_sshClient.close(false).await();
         }
     }
+
+    private static class PendingWrite {
+        private final Buffer m_buffer;
+        private final CompletableFuture<NetConfResponse> m_responseFuture;
+
+        PendingWrite(Buffer buffer, CompletableFuture<NetConfResponse> responseFuture) {
+            m_buffer = buffer;
+            m_responseFuture = responseFuture;
+        }
+
+        void writeCompleted(Throwable error) {
+            if (error != null) {
+                LOGGER.error("Error while sending a RPC message", error);
+                m_responseFuture.completeExceptionally(error);
+            }
+        }
+    }
 }
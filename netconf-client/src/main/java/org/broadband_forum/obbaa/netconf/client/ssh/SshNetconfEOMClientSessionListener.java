@@ -16,56 +16,14 @@
 
 package org.broadband_forum.obbaa.netconf.client.ssh;
 
-import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
-import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
-import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
-import org.apache.log4j.Logger;
 import org.apache.sshd.client.channel.ChannelSubsystem;
-import org.apache.sshd.common.future.SshFutureListener;
-import org.apache.sshd.common.io.IoReadFuture;
-import org.apache.sshd.common.util.buffer.Buffer;
-import org.w3c.dom.Document;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
 
-public class SshNetconfEOMClientSessionListener implements SshFutureListener<IoReadFuture> {
-    ByteArrayOutputStream baosOut = new ByteArrayOutputStream();
-    private ChannelSubsystem clientChannel;
-    private SshNetconfClientSession clientSession;
-    private static final Logger logger = Logger.getLogger(SshNetconfEOMClientSessionListener.class);
+public class SshNetconfEOMClientSessionListener extends AbstractSshNetconfClientSessionListener {
 
     public SshNetconfEOMClientSessionListener(ChannelSubsystem channel, SshNetconfClientSession clientSession) {
-        this.clientChannel = channel;
-        this.clientSession = clientSession;
-    }
-
-    @Override
-    public void operationComplete(IoReadFuture future) {
-        try {
-            if (!(clientChannel.isClosed() || clientChannel.isClosing())) {
-                future.verify();
-                Buffer buffer = future.getBuffer();
-                baosOut.write(buffer.array(), buffer.rpos(), buffer.available());
-                if (baosOut.toString().endsWith(NetconfResources.RPC_EOM_DELIMITER)) {
-                    String rpcReply = baosOut.toString();
-                    rpcReply = rpcReply.substring(0, rpcReply.indexOf(NetconfResources.RPC_EOM_DELIMITER));
-                    Document replyDoc = DocumentUtils.stringToDocument(rpcReply);
-                    if (logger.isTraceEnabled()) {
-                        logger.trace(String.format("NC Response received from %s : %s", clientChannel.getSession()
-                                .getIoSession()
-                                .getRemoteAddress(), rpcReply));
-                    }
-                    clientSession.responseRecieved(replyDoc);
-                    baosOut = new ByteArrayOutputStream();
-                }
-                buffer.rpos(buffer.rpos() + buffer.available());
-                buffer.compact();
-                clientChannel.getAsyncOut().read(buffer).addListener(this);
-            }
-        } catch (NetconfMessageBuilderException | IOException e) {
-            logger.error("Error while processing request ", e);
-        }
+        super(channel, clientSession, Framing.EOM);
     }
 
 }
@@ -35,6 +35,7 @@ import org.apache.log4j.Logger;
 
 import org.broadband_forum.obbaa.netconf.api.authentication.AuthenticationListener;
 import org.broadband_forum.obbaa.netconf.api.client.CallHomeListener;
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientSession;
 import org.broadband_forum.obbaa.netconf.api.client.NotificationListener;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfDelimiters;
 
@@ -51,6 +52,8 @@ public class CallhomeTlsNetconfClientInitializer extends ChannelInitializer<Sock
     private final ExecutorService m_callHomeExecutorService;// NOSONAR
     private final NotificationListener m_notificationListener;
     private final long m_handshakeTimeoutMillis;
+    private int m_maxOutstandingRequests = NetconfClientSession.DEFAULT_MAX_OUTSTANDING_REQUESTS;
+    private int m_maxQueuedRequests = NetconfClientSession.DEFAULT_MAX_QUEUED_REQUESTS;
 
     public CallhomeTlsNetconfClientInitializer(SslContext sslCtx, CallHomeListener callHomeListener, Set<String>
             clientCaps,
@@ -71,6 +74,15 @@ public class CallhomeTlsNetconfClientInitializer extends ChannelInitializer<Sock
         m_handshakeTimeoutMillis = handshakeTimeoutMillis;
     }
 
+    /**
+     * Sets the pipelining limits of the sessions of the servers calling home, see
+     * {@link NetconfClientSession#setPipeliningLimits(int, int)}.
+     */
+    public void setPipeliningLimits(int maxOutstandingRequests, int maxQueuedRequests) {
+        m_maxOutstandingRequests = maxOutstandingRequests;
+        m_maxQueuedRequests = maxQueuedRequests;
+    }
+
     @Override
     protected void initChannel(final SocketChannel channel) throws Exception {
         LOGGER.debug("A netconf server is calling home on " + channel);
@@ -86,10 +98,11 @@ public class CallhomeTlsNetconfClientInitializer extends ChannelInitializer<Sock
                 ()));
         pipeline.addLast(new StringDecoder());
         pipeline.addLast(new StringEncoder());
-        sslHandler.handshakeFuture().addListener(
-                new SslFutureChannelListener(sslEngine, channel, m_authenticationListener, m_selfSigned,
-                        m_capabilities, m_notificationListener,
-                        m_executorService, m_callHomeExecutorService, m_callHomeListener));
+        SslFutureChannelListener channelListener = new SslFutureChannelListener(sslEngine, channel,
+                m_authenticationListener, m_selfSigned, m_capabilities, m_notificationListener, m_executorService,
+                m_callHomeExecutorService, m_callHomeListener);
+        channelListener.setPipeliningLimits(m_maxOutstandingRequests, m_maxQueuedRequests);
+        sslHandler.handshakeFuture().addListener(channelListener);
 
     }
 
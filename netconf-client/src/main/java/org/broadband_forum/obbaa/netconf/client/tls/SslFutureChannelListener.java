@@ -38,6 +38,7 @@ import org.broadband_forum.obbaa.netconf.api.authentication.FailureInfo;
 import org.broadband_forum.obbaa.netconf.api.authentication.PointOfFailure;
 import org.broadband_forum.obbaa.netconf.api.authentication.SuccessInfo;
 import org.broadband_forum.obbaa.netconf.api.client.CallHomeListener;
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientSession;
 import org.broadband_forum.obbaa.netconf.api.client.NotificationListener;
 import org.broadband_forum.obbaa.netconf.api.messages.LogUtil;
 import org.broadband_forum.obbaa.netconf.api.x509certificates.CertificateUtil;
@@ -51,10 +52,11 @@ public final class SslFutureChannelListener implements GenericFutureListener<Fut
     private AuthenticationListener m_authenticationListener;
     private boolean m_selfSigned;
     private Set<String> m_capabilities;
-    private ExecutorService m_executorService;
     private NotificationListener m_notificationListener;
     private final ExecutorService m_callHomeExecutorService;
     private CallHomeListener m_callHomeListener;
+    private int m_maxOutstandingRequests = NetconfClientSession.DEFAULT_MAX_OUTSTANDING_REQUESTS;
+    private int m_maxQueuedRequests = NetconfClientSession.DEFAULT_MAX_QUEUED_REQUESTS;
 
     public SslFutureChannelListener(SSLEngine sSLEngine, SocketChannel channel, AuthenticationListener
             authenticationListener,
@@ -67,11 +69,15 @@ public final class SslFutureChannelListener implements GenericFutureListener<Fut
         m_selfSigned = selfSigned;
         m_capabilities = capabilities;
         m_notificationListener = notificationListener;
-        m_executorService = executorService;
         m_callHomeExecutorService = callHomeExecutorService;
         m_callHomeListener = callHomeListener;
     }
 
+    public void setPipeliningLimits(int maxOutstandingRequests, int maxQueuedRequests) {
+        m_maxOutstandingRequests = maxOutstandingRequests;
+        m_maxQueuedRequests = maxQueuedRequests;
+    }
+
     @Override
     public void operationComplete(Future<Channel> future) {
         try {
@@ -107,8 +113,8 @@ public final class SslFutureChannelListener implements GenericFutureListener<Fut
             m_authenticationListener.authenticationSucceeded(successInfo);
         }
         // Add netconf handler to the pipeline
-        final TlsNettyChannelNetconfClientSession session = new TlsNettyChannelNetconfClientSession(m_socketChannel,
-                m_executorService);
+        final TlsNettyChannelNetconfClientSession session = new TlsNettyChannelNetconfClientSession(m_socketChannel);
+        session.setPipeliningLimits(m_maxOutstandingRequests, m_maxQueuedRequests);
         SecureNetconfClientHandler clientHandler = SecureNetconfClientHandlerFactory.getInstance()
                 .getSecureNetconfClientHandler(session);
 
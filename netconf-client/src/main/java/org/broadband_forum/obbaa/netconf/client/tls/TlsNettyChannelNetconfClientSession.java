@@ -31,24 +31,30 @@ import org.w3c.dom.Document;
 
 import java.net.SocketAddress;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 public class TlsNettyChannelNetconfClientSession extends AbstractNetconfClientSession {
 
     private static final Logger LOGGER = Logger.getLogger(TlsNettyChannelNetconfClientSession.class);
     private final long m_creationTime;
     private Channel m_serverChannel;
-    private final ExecutorService m_executorService;// NOSONAR
 
-    public TlsNettyChannelNetconfClientSession(Channel ch, ExecutorService executorService) {// NOSONAR
+    public TlsNettyChannelNetconfClientSession(Channel ch) {
         m_serverChannel = ch;
-        m_executorService = executorService;
         m_creationTime = System.currentTimeMillis();
     }
 
+    /**
+     * @deprecated replies no longer need a thread to wait for them, use
+     * {@link #TlsNettyChannelNetconfClientSession(Channel)}.
+     */
+    @Deprecated
+    public TlsNettyChannelNetconfClientSession(Channel ch, ExecutorService executorService) {// NOSONAR
+        this(ch);
+    }
+
     public synchronized ChannelFuture sendHelloMessage(Set<String> caps) {
 
         String helloString = null;
@@ -62,8 +68,18 @@ public class TlsNettyChannelNetconfClientSession extends AbstractNetconfClientSe
         return m_serverChannel.writeAndFlush(helloString);
     }
 
+    /**
+     * @deprecated use {@link #sendRpcMessageAsync(String, Document, long)}.
+     */
+    @Deprecated
     @Override
-    public synchronized Future<NetConfResponse> sendRpcMessage(final String currentMessageId, Document
+    public Future<NetConfResponse> sendRpcMessage(final String currentMessageId, Document requestDocument,
+                                                  final long messageTimeOut) {
+        return sendRpcMessageAsync(currentMessageId, requestDocument, messageTimeOut);
+    }
+
+    @Override
+    public CompletableFuture<NetConfResponse> sendRpcMessageAsync(final String currentMessageId, Document
             requestDocument, final long messageTimeOut) {
         String xmlString = "";
         try {
@@ -74,19 +90,15 @@ public class TlsNettyChannelNetconfClientSession extends AbstractNetconfClientSe
             throw new RuntimeException(e);
         }
 
-        m_serverChannel.writeAndFlush(xmlString);
-
-        Future<NetConfResponse> futureResponse = m_executorService.submit(new Callable<NetConfResponse>() {
-            @Override
-            public NetConfResponse call() throws Exception {
-                // wait for a certain time to get the message back
-                NetConfResponse response = m_rpcResponses.get(currentMessageId, messageTimeOut, TimeUnit.MILLISECONDS);
-                logResponse(response, currentMessageId);
-                return response;
+        final CompletableFuture<NetConfResponse> responseFuture = registerResponseFuture(currentMessageId,
+                messageTimeOut);
+        m_serverChannel.writeAndFlush(xmlString).addListener(writeFuture -> {
+            if (!writeFuture.isSuccess()) {
+                LOGGER.error("Error while sending a RPC message", writeFuture.cause());
+                responseFuture.completeExceptionally(writeFuture.cause());
             }
         });
-
-        return futureResponse;
+        return responseFuture;
     }
 
     public Channel getServerChannel() {
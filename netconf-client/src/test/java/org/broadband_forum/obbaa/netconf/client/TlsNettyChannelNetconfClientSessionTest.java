@@ -27,7 +27,6 @@ import org.junit.Test;
 import java.net.InetSocketAddress;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -54,7 +53,7 @@ public class TlsNettyChannelNetconfClientSessionTest {
         m_channel = mock(Channel.class);
         when(m_channel.localAddress()).thenReturn(new InetSocketAddress("127.0.0.1", 4335));
         when(m_channel.remoteAddress()).thenReturn(new InetSocketAddress("135.0.0.1", 9496));
-        m_tlsClientSession = new TlsNettyChannelNetconfClientSession(m_channel, mock(ExecutorService.class));
+        m_tlsClientSession = new TlsNettyChannelNetconfClientSession(m_channel);
     }
 
     @Test
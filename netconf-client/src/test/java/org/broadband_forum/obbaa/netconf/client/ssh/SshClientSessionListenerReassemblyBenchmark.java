@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.client.ssh;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.log4j.Logger;
+import org.apache.sshd.client.channel.ChannelSubsystem;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Measures how long the client listeners take to reassemble and parse replies of 1 KB up to 100 MB that arrive in
+ * SSH windows of 32 KB. With incremental framing the time per MB should stay flat as the reply grows.
+ */
+public class SshClientSessionListenerReassemblyBenchmark {
+    private static final Logger LOGGER = Logger.getLogger(SshClientSessionListenerReassemblyBenchmark.class);
+    private static final int SSH_WINDOW = 32 * 1024;
+    private static final int[] REPLY_SIZES = {1024, 64 * 1024, 1024 * 1024, 10 * 1024 * 1024, 100 * 1024 * 1024};
+    private static final int ITERATIONS = 3;
+
+    @Ignore("test can take time to run, not intended to eb used in CI")
+    @Test
+    public void testReassemblyOfLargeChunkedReplies() throws Exception {
+        for (int size : REPLY_SIZES) {
+            byte[] reply = chunked(getReply(size));
+            measure(size, reply, true);
+        }
+    }
+
+    @Ignore("test can take time to run, not intended to eb used in CI")
+    @Test
+    public void testReassemblyOfLargeEomReplies() throws Exception {
+        for (int size : REPLY_SIZES) {
+            byte[] reply = (getReply(size) + "]]>]]>").getBytes(StandardCharsets.UTF_8);
+            measure(size, reply, false);
+        }
+    }
+
+    private void measure(int size, byte[] reply, boolean chunked) throws Exception {
+        Buffer buffer = new ByteArrayBuffer(SSH_WINDOW);
+        IoReadFuture future = mock(IoReadFuture.class);
+        when(future.getBuffer()).thenReturn(buffer);
+        CountingSession session = new CountingSession();
+        ChannelSubsystem channel = mock(ChannelSubsystem.class);
+        IoInputStream asyncOut = mock(IoInputStream.class);
+        when(channel.getAsyncOut()).thenReturn(asyncOut);
+        when(asyncOut.read(anyObject())).thenReturn(mock(IoReadFuture.class));
+
+        long best = Long.MAX_VALUE;
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            AbstractSshNetconfClientSessionListener listener = chunked ? new SshNetconfChunkedClientSessionListener
+                    (channel, session) : new SshNetconfEOMClientSessionListener(channel, session);
+            long start = System.nanoTime();
+            for (int offset = 0; offset < reply.length; offset += SSH_WINDOW) {
+                buffer.clear();
+                buffer.putRawBytes(reply, offset, Math.min(SSH_WINDOW, reply.length - offset));
+                listener.operationComplete(future);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertEquals(ITERATIONS, session.m_replies);
+        double millis = best / 1_000_000.0;
+        LOGGER.info(String.format("%s reply of %d bytes reassembled and parsed in %.2f ms (%.2f ms/MB)", chunked ?
+                "chunked" : "EOM", size, millis, millis / (size / (1024.0 * 1024.0))));
+    }
+
+    private String getReply(int size) {
+        StringBuilder reply = new StringBuilder(size + 128);
+        reply.append("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1\"><data>");
+        int onu = 0;
+        while (reply.length() < size) {
+            reply.append("<onu><name>onu-").append(onu++).append("</name><oper-state>up</oper-state></onu>");
+        }
+        return reply.append("</data></rpc-reply>").toString();
+    }
+
+    private byte[] chunked(String reply) {
+        byte[] payload = reply.getBytes(StandardCharsets.UTF_8);
+        StringBuilder framed = new StringBuilder(payload.length + 64);
+        // servers typically send chunks no larger than their SSH window
+        for (int offset = 0; offset < payload.length; offset += SSH_WINDOW) {
+            int length = Math.min(SSH_WINDOW, payload.length - offset);
+            framed.append("\n#").append(length).append("\n").append(new String(payload, offset, length,
+                    StandardCharsets.UTF_8));
+        }
+        return framed.append("\n##\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class CountingSession extends SshNetconfClientSession {
+        private int m_replies;
+
+        CountingSession() {
+            super();
+        }
+
+        @Override
+        public void responseRecieved(Document doc) {
+            m_replies++;
+        }
+    }
+}
@@ -137,6 +137,27 @@ public class SshNetconfChunkedClientSessionListenerTest extends XMLTestCase {
         assertXMLEqual(expectedDoc, TestSshNetconfClientSession.c_lastRecievedMessage);
     }
 
+    public void testListenerDropsReplyWithMalformedChunkHeaderAndDeliversTheNextOne() {
+        TestSshNetconfClientSession.c_lastRecievedMessage = null;
+        SshNetconfChunkedClientSessionListener listener = new SshNetconfChunkedClientSessionListener(m_mockChannel,
+                m_clientSession);
+        m_buffer.clear();
+        m_buffer.putRawBytes("\n#12\n<rpc-reply/>\n#x\n<ok/>\n##\n".getBytes());
+        listener.operationComplete(m_mockFuture);
+        assertNull(TestSshNetconfClientSession.c_lastRecievedMessage);
+
+        byte[] messagBytes = getMessageFromFile("sampleChunkedMessage1.txt").getBytes();
+        for (int i = 0; i <= messagBytes.length; i += 10) {
+            int lastindex = ((i + 10) > messagBytes.length) ? messagBytes.length : (i + 10);
+            m_buffer.putRawBytes(Arrays.copyOfRange(messagBytes, i, lastindex));
+            listener.operationComplete(m_mockFuture);
+        }
+
+        URL url = Thread.currentThread().getContextClassLoader().getResource("expectedMessage1.txt");
+        Document expectedDoc = getDocFromFile(new File(url.getPath()));
+        assertXMLEqual(expectedDoc, TestSshNetconfClientSession.c_lastRecievedMessage);
+    }
+
     @SuppressWarnings("resource")
     private String getMessageFromFile(String file) {
         StringBuilder fileContents = new StringBuilder();
@@ -30,11 +30,11 @@ import org.broadband_forum.obbaa.netconf.api.messages.GetConfigRequest;
 import org.broadband_forum.obbaa.netconf.api.messages.GetRequest;
 import org.broadband_forum.obbaa.netconf.api.messages.KillSessionRequest;
 import org.broadband_forum.obbaa.netconf.api.messages.LockRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfFilter;
 import org.broadband_forum.obbaa.netconf.api.messages.StandardDataStores;
 import org.broadband_forum.obbaa.netconf.api.messages.UnLockRequest;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
-import org.broadband_forum.obbaa.netconf.api.util.ExecutorServiceProvider;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
 import org.apache.log4j.Logger;
@@ -43,6 +43,7 @@ import org.apache.sshd.client.SshClient;
 import org.apache.sshd.client.channel.ChannelSubsystem;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.channel.IoWriteFutureImpl;
 import org.apache.sshd.common.future.CloseFuture;
 import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.io.IoOutputStream;
@@ -61,8 +62,11 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -94,7 +98,7 @@ public class SshNetconfClientSessionTest {
     public void setUp() throws Exception {
         XMLUnit.setIgnoreWhitespace(true);
         NotificationListener notificationListener = mock(NotificationListener.class);
-        m_session = spy(new SshNetconfClientSession(ExecutorServiceProvider.getInstance().getExecutorService()));
+        m_session = spy(new SshNetconfClientSession());
         m_session.addNotificationListener(notificationListener);
         m_clientChannel = mock(ChannelSubsystem.class);
         m_clientSession = mock(ClientSession.class);
@@ -159,7 +163,9 @@ public class SshNetconfClientSessionTest {
                     LOGGER.error("failed while parsing reply", e);
                     fail("failed while parsing reply");
                 }
-                return null;
+                IoWriteFutureImpl writeFuture = new IoWriteFutureImpl(buffer);
+                writeFuture.setValue(Boolean.TRUE);
+                return writeFuture;
             }
         };
 
@@ -318,6 +324,42 @@ public class SshNetconfClientSessionTest {
     }
 
 
+    @Test
+    public void testRequestsArePipelinedWithoutWaitingForWrites() throws Exception {
+        List<IoWriteFutureImpl> writes = new ArrayList<>();
+        IoOutputStream asyncIn = mock(IoOutputStream.class);
+        when(asyncIn.write(anyObject())).thenAnswer(invocation -> {
+            IoWriteFutureImpl writeFuture = new IoWriteFutureImpl((Buffer) invocation.getArguments()[0]);
+            writes.add(writeFuture);
+            return writeFuture;
+        });
+        when(m_clientChannel.getAsyncIn()).thenReturn(asyncIn);
+
+        Future<NetConfResponse> first = m_session.get(new GetRequest());
+        Future<NetConfResponse> second = m_session.get(new GetRequest());
+        Future<NetConfResponse> third = m_session.get(new GetRequest());
+        // the channel accepts a single pending write, the others wait for it to complete
+        assertEquals(1, writes.size());
+        assertEquals(3, m_session.getOutstandingRequestCount());
+
+        writes.get(0).setValue(Boolean.TRUE);
+        assertEquals(2, writes.size());
+        writes.get(1).setValue(new IOException("channel closed"));
+        assertEquals(3, writes.size());
+        writes.get(2).setValue(Boolean.TRUE);
+
+        try {
+            second.get();
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertEquals("channel closed", e.getCause().getMessage());
+        }
+        m_session.responseRecieved(DocumentUtils.stringToDocument("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf" +
+                ":base:1.0\" message-id=\"3\"><ok/></rpc-reply>"));
+        assertTrue(third.get().isOk());
+        assertFalse(first.isDone());
+    }
+
     @Test
     public void testIsOpen() {
         when(m_clientChannel.isOpen()).thenReturn(true);
@@ -106,6 +106,24 @@ public class SshNetconfEOMClientSessionListenerTest extends XMLTestCase {
         assertXMLEqual(expectedDoc, TestSshNetconfClientSession.c_lastRecievedMessage);
     }
 
+    public void testListenerDropsMalformedReplyAndDeliversTheNextOne() {
+        TestSshNetconfClientSession.c_lastRecievedMessage = null;
+        SshNetconfEOMClientSessionListener listener = new SshNetconfEOMClientSessionListener(m_mockChannel,
+                m_clientSession);
+        String message = "<rpc-reply><ok/>]]>]]>" + getMessageFromFile("EOMDelimitedEditConfigReq.txt");
+        m_buffer.clear();
+        byte[] messagBytes = message.getBytes();
+        for (int i = 0; i <= messagBytes.length; i += 10) {
+            int lastindex = ((i + 10) > messagBytes.length) ? messagBytes.length : (i + 10);
+            m_buffer.putRawBytes(Arrays.copyOfRange(messagBytes, i, lastindex));
+            listener.operationComplete(m_mockFuture);
+        }
+
+        URL url = Thread.currentThread().getContextClassLoader().getResource("editConfig.xml");
+        Document expectedDoc = getDocFromFile(new File(url.getPath()));
+        assertXMLEqual(expectedDoc, TestSshNetconfClientSession.c_lastRecievedMessage);
+    }
+
     @SuppressWarnings("resource")
     private String getMessageFromFile(String file) {
         StringBuilder fileContents = new StringBuilder();
@@ -16,14 +16,13 @@
 
 package org.broadband_forum.obbaa.netconf.client.ssh;
 
-import org.broadband_forum.obbaa.netconf.api.util.ExecutorServiceProvider;
 import org.w3c.dom.Document;
 
 public class TestSshNetconfClientSession extends SshNetconfClientSession {
     public static Document c_lastRecievedMessage;
 
     public TestSshNetconfClientSession() {
-        super(ExecutorServiceProvider.getInstance().getExecutorService());
+        super();
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package org.broadband_forum.obbaa.netconf.persistence;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -89,8 +90,43 @@ public interface EntityDataStoreManager {
                                                     Map<String,
             List<Object>> notMatchValues, String orderByColumn);
 
+    /**
+     * Returns the entities matching any of the values of each attribute and none of the not match values, read with
+     * the given lock. A null lock mode reads them with the default lock of the implementation.
+     *
+     * The default method ignores the lock mode and reads them with
+     * {@link #findByMatchAndNotMatchValues(Class, Map, Map, String)}.
+     */
+    public default <E> List<E> findByMatchAndNotMatchValues(Class<E> entityClass, Map<String, List<Object>>
+            matchValues, Map<String, List<Object>> notMatchValues, String orderByColumn, LockModeType lockModeType) {
+        return findByMatchAndNotMatchValues(entityClass, matchValues, notMatchValues, orderByColumn);
+    }
+
     public <E> List<E> findByIsNotNull(Class<E> entityClass, List<String> attributes);
 
+    /**
+     * Returns a cursor over all the entities of the class, which reads them from the database fetchSize rows at a
+     * time. See {@link #iterateByMatchValue(Class, Map, String, int)}.
+     */
+    public default <E> EntityIterator<E> iterateAll(Class<E> entityClass, int fetchSize) {
+        return iterateByMatchValue(entityClass, Collections.<String, Object>emptyMap(), null, fetchSize);
+    }
+
+    /**
+     * Returns a cursor over the entities matching the values, ordered by the column when it is not null. The rows are
+     * read fetchSize at a time and without row locks. An entity loaded by the cursor is detached from the persistence
+     * context when the next one is read, so iterating a large table does not keep its entities in memory. Entities
+     * already managed before the iteration stay managed. The cursor must be closed, by reading it to its end or with
+     * {@link EntityIterator#close()}, before the transaction ends.
+     *
+     * The default method reads all the matching entities with {@link #findByMatchValue(Class, Map, String)} and
+     * iterates over the list.
+     */
+    public default <E> EntityIterator<E> iterateByMatchValue(Class<E> entityClass, Map<String, Object> matchValues,
+                                                             String orderByColumn, int fetchSize) {
+        return EntityIterator.of(findByMatchValue(entityClass, matchValues, orderByColumn).iterator());
+    }
+
     public <E> List<E> findLike(Class<E> entity, Map<String, String> matchValue);
 
     public <E> List<E> findLikeWithPagingInput(Class<E> entity, Map<String, String> matchValues, Map<String, String>
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.persistence;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A cursor over the entities of a query, returned by the iterate methods of {@link EntityDataStoreManager}. It holds
+ * a database cursor until it is read to its end or closed.
+ */
+public interface EntityIterator<E> extends Iterator<E>, AutoCloseable {
+
+    /**
+     * Releases the database cursor, further calls to {@link #hasNext()} return false.
+     */
+    @Override
+    void close();
+
+    /**
+     * Returns a cursor over the entities of an iterator, which holds no database resource.
+     */
+    static <E> EntityIterator<E> of(Iterator<E> entities) {
+        return new EntityIterator<E>() {
+            private boolean m_closed;
+
+            @Override
+            public boolean hasNext() {
+                return !m_closed && entities.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return entities.next();
+            }
+
+            @Override
+            public void close() {
+                m_closed = true;
+            }
+        };
+    }
+
+    /**
+     * Returns the remaining entities as a sequential stream, which closes this cursor when it is closed.
+     */
+    default Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator
+                .NONNULL), false).onClose(this::close);
+    }
+}
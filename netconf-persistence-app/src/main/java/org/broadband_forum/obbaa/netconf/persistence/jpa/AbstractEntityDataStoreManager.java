@@ -19,6 +19,7 @@ package org.broadband_forum.obbaa.netconf.persistence.jpa;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,7 @@ import org.apache.log4j.Logger;
 
 import org.broadband_forum.obbaa.netconf.api.messages.LogUtil;
 import org.broadband_forum.obbaa.netconf.persistence.EntityDataStoreManager;
+import org.broadband_forum.obbaa.netconf.persistence.EntityIterator;
 import org.broadband_forum.obbaa.netconf.persistence.PagingInput;
 
 /**
@@ -55,6 +57,7 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
 
     private static final String DOT = ".";
     private static final String DOT_PATTERN = "\\.";
+    private static final JpqlQueryCache c_queryCache = new JpqlQueryCache();
 
 
     private <E> List<Predicate> getPredicates(List<Predicate> predicates, Map<String, Object> values, CriteriaBuilder
@@ -78,6 +81,72 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
         return predicates;
     }
 
+    /**
+     * Returns the cache of the JPQL of the match value queries, which is shared by the data store managers.
+     */
+    public JpqlQueryCache getQueryCache() {
+        return c_queryCache;
+    }
+
+    /**
+     * Drops the cached queries of the entity classes of a component that is undeployed.
+     */
+    public static void removeCachedQueries(Collection<Class> entityClasses) {
+        c_queryCache.remove(entityClasses);
+    }
+
+    /**
+     * Creates a match value query from the cached JPQL of its shape and binds the values, returns null when the query
+     * has to be built with the criteria API: when a value is null or cannot be bound, or when the shape is not
+     * compilable or there is no metamodel.
+     */
+    private <T> TypedQuery<T> createCompiledQuery(Class<?> entityClass, Class<T> resultClass, boolean count,
+                                                  Map<String, Object> matchValues, Map<String, Object> notMatchValues,
+                                                  String orderByColumn, boolean isDesc) {
+        Metamodel metamodel = getEntityManager().getMetamodel();
+        if (metamodel == null) {
+            return null;
+        }
+        List<String> matchColumns = new ArrayList<>();
+        List<String> notMatchColumns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        if (!collectColumns(matchValues, matchColumns, values) || !collectColumns(notMatchValues, notMatchColumns,
+                values)) {
+            return null;
+        }
+        JpqlQueryCache.CompiledQuery compiledQuery = c_queryCache.get(new JpqlQueryCache.QueryShape(entityClass, count,
+                matchColumns, notMatchColumns, orderByColumn, isDesc), metamodel);
+        if (compiledQuery == null) {
+            return null;
+        }
+        TypedQuery<T> query = getEntityManager().createQuery(compiledQuery.getJpql(), resultClass);
+        try {
+            for (int index = 0; index < values.size(); index++) {
+                query.setParameter(compiledQuery.getParameterName(index), compiledQuery.getParameterValue(index,
+                        values.get(index)));
+            }
+        } catch (IllegalArgumentException e) {
+            // a value of another type than its column, the criteria API reports it as it did before
+            LogUtil.logDebug(LOGGER, "Could not bind the values of %s, using the criteria API: %s", entityClass,
+                    e.getMessage());
+            return null;
+        }
+        return query;
+    }
+
+    private boolean collectColumns(Map<String, Object> columnValues, List<String> columns, List<Object> values) {
+        if (columnValues != null) {
+            for (Entry<String, Object> columnValue : columnValues.entrySet()) {
+                if (columnValue.getValue() == null) {
+                    return false;
+                }
+                columns.add(columnValue.getKey());
+                values.add(columnValue.getValue());
+            }
+        }
+        return true;
+    }
+
     private <E> Predicate getPredicate(String columnName, String value, CriteriaBuilder criteriaBuilder, Root
             rootEntry) {
 
@@ -213,7 +282,8 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
 
         LockModeType lockModeType = allQuery.getLockMode();
 
-        if (lockModeType == null || !lockModeType.equals(LockModeType.PESSIMISTIC_WRITE)) {
+        // only a query without a lock of its own is read locked
+        if (lockModeType == null || lockModeType.equals(LockModeType.NONE)) {
             allQuery.setLockMode(LockModeType.PESSIMISTIC_READ);
         }
         m_forTest = allQuery;
@@ -257,6 +327,23 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
     public <E> List<E> findByMatchAndNotMatchValue(Class<E> entityClass, Map<String, Object> matchValues,
                                                    Map<String, Object> notMatchValues, String orderByColumn,
                                                    boolean isDesc, LockModeType lockModeType) {
+        TypedQuery<E> allQuery = createMatchValueQuery(entityClass, matchValues, notMatchValues, orderByColumn,
+                isDesc);
+        if (lockModeType != null) {
+            allQuery.setLockMode(lockModeType);
+        }
+        return logAndReturnQueryResult("findByMatchAndNotMatchValue", entityClass, allQuery);
+
+    }
+
+    private <E> TypedQuery<E> createMatchValueQuery(Class<E> entityClass, Map<String, Object> matchValues,
+                                                    Map<String, Object> notMatchValues, String orderByColumn,
+                                                    boolean isDesc) {
+        TypedQuery<E> compiledQuery = createCompiledQuery(entityClass, entityClass, false, matchValues,
+                notMatchValues, orderByColumn, isDesc);
+        if (compiledQuery != null) {
+            return compiledQuery;
+        }
         CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
         CriteriaQuery<E> criteriaQuery = criteriaBuilder.createQuery(entityClass);
         Root<E> rootEntry = criteriaQuery.from(entityClass);
@@ -274,13 +361,21 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
                 addOrderByAsc(all, criteriaBuilder, rootEntry, orderByColumn);
             }
         }
+        return getEntityManager().createQuery(all);
+    }
 
-        TypedQuery<E> allQuery = getEntityManager().createQuery(all);
-        if (lockModeType != null) {
-            allQuery.setLockMode(lockModeType);
-        }
-        return logAndReturnQueryResult("findByMatchAndNotMatchValue", entityClass, allQuery);
+    @Override
+    public <E> EntityIterator<E> iterateAll(Class<E> entityClass, int fetchSize) {
+        return iterateByMatchValue(entityClass, Collections.<String, Object>emptyMap(), null, fetchSize);
+    }
 
+    @Override
+    public <E> EntityIterator<E> iterateByMatchValue(Class<E> entityClass, Map<String, Object> matchValues,
+                                                     String orderByColumn, int fetchSize) {
+        TypedQuery<E> query = createMatchValueQuery(entityClass, matchValues, null, orderByColumn, false);
+        LogUtil.logDebug(LOGGER, "%s called for class: %s and query: %s with fetch size: %s", "iterateByMatchValue",
+                entityClass, query, fetchSize);
+        return new ScrollableEntityIterator<>(getEntityManager(), query, fetchSize);
     }
 
     /**
@@ -349,6 +444,7 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
         if (lockModeType == null) {
             allQuery.setLockMode(LockModeType.PESSIMISTIC_READ);
         }
+        m_forTest = allQuery;
 
         List<E> resultList = allQuery.getResultList();
         LogUtil.logDebug(LOGGER, "%s returned for class: %s and query: %s", methodName, entityClass, allQuery);
@@ -366,6 +462,13 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
     public <E> List<E> findByMatchAndNotMatchValues(Class<E> entityClass, Map<String, List<Object>> matchValues,
                                                     Map<String,
             List<Object>> notMatchValues, String orderByColumn) {
+        return findByMatchAndNotMatchValues(entityClass, matchValues, notMatchValues, orderByColumn, null);
+    }
+
+    @Override
+    public <E> List<E> findByMatchAndNotMatchValues(Class<E> entityClass, Map<String, List<Object>> matchValues,
+                                                    Map<String, List<Object>> notMatchValues, String orderByColumn,
+                                                    LockModeType lockModeType) {
         CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
         CriteriaQuery<E> cq = cb.createQuery(entityClass);
         Root<E> rootEntry = cq.from(entityClass);
@@ -406,12 +509,20 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
         }
 
         TypedQuery<E> allQuery = getEntityManager().createQuery(all);
+        if (lockModeType != null) {
+            allQuery.setLockMode(lockModeType);
+        }
         return logAndReturnQueryResult("findByMatchAndNotMatchValues", entityClass, allQuery);
     }
 
     @Override
     public Long countByMatchAndNotMatchValue(Class entityClass, Map<String, Object> matchValues, Map<String, Object>
             notMatchValues) {
+        TypedQuery<Long> compiledQuery = createCompiledQuery(entityClass, Long.class, true, matchValues,
+                notMatchValues, null, false);
+        if (compiledQuery != null) {
+            return logAndReturnQuerySingleResult("countByMatchAndNotMatchValue", entityClass, compiledQuery);
+        }
         CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
         CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
         Root rootEntry = criteriaQuery.from(entityClass);
@@ -429,16 +540,20 @@ public abstract class AbstractEntityDataStoreManager implements EntityDataStoreM
     public Long countByMatchAndNotMatchValue(Class entityClass, Map<String, Object> matchValues, Map<String, Object>
             notMatchValues,
                                              LockModeType lockMode) {
-        CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
-        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
-        Root rootEntry = criteriaQuery.from(entityClass);
-        List<Predicate> predicates = new ArrayList<>();
-        getPredicates(predicates, matchValues, criteriaBuilder, rootEntry, true);
-        getPredicates(predicates, notMatchValues, criteriaBuilder, rootEntry, false);
-        criteriaQuery.where(predicates.toArray(new Predicate[predicates.size()]));
-        Expression<Long> count = criteriaBuilder.count(rootEntry);
-        criteriaQuery.select(count);
-        TypedQuery<Long> query = getEntityManager().createQuery(criteriaQuery);
+        TypedQuery<Long> query = createCompiledQuery(entityClass, Long.class, true, matchValues, notMatchValues, null,
+                false);
+        if (query == null) {
+            CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
+            Root rootEntry = criteriaQuery.from(entityClass);
+            List<Predicate> predicates = new ArrayList<>();
+            getPredicates(predicates, matchValues, criteriaBuilder, rootEntry, true);
+            getPredicates(predicates, notMatchValues, criteriaBuilder, rootEntry, false);
+            criteriaQuery.where(predicates.toArray(new Predicate[predicates.size()]));
+            Expression<Long> count = criteriaBuilder.count(rootEntry);
+            criteriaQuery.select(count);
+            query = getEntityManager().createQuery(criteriaQuery);
+        }
         if (lockMode != null) {
             query.setLockMode(lockMode);
         }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.persistence.jpa;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps the JPQL of the match value queries of {@link AbstractEntityDataStoreManager}, by query shape: the entity
+ * class, the match and not match columns, the order by column and the kind of result.
+ *
+ * A query of a known shape is created from its JPQL and only gets its parameters bound, instead of building a criteria
+ * tree that the JPA provider renders to JPQL again on every call. The provider keeps the plan of a JPQL string, so
+ * the query is not parsed again either. The lock mode is set on each query and is not part of the shape.
+ *
+ * A shape whose columns cannot be resolved in the metamodel is remembered as not compilable, its queries are built
+ * with the criteria API as before.
+ */
+public class JpqlQueryCache {
+    private static final Logger LOGGER = Logger.getLogger(JpqlQueryCache.class);
+    private static final String ENTITY_ALIAS = "e";
+    private static final String PARAMETER_PREFIX = "p";
+    private static final CompiledQuery NOT_COMPILABLE = new CompiledQuery(null, Collections.<Class<?>>emptyList());
+
+    private final Map<QueryShape, CompiledQuery> m_queries = new ConcurrentHashMap<>();
+    private final AtomicLong m_hitCount = new AtomicLong();
+    private final AtomicLong m_missCount = new AtomicLong();
+
+    /**
+     * Returns the compiled query of the shape, null if the shape cannot be expressed in JPQL.
+     */
+    CompiledQuery get(QueryShape shape, Metamodel metamodel) {
+        CompiledQuery compiledQuery = m_queries.get(shape);
+        if (compiledQuery != null) {
+            m_hitCount.incrementAndGet();
+        } else {
+            m_missCount.incrementAndGet();
+            compiledQuery = compile(shape, metamodel);
+            m_queries.put(shape, compiledQuery);
+        }
+        return compiledQuery == NOT_COMPILABLE ? null : compiledQuery;
+    }
+
+    public long getHitCount() {
+        return m_hitCount.get();
+    }
+
+    public long getMissCount() {
+        return m_missCount.get();
+    }
+
+    public int getSize() {
+        return m_queries.size();
+    }
+
+    /**
+     * Drops the compiled queries, for instance when the entity classes of a component are undeployed.
+     */
+    public void clear() {
+        m_queries.clear();
+    }
+
+    /**
+     * Drops the compiled queries of the given entity classes, so that the classes of an undeployed component, and
+     * their class loader, are not kept by the cache.
+     */
+    public void remove(Collection<Class> entityClasses) {
+        m_queries.keySet().removeIf(shape -> entityClasses.contains(shape.m_entityClass));
+    }
+
+    private CompiledQuery compile(QueryShape shape, Metamodel metamodel) {
+        try {
+            EntityType<?> entityType = metamodel.entity(shape.m_entityClass);
+            StringBuilder jpql = new StringBuilder("select ");
+            jpql.append(shape.m_count ? "count(" + ENTITY_ALIAS + ")" : ENTITY_ALIAS);
+            jpql.append(" from ").append(entityType.getName()).append(" ").append(ENTITY_ALIAS);
+            List<Class<?>> parameterTypes = new ArrayList<>();
+            String separator = " where ";
+            for (String column : shape.m_matchColumns) {
+                jpql.append(separator).append(path(column)).append(" = :").append(PARAMETER_PREFIX)
+                        .append(parameterTypes.size());
+                parameterTypes.add(getJavaType(entityType, column));
+                separator = " and ";
+            }
+            for (String column : shape.m_notMatchColumns) {
+                jpql.append(separator).append(path(column)).append(" <> :").append(PARAMETER_PREFIX)
+                        .append(parameterTypes.size());
+                parameterTypes.add(getJavaType(entityType, column));
+                separator = " and ";
+            }
+            if (shape.m_orderByColumn != null) {
+                getJavaType(entityType, shape.m_orderByColumn);
+                jpql.append(" order by ").append(path(shape.m_orderByColumn)).append(shape.m_desc ? " desc" : " asc");
+            }
+            return new CompiledQuery(jpql.toString(), parameterTypes);
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Query of " + shape.m_entityClass + " is built with the criteria API", e);
+            return NOT_COMPILABLE;
+        }
+    }
+
+    private static String path(String column) {
+        return ENTITY_ALIAS + "." + column;
+    }
+
+    private static Class<?> getJavaType(ManagedType<?> entityType, String column) {
+        ManagedType<?> type = entityType;
+        Class<?> javaType = null;
+        for (String attributeName : column.split("\\.")) {
+            if (type == null) {
+                throw new IllegalArgumentException("Cannot resolve " + column + " in " + entityType.getJavaType());
+            }
+            Attribute<?, ?> attribute = type.getAttribute(attributeName);
+            javaType = attribute.getJavaType();
+            type = null;
+            if (attribute instanceof SingularAttribute && ((SingularAttribute) attribute).getType() instanceof
+                    ManagedType) {
+                type = (ManagedType<?>) ((SingularAttribute) attribute).getType();
+            }
+        }
+        return javaType;
+    }
+
+    /**
+     * The JPQL of a query shape and the java types of its parameters, named p0, p1... in the order of the columns.
+     */
+    static final class CompiledQuery {
+        private final String m_jpql;
+        private final List<Class<?>> m_parameterTypes;
+
+        CompiledQuery(String jpql, List<Class<?>> parameterTypes) {
+            m_jpql = jpql;
+            m_parameterTypes = parameterTypes;
+        }
+
+        String getJpql() {
+            return m_jpql;
+        }
+
+        String getParameterName(int index) {
+            return PARAMETER_PREFIX + index;
+        }
+
+        /**
+         * Converts a value to the type of the parameter, as the criteria API does for numeric attributes.
+         */
+        Object getParameterValue(int index, Object value) {
+            return convert(value, m_parameterTypes.get(index));
+        }
+    }
+
+    static Object convert(Object value, Class<?> javaType) {
+        Class<?> type = box(javaType);
+        if (type == null || type.isInstance(value) || !Number.class.isAssignableFrom(type)) {
+            return value;
+        }
+        if (value instanceof String) {
+            String string = ((String) value).trim();
+            if (type == Integer.class) {
+                return Integer.valueOf(string);
+            } else if (type == Long.class) {
+                return Long.valueOf(string);
+            } else if (type == Short.class) {
+                return Short.valueOf(string);
+            } else if (type == Byte.class) {
+                return Byte.valueOf(string);
+            } else if (type == Double.class) {
+                return Double.valueOf(string);
+            } else if (type == Float.class) {
+                return Float.valueOf(string);
+            } else if (type == BigInteger.class) {
+                return new BigInteger(string);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(string);
+            }
+        } else if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Integer.class) {
+                return number.intValue();
+            } else if (type == Long.class) {
+                return number.longValue();
+            } else if (type == Short.class) {
+                return number.shortValue();
+            } else if (type == Byte.class) {
+                return number.byteValue();
+            } else if (type == Double.class) {
+                return number.doubleValue();
+            } else if (type == Float.class) {
+                return number.floatValue();
+            } else if (type == BigInteger.class) {
+                return new BigInteger(number.toString());
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            }
+        }
+        return value;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (type == null || !type.isPrimitive()) {
+            return type;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        }
+        return Character.class;
+    }
+
+    /**
+     * The shape of a match value query.
+     */
+    static final class QueryShape {
+        private final Class<?> m_entityClass;
+        private final boolean m_count;
+        private final List<String> m_matchColumns;
+        private final List<String> m_notMatchColumns;
+        private final String m_orderByColumn;
+        private final boolean m_desc;
+
+        QueryShape(Class<?> entityClass, boolean count, List<String> matchColumns, List<String> notMatchColumns,
+                   String orderByColumn, boolean desc) {
+            m_entityClass = entityClass;
+            m_count = count;
+            m_matchColumns = matchColumns;
+            m_notMatchColumns = notMatchColumns;
+            m_orderByColumn = orderByColumn;
+            m_desc = desc;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            QueryShape that = (QueryShape) o;
+            return m_count == that.m_count && m_desc == that.m_desc && m_entityClass.equals(that.m_entityClass)
+                    && m_matchColumns.equals(that.m_matchColumns) && m_notMatchColumns.equals(that.m_notMatchColumns)
+                    && Objects.equals(m_orderByColumn, that.m_orderByColumn);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_entityClass, m_count, m_matchColumns, m_notMatchColumns, m_orderByColumn, m_desc);
+        }
+    }
+}
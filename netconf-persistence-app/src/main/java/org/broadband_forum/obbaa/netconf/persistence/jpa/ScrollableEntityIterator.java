@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.persistence.jpa;
+
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.broadband_forum.obbaa.netconf.persistence.EntityIterator;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+/**
+ * An {@link EntityIterator} over the forward only scrollable results of a Hibernate query.
+ *
+ * The query reads its entities as read only, so an entity that is read only in the session was loaded by this cursor
+ * and is evicted once the next entity is read. An entity that the session managed before keeps its state and stays
+ * managed.
+ */
+class ScrollableEntityIterator<E> implements EntityIterator<E> {
+    private final Session m_session;
+    private final ScrollableResults m_results;
+    private E m_current;
+    private boolean m_advanced;
+    private boolean m_hasNext;
+    private boolean m_closed;
+
+    ScrollableEntityIterator(EntityManager entityManager, TypedQuery<E> query, int fetchSize) {
+        m_session = entityManager.unwrap(Session.class);
+        Query hibernateQuery = query.unwrap(Query.class);
+        hibernateQuery.setReadOnly(true);
+        if (fetchSize > 0) {
+            hibernateQuery.setFetchSize(fetchSize);
+        }
+        m_results = hibernateQuery.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!m_advanced && !m_closed) {
+            detachCurrent();
+            m_hasNext = m_results.next();
+            m_advanced = true;
+            if (!m_hasNext) {
+                close();
+            }
+        }
+        return m_hasNext && !m_closed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        m_advanced = false;
+        m_current = (E) m_results.get(0);
+        return m_current;
+    }
+
+    private void detachCurrent() {
+        if (m_current != null && m_session.contains(m_current) && m_session.isReadOnly(m_current)) {
+            m_session.evict(m_current);
+        }
+        m_current = null;
+    }
+
+    @Override
+    public void close() {
+        if (!m_closed) {
+            m_closed = true;
+            detachCurrent();
+            m_results.close();
+        }
+    }
+}
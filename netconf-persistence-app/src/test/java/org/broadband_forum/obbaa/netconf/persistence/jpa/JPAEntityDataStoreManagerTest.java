@@ -18,20 +18,26 @@ package org.broadband_forum.obbaa.netconf.persistence.jpa;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 
 import org.broadband_forum.obbaa.netconf.persistence.EMFactory;
 import org.broadband_forum.obbaa.netconf.persistence.EntityDataStoreManager;
+import org.broadband_forum.obbaa.netconf.persistence.EntityIterator;
 import org.broadband_forum.obbaa.netconf.persistence.PagingInput;
 import org.junit.Before;
 import org.junit.Test;
@@ -136,6 +142,31 @@ public class JPAEntityDataStoreManagerTest {
         m_jpaPersistenceManager.close();
     }
 
+    @Test
+    public void testMatchValueQueriesUseTheGivenLockMode() {
+        m_jpaPersistenceManager.beginTransaction();
+        m_jpaPersistenceManager.create(buildPersonWhoLikesRed());
+        m_jpaPersistenceManager.commitTransaction();
+
+        m_jpaPersistenceManager.beginTransaction();
+        Map<String, Object> matchValues = Collections.singletonMap("favoriteColor", "Red");
+        assertEquals(1, m_jpaPersistenceManager.findByMatchAndNotMatchValue(Person.class, matchValues, null,
+                "firstName", LockModeType.NONE).size());
+        assertEquals(LockModeType.NONE, m_jpaPersistenceManager.getTypedQuery().getLockMode());
+
+        Map<String, List<Object>> matchAnyValues = Collections.singletonMap("favoriteColor", Arrays.asList("Red",
+                "Green"));
+        assertEquals(1, m_jpaPersistenceManager.findByMatchAndNotMatchValues(Person.class, matchAnyValues, null,
+                null, LockModeType.NONE).size());
+        assertEquals(LockModeType.NONE, m_jpaPersistenceManager.getTypedQuery().getLockMode());
+
+        m_jpaPersistenceManager.findByMatchAndNotMatchValues(Person.class, matchAnyValues, null, null,
+                LockModeType.PESSIMISTIC_READ);
+        assertEquals(LockModeType.PESSIMISTIC_READ, m_jpaPersistenceManager.getTypedQuery().getLockMode());
+        m_jpaPersistenceManager.commitTransaction();
+        m_jpaPersistenceManager.close();
+    }
+
     @Test
     public void testLikeValues() {
         EntityDataStoreManager manager = m_jpaPersistenceManager;
@@ -374,6 +405,159 @@ public class JPAEntityDataStoreManagerTest {
         manager.close();
     }
 
+    @Test
+    public void testMatchValueQueriesOfTheSameShapeAreCompiledOnce() {
+        m_jpaPersistenceManager.beginTransaction();
+        m_jpaPersistenceManager.create(buildPersonWhoLikesRed());
+        m_jpaPersistenceManager.create(buildPersonWhoLikesGreen());
+        m_jpaPersistenceManager.create(buildPersonWhoLikesPurple());
+        m_jpaPersistenceManager.create(buildPersonWhoLikesOrange());
+        m_jpaPersistenceManager.commitTransaction();
+
+        JpqlQueryCache queryCache = m_jpaPersistenceManager.getQueryCache();
+        queryCache.clear();
+        long hits = queryCache.getHitCount();
+        long misses = queryCache.getMissCount();
+        m_jpaPersistenceManager.beginTransaction();
+        Map<String, Object> matchValues = new HashMap<>();
+        matchValues.put("firstName", "Alice");
+        Map<String, Object> notMatchValues = new HashMap<>();
+        notMatchValues.put("favoriteColor", "Red");
+        List<Person> persons = m_jpaPersistenceManager.findByMatchAndNotMatchValue(Person.class, matchValues,
+                notMatchValues, LockModeType.NONE);
+        assertEquals(1, persons.size());
+        assertEquals("Orange", persons.get(0).getFavoriteColor());
+
+        matchValues.put("firstName", "Bob");
+        notMatchValues.put("favoriteColor", "Purple");
+        persons = m_jpaPersistenceManager.findByMatchAndNotMatchValue(Person.class, matchValues, notMatchValues,
+                LockModeType.NONE);
+        assertEquals(1, persons.size());
+        assertEquals("Green", persons.get(0).getFavoriteColor());
+        assertEquals(misses + 1, queryCache.getMissCount());
+        assertEquals(hits + 1, queryCache.getHitCount());
+        assertEquals(1, queryCache.getSize());
+
+        matchValues.put("firstName", "Alice");
+        persons = m_jpaPersistenceManager.findByMatchAndNotMatchValue(Person.class, matchValues, null, "favoriteColor",
+                true, null);
+        assertEquals("Red", persons.get(0).getFavoriteColor());
+        assertEquals("Orange", persons.get(1).getFavoriteColor());
+        assertEquals(new Long(2), m_jpaPersistenceManager.countByMatchAndNotMatchValue(Person.class, matchValues,
+                null));
+        notMatchValues.put("favoriteColor", "Red");
+        assertEquals(new Long(1), m_jpaPersistenceManager.countByMatchAndNotMatchValue(Person.class, matchValues,
+                notMatchValues, LockModeType.PESSIMISTIC_WRITE));
+        assertEquals(misses + 4, queryCache.getMissCount());
+        assertEquals(4, queryCache.getSize());
+
+        // the values are converted to the type of their column, as the criteria API does
+        Map<String, Object> idValues = new HashMap<>();
+        idValues.put("id", String.valueOf(persons.get(0).getId()));
+        assertEquals(persons.get(0), m_jpaPersistenceManager.findByMatchValue(Person.class, idValues).get(0));
+        m_jpaPersistenceManager.commitTransaction();
+        m_jpaPersistenceManager.close();
+    }
+
+    @Test
+    public void testMatchValueQueriesThatCannotBeCompiledUseTheCriteriaApi() {
+        m_jpaPersistenceManager.beginTransaction();
+        m_jpaPersistenceManager.create(buildPersonWhoLikesRed());
+        m_jpaPersistenceManager.commitTransaction();
+
+        JpqlQueryCache queryCache = m_jpaPersistenceManager.getQueryCache();
+        queryCache.clear();
+        m_jpaPersistenceManager.beginTransaction();
+        Map<String, Object> matchValues = new HashMap<>();
+        matchValues.put("firstName", "Alice");
+        matchValues.put("phoneNumber", null);
+        assertTrue(m_jpaPersistenceManager.findByMatchValue(Person.class, matchValues).isEmpty());
+        assertEquals(0, queryCache.getSize());
+
+        matchValues.remove("phoneNumber");
+        matchValues.put("unknownColumn", "value");
+        long misses = queryCache.getMissCount();
+        for (int i = 0; i < 2; i++) {
+            try {
+                m_jpaPersistenceManager.findByMatchValue(Person.class, matchValues);
+                fail("IllegalArgumentException is expected");
+            } catch (IllegalArgumentException e) {
+                //exception expected
+            }
+        }
+        assertEquals(misses + 1, queryCache.getMissCount());
+        assertEquals(1, queryCache.getSize());
+        m_jpaPersistenceManager.commitTransaction();
+        m_jpaPersistenceManager.close();
+    }
+
+    @Test
+    public void testCachedQueriesOfUndeployedClassesAreRemoved() {
+        JpqlQueryCache queryCache = m_jpaPersistenceManager.getQueryCache();
+        queryCache.clear();
+        m_jpaPersistenceManager.beginTransaction();
+        Map<String, Object> matchValues = new HashMap<>();
+        matchValues.put("name", "name1");
+        m_jpaPersistenceManager.findByMatchValue(Employee.class, matchValues);
+        matchValues.clear();
+        matchValues.put("firstName", "Alice");
+        m_jpaPersistenceManager.findByMatchValue(Person.class, matchValues);
+        assertEquals(2, queryCache.getSize());
+
+        AbstractEntityDataStoreManager.removeCachedQueries(Collections.<Class>singleton(Person.class));
+        assertEquals(1, queryCache.getSize());
+        long misses = queryCache.getMissCount();
+        m_jpaPersistenceManager.findByMatchValue(Person.class, matchValues);
+        assertEquals(misses + 1, queryCache.getMissCount());
+        m_jpaPersistenceManager.commitTransaction();
+        m_jpaPersistenceManager.close();
+    }
+
+    @Test
+    public void testIteratorDetachesTheEntitiesItRead() {
+        m_jpaPersistenceManager.beginTransaction();
+        m_jpaPersistenceManager.create(buildPersonWhoLikesRed());
+        m_jpaPersistenceManager.create(buildPersonWhoLikesGreen());
+        m_jpaPersistenceManager.create(buildPersonWhoLikesPurple());
+        m_jpaPersistenceManager.create(buildPersonWhoLikesOrange());
+        m_jpaPersistenceManager.commitTransaction();
+        m_jpaPersistenceManager.getEntityManager().clear();
+
+        m_jpaPersistenceManager.beginTransaction();
+        Map<String, Object> matchValues = new HashMap<>();
+        matchValues.put("firstName", "Bob");
+        Person bob = m_jpaPersistenceManager.findByMatchValue(Person.class, matchValues).get(0);
+        bob.setPhoneNumber("54321");
+
+        List<String> colors = new ArrayList<>();
+        Person previous = null;
+        try (EntityIterator<Person> persons = m_jpaPersistenceManager.iterateByMatchValue(Person.class,
+                Collections.<String, Object>emptyMap(), "favoriteColor", 2)) {
+            while (persons.hasNext()) {
+                Person person = persons.next();
+                assertTrue(m_jpaPersistenceManager.getEntityManager().contains(person));
+                if (previous != null && previous != bob) {
+                    assertFalse(m_jpaPersistenceManager.getEntityManager().contains(previous));
+                }
+                colors.add(person.getFavoriteColor());
+                previous = person;
+            }
+            assertFalse(m_jpaPersistenceManager.getEntityManager().contains(previous));
+        }
+        assertEquals(Arrays.asList("Green", "Orange", "Purple", "Red"), colors);
+        // the entity read before the iteration is still managed with its change
+        assertTrue(m_jpaPersistenceManager.getEntityManager().contains(bob));
+        m_jpaPersistenceManager.commitTransaction();
+
+        m_jpaPersistenceManager.beginTransaction();
+        try (Stream<Person> persons = m_jpaPersistenceManager.iterateAll(Person.class, 3).stream()) {
+            assertEquals(Arrays.asList("12347", "54321", "12345", "12347"), persons.map(Person::getPhoneNumber)
+                    .collect(Collectors.toList()));
+        }
+        m_jpaPersistenceManager.commitTransaction();
+        m_jpaPersistenceManager.close();
+    }
+
 
     private Person buildPersonWhoLikesPurple() {
         return new Person()
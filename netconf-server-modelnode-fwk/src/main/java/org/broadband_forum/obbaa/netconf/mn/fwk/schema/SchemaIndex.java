@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.schema;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.ChoiceCaseNode;
+import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.model.api.ModuleIdentifier;
+import org.opendaylight.yangtools.yang.model.api.RpcDefinition;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.opendaylight.yangtools.yang.model.util.ModuleIdentifierImpl;
+
+/**
+ * An immutable snapshot of the lookup tables of a {@link SchemaContext}.
+ *
+ * The index is built completely before it is published by {@link SchemaRegistryImpl}, so readers can use it without
+ * any locking and always see the tables of one schema context.
+ */
+final class SchemaIndex {
+
+    private final SchemaContext m_schemaContext;
+    private final Map<SchemaPath, RpcDefinition> m_rpcDefinitions;
+    private final Map<SchemaPath, DataSchemaNode> m_schemaNodes;
+    private final Map<SchemaPath, DataSchemaNode> m_rootSchemaNodes;
+    private final Map<SchemaPath, Map<QName, DataSchemaNode>> m_indexedChildren;
+    private final Map<String, Module> m_modulesByNamespace;
+    private final Map<String, Module> m_modulesByPrefix;
+    private final Map<String, Module> m_modulesByName;
+    private final Set<ModuleIdentifier> m_moduleIdentifiers;
+
+    SchemaIndex(SchemaContext schemaContext) {
+        m_schemaContext = schemaContext;
+
+        Map<SchemaPath, RpcDefinition> rpcDefinitions = new LinkedHashMap<>();
+        for (RpcDefinition rpc : schemaContext.getOperations()) {
+            rpcDefinitions.put(rpc.getPath(), rpc);
+        }
+        m_rpcDefinitions = Collections.unmodifiableMap(rpcDefinitions);
+
+        Map<SchemaPath, DataSchemaNode> schemaNodes = new LinkedHashMap<>();
+        DataNodeContainerTraverser.traverse(schemaContext, new DataSchemaNodeIndexBuilder(schemaNodes));
+        m_schemaNodes = Collections.unmodifiableMap(schemaNodes);
+
+        Map<SchemaPath, DataSchemaNode> rootSchemaNodes = new LinkedHashMap<>();
+        for (DataSchemaNode rootSchemaNode : schemaContext.getDataDefinitions()) {
+            rootSchemaNodes.put(rootSchemaNode.getPath(), rootSchemaNode);
+        }
+        m_rootSchemaNodes = Collections.unmodifiableMap(rootSchemaNodes);
+
+        Map<SchemaPath, Map<QName, DataSchemaNode>> indexedChildren = new HashMap<>(schemaNodes.size());
+        for (DataSchemaNode node : schemaNodes.values()) {
+            if (node instanceof DataNodeContainer) {
+                indexedChildren.put(node.getPath(), indexChildren((DataNodeContainer) node));
+            }
+        }
+        m_indexedChildren = indexedChildren;
+
+        Map<String, Module> modulesByNamespace = new LinkedHashMap<>();
+        Map<String, Module> modulesByPrefix = new HashMap<>();
+        Map<String, Module> modulesByName = new HashMap<>();
+        Set<ModuleIdentifier> moduleIdentifiers = new HashSet<>();
+        for (Module module : schemaContext.getModules()) {
+            modulesByNamespace.put(module.getNamespace().toString(), module);
+            moduleIdentifiers.add(ModuleIdentifierImpl.create(module.getName(), Optional.of(module.getNamespace()),
+                    Optional.of(module.getRevision())));
+        }
+        // prefixes and names are resolved against the module that wins the namespace, first match as before
+        for (Module module : modulesByNamespace.values()) {
+            modulesByPrefix.putIfAbsent(module.getPrefix(), module);
+            modulesByName.putIfAbsent(module.getName(), module);
+        }
+        m_modulesByNamespace = Collections.unmodifiableMap(modulesByNamespace);
+        m_modulesByPrefix = modulesByPrefix;
+        m_modulesByName = modulesByName;
+        m_moduleIdentifiers = Collections.unmodifiableSet(moduleIdentifiers);
+    }
+
+    private static Map<QName, DataSchemaNode> indexChildren(DataNodeContainer container) {
+        Map<QName, DataSchemaNode> children = new HashMap<>();
+        for (DataSchemaNode child : container.getChildNodes()) {
+            if (child instanceof ChoiceSchemaNode) {
+                addChildCaseNodes((ChoiceSchemaNode) child, children);
+            } else {
+                children.put(child.getQName(), child);
+            }
+        }
+        return Collections.unmodifiableMap(children);
+    }
+
+    private static void addChildCaseNodes(ChoiceSchemaNode choiceNode, Map<QName, DataSchemaNode> children) {
+        for (ChoiceCaseNode caseNode : choiceNode.getCases()) {
+            for (DataSchemaNode child : caseNode.getChildNodes()) {
+                if (child instanceof ChoiceSchemaNode) {
+                    addChildCaseNodes((ChoiceSchemaNode) child, children);
+                } else {
+                    children.put(child.getQName(), child);
+                }
+            }
+        }
+    }
+
+    SchemaContext getSchemaContext() {
+        return m_schemaContext;
+    }
+
+    Collection<RpcDefinition> getRpcDefinitions() {
+        return m_rpcDefinitions.values();
+    }
+
+    RpcDefinition getRpcDefinition(SchemaPath schemaPath) {
+        return m_rpcDefinitions.get(schemaPath);
+    }
+
+    DataSchemaNode getDataSchemaNode(SchemaPath schemaPath) {
+        return m_schemaNodes.get(schemaPath);
+    }
+
+    Collection<DataSchemaNode> getRootDataSchemaNodes() {
+        return m_rootSchemaNodes.values();
+    }
+
+    Set<SchemaPath> getRootSchemaPaths() {
+        return m_rootSchemaNodes.keySet();
+    }
+
+    /**
+     * Children of the node, with the children of choices and cases flattened into it.
+     */
+    Map<QName, DataSchemaNode> getIndexedChildren(SchemaPath parentSchemaPath) {
+        Map<QName, DataSchemaNode> children = m_indexedChildren.get(parentSchemaPath);
+        return children != null ? children : Collections.emptyMap();
+    }
+
+    Module getModuleByNamespace(String namespace) {
+        return m_modulesByNamespace.get(namespace);
+    }
+
+    Module getModuleByPrefix(String prefix) {
+        return m_modulesByPrefix.get(prefix);
+    }
+
+    Module getModuleByName(String moduleName) {
+        return m_modulesByName.get(moduleName);
+    }
+
+    boolean isKnownNamespace(String namespace) {
+        return m_modulesByNamespace.containsKey(namespace);
+    }
+
+    Set<ModuleIdentifier> getModuleIdentifiers() {
+        return m_moduleIdentifiers;
+    }
+}
@@ -52,8 +52,15 @@ import org.opendaylight.yangtools.yang.model.repo.api.YangTextSchemaSource;
 public interface SchemaRegistry extends NamespaceContext {
     String CORE_COMPONENT_ID = "core-component";
 
+    /**
+     * @deprecated schema nodes are no longer cached in the RequestScope, SchemaRegistryImpl keeps an index per
+     * schema context instead.
+     */
+    @Deprecated
     public final static String CHILD_NODE_INDEX_CACHE = "ChildNodeIndexCache";
+    @Deprecated
     public final static String CHILD_NODE_CACHE = "ChilNodeCache";
+    @Deprecated
     public final static String SCHEMAPATH_SCHEMANODE_CACHE = "SchemaPathSchemaNodeCache";
 
     /**
@@ -68,13 +68,11 @@ import org.broadband_forum.obbaa.netconf.api.NetconfCapability;
 import org.broadband_forum.obbaa.netconf.api.parser.SettableSchemaProvider;
 import org.broadband_forum.obbaa.netconf.api.parser.YangParserUtil;
 
-import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath.JXPathUtils;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.DefaultConcurrentHashMap;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.ReadLockTemplate;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.ReadWriteLockService;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.CheckedFuture;
 import com.google.common.util.concurrent.Futures;
 
@@ -91,12 +89,12 @@ public class SchemaRegistryImpl implements SchemaRegistry {
             "DEBUG", "GLOBAL");
     public static final String YYYY_MM_DD = "yyyy-MM-dd";
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormat.forPattern(YYYY_MM_DD);
-    private SchemaContext m_schemaContext;
-    private Map<SchemaPath, RpcDefinition> m_allRpcDefinitions = new LinkedHashMap<>();
+    /**
+     * Lookups read the schema through this snapshot without taking the read lock, a new snapshot is built and
+     * published under the write lock whenever the schema context changes.
+     */
+    private volatile SchemaIndex m_schemaIndex;
     private Map<String, List<YangTextSchemaSource>> m_componentModules = new LinkedHashMap<>();
-    private Map<SchemaPath, DataSchemaNode> m_schemaNodes = new LinkedHashMap<>();
-    private Map<SchemaPath, DataSchemaNode> m_rootSchemaNodes = new LinkedHashMap<>();
-    private Map<String, Module> m_modules = new LinkedHashMap<>();
     private String m_repoName = SchemaRegistryImpl.class.getName();
     private DefaultConcurrentHashMap<SchemaPath, Map<SchemaPath, Expression>> m_impactedNodesForConstraints = new
             DefaultConcurrentHashMap<>(new HashMap<SchemaPath, Expression>(), true);
@@ -128,91 +126,6 @@ public class SchemaRegistryImpl implements SchemaRegistry {
     private String m_moduleSetId;
     private ConcurrentHashMap<QName, Set<QName>> m_supportedPlugDeviations = new ConcurrentHashMap<>();
 
-    private DataSchemaNode getDataSchemaNodeFromCache(SchemaPath schemaPath) {
-        RequestScope scope = RequestScope.getCurrentScope();
-        Map<SchemaPath, DataSchemaNode> schemaNodePathMap = (Map<SchemaPath, DataSchemaNode>) scope.getFromCache
-                (SCHEMAPATH_SCHEMANODE_CACHE);
-        if (schemaNodePathMap != null && schemaPath != null) {
-            return schemaNodePathMap.get(schemaPath);
-        }
-        return null;
-    }
-
-    @SuppressWarnings("unchecked")
-    private void addDataSchemaNodeToCache(SchemaPath schemaPath, DataSchemaNode dataSchemaNode) {
-        RequestScope scope = RequestScope.getCurrentScope();
-        Map<SchemaPath, DataSchemaNode> schemaNodePathMap = (Map<SchemaPath, DataSchemaNode>) scope.getFromCache
-                (SCHEMAPATH_SCHEMANODE_CACHE);
-        if (schemaNodePathMap == null) {
-            schemaNodePathMap = new HashMap<>(1000);
-            scope.putInCache(SCHEMAPATH_SCHEMANODE_CACHE, schemaNodePathMap);
-        }
-        schemaNodePathMap.putIfAbsent(schemaPath, dataSchemaNode);
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<SchemaPath, Map<QName, DataSchemaNode>> getIndexedCache() {
-        RequestScope scope = RequestScope.getCurrentScope();
-        Map<SchemaPath, Map<QName, DataSchemaNode>> cache = (Map<SchemaPath, Map<QName, DataSchemaNode>>) scope
-                .getFromCache(CHILD_NODE_INDEX_CACHE);
-        if (cache == null) {
-            cache = new HashMap<>();
-            scope.putInCache(CHILD_NODE_INDEX_CACHE, cache);
-            cache = (Map<SchemaPath, Map<QName, DataSchemaNode>>) scope.getFromCache(CHILD_NODE_INDEX_CACHE);
-        }
-        return cache;
-
-    }
-
-    @SuppressWarnings("unchecked")
-    @VisibleForTesting
-    Collection<DataSchemaNode> getFromCache(SchemaPath parentPath) {
-        RequestScope scope = RequestScope.getCurrentScope();
-        Map<SchemaPath, Collection<DataSchemaNode>> cache = (Map<SchemaPath, Collection<DataSchemaNode>>) scope
-                .getFromCache(CHILD_NODE_CACHE);
-        if (cache == null) {
-            cache = new HashMap<>();
-            scope.putInCache(CHILD_NODE_CACHE, cache);
-            cache = (Map<SchemaPath, Collection<DataSchemaNode>>) scope.getFromCache(CHILD_NODE_CACHE);
-        }
-        return cache.get(parentPath);
-    }
-
-    @SuppressWarnings("unchecked")
-    void addToCache(SchemaPath parentPath, Collection<DataSchemaNode> childList) {
-        RequestScope scope = RequestScope.getCurrentScope();
-        Map<SchemaPath, Collection<DataSchemaNode>> cache = (Map<SchemaPath, Collection<DataSchemaNode>>) scope
-                .getFromCache(CHILD_NODE_CACHE);
-        if (cache == null) {
-            cache = new HashMap<>();
-            scope.putInCache(CHILD_NODE_CACHE, cache);
-            cache = (Map<SchemaPath, Collection<DataSchemaNode>>) scope.getFromCache(CHILD_NODE_CACHE);
-        }
-        Collection<DataSchemaNode> children = cache.get(parentPath);
-        if (children == null) {
-            Collection<DataSchemaNode> newChildList = new ArrayList<DataSchemaNode>(childList);
-            cache.put(parentPath, newChildList);
-        } else {
-            children.addAll(childList);
-        }
-    }
-
-    private void addToCache(SchemaPath parentPath, Map<QName, DataSchemaNode> children) {
-        Map<SchemaPath, Map<QName, DataSchemaNode>> cache = getIndexedCache();
-        Map<QName, DataSchemaNode> cacheChildren = cache.get(parentPath);
-        if (cacheChildren == null) {
-            cacheChildren = new HashMap<>(children.size());
-            cache.put(parentPath, cacheChildren);
-            cacheChildren = cache.get(parentPath);
-        }
-        cacheChildren.putAll(children);
-    }
-
-    private Map<QName, DataSchemaNode> getFromIndexedCache(SchemaPath parentPath) {
-        Map<SchemaPath, Map<QName, DataSchemaNode>> cache = getIndexedCache();
-        return cache.get(parentPath);
-    }
-
     public SchemaRegistryImpl(ReadWriteLockService readWriteLockService) throws SchemaBuildException {
         this(Collections.<YangTextSchemaSource>emptyList(), true, readWriteLockService);
     }
@@ -248,13 +161,7 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public SchemaContext getSchemaContext() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<SchemaContext>() {
-            @Override
-            public SchemaContext execute() {
-                LOGGER.debug("getSchemaContext called");
-                return m_schemaContext;
-            }
-        });
+        return m_schemaIndex.getSchemaContext();
     }
 
     @Override
@@ -274,12 +181,11 @@ public class SchemaRegistryImpl implements SchemaRegistry {
                             coreYangModelByteSources);
                     try {
                         m_componentModules.clear();
-                        ConstraintValidatorFactoryImpl.getInstance().clearCache();
-                        SchemaRegistryUtil.resetCache();
-                        m_schemaContext = YangParserUtil.parseSchemaSources(m_repoName, coreYangModelByteSources,
-                                supportedFeatures, supportedDeviations);
+                        JXPathUtils.releaseSchemaExpressions(SchemaRegistryImpl.this, null);
+                        SchemaContext schemaContext = YangParserUtil.parseSchemaSources(m_repoName,
+                                coreYangModelByteSources, supportedFeatures, supportedDeviations);
                         m_componentModules.put(CORE_COMPONENT_ID, coreYangModelByteSources);
-                        updateIndexes();
+                        updateIndexes(schemaContext);
                         updateCapabilities(null, supportedFeatures, supportedDeviations, true);
                     } catch (Exception e) {
                         LOGGER.error("Error while building schema context", e);
@@ -294,7 +200,7 @@ public class SchemaRegistryImpl implements SchemaRegistry {
     }
 
     private void addAllSupportedFeatures(String componentId) {
-        Set<Module> modules = m_schemaContext.getModules();
+        Set<Module> modules = getAllModules();
         Set<ModuleIdentifier> moduleIdentifiers = new HashSet<>();
         for (Module module : modules) {
             ModuleIdentifier moduleIdentifier = ModuleIdentifierImpl.create(module.getName(), Optional.of(module
@@ -313,7 +219,7 @@ public class SchemaRegistryImpl implements SchemaRegistry {
     }
 
     private void addAllSupportedDeviations(String componentId) {
-        Set<Module> modules = m_schemaContext.getModules();
+        Set<Module> modules = getAllModules();
         Set<ModuleIdentifier> moduleIdentifiers = new HashSet<>();
         for (Module module : modules) {
             ModuleIdentifier moduleIdentifier = ModuleIdentifierImpl.create(module.getName(), Optional.of(module
@@ -366,68 +272,38 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public Collection<DataSchemaNode> getRootDataSchemaNodes() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Collection<DataSchemaNode>>() {
-            @Override
-            public Collection<DataSchemaNode> execute() {
-                return m_rootSchemaNodes.values();
-            }
-        });
+        return m_schemaIndex.getRootDataSchemaNodes();
     }
 
     @Override
     public Module getModule(final String name, final String revision) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Module>() {
-            @Override
-            public Module execute() {
-                Date date;
-                if (revision == null || revision.isEmpty()) {
-                    date = SimpleDateFormatUtil.DEFAULT_DATE_REV;
-                } else {
-                    date = DATE_TIME_FORMATTER.parseDateTime(revision).toDate();
-                }
-                return getModule(name, date);
-            }
-        });
+        Date date;
+        if (revision == null || revision.isEmpty()) {
+            date = SimpleDateFormatUtil.DEFAULT_DATE_REV;
+        } else {
+            date = DATE_TIME_FORMATTER.parseDateTime(revision).toDate();
+        }
+        return getModule(name, date);
     }
 
     @Override
     public Module getModule(final String name) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Module>() {
-            @Override
-            public Module execute() {
-                return getModule(name, (Date) null);
-            }
-        });
+        return getModule(name, (Date) null);
     }
 
     @Override
     public Module getModule(final String name, final Date revision) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Module>() {
-            @Override
-            public Module execute() {
-                return m_schemaContext.findModuleByName(name, revision);
-            }
-        });
+        return m_schemaIndex.getSchemaContext().findModuleByName(name, revision);
     }
 
     @Override
     public Collection<RpcDefinition> getRpcDefinitions() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Collection<RpcDefinition>>() {
-            @Override
-            public Collection<RpcDefinition> execute() {
-                return m_allRpcDefinitions.values();
-            }
-        });
+        return m_schemaIndex.getRpcDefinitions();
     }
 
     @Override
     public RpcDefinition getRpcDefinition(final SchemaPath schemaPath) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<RpcDefinition>() {
-            @Override
-            public RpcDefinition execute() {
-                return m_allRpcDefinitions.get(schemaPath);
-            }
-        });
+        return m_schemaIndex.getRpcDefinition(schemaPath);
     }
 
     @Override
@@ -449,8 +325,7 @@ public class SchemaRegistryImpl implements SchemaRegistry {
                             if (supportedDeviations != null) {
                                 m_supportedPlugDeviations.putAll(supportedDeviations);
                             }
-                            rebuildFromSource();
-                            updateIndexes();
+                            updateIndexes(rebuildFromSource());
                         }
                         updateCapabilities(componentId, supportedFeatures, supportedDeviations, true);
                     } catch (Exception e) {
@@ -462,7 +337,6 @@ public class SchemaRegistryImpl implements SchemaRegistry {
                     return null;
                 }
             });
-            SchemaRegistryUtil.resetCache();
         } catch (LockServiceException e) {
             throw new SchemaBuildException(e.getCause());
         }
@@ -476,14 +350,14 @@ public class SchemaRegistryImpl implements SchemaRegistry {
                 @Override
                 public Void execute() throws LockServiceException {
                     LOGGER.info("unloadSchemaContext called for componentId : {}", componentId);
+                    JXPathUtils.releaseSchemaExpressions(SchemaRegistryImpl.this, componentId);
                     if (m_componentModules.get(componentId) != null) {
                         m_componentModules.remove(componentId);
                         try {
                             if (supportedDeviations != null) {
                                 m_supportedPlugDeviations.remove(supportedDeviations);
                             }
-                            rebuildFromSource();
-                            updateIndexes();
+                            updateIndexes(rebuildFromSource());
                         } catch (SchemaBuildException e) {
                             throw new LockServiceException(e);
                         }
@@ -517,22 +391,12 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public Set<ModuleIdentifier> getAllModuleAndSubmoduleIdentifiers() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Set<ModuleIdentifier>>() {
-            @Override
-            public Set<ModuleIdentifier> execute() {
-                return m_schemaContext.getAllModuleIdentifiers();
-            }
-        });
+        return m_schemaIndex.getSchemaContext().getAllModuleIdentifiers();
     }
 
     @Override
     public Set<Module> getAllModules() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Set<Module>>() {
-            @Override
-            public Set<Module> execute() {
-                return m_schemaContext.getModules();
-            }
-        });
+        return m_schemaIndex.getSchemaContext().getModules();
     }
 
     @Override
@@ -558,16 +422,17 @@ public class SchemaRegistryImpl implements SchemaRegistry {
         return yangTextSchemaSources;
     }
 
-    private void rebuildFromSource() throws SchemaBuildException {
+    private SchemaContext rebuildFromSource() throws SchemaBuildException {
         List<YangTextSchemaSource> allYangSources = new ArrayList<>();
         for (List<YangTextSchemaSource> byteSources : m_componentModules.values()) {
             allYangSources.addAll(byteSources);
         }
         try {
             LOGGER.info("rebuilding schemaContext");
-            m_schemaContext = YangParserUtil.parseSchemaSources(SchemaRegistryImpl.class.getName(), allYangSources,
-                    null, m_supportedPlugDeviations);
+            SchemaContext schemaContext = YangParserUtil.parseSchemaSources(SchemaRegistryImpl.class.getName(),
+                    allYangSources, null, m_supportedPlugDeviations);
             LOGGER.info("rebuilding schemaContext done");
+            return schemaContext;
         } catch (Exception e) {
             LOGGER.error("Error while reloading schema context", e);
             throw new SchemaBuildException("Error while reloading schema context", e);
@@ -576,164 +441,78 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public DataSchemaNode getDataSchemaNode(final SchemaPath dataNodeSchemaPath) {
-
-        DataSchemaNode schemaNode = getDataSchemaNodeFromCache(dataNodeSchemaPath);
-        if (schemaNode != null) {
-            return schemaNode;
-        }
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<DataSchemaNode>() {
-            @Override
-            public DataSchemaNode execute() {
-                DataSchemaNode schemaNode = m_schemaNodes.get(dataNodeSchemaPath);
-
-                if (schemaNode != null) {
-                    addDataSchemaNodeToCache(dataNodeSchemaPath, schemaNode);
-                }
-                return schemaNode;
-            }
-        });
+        return m_schemaIndex.getDataSchemaNode(dataNodeSchemaPath);
     }
 
     @Override
     public Collection<DataSchemaNode> getChildren(final SchemaPath parentSchemaPath) {
-        //TODO: This addition of cache, fails the startup of anv. Need to investigate and add if possible
-//        Collection<DataSchemaNode> cacheChildren = getFromCache(parentSchemaPath);
-//        if (cacheChildren != null) {
-//            return cacheChildren;
-//        }
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Collection<DataSchemaNode>>() {
-            @Override
-            public Collection<DataSchemaNode> execute() {
-                DataSchemaNode parentNode = getDataSchemaNode(parentSchemaPath);
-                if (parentNode != null && parentNode instanceof DataNodeContainer) {
-                    Collection<DataSchemaNode> returnList = ((DataNodeContainer) parentNode).getChildNodes();
-//                    addToCache(parentSchemaPath, returnList);
-                    return returnList;
-                }
-                return Collections.emptySet();
-            }
-        });
+        DataSchemaNode parentNode = getDataSchemaNode(parentSchemaPath);
+        if (parentNode != null && parentNode instanceof DataNodeContainer) {
+            return ((DataNodeContainer) parentNode).getChildNodes();
+        }
+        return Collections.emptySet();
     }
 
     @Override
     public DataSchemaNode getChild(final SchemaPath parentSchemaPath, final QName childQName) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<DataSchemaNode>() {
-            @Override
-            public DataSchemaNode execute() {
-                DataSchemaNode parentNode = getDataSchemaNode(parentSchemaPath);
-                if (parentNode != null && parentNode instanceof DataNodeContainer) {
-                    return ((DataNodeContainer) parentNode).getDataChildByName(childQName);
-                }
-                return null;
-            }
-        });
-    }
-
-    private void addChildCaseNodes(ChoiceSchemaNode choiceNode, Map<QName, DataSchemaNode> childList) {
-        Collection<ChoiceCaseNode> cases = choiceNode.getCases();
-        for (ChoiceCaseNode caseNode : cases) {
-            Collection<DataSchemaNode> children = caseNode.getChildNodes();
-            for (DataSchemaNode child : children) {
-                if (child instanceof ChoiceSchemaNode) {
-                    addChildCaseNodes((ChoiceSchemaNode) child, childList);
-                } else {
-                    childList.put(child.getQName(), child);
-                }
-            }
+        DataSchemaNode parentNode = getDataSchemaNode(parentSchemaPath);
+        if (parentNode != null && parentNode instanceof DataNodeContainer) {
+            return ((DataNodeContainer) parentNode).getDataChildByName(childQName);
         }
+        return null;
     }
 
     @Override
     public Map<QName, DataSchemaNode> getIndexedChildren(final SchemaPath parentSchemaPath) {
-        Map<QName, DataSchemaNode> cacheList = getFromIndexedCache(parentSchemaPath);
-        if (cacheList != null) {
-            return cacheList;
-        }
-
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Map<QName, DataSchemaNode>>() {
-            @Override
-            public Map<QName, DataSchemaNode> execute() {
-                Map<QName, DataSchemaNode> returnList = new HashMap<QName, DataSchemaNode>(1000);
-                DataSchemaNode parentNode = getDataSchemaNode(parentSchemaPath);
-                if (parentNode != null && parentNode instanceof DataNodeContainer) {
-                    Collection<DataSchemaNode> childNodes = ((DataNodeContainer) parentNode).getChildNodes();
-                    for (DataSchemaNode child : childNodes) {
-                        if (child instanceof ChoiceSchemaNode) {
-                            addChildCaseNodes((ChoiceSchemaNode) child, returnList);
-                        } else {
-                            returnList.put(child.getQName(), child);
-                        }
-                    }
-                }
-                addToCache(parentSchemaPath, returnList);
-                return returnList;
-            }
-        });
+        return m_schemaIndex.getIndexedChildren(parentSchemaPath);
     }
 
     public DataSchemaNode getDataSchemaNode(final List<QName> qNames) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<DataSchemaNode>() {
-            @Override
-            public DataSchemaNode execute() {
-                DataSchemaNode currentNode = getSchemaContext();
-                for (QName qname : qNames) {
-                    currentNode = findChild(currentNode, qname);
-                }
-                return currentNode;
-            }
-        });
+        DataSchemaNode currentNode = getSchemaContext();
+        for (QName qname : qNames) {
+            currentNode = findChild(currentNode, qname);
+        }
+        return currentNode;
     }
 
     public DataSchemaNode findChild(final DataSchemaNode currentNode, final QName qname) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<DataSchemaNode>() {
-            @Override
-            public DataSchemaNode execute() {
-                if (currentNode == null) {
-                    SchemaPath schemaPath = SchemaPath.create(true, qname);
-                    return m_schemaNodes.get(schemaPath);
-                }
-                if (currentNode instanceof DataNodeContainer) {
-                    DataNodeContainer dnc = (DataNodeContainer) currentNode;
-                    Collection<DataSchemaNode> childNodes = dnc.getChildNodes();
-                    for (DataSchemaNode childNode : childNodes) {
-                        if (childNode.getQName().equals(qname)) {
-                            return childNode;
-                        } else if (childNode instanceof ChoiceSchemaNode) {
-                            ChoiceSchemaNode choiceNode = (ChoiceSchemaNode) childNode;
-                            for (ChoiceCaseNode caseNode : choiceNode.getCases()) {
-                                for (DataSchemaNode caseChild : caseNode.getChildNodes()) {
-                                    if (caseChild.getQName().equals(qname)) {
-                                        return caseChild;
-                                    }
-                                }
+        if (currentNode == null) {
+            SchemaPath schemaPath = SchemaPath.create(true, qname);
+            return getDataSchemaNode(schemaPath);
+        }
+        if (currentNode instanceof DataNodeContainer) {
+            DataNodeContainer dnc = (DataNodeContainer) currentNode;
+            Collection<DataSchemaNode> childNodes = dnc.getChildNodes();
+            for (DataSchemaNode childNode : childNodes) {
+                if (childNode.getQName().equals(qname)) {
+                    return childNode;
+                } else if (childNode instanceof ChoiceSchemaNode) {
+                    ChoiceSchemaNode choiceNode = (ChoiceSchemaNode) childNode;
+                    for (ChoiceCaseNode caseNode : choiceNode.getCases()) {
+                        for (DataSchemaNode caseChild : caseNode.getChildNodes()) {
+                            if (caseChild.getQName().equals(qname)) {
+                                return caseChild;
                             }
                         }
                     }
                 }
-                throw new RuntimeException("Could not find child " + qname + " in parent " + currentNode.getPath());
             }
-        });
+        }
+        throw new RuntimeException("Could not find child " + qname + " in parent " + currentNode.getPath());
     }
 
     @Override
     public Collection<DataSchemaNode> getNonChoiceChildren(final SchemaPath parentSchemaPath) {
-
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Collection<DataSchemaNode>>() {
-            @Override
-            public Collection<DataSchemaNode> execute() {
-                Collection<DataSchemaNode> effectiveChildSchemaNode = new HashSet<DataSchemaNode>();
-                Collection<DataSchemaNode> childrenSchemaNodes = getChildren(parentSchemaPath);
-                for (DataSchemaNode dataSchemaNode : childrenSchemaNodes) {
-                    if (dataSchemaNode instanceof ChoiceSchemaNode) {
-                        addNonChoiceChildren(effectiveChildSchemaNode, (ChoiceSchemaNode) dataSchemaNode);
-                    } else {
-                        effectiveChildSchemaNode.add(dataSchemaNode);
-                    }
-                }
-                return effectiveChildSchemaNode;
+        Collection<DataSchemaNode> effectiveChildSchemaNode = new HashSet<DataSchemaNode>();
+        Collection<DataSchemaNode> childrenSchemaNodes = getChildren(parentSchemaPath);
+        for (DataSchemaNode dataSchemaNode : childrenSchemaNodes) {
+            if (dataSchemaNode instanceof ChoiceSchemaNode) {
+                addNonChoiceChildren(effectiveChildSchemaNode, (ChoiceSchemaNode) dataSchemaNode);
+            } else {
+                effectiveChildSchemaNode.add(dataSchemaNode);
             }
-        });
-
+        }
+        return effectiveChildSchemaNode;
     }
 
     @Override
@@ -764,27 +543,12 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public boolean isKnownNamespace(final String namespaceURI) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Boolean>() {
-            @Override
-            public Boolean execute() {
-                return m_modules.keySet().contains(namespaceURI);
-            }
-        });
+        return m_schemaIndex.isKnownNamespace(namespaceURI);
     }
 
     @Override
     public Set<ModuleIdentifier> getAllModuleIdentifiers() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Set<ModuleIdentifier>>() {
-            @Override
-            public Set<ModuleIdentifier> execute() {
-                Set<ModuleIdentifier> moduleIdentifiers = new HashSet<>();
-                for (Module module : m_schemaContext.getModules()) {
-                    moduleIdentifiers.add(ModuleIdentifierImpl.create(module.getName(), Optional.of(module
-                            .getNamespace()), Optional.of(module.getRevision())));
-                }
-                return moduleIdentifiers;
-            }
-        });
+        return new HashSet<>(m_schemaIndex.getModuleIdentifiers());
     }
 
     @Override
@@ -802,110 +566,62 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public QName lookupQName(final String namespace, final String localName) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<QName>() {
-            @Override
-            public QName execute() {
-                ModuleIdentifier module = m_modules.get(namespace);
-                if (module != null) {
-                    QName qName = QName.create(module.getQNameModule(), localName);
-                    return qName;
-                }
-
-                return null;
-            }
-        });
-
+        ModuleIdentifier module = m_schemaIndex.getModuleByNamespace(namespace);
+        if (module != null) {
+            QName qName = QName.create(module.getQNameModule(), localName);
+            return qName;
+        }
+        return null;
     }
 
     @Override
     public String getPrefix(final String namespace) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<String>() {
-            @Override
-            public String execute() {
-                Module module = m_modules.get(namespace);
-                if (module != null) {
-                    return module.getPrefix();
-                }
-                return null;
-            }
-        });
+        Module module = m_schemaIndex.getModuleByNamespace(namespace);
+        if (module != null) {
+            return module.getPrefix();
+        }
+        return null;
     }
 
     @Override
     public String getNamespaceURI(final String prefix) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<String>() {
-            @Override
-            public String execute() {
-                for (Module module : m_modules.values()) {
-                    if (module.getPrefix().equals(prefix)) {
-                        return module.getNamespace().toString();
-                    }
-                }
-                return null;
-            }
-        });
+        Module module = m_schemaIndex.getModuleByPrefix(prefix);
+        return module != null ? module.getNamespace().toString() : null;
     }
 
     @Override
     public String getModuleNameByNamespace(final String namespace) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<String>() {
-            @Override
-            public String execute() {
-                Module module = m_modules.get(namespace);
-                return module != null ? module.getName() : null;
-            }
-        });
-
+        Module module = m_schemaIndex.getModuleByNamespace(namespace);
+        return module != null ? module.getName() : null;
     }
 
     @Override
     public String getNamespaceOfModule(final String moduleName) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<String>() {
-            @Override
-            public String execute() {
-                for (Module module : m_modules.values()) {
-                    if (module.getName().equals(moduleName)) {
-                        return module.getNamespace().toString();
-                    }
-                }
-                return null;
-            }
-        });
+        Module module = m_schemaIndex.getModuleByName(moduleName);
+        return module != null ? module.getNamespace().toString() : null;
     }
 
 
     @Override
     public Iterator<?> getPrefixes(final String namespace) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Iterator<?>>() {
-            @Override
-            public Iterator<?> execute() {
-                List<String> prefixes = Collections.emptyList();
-                String prefix = getPrefix(namespace);
-                if (prefix != null) {
-                    prefixes = new ArrayList<>();
-                    prefixes.add(prefix);
-                }
-                return prefixes.iterator();
-            }
-        });
+        List<String> prefixes = Collections.emptyList();
+        String prefix = getPrefix(namespace);
+        if (prefix != null) {
+            prefixes = new ArrayList<>();
+            prefixes.add(prefix);
+        }
+        return prefixes.iterator();
     }
 
     @Override
     public Set<SchemaPath> getRootSchemaPaths() {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Set<SchemaPath>>() {
-            @Override
-            public Set<SchemaPath> execute() {
-                return m_rootSchemaNodes.keySet();
-            }
-        });
+        return m_schemaIndex.getRootSchemaPaths();
     }
 
-    private void updateIndexes() throws SchemaBuildException {
-        indexRpcDefinitions();
-        indexDataSchemaNodes();
-        indexRootSchemaNodes();
-        indexNamespaces();
-
+    private void updateIndexes(SchemaContext schemaContext) {
+        m_schemaIndex = new SchemaIndex(schemaContext);
+        // the validators are built for the schema nodes of the previous context, they are built again on first use
+        ConstraintValidatorFactoryImpl.getInstance().clearCache(this);
     }
 
     public void updateCapabilities(String componentId, Set<QName> supportedFeatures,
@@ -941,35 +657,6 @@ public class SchemaRegistryImpl implements SchemaRegistry {
         return !newModuleSetId.equals(m_moduleSetId);
     }
 
-    private void indexNamespaces() {
-        m_modules.clear();
-        for (Module module : m_schemaContext.getModules()) {
-            m_modules.put(module.getNamespace().toString(), module);
-        }
-    }
-
-    private void indexRootSchemaNodes() {
-        m_rootSchemaNodes.clear();
-        for (DataSchemaNode rootSchemaNode : m_schemaContext.getDataDefinitions()) {
-            m_rootSchemaNodes.put(rootSchemaNode.getPath(), rootSchemaNode);
-        }
-    }
-
-    private void indexDataSchemaNodes() {
-        m_schemaNodes.clear();
-        DataNodeContainerTraverser.traverse(m_schemaContext, new DataSchemaNodeIndexBuilder(m_schemaNodes));
-    }
-
-    private void indexRpcDefinitions() {
-        m_allRpcDefinitions.clear();
-        Map<SchemaPath, RpcDefinition> rpcs = new HashMap<>();
-        for (RpcDefinition rpc : m_schemaContext.getOperations()) {
-            rpcs.put(rpc.getPath(), rpc);
-        }
-
-        m_allRpcDefinitions.putAll(rpcs);
-    }
-
     public static SchemaRegistry buildSchemaRegistry(List<String> coreYangModelFilesPaths, ReadWriteLockService
             readWriteLockService) throws SchemaBuildException {
         return buildSchemaRegistry(coreYangModelFilesPaths, null, null, true, readWriteLockService);
@@ -1063,55 +750,40 @@ public class SchemaRegistryImpl implements SchemaRegistry {
 
     @Override
     public SchemaPath getDescendantSchemaPath(final SchemaPath parentSchemaPath, final QName qname) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<SchemaPath>() {
-            @Override
-            public SchemaPath execute() {
-                DataSchemaNode parentSchemaNode = getDataSchemaNode(parentSchemaPath);
-                if (parentSchemaNode instanceof DataNodeContainer) {
-                    DataNodeContainer containerSchemaNode = (DataNodeContainer) parentSchemaNode;
-                    DataSchemaNode childDataSchemaNode = containerSchemaNode.getDataChildByName(qname);
-                    if (childDataSchemaNode != null) {
-                        return childDataSchemaNode.getPath();
-                    }
-                    for (DataSchemaNode child : containerSchemaNode.getChildNodes()) {
-                        SchemaPath childPath = getDescendantSchemaPath(child.getPath(), qname);
-                        if (childPath != null) {
-                            return childPath;
-                        }
-                    }
-                } else if (parentSchemaNode instanceof ChoiceSchemaNode) {
-                    ChoiceSchemaNode choiceSchemaNode = (ChoiceSchemaNode) parentSchemaNode;
-                    for (DataSchemaNode child : choiceSchemaNode.getCases()) {
-                        SchemaPath childPath = getDescendantSchemaPath(child.getPath(), qname);
-                        if (childPath != null) {
-                            return childPath;
-                        }
-                    }
+        DataSchemaNode parentSchemaNode = getDataSchemaNode(parentSchemaPath);
+        if (parentSchemaNode instanceof DataNodeContainer) {
+            DataNodeContainer containerSchemaNode = (DataNodeContainer) parentSchemaNode;
+            DataSchemaNode childDataSchemaNode = containerSchemaNode.getDataChildByName(qname);
+            if (childDataSchemaNode != null) {
+                return childDataSchemaNode.getPath();
+            }
+            for (DataSchemaNode child : containerSchemaNode.getChildNodes()) {
+                SchemaPath childPath = getDescendantSchemaPath(child.getPath(), qname);
+                if (childPath != null) {
+                    return childPath;
                 }
-
-                return null;
             }
-        });
+        } else if (parentSchemaNode instanceof ChoiceSchemaNode) {
+            ChoiceSchemaNode choiceSchemaNode = (ChoiceSchemaNode) parentSchemaNode;
+            for (DataSchemaNode child : choiceSchemaNode.getCases()) {
+                SchemaPath childPath = getDescendantSchemaPath(child.getPath(), qname);
+                if (childPath != null) {
+                    return childPath;
+                }
+            }
+        }
+
+        return null;
     }
 
     @Override
     public Module getModuleByNamespace(final String namespace) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Module>() {
-            @Override
-            public Module execute() {
-                return m_modules.get(namespace);
-            }
-        });
+        return m_schemaIndex.getModuleByNamespace(namespace);
     }
 
     @Override
     public Module findModuleByNamespaceAndRevision(final URI namespace, final Date revision) {
-        return m_readWriteLockService.executeWithReadLock(new ReadLockTemplate<Module>() {
-            @Override
-            public Module execute() {
-                return m_schemaContext.findModuleByNamespaceAndRevision(namespace, revision);
-            }
-        });
+        return m_schemaIndex.getSchemaContext().findModuleByNamespaceAndRevision(namespace, revision);
     }
 
     @Override
@@ -28,5 +28,16 @@ public interface ConstraintValidatorFactory {
     SchemaNodeConstraintParser getConstraintNodeValidator(DataSchemaNode dataSchemaNode, SchemaRegistry schemaRegistry,
                                                           DSExpressionValidator expValidator);
 
+    /**
+     * Builds the validators of all the data nodes of the schema registry ahead of the requests that need them. It is
+     * done on the first request for a node of the registry otherwise.
+     */
+    void buildValidators(SchemaRegistry schemaRegistry, DSExpressionValidator expValidator);
+
     void clearCache();
+
+    /**
+     * Drops the validators built for the schema registry, those of the other registries are kept.
+     */
+    void clearCache(SchemaRegistry schemaRegistry);
 }
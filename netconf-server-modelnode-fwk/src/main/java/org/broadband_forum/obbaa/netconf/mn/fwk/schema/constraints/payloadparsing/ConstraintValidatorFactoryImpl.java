@@ -16,15 +16,25 @@
 
 package org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.MapMaker;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.type.builtin.TypeValidatorFactory;
+import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.LeafListSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.LeafSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DSExpressionValidator;
 import org.broadband_forum.obbaa.netconf.mn.fwk.validation.ContainerValidator;
@@ -36,10 +46,20 @@ import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
 
 /**
  * Created by keshava on 11/23/15.
+ *
+ * The validators of all the data nodes of a schema registry are built at once, together with the type validators of
+ * their leaves, and published as an immutable map of the registry. Requests read the map without locking. The map is
+ * built again when the schema context of the registry changed since it was built, the maps of the other registries
+ * are kept. Nodes that are not in the map, such as rpc input nodes, get their validator built on first use.
  */
 public class ConstraintValidatorFactoryImpl implements ConstraintValidatorFactory {
     private static ConstraintValidatorFactory c_instance = new ConstraintValidatorFactoryImpl();
-    private Map<DataSchemaNode, SchemaNodeConstraintParser> m_constraintValidators = new HashMap<>();
+    // the keys are compared by identity and the validators of a registry are dropped once it is collected
+    private final ConcurrentMap<SchemaRegistry, RegistryValidators> m_registryValidators = new MapMaker()
+            .weakKeys().makeMap();
+    private final ConcurrentMap<DataSchemaNode, SchemaNodeConstraintParser> m_validatorsWithoutRegistry = new
+            ConcurrentHashMap<>();
+    private final Object m_buildLock = new Object();
     private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(ConstraintValidatorFactoryImpl.class,
             "netconf-server-datastore", "DEBUG", "GLOBAL");
 
@@ -54,36 +74,134 @@ public class ConstraintValidatorFactoryImpl implements ConstraintValidatorFactor
 
     @Override
     public void clearCache() {
-        m_constraintValidators.clear();
+        m_registryValidators.clear();
+        m_validatorsWithoutRegistry.clear();
+    }
+
+    @Override
+    public void clearCache(SchemaRegistry schemaRegistry) {
+        m_registryValidators.remove(schemaRegistry);
+    }
+
+    @Override
+    public void buildValidators(SchemaRegistry schemaRegistry, DSExpressionValidator expValidator) {
+        getRegistryValidators(schemaRegistry, expValidator);
     }
 
     @Override
     public SchemaNodeConstraintParser getConstraintNodeValidator(DataSchemaNode dataSchemaNode, SchemaRegistry
             schemaRegistry,
                                                                  DSExpressionValidator expValidator) {
-        SchemaNodeConstraintParser schemaNodeConstraintParser = m_constraintValidators.get(dataSchemaNode);
+        ConcurrentMap<DataSchemaNode, SchemaNodeConstraintParser> unplannedValidators = m_validatorsWithoutRegistry;
+        if (schemaRegistry != null) {
+            RegistryValidators registryValidators = getRegistryValidators(schemaRegistry, expValidator);
+            SchemaNodeConstraintParser schemaNodeConstraintParser = registryValidators.m_validators.get(
+                    dataSchemaNode);
+            if (schemaNodeConstraintParser != null) {
+                return schemaNodeConstraintParser;
+            }
+            unplannedValidators = registryValidators.m_unplannedValidators;
+        }
+        SchemaNodeConstraintParser schemaNodeConstraintParser = unplannedValidators.get(dataSchemaNode);
         if (schemaNodeConstraintParser == null) {
-            if (dataSchemaNode instanceof LeafSchemaNode) {
-                schemaNodeConstraintParser = new LeafValidator(schemaRegistry, null, (LeafSchemaNode) dataSchemaNode,
-                        expValidator);
-            } else if (dataSchemaNode instanceof LeafListSchemaNode) {
-                schemaNodeConstraintParser = new LeafListValidator(schemaRegistry, null, (LeafListSchemaNode)
-                        dataSchemaNode, expValidator);
-            } else if (dataSchemaNode instanceof ContainerSchemaNode) {
-                schemaNodeConstraintParser = new ContainerValidator(schemaRegistry, null, (ContainerSchemaNode)
-                        dataSchemaNode, expValidator);
-            } else if (dataSchemaNode instanceof ListSchemaNode) {
-                schemaNodeConstraintParser = new ListValidator(schemaRegistry, null, (ListSchemaNode) dataSchemaNode,
-                        expValidator);
+            schemaNodeConstraintParser = createValidator(dataSchemaNode, schemaRegistry, expValidator);
+            if (schemaNodeConstraintParser != null) {
+                SchemaNodeConstraintParser existingParser = unplannedValidators.putIfAbsent(dataSchemaNode,
+                        schemaNodeConstraintParser);
+                if (existingParser != null) {
+                    schemaNodeConstraintParser = existingParser;
+                }
             } else {
                 LOGGER.warn("{} of type {} is not supported", dataSchemaNode.getQName(), dataSchemaNode.getClass()
                         .toString());
             }
         }
-        if (schemaNodeConstraintParser != null) {
-            m_constraintValidators.put(dataSchemaNode, schemaNodeConstraintParser);
-        }
 
         return schemaNodeConstraintParser;
     }
+
+    private RegistryValidators getRegistryValidators(SchemaRegistry schemaRegistry, DSExpressionValidator
+            expValidator) {
+        RegistryValidators registryValidators = m_registryValidators.get(schemaRegistry);
+        if (registryValidators == null || !registryValidators.isBuiltFor(schemaRegistry)) {
+            synchronized (m_buildLock) {
+                registryValidators = m_registryValidators.get(schemaRegistry);
+                if (registryValidators == null || !registryValidators.isBuiltFor(schemaRegistry)) {
+                    // the schema context is read first, a map built while it changes is built again on next use
+                    SchemaContext schemaContext = schemaRegistry.getSchemaContext();
+                    Map<DataSchemaNode, SchemaNodeConstraintParser> validators = new HashMap<>();
+                    for (DataSchemaNode rootNode : schemaRegistry.getRootDataSchemaNodes()) {
+                        addValidators(validators, rootNode, schemaRegistry, expValidator);
+                    }
+                    registryValidators = new RegistryValidators(schemaContext, Collections.unmodifiableMap(
+                            validators));
+                    m_registryValidators.put(schemaRegistry, registryValidators);
+                    LOGGER.debug("{} validators built for schema registry {}", validators.size(), schemaRegistry);
+                }
+            }
+        }
+        return registryValidators;
+    }
+
+    private void addValidators(Map<DataSchemaNode, SchemaNodeConstraintParser> validators, DataSchemaNode
+            dataSchemaNode, SchemaRegistry schemaRegistry, DSExpressionValidator expValidator) {
+        if (!validators.containsKey(dataSchemaNode)) {
+            SchemaNodeConstraintParser schemaNodeConstraintParser = createValidator(dataSchemaNode, schemaRegistry,
+                    expValidator);
+            if (schemaNodeConstraintParser != null) {
+                validators.put(dataSchemaNode, schemaNodeConstraintParser);
+            }
+        }
+        // the type validators compile their patterns, ranges, enumerations and identities when they are built
+        if (dataSchemaNode instanceof LeafSchemaNode) {
+            TypeValidatorFactory.getInstance().getValidator(((LeafSchemaNode) dataSchemaNode).getType());
+        } else if (dataSchemaNode instanceof LeafListSchemaNode) {
+            TypeValidatorFactory.getInstance().getValidator(((LeafListSchemaNode) dataSchemaNode).getType());
+        }
+
+        Collection<? extends DataSchemaNode> children = Collections.emptySet();
+        if (dataSchemaNode instanceof DataNodeContainer) {
+            children = ((DataNodeContainer) dataSchemaNode).getChildNodes();
+        } else if (dataSchemaNode instanceof ChoiceSchemaNode) {
+            children = ((ChoiceSchemaNode) dataSchemaNode).getCases();
+        }
+        for (DataSchemaNode child : children) {
+            addValidators(validators, child, schemaRegistry, expValidator);
+        }
+    }
+
+    private SchemaNodeConstraintParser createValidator(DataSchemaNode dataSchemaNode, SchemaRegistry schemaRegistry,
+                                                       DSExpressionValidator expValidator) {
+        if (dataSchemaNode instanceof LeafSchemaNode) {
+            return new LeafValidator(schemaRegistry, null, (LeafSchemaNode) dataSchemaNode, expValidator);
+        } else if (dataSchemaNode instanceof LeafListSchemaNode) {
+            return new LeafListValidator(schemaRegistry, null, (LeafListSchemaNode) dataSchemaNode, expValidator);
+        } else if (dataSchemaNode instanceof ContainerSchemaNode) {
+            return new ContainerValidator(schemaRegistry, null, (ContainerSchemaNode) dataSchemaNode, expValidator);
+        } else if (dataSchemaNode instanceof ListSchemaNode) {
+            return new ListValidator(schemaRegistry, null, (ListSchemaNode) dataSchemaNode, expValidator);
+        }
+        return null;
+    }
+
+    /**
+     * The validators built for the data nodes of a schema context of a registry, and those of the nodes outside of
+     * its data tree.
+     */
+    private static final class RegistryValidators {
+        private final SchemaContext m_schemaContext;
+        private final Map<DataSchemaNode, SchemaNodeConstraintParser> m_validators;
+        private final ConcurrentMap<DataSchemaNode, SchemaNodeConstraintParser> m_unplannedValidators = new
+                ConcurrentHashMap<>();
+
+        private RegistryValidators(SchemaContext schemaContext, Map<DataSchemaNode, SchemaNodeConstraintParser>
+                validators) {
+            m_schemaContext = schemaContext;
+            m_validators = validators;
+        }
+
+        private boolean isBuiltFor(SchemaRegistry schemaRegistry) {
+            return m_schemaContext == schemaRegistry.getSchemaContext();
+        }
+    }
 }
@@ -16,8 +16,8 @@
 
 package org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.type.builtin;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.typevalidators.TypeValidator;
 import org.opendaylight.yangtools.yang.model.api.TypeDefinition;
@@ -40,7 +40,8 @@ import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
 public class TypeValidatorFactory {
 
     private static final TypeValidatorFactory INSTANCE = new TypeValidatorFactory();
-    private Map<TypeDefinition<?>, TypeValidator> m_validators = new HashMap<TypeDefinition<?>, TypeValidator>();
+    private Map<TypeDefinition<?>, TypeValidator> m_validators = new ConcurrentHashMap<TypeDefinition<?>,
+            TypeValidator>();
     private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(TypeValidatorFactory.class, "netconf-stack",
             "DEBUG", "GLOBAL");
 
@@ -54,6 +55,9 @@ public class TypeValidatorFactory {
     }
 
     public TypeValidator getValidator(TypeDefinition<?> type) {
+        if (type == null) {
+            return null;
+        }
         TypeValidator typeValidator = m_validators.get(type);
 
         if (typeValidator == null) {
@@ -93,7 +97,10 @@ public class TypeValidatorFactory {
             }
 
             if (typeValidator != null) {
-                m_validators.put(type, typeValidator);
+                TypeValidator existingValidator = m_validators.putIfAbsent(type, typeValidator);
+                if (existingValidator != null) {
+                    typeValidator = existingValidator;
+                }
             }
         }
 
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model;
+
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DataStoreValidationUtil
+        .isPostEditValidationSupported;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.transaction.Transactional;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.transaction.Transactional.TxType;
+
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigDefaultOperations;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigElement;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigTestOptions;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+import org.broadband_forum.obbaa.netconf.api.messages.StandardDataStores;
+import org.broadband_forum.obbaa.netconf.api.server.NetconfQueryParams;
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.PersistenceException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootModelNodeAggregator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.candidate.CandidateOverlayDSM;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DataStoreValidator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.utils.TxException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.utils.TxService;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.util.NetconfRpcErrorUtil;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
+import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
+
+/**
+ * The candidate datastore. It shares the root model node aggregator of running, whose DSM has to be the given
+ * {@link CandidateOverlayDSM}: the edits made on the candidate are kept as a delta over the running nodes, and
+ * {@link #commit(NetconfClientInfo, boolean, long)} validates the edit trees of the delta and applies it to running
+ * in one modification of the running DSM.
+ *
+ * A confirmed commit keeps the inverse of the delta it applied. Unless a confirming commit is made before the timeout,
+ * or when the session that made it closes, the inverses are applied to running, which brings it back to its nodes
+ * before the first confirmed commit. A persistent confirmed commit is not rolled back when its session closes, it is
+ * confirmed or cancelled by any session giving its persist-id.
+ *
+ * The content copied into the candidate is not validated by the copy, the whole candidate is then validated at
+ * commit.
+ *
+ * The changes are applied to running holding its modify lock, like its own edits. The rollbacks made on timeout or on
+ * session close run outside of a request, in a transaction of their own started by the {@link TxService}.
+ */
+public class CandidateDataStore extends DataStore {
+
+    public static final long DEFAULT_CONFIRM_TIMEOUT_SECONDS = 600;
+    private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(CandidateDataStore.class,
+            "netconf-server-datastore", "DEBUG", "GLOBAL");
+    private final DataStore m_running;
+    private final CandidateOverlayDSM m_overlayDSM;
+    private final List<PendingEdit> m_pendingEdits = new ArrayList<>();
+    private final List<CandidateOverlayDSM.Delta> m_rollbacks = new ArrayList<>();
+    private final ScheduledExecutorService m_rollbackTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "confirmed-commit-rollback");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private TxService m_txService = new TxService();
+    private ScheduledFuture<?> m_rollbackTask;
+    private long m_timerGeneration;
+    private int m_confirmedCommitSession = NO_LOCK;
+    private String m_persistId;
+    private boolean m_unvalidatedCopy;
+
+    public CandidateDataStore(String name, RootModelNodeAggregator root, SubSystemRegistry subSystemRegistry,
+                              DataStoreValidator validator, DataStore running, CandidateOverlayDSM overlayDSM) {
+        super(name, root, subSystemRegistry, validator);
+        m_running = running;
+        m_overlayDSM = overlayDSM;
+    }
+
+    /**
+     * Sets the service the rollbacks of a confirmed commit on timeout or on session close run their transaction with.
+     */
+    public void setTxService(TxService txService) {
+        m_txService = txService;
+    }
+
+    @Override
+    public synchronized boolean hasUncommitedChanges() {
+        return !m_overlayDSM.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean hasOngoingConfirmedCommitFromOtherSession(int sessionId) {
+        return m_confirmedCommitSession != NO_LOCK && m_confirmedCommitSession != sessionId;
+    }
+
+    @Override
+    public synchronized List<Element> getConfig(Document doc, FilterNode root, NetconfQueryParams params) throws
+            GetException {
+        boolean onCandidate = m_overlayDSM.setOnCandidate(true);
+        try {
+            return super.getConfig(doc, root, params);
+        } finally {
+            m_overlayDSM.setOnCandidate(onCandidate);
+        }
+    }
+
+    /**
+     * Makes the changes of the request on the candidate. With the test-then-set and test-only options, the edit trees
+     * of the request are validated, test-only then drops the changes. No notification is sent before the commit.
+     */
+    @Override
+    public synchronized List<Notification> edit(EditConfigRequest request, NetconfClientInfo clientInfo) throws
+            EditConfigException, EditConfigTestFailedException, PersistenceException, LockedByOtherSessionException {
+        checkLockOwner(this, getSessionId(clientInfo));
+        boolean onCandidate = m_overlayDSM.setOnCandidate(true);
+        CandidateOverlayDSM.Savepoint savepoint = m_overlayDSM.setSavepoint();
+        boolean keepChanges = false;
+        try {
+            NotificationContext notificationContext = new NotificationContext();
+            List<EditContainmentNode> editTrees = getRootModelNodeAggregator().editConfig(request,
+                    notificationContext);
+            PendingEdit edit = new PendingEdit(request, clientInfo, editTrees, notificationContext);
+            if (!EditConfigTestOptions.SET.equals(request.getTestOption())) {
+                validate(edit);
+            }
+            if (!EditConfigTestOptions.TEST_ONLY.equals(request.getTestOption())) {
+                m_pendingEdits.add(edit);
+                keepChanges = true;
+            }
+        } finally {
+            if (!keepChanges) {
+                m_overlayDSM.rollbackTo(savepoint);
+            }
+            m_overlayDSM.releaseSavepoint(savepoint);
+            m_overlayDSM.setOnCandidate(onCandidate);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized void copyFrom(int sessionId, DataStore source) throws LockedByOtherSessionException,
+            CopyConfigException {
+        if (source == m_running) {
+            checkLockOwner(this, sessionId);
+            discardChanges();
+            return;
+        }
+        boolean onCandidate = m_overlayDSM.setOnCandidate(true);
+        try {
+            m_unvalidatedCopy = true;
+            super.copyFrom(sessionId, source);
+        } finally {
+            m_overlayDSM.setOnCandidate(onCandidate);
+        }
+    }
+
+    @Override
+    public synchronized void copyFrom(int sessionId, Element sourceConfigElement) throws
+            LockedByOtherSessionException, CopyConfigException {
+        boolean onCandidate = m_overlayDSM.setOnCandidate(true);
+        try {
+            m_unvalidatedCopy = true;
+            super.copyFrom(sessionId, sourceConfigElement);
+        } finally {
+            m_overlayDSM.setOnCandidate(onCandidate);
+        }
+    }
+
+    /**
+     * Drops the changes of the candidate, which then has the nodes of running.
+     */
+    public synchronized void discardChanges() {
+        m_pendingEdits.clear();
+        m_unvalidatedCopy = false;
+        m_overlayDSM.discardChanges();
+    }
+
+    public List<Notification> commit(NetconfClientInfo clientInfo) throws EditConfigException,
+            LockedByOtherSessionException {
+        return commit(clientInfo, false, 0);
+    }
+
+    public List<Notification> commit(NetconfClientInfo clientInfo, boolean confirmed, long timeoutSeconds) throws
+            EditConfigException, LockedByOtherSessionException {
+        return commit(clientInfo, confirmed, timeoutSeconds, null, null);
+    }
+
+    /**
+     * Validates the edit trees of the changes of the candidate, or the whole candidate when content was copied into it,
+     * applies them to running and sends their notifications. A commit that is not confirmed confirms the ongoing
+     * confirmed commit. A confirmed commit is rolled back unless it is confirmed within the timeout, which is
+     * {@link #DEFAULT_CONFIRM_TIMEOUT_SECONDS} when it is not positive. When persist is given, the confirmed commit
+     * survives the close of the session and is confirmed by the commit giving it as persist-id.
+     */
+    @Transactional(value = TxType.REQUIRED, rollbackOn = {EditConfigException.class, RuntimeException.class,
+            Exception.class})
+    public synchronized List<Notification> commit(NetconfClientInfo clientInfo, boolean confirmed, long
+            timeoutSeconds, String persist, String persistId) throws EditConfigException,
+            LockedByOtherSessionException {
+        int sessionId = getSessionId(clientInfo);
+        checkLockOwner(this, sessionId);
+        checkLockOwner(m_running, sessionId);
+        checkConfirmedCommitOwner(sessionId, persistId);
+
+        boolean onCandidate = m_overlayDSM.setOnCandidate(true);
+        CandidateOverlayDSM.Savepoint savepoint = m_overlayDSM.setSavepoint();
+        boolean valid = false;
+        try {
+            if (m_unvalidatedCopy) {
+                validateCandidate(clientInfo);
+            } else {
+                for (PendingEdit edit : m_pendingEdits) {
+                    validate(edit);
+                }
+            }
+            valid = true;
+        } finally {
+            if (!valid) {
+                m_overlayDSM.rollbackTo(savepoint);
+            }
+            m_overlayDSM.releaseSavepoint(savepoint);
+            m_overlayDSM.setOnCandidate(onCandidate);
+        }
+
+        CandidateOverlayDSM.Delta inverse;
+        try {
+            synchronized (m_running.getModifyLock()) {
+                inverse = m_overlayDSM.apply(m_overlayDSM.getDelta());
+            }
+        } catch (DataStoreException e) {
+            LOGGER.error("Commit of the candidate changes to running failed", e);
+            throw new EditConfigException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                    .OPERATION_FAILED, e.getMessage()));
+        }
+        if (confirmed) {
+            m_rollbacks.add(inverse);
+        }
+        List<PendingEdit> committedEdits = new ArrayList<>(m_pendingEdits);
+        discardChanges();
+
+        if (confirmed) {
+            startRollbackTimer(sessionId, timeoutSeconds > 0 ? timeoutSeconds : DEFAULT_CONFIRM_TIMEOUT_SECONDS,
+                    persist);
+        } else {
+            clearConfirmedCommit();
+        }
+        return sendNotifications(committedEdits);
+    }
+
+    public void cancelCommit(NetconfClientInfo clientInfo) throws EditConfigException, LockedByOtherSessionException {
+        cancelCommit(clientInfo, null);
+    }
+
+    /**
+     * Rolls back the ongoing confirmed commit of the session, or the persistent confirmed commit with the persist-id.
+     */
+    @Transactional(value = TxType.REQUIRED, rollbackOn = {EditConfigException.class, RuntimeException.class,
+            Exception.class})
+    public synchronized void cancelCommit(NetconfClientInfo clientInfo, String persistId) throws EditConfigException,
+            LockedByOtherSessionException {
+        int sessionId = getSessionId(clientInfo);
+        if (m_confirmedCommitSession == NO_LOCK) {
+            throw new EditConfigException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                    .OPERATION_FAILED, "No confirmed commit is ongoing"));
+        }
+        checkConfirmedCommitOwner(sessionId, persistId);
+        try {
+            rollback();
+        } catch (DataStoreException e) {
+            LOGGER.error("Rollback of the confirmed commit failed", e);
+            throw new EditConfigException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                    .OPERATION_FAILED, e.getMessage()));
+        }
+    }
+
+    /**
+     * Drops the changes of the candidate when the closed session held its lock, and rolls back the confirmed commit
+     * made by the closed session, in a transaction of its own, unless it is persistent.
+     */
+    public synchronized void sessionClosed(int sessionId) {
+        if (getLockOwner() == sessionId) {
+            discardChanges();
+        }
+        if (m_confirmedCommitSession == sessionId && m_persistId == null) {
+            try {
+                rollbackInTransaction();
+            } catch (TxException e) {
+                LOGGER.error("Rollback of the confirmed commit of the closed session {} failed", sessionId, e);
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending rollback of a confirmed commit and stops the rollback timer, when the datastore is
+     * destroyed. Running keeps the changes of the confirmed commit.
+     */
+    public synchronized void close() {
+        if (m_rollbackTask != null) {
+            m_rollbackTask.cancel(false);
+            m_rollbackTask = null;
+        }
+        m_rollbackTimer.shutdownNow();
+    }
+
+    /**
+     * Only the session of the confirmed commit can confirm or cancel it, or any session giving the persist-id of a
+     * persistent confirmed commit.
+     */
+    private void checkConfirmedCommitOwner(int sessionId, String persistId) throws EditConfigException,
+            LockedByOtherSessionException {
+        if (m_persistId != null || persistId != null) {
+            if (!Objects.equals(m_persistId, persistId)) {
+                throw new EditConfigException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                        .INVALID_VALUE, "No persistent confirmed commit is ongoing with the persist-id " + persistId));
+            }
+        } else if (hasOngoingConfirmedCommitFromOtherSession(sessionId)) {
+            throw new LockedByOtherSessionException(m_confirmedCommitSession);
+        }
+    }
+
+    /**
+     * Validates the whole candidate, as the edit trees of a merge of its configuration.
+     */
+    private void validateCandidate(NetconfClientInfo clientInfo) throws EditConfigException {
+        if (!isPostEditValidationSupported()) {
+            return;
+        }
+        List<Element> configElements = new ArrayList<>();
+        List<EditContainmentNode> editTrees = new ArrayList<>();
+        try {
+            Document document = DocumentUtils.getNewDocument();
+            for (ModelNode root : getRootModelNodeAggregator().getModelServiceRoots()) {
+                Element configElement = root.getConfig(new GetConfigContext(document, null), NetconfQueryParams
+                        .NO_PARAMS);
+                if (configElement != null) {
+                    EditContainmentNode editTree = new EditContainmentNode();
+                    editTree.setEditOperation(EditConfigDefaultOperations.MERGE);
+                    root.prepareEditSubTree(editTree, configElement);
+                    configElements.add(configElement);
+                    editTrees.add(editTree);
+                }
+            }
+        } catch (ParserConfigurationException | GetException e) {
+            LOGGER.error("Could not read the candidate to validate it", e);
+            throw new EditConfigException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                    .OPERATION_FAILED, e.getMessage()));
+        }
+        EditConfigRequest request = new EditConfigRequest().setTarget(StandardDataStores.CANDIDATE)
+                .setDefaultOperation(EditConfigDefaultOperations.MERGE).setConfigElement(new EditConfigElement()
+                        .setConfigElementContents(configElements));
+        request.setClientInfo(clientInfo);
+        for (EditContainmentNode editTree : editTrees) {
+            validateDataStore(editTree, request, clientInfo);
+        }
+        validateDataStoreDynamic(editTrees, request, clientInfo);
+    }
+
+    private void validate(PendingEdit edit) throws EditConfigException {
+        if (isPostEditValidationSupported()) {
+            for (EditContainmentNode editTree : edit.m_editTrees) {
+                validateDataStore(editTree, edit.m_request, edit.m_clientInfo);
+            }
+            validateDataStoreDynamic(edit.m_editTrees, edit.m_request, edit.m_clientInfo);
+        }
+    }
+
+    private List<Notification> sendNotifications(List<PendingEdit> edits) {
+        List<Notification> notifications = new ArrayList<>();
+        for (PendingEdit edit : edits) {
+            Map<SubSystem, List<ChangeNotification>> subSystemNotificationMap = getEditNotificationExecutor()
+                    .getSubSystemNotificationMap(m_running.getName(), edit.m_notificationContext
+                            .getNotificationInfos(), edit.m_request);
+            notifications.addAll(getNbiNotificationHelper().getNetconfConfigChangeNotifications(
+                    subSystemNotificationMap, edit.m_clientInfo, getNamespaceContext()));
+            getEditNotificationExecutor().sendNotifications(subSystemNotificationMap);
+        }
+        return notifications;
+    }
+
+    private void startRollbackTimer(int sessionId, long timeoutSeconds, String persist) {
+        if (m_rollbackTask != null) {
+            m_rollbackTask.cancel(false);
+        }
+        m_confirmedCommitSession = sessionId;
+        m_persistId = persist;
+        m_running.setconfirmedCommitPending(true);
+        long timerGeneration = ++m_timerGeneration;
+        m_rollbackTask = m_rollbackTimer.schedule(() -> rollbackOnTimeout(timerGeneration), timeoutSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    private synchronized void rollbackOnTimeout(long timerGeneration) {
+        //the timer was restarted or the commit confirmed after the task started
+        if (timerGeneration != m_timerGeneration || m_confirmedCommitSession == NO_LOCK) {
+            return;
+        }
+        RequestScope.resetScope();
+        LOGGER.warn("The confirmed commit of session {} was not confirmed in time, rolling back running",
+                m_confirmedCommitSession);
+        try {
+            rollbackInTransaction();
+        } catch (TxException e) {
+            LOGGER.error("Rollback of the confirmed commit failed", e);
+        }
+    }
+
+    /**
+     * Rolls back the confirmed commit from outside of a request, in a transaction started by the TxService.
+     */
+    private void rollbackInTransaction() {
+        m_txService.executeWithTxRequired(() -> {
+            try {
+                rollback();
+            } catch (DataStoreException e) {
+                throw new TxException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Applies the inverses of the confirmed commits to running.
+     */
+    private void rollback() throws DataStoreException {
+        try {
+            synchronized (m_running.getModifyLock()) {
+                for (int index = m_rollbacks.size() - 1; index >= 0; index--) {
+                    m_overlayDSM.apply(m_rollbacks.get(index));
+                }
+            }
+        } finally {
+            clearConfirmedCommit();
+        }
+    }
+
+    private void clearConfirmedCommit() {
+        if (m_rollbackTask != null) {
+            m_rollbackTask.cancel(false);
+            m_rollbackTask = null;
+        }
+        m_rollbacks.clear();
+        m_confirmedCommitSession = NO_LOCK;
+        m_persistId = null;
+        m_running.setconfirmedCommitPending(false);
+    }
+
+    private static int getSessionId(NetconfClientInfo clientInfo) {
+        return clientInfo == null ? NO_LOCK : clientInfo.getSessionId();
+    }
+
+    private static void checkLockOwner(DataStore store, int sessionId) throws LockedByOtherSessionException {
+        if (store.getLockOwner() != NO_LOCK && store.getLockOwner() != sessionId) {
+            throw new LockedByOtherSessionException(store.getLockOwner());
+        }
+    }
+
+    private static final class PendingEdit {
+        private final EditConfigRequest m_request;
+        private final NetconfClientInfo m_clientInfo;
+        private final List<EditContainmentNode> m_editTrees;
+        private final NotificationContext m_notificationContext;
+
+        private PendingEdit(EditConfigRequest request, NetconfClientInfo clientInfo, List<EditContainmentNode>
+                editTrees, NotificationContext notificationContext) {
+            m_request = request;
+            m_clientInfo = clientInfo;
+            m_editTrees = editTrees;
+            m_notificationContext = notificationContext;
+        }
+    }
+}
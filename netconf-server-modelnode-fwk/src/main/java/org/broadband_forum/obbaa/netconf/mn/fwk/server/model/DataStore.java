@@ -74,6 +74,8 @@ public class DataStore {
     private DynamicDataStoreValidator m_dynamicValidator;
     private NamespaceContext m_namespaceContext;
     private NbiNotificationHelper m_nbiNotificationHelper;
+    //held by the modifications of the nodes of the datastore, which are made one at a time
+    private final Object m_modifyLock = new Object();
 
 
     /*
@@ -84,7 +86,7 @@ public class DataStore {
     }
 
     /*
-    * for UT Only
+    * Set by the candidate datastore on running while a confirmed commit waits for its confirming commit
     * ***/
     protected void setconfirmedCommitPending(boolean value) {
         m_confirmedCommitPending = value;
@@ -149,7 +151,7 @@ public class DataStore {
 
     public void lock(int sessionId) throws LockDeniedOtherOwnerException, LockDeniedConfirmedCommitException,
             LockDeniedUncommitedChangesException {
-        if (m_hasUncommitedChanges) {
+        if (hasUncommitedChanges()) {
             // only relevant for a candidate datastore ....
             throw new LockDeniedUncommitedChangesException();
 
@@ -177,7 +179,7 @@ public class DataStore {
     }
 
     public boolean hasUncommitedChanges() {
-        return false;
+        return m_hasUncommitedChanges;
     }
 
     public boolean hasOngoingConfirmedCommitFromOtherSession(int sessionId) {
@@ -189,8 +191,12 @@ public class DataStore {
             throw new LockedByOtherSessionException(m_lockOwner);
         }
         try {
-            m_rootModelNodeAggregator.copyConfig(source.getConfig(DocumentUtils.getNewDocument(), null,
-                    NetconfQueryParams.NO_PARAMS));
+            List<Element> sourceConfig = source.getConfig(DocumentUtils.getNewDocument(), null, NetconfQueryParams
+                    .NO_PARAMS);
+            synchronized (m_modifyLock) {
+                m_rootModelNodeAggregator.copyConfig(sourceConfig);
+                m_rootModelNodeAggregator.commitChanges();
+            }
             List<ChangeNotification> copyNotification = new ArrayList<ChangeNotification>();
             for (ModelNode rootNode : m_rootModelNodeAggregator.getModelServiceRoots()) {
                 copyNotification.add(new CopyConfigChangeNotification(source.getName(), this.getName(), null,
@@ -215,7 +221,10 @@ public class DataStore {
         if (m_lockOwner != NO_LOCK && m_lockOwner != sessionId) {
             throw new LockedByOtherSessionException(m_lockOwner);
         }
-        m_rootModelNodeAggregator.copyConfig(DocumentUtils.getChildElements(sourceConfigElement));
+        synchronized (m_modifyLock) {
+            m_rootModelNodeAggregator.copyConfig(DocumentUtils.getChildElements(sourceConfigElement));
+            m_rootModelNodeAggregator.commitChanges();
+        }
         List<ChangeNotification> copyNotification = new ArrayList<ChangeNotification>();
         for (ModelNode rootNode : m_rootModelNodeAggregator.getModelServiceRoots()) {
             copyNotification.add(new CopyConfigChangeNotification(null, this.getName(), sourceConfigElement, rootNode));
@@ -230,6 +239,26 @@ public class DataStore {
         return m_name;
     }
 
+    protected int getLockOwner() {
+        return m_lockOwner;
+    }
+
+    /**
+     * Returns the lock held by the modifications of the nodes of the datastore. The code holding it must not wait for
+     * the lock of another datastore.
+     */
+    protected Object getModifyLock() {
+        return m_modifyLock;
+    }
+
+    protected RootModelNodeAggregator getRootModelNodeAggregator() {
+        return m_rootModelNodeAggregator;
+    }
+
+    protected NotificationExecutor getEditNotificationExecutor() {
+        return m_editNotificationExecutor;
+    }
+
     public List<Element> getConfig(Document doc, FilterNode root, NetconfQueryParams params) throws GetException {
         return m_rootModelNodeAggregator.getConfig(new GetConfigContext(doc, root), params);
     }
@@ -248,6 +277,24 @@ public class DataStore {
     public List<Notification> edit(EditConfigRequest request, NetconfClientInfo clientInfo) throws
             EditConfigException, EditConfigTestFailedException,
             PersistenceException, LockedByOtherSessionException {
+        synchronized (m_modifyLock) {
+            boolean committed = false;
+            try {
+                List<Notification> notifications = editAndValidate(request, clientInfo);
+                //the changes of the edit and the changes implied by its validation are published together
+                m_rootModelNodeAggregator.commitChanges();
+                committed = true;
+                return notifications;
+            } finally {
+                if (!committed) {
+                    m_rootModelNodeAggregator.abortChanges();
+                }
+            }
+        }
+    }
+
+    private List<Notification> editAndValidate(EditConfigRequest request, NetconfClientInfo clientInfo) throws
+            EditConfigException, LockedByOtherSessionException {
         boolean isLogDebugEnabled = LOGGER.isDebugEnabled();
 
         int sessionId = 0;
@@ -337,8 +384,8 @@ public class DataStore {
         validateDataStore(editTree, request, clientInfo);
     }
 
-    private List<Notification> validateDataStore(EditContainmentNode editTree, EditConfigRequest request,
-                                                 NetconfClientInfo clientInfo) throws EditConfigException {
+    protected List<Notification> validateDataStore(EditContainmentNode editTree, EditConfigRequest request,
+                                                   NetconfClientInfo clientInfo) throws EditConfigException {
         try {
             if (m_validator != null) {
                 EditContainmentNode.setParentForEditContainmentNode(editTree, null);
@@ -358,7 +405,7 @@ public class DataStore {
         return null;
     }
 
-    private List<Notification> validateDataStoreDynamic(List<EditContainmentNode> editTrees, EditConfigRequest
+    protected List<Notification> validateDataStoreDynamic(List<EditContainmentNode> editTrees, EditConfigRequest
             request, NetconfClientInfo clientInfo) throws EditConfigException {
         try {
             if (m_dynamicValidator != null) {
@@ -154,6 +154,10 @@ public class NetConfServerImpl implements NetconfServer {
     public void closeSession(Integer currentSession) {
         NetConfSession session = m_sessions.get(currentSession);
         if (session != null) {
+            DataStore candidate = m_dataStores.get(StandardDataStores.CANDIDATE);
+            if (candidate instanceof CandidateDataStore) {
+                ((CandidateDataStore) candidate).sessionClosed(currentSession);
+            }
             unlockStoresOwnedBySession(currentSession, session);
             m_sessions.remove(currentSession);
         }
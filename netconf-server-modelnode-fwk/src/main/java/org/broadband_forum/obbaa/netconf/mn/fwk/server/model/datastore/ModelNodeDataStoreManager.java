@@ -16,6 +16,7 @@
 
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore;
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +46,39 @@ public interface ModelNodeDataStoreManager {
      */
     void endModify();
 
+    /**
+     * Callback to DSMs once the request that modified them succeeded, after endModify and after the post-edit
+     * validation of the request and the changes it implied.
+     * DSMs that keep the changes of a request from the other requests should publish them on this callback.
+     * The default implementation does nothing.
+     */
+    default void commitModify() {
+    }
+
+    /**
+     * Callback to DSMs when the request that modified them failed, instead of commitModify, whether endModify was
+     * called or not.
+     * DSMs should drop the changes of the request they did not synchronise with the backing store, the others are
+     * rolled back with the transaction of the request. The default implementation does nothing.
+     */
+    default void abortModify() {
+    }
+
+    /**
+     * Callback to DSMs before a request reads them, such as a get or a get-config.
+     * DSMs that keep the changes of a request from the other requests should give a consistent view of their nodes
+     * until endRead. The default implementation does nothing.
+     */
+    default void beginRead() {
+    }
+
+    /**
+     * Callback to DSMs once the request that called beginRead read them, whether it succeeded or not.
+     * The default implementation does nothing.
+     */
+    default void endRead() {
+    }
+
     List<ModelNode> listNodes(SchemaPath nodeType) throws DataStoreException;
 
     List<ModelNode> listChildNodes(SchemaPath childType, ModelNodeId parentId) throws DataStoreException;
@@ -54,6 +88,16 @@ public interface ModelNodeDataStoreManager {
     List<ModelNode> findNodes(SchemaPath nodeType, Map<QName, ConfigLeafAttribute> matchCriteria, ModelNodeId
             parentId) throws DataStoreException;
 
+    /**
+     * Hint that the child nodes of the given type of each of the given parents are about to be read, with
+     * {@link #findNodes(SchemaPath, Map, ModelNodeId)} and no match criteria, when a subtree is copied to a response.
+     * DSMs can load them for all the parents at once, instead of with one query per parent, and answer those reads
+     * from the loaded nodes for the rest of the request. The default implementation does nothing.
+     */
+    default void prefetchChildNodes(SchemaPath childType, Collection<ModelNodeId> parentIds) throws
+            DataStoreException {
+    }
+
     ModelNode createNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException;
 
     ModelNode createNode(ModelNode modelNode, ModelNodeId parentId, int insertIndex) throws DataStoreException;
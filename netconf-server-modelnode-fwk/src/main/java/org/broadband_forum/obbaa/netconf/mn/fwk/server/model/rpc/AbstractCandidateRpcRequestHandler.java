@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.rpc;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Element;
+
+import org.broadband_forum.obbaa.netconf.api.NetconfMessage;
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcError;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorSeverity;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorType;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+import org.broadband_forum.obbaa.netconf.api.messages.RpcName;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.CandidateDataStore;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.LockedByOtherSessionException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.RpcRequestHandlerRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.util.NetconfRpcErrorUtil;
+import org.broadband_forum.obbaa.netconf.server.rpc.RpcPayloadConstraintParser;
+import org.broadband_forum.obbaa.netconf.server.rpc.RpcProcessException;
+
+/**
+ * Handles an operation of the candidate capability on the {@link CandidateDataStore}. The operations are defined by
+ * the base NETCONF protocol and not by a YANG module, so there is no YANG based validation of their payload.
+ */
+public abstract class AbstractCandidateRpcRequestHandler extends AbstractRpcRequestHandler {
+
+    protected final CandidateDataStore m_candidate;
+
+    protected AbstractCandidateRpcRequestHandler(String operation, CandidateDataStore candidate) {
+        super(new RpcName(NetconfResources.NETCONF_RPC_NS_1_0, operation));
+        m_candidate = candidate;
+    }
+
+    /**
+     * Registers the handlers of the commit and cancel-commit operations on the candidate.
+     */
+    public static void registerHandlers(RpcRequestHandlerRegistry registry, String componentId, CandidateDataStore
+            candidate) {
+        for (AbstractCandidateRpcRequestHandler handler : new AbstractCandidateRpcRequestHandler[] {
+                new CommitRpcRequestHandler(candidate), new CancelCommitRpcRequestHandler(candidate)}) {
+            registry.register(componentId, handler.getRpcQName(), handler);
+        }
+    }
+
+    @Override
+    public void validate(RpcPayloadConstraintParser rpcConstraintParser, NetconfMessage rpc) {
+    }
+
+    @Override
+    public List<Notification> processRequest(NetconfClientInfo clientInfo, NetconfRpcRequest request,
+                                             NetconfRpcResponse response) throws RpcProcessException {
+        try {
+            List<Notification> notifications = process(clientInfo, request);
+            response.setOk(true);
+            return notifications;
+        } catch (EditConfigException e) {
+            LOGGER.error("{} failed", m_rpcQName.getName(), e);
+            response.setOk(false);
+            response.addErrors(e.getRpcErrors());
+        } catch (LockedByOtherSessionException e) {
+            LOGGER.error("{} failed, locked by other session", m_rpcQName.getName(), e);
+            response.setOk(false);
+            NetconfRpcError rpcError = NetconfRpcErrorUtil.getNetconfRpcError(NetconfRpcErrorTag.LOCK_DENIED,
+                    NetconfRpcErrorType.RPC, NetconfRpcErrorSeverity.Error, m_rpcQName.getName() + " failed, " +
+                            "locked by other session").addErrorInfoElement(NetconfRpcErrorInfo.SessionId, Integer
+                    .toString(e.getLockOwner()));
+            response.addError(rpcError);
+        }
+        return Collections.emptyList();
+    }
+
+    protected abstract List<Notification> process(NetconfClientInfo clientInfo, NetconfRpcRequest request) throws
+            EditConfigException, LockedByOtherSessionException, RpcProcessException;
+
+    /**
+     * @return the text of the parameter of the operation, or null when the request does not have it.
+     */
+    protected String getParameter(NetconfRpcRequest request, String localName) {
+        Element parameter = getNode(request, localName, NetconfResources.NETCONF_RPC_NS_1_0);
+        return parameter == null ? null : parameter.getTextContent().trim();
+    }
+}
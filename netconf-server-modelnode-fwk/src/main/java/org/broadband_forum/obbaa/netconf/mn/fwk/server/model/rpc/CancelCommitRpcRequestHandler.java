@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.rpc;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.CandidateDataStore;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.LockedByOtherSessionException;
+
+/**
+ * Handles the cancel-commit operation, which rolls back the ongoing confirmed commit.
+ */
+public class CancelCommitRpcRequestHandler extends AbstractCandidateRpcRequestHandler {
+
+    public static final String CANCEL_COMMIT = "cancel-commit";
+
+    public CancelCommitRpcRequestHandler(CandidateDataStore candidate) {
+        super(CANCEL_COMMIT, candidate);
+    }
+
+    @Override
+    protected List<Notification> process(NetconfClientInfo clientInfo, NetconfRpcRequest request) throws
+            EditConfigException, LockedByOtherSessionException {
+        m_candidate.cancelCommit(clientInfo, getParameter(request, "persist-id"));
+        return Collections.emptyList();
+    }
+}
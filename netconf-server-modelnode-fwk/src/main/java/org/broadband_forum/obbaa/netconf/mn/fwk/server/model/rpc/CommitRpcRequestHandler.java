@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.rpc;
+
+import java.util.List;
+
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.Notification;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.CandidateDataStore;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.LockedByOtherSessionException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.util.NetconfRpcErrorUtil;
+import org.broadband_forum.obbaa.netconf.server.rpc.RpcProcessException;
+
+/**
+ * Handles the commit operation, with the confirmed, confirm-timeout, persist and persist-id parameters of the
+ * confirmed commit capability.
+ */
+public class CommitRpcRequestHandler extends AbstractCandidateRpcRequestHandler {
+
+    public static final String COMMIT = "commit";
+
+    public CommitRpcRequestHandler(CandidateDataStore candidate) {
+        super(COMMIT, candidate);
+    }
+
+    @Override
+    protected List<Notification> process(NetconfClientInfo clientInfo, NetconfRpcRequest request) throws
+            EditConfigException, LockedByOtherSessionException, RpcProcessException {
+        boolean confirmed = getParameter(request, "confirmed") != null;
+        String confirmTimeout = getParameter(request, "confirm-timeout");
+        long timeoutSeconds = 0;
+        if (confirmTimeout != null) {
+            try {
+                timeoutSeconds = Long.parseLong(confirmTimeout);
+            } catch (NumberFormatException e) {
+                timeoutSeconds = -1;
+            }
+            if (timeoutSeconds <= 0) {
+                throw new RpcProcessException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                        .INVALID_VALUE, "Invalid confirm-timeout " + confirmTimeout));
+            }
+        }
+        return m_candidate.commit(clientInfo, confirmed, timeoutSeconds, getParameter(request, "persist"),
+                getParameter(request, "persist-id"));
+    }
+}
@@ -21,6 +21,7 @@ import java.util.Set;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DataStoreValidationPathBuilder;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath.JXPathUtils;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryVisitor;
 import org.opendaylight.yangtools.yang.model.api.AnyXmlSchemaNode;
@@ -88,6 +89,7 @@ public class SchemaPathRegistrar implements SchemaRegistryVisitor {
 
     private void registerSchemaPaths(String componentId, DataSchemaNode dataSchemaNode, RevisionAwareXPath xPath) {
         SchemaPath nodeSchemaPath = dataSchemaNode.getPath();
+        JXPathUtils.compileSchemaExpression(m_schemaRegistry, componentId, xPath.toString());
         registerRelativePath(dataSchemaNode, xPath, null);
         Map<SchemaPath, String> constraintSchemaPaths = m_pathBuilder.getSchemaPathsFromXPath(dataSchemaNode, xPath);
         for (Map.Entry<SchemaPath, String> entry : constraintSchemaPaths.entrySet()) {
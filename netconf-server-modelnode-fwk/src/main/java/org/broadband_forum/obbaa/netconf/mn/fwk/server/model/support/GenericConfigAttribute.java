@@ -54,6 +54,10 @@ public class GenericConfigAttribute implements ConfigLeafAttribute, Comparable<G
         return m_attributeNS;
     }
 
+    public String getAttributeLocalName() {
+        return m_attributeLocalName;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
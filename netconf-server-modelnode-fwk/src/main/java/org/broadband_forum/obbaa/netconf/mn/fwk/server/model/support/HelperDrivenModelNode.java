@@ -64,6 +64,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.commands.Re
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.commands.ReplaceChildCommand;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.commands.ReplaceChildInListCommand;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.processing.ModelNodeConstraintProcessor;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.dsm.DsmListModelNodeHelper;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.yang.YangTypeToClassConverter;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.Command;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditChangeSource;
@@ -1034,6 +1035,7 @@ public abstract class HelperDrivenModelNode implements ModelNode {
             try {
                 Collection<ModelNode> result = helper.getValue(this, Collections.<QName, ConfigLeafAttribute>emptyMap
                         ());
+                prefetchChildLists(helper.getChildModelNodeSchemaPath(), result, params);
                 for (ModelNode child : result) {
                     if (isAboveDepth(params, child)) {
                         if (includeState) {
@@ -1050,6 +1052,29 @@ public abstract class HelperDrivenModelNode implements ModelNode {
         }
     }
 
+    /**
+     * Lets the DSM load the child lists of all the entries of a list at once, instead of one entry at a time when each
+     * entry copies its child lists to the output.
+     */
+    private void prefetchChildLists(SchemaPath listSchemaPath, Collection<ModelNode> entries, NetconfQueryParams
+            params) {
+        if (entries.size() < 2) {
+            return;
+        }
+        List<ModelNodeId> entryIds = new ArrayList<>();
+        for (ModelNode entry : entries) {
+            if (isAboveDepth(params, entry)) {
+                entryIds.add(entry.getModelNodeId());
+            }
+        }
+        for (ChildListHelper childListHelper : m_modelNodeHelperRegistry.getChildListHelpers(listSchemaPath)
+                .values()) {
+            if (childListHelper instanceof DsmListModelNodeHelper) {
+                ((DsmListModelNodeHelper) childListHelper).prefetchValues(entryIds);
+            }
+        }
+    }
+
     /**
      * @param doc
      * @param parent
@@ -81,6 +81,22 @@ public class IdentityRefConfigAttribute implements ConfigLeafAttribute, Comparab
         return m_identityRefNS;
     }
 
+    public String getIdentityRefPrefix() {
+        return m_identityRefPrefix;
+    }
+
+    public String getAttributeLocalName() {
+        return m_attributeLocalName;
+    }
+
+    public String getAttributeValue() {
+        return m_attributeValue;
+    }
+
+    public String getAttributeNamespace() {
+        return m_attributeNS;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -58,6 +58,17 @@ public interface RootModelNodeAggregator {
 
     void copyConfig(List<Element> configElements) throws CopyConfigException;
 
+    /**
+     * Publishes the changes made by the edit-config or the copy-config of the current request, once the request,
+     * including its post-edit validation, succeeded.
+     */
+    void commitChanges();
+
+    /**
+     * Drops the changes made by the edit-config or the copy-config of the current request, when the request failed.
+     */
+    void abortChanges();
+
     void addModelServiceRootHelper(SchemaPath rootNodeSchemaPath, ChildContainerHelper rootNodeHelper);
 
     void addModelServiceRootHelper(SchemaPath rootNodeSchemaPath, ChildListHelper rootNodeHelper);
@@ -23,10 +23,19 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
@@ -79,6 +88,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsin
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.FilterNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDataStoreManager;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
 import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
 
@@ -91,6 +101,7 @@ import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
 public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
     private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(RootModelNodeAggregatorImpl.class,
             "netconf-server-datastore", "DEBUG", "GLOBAL");
+    public static final long NO_STATE_RETRIEVAL_TIMEOUT = 0;
 
     private Map<SchemaPath, ChildContainerHelper> m_rootContainerHelpers = new HashMap<>();
     private List<ModelNode> m_moduleRoots = new ArrayList<ModelNode>();
@@ -102,6 +113,9 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
     private final ModelNodeDataStoreManager m_dsm;
     private NotificationExecutor m_editNotificationExecutor;
     private SubSystemRegistry m_subsystemRegistry;
+    private ExecutorService m_stateRetrievalExecutor;
+    private long m_stateRetrievalTimeoutMillis = NO_STATE_RETRIEVAL_TIMEOUT;
+    private boolean m_partialStateResultsAllowed;
 
     public RootModelNodeAggregatorImpl(SchemaRegistry schemaRegistry, ModelNodeHelperRegistry modelNodeHelperRegistry,
                                        ModelNodeDataStoreManager dataStoreManager, SubSystemRegistry
@@ -181,12 +195,17 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
 
     @Override
     public List<Element> get(GetContext getContext, NetconfQueryParams params) throws GetException {
-        List<Element> result = getConfigAndFillStateContext(getContext, params);
+        m_dsm.beginRead();
+        try {
+            List<Element> result = getConfigAndFillStateContext(getContext, params);
 
-        Map<ModelNodeId, List<Element>> elements = getAllStateElementsFromSubSystems(getContext
-                .getStateAttributeContext(), params);
-        mergeAllStateElementsAtRightPlaces(getContext.getDoc(), result, elements);
-        return result;
+            Map<ModelNodeId, List<Element>> elements = getAllStateElementsFromSubSystems(getContext
+                    .getStateAttributeContext(), params);
+            mergeAllStateElementsAtRightPlaces(getContext.getDoc(), result, elements);
+            return result;
+        } finally {
+            m_dsm.endRead();
+        }
     }
 
 
@@ -212,17 +231,22 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
     @Override
     public List<Element> getConfig(GetConfigContext getConfigContext, NetconfQueryParams params)
             throws GetException {
-        List<Element> result = new ArrayList<>();
-        for (ModelNode modelNode : getModelServiceRoots()) {
-            DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(modelNode.getModelNodeSchemaPath());
-            if ((schemaNode != null) && (schemaNode.isConfiguration())) {
-                Element element = modelNode.getConfig(getConfigContext, params);
-                if (element != null) {
-                    result.add(element);
+        m_dsm.beginRead();
+        try {
+            List<Element> result = new ArrayList<>();
+            for (ModelNode modelNode : getModelServiceRoots()) {
+                DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(modelNode.getModelNodeSchemaPath());
+                if ((schemaNode != null) && (schemaNode.isConfiguration())) {
+                    Element element = modelNode.getConfig(getConfigContext, params);
+                    if (element != null) {
+                        result.add(element);
+                    }
                 }
             }
+            return result;
+        } finally {
+            m_dsm.endRead();
         }
-        return result;
     }
 
     /**
@@ -285,6 +309,11 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
      * Iterates through Map<SubSystem, Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>>> to get state elements
      * from corresponding subsystem.
      *
+     * Without a state retrieval executor the subsystems are queried one after the other in the calling thread. With one
+     * they are queried concurrently on it, each within the state retrieval timeout and in the RequestScope of the
+     * calling thread. Their results are merged in the order of the subsystems. When partial state results are allowed,
+     * a subsystem that fails or times out is left out of the reply, otherwise the whole get fails.
+     *
      * @param params
      * @return Map<ModelNodeId, List<Element>>
      */
@@ -292,35 +321,148 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
                                                                               NetconfQueryParams params) throws
             GetException {
         Map<ModelNodeId, List<Element>> nodeIds = stateContext.getStateMatchNodes();
+        Map<SubSystem, Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>>> subSystems = stateContext
+                .getSubSystems();
+        if (subSystems.isEmpty()) {
+            return nodeIds;
+        }
 
-        for (Entry<SubSystem, Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>>> subSystemEntry : stateContext
-                .getSubSystems().entrySet()) {
-            try {
-                SubSystem subSystem = subSystemEntry.getKey();
-                Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>> attributes = subSystemEntry.getValue();
-                // call retrieveStateAttributes only once for each SubSystem
-                Map<ModelNodeId, List<Element>> stateAttributeValues = subSystem.retrieveStateAttributes(attributes,
-                        params);
-
-                for (Entry<ModelNodeId, List<Element>> entry : stateAttributeValues.entrySet()) {
-                    ModelNodeId nodeId = entry.getKey();
-                    if (nodeIds.containsKey(nodeId)) {
-                        nodeIds.get(nodeId).addAll(entry.getValue());
-                    } else {
-                        nodeIds.put(nodeId, entry.getValue());
-                    }
+        ExecutorService executor = m_stateRetrievalExecutor;
+        RequestScope requestScope = RequestScope.getCurrentScope();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_stateRetrievalTimeoutMillis);
+        Map<SubSystem, FutureTask<Map<ModelNodeId, List<Element>>>> retrievals = new LinkedHashMap<>();
+        for (Entry<SubSystem, Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>>> subSystemEntry : subSystems
+                .entrySet()) {
+            SubSystem subSystem = subSystemEntry.getKey();
+            Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>> attributes = subSystemEntry.getValue();
+            // call retrieveStateAttributes only once for each SubSystem
+            retrievals.put(subSystem, submitStateRetrieval(executor, () -> RequestScope.withScope(requestScope, () ->
+                    subSystem.retrieveStateAttributes(attributes, params))));
+        }
+
+        try {
+            for (Entry<SubSystem, FutureTask<Map<ModelNodeId, List<Element>>>> retrieval : retrievals.entrySet()) {
+                if (executor == null) {
+                    retrieval.getValue().run();
+                }
+                Map<ModelNodeId, List<Element>> stateAttributeValues = awaitStateRetrieval(retrieval.getKey(),
+                        retrieval.getValue(), deadline);
+                if (stateAttributeValues != null) {
+                    mergeStateElements(nodeIds, stateAttributeValues);
                 }
+            }
+        } finally {
+            for (Future<Map<ModelNodeId, List<Element>>> future : retrievals.values()) {
+                future.cancel(true);
+            }
+        }
+        return nodeIds;
+    }
 
-            } catch (GetAttributeException e) {
+    /**
+     * Submits the retrieval to the executor. Without an executor the retrieval is left to be run by the caller.
+     */
+    private FutureTask<Map<ModelNodeId, List<Element>>> submitStateRetrieval(ExecutorService executor, Callable<Map<
+            ModelNodeId, List<Element>>> retrieval) {
+        FutureTask<Map<ModelNodeId, List<Element>>> future = new FutureTask<>(retrieval);
+        if (executor == null) {
+            return future;
+        }
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("State retrieval executor is saturated, retrieving state in the calling thread");
+            future.run();
+        }
+        return future;
+    }
+
+    /**
+     * Returns the state of the subsystem, or null if it could not be retrieved and partial state results are allowed.
+     */
+    private Map<ModelNodeId, List<Element>> awaitStateRetrieval(SubSystem subSystem, Future<Map<ModelNodeId,
+            List<Element>>> future, long deadline) throws GetException {
+        try {
+            if (m_stateRetrievalTimeoutMillis == NO_STATE_RETRIEVAL_TIMEOUT) {
+                return future.get();
+            }
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GetException("Interrupted while retrieving state values", e);
+        } catch (TimeoutException e) {
+            String message = "Could not get state values, retrieval from " + subSystem + " timed out after " +
+                    m_stateRetrievalTimeoutMillis + " ms";
+            if (m_partialStateResultsAllowed) {
+                LOGGER.warn(message + ", leaving its state out of the reply");
+                return null;
+            }
+            NetconfRpcError netconfRpcError = NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
+                    .DATA_MISSING, message);
+            throw new GetException(netconfRpcError);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (m_partialStateResultsAllowed) {
+                LOGGER.error("Could not get state values from " + subSystem + ", leaving its state out of the reply",
+                        cause);
+                return null;
+            }
+            if (cause instanceof GetAttributeException) {
                 NetconfRpcError netconfRpcError = NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag
-                        .DATA_MISSING, "Could not get state values " + e.getMessage());
+                        .DATA_MISSING, "Could not get state values " + cause.getMessage());
                 GetException exception = new GetException(netconfRpcError);
-                exception.addSuppressed(e);
+                exception.addSuppressed(cause);
                 throw exception;
             }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GetException("Error while retrieving state values", cause);
+        }
+    }
 
+    private void mergeStateElements(Map<ModelNodeId, List<Element>> nodeIds, Map<ModelNodeId, List<Element>>
+            stateAttributeValues) {
+        for (Entry<ModelNodeId, List<Element>> entry : stateAttributeValues.entrySet()) {
+            ModelNodeId nodeId = entry.getKey();
+            if (nodeIds.containsKey(nodeId)) {
+                nodeIds.get(nodeId).addAll(entry.getValue());
+            } else {
+                nodeIds.put(nodeId, entry.getValue());
+            }
         }
-        return nodeIds;
+    }
+
+    /**
+     * Sets the executor on which the state of the subsystems is retrieved concurrently, null (the default) retrieves it
+     * in the calling thread. State is retrieved in the calling thread as well when the executor rejects the retrieval.
+     *
+     * Only the RequestScope is carried over to the executor's threads, not the other thread-locals of the calling
+     * thread such as its transaction, its EntityManager or its data store manager context. Subsystems relying on them,
+     * or issuing a nested get that would wait for the same bounded executor, must keep the state retrieved in the
+     * calling thread.
+     */
+    public void setStateRetrievalExecutor(ExecutorService stateRetrievalExecutor) {
+        m_stateRetrievalExecutor = stateRetrievalExecutor;
+    }
+
+    /**
+     * Sets how long a get waits for the state of each subsystem, 0 waits without a limit. Only applies when a state
+     * retrieval executor is set, a retrieval running in the calling thread can't be interrupted.
+     */
+    public void setStateRetrievalTimeoutMillis(long stateRetrievalTimeoutMillis) {
+        if (stateRetrievalTimeoutMillis < 0) {
+            throw new IllegalArgumentException("State retrieval timeout must not be negative: " +
+                    stateRetrievalTimeoutMillis);
+        }
+        m_stateRetrievalTimeoutMillis = stateRetrievalTimeoutMillis;
+    }
+
+    public void setPartialStateResultsAllowed(boolean partialStateResultsAllowed) {
+        m_partialStateResultsAllowed = partialStateResultsAllowed;
     }
 
     private ModelNodeId getModelNodeId(Element element, ModelNodeId parentNodeId, DataSchemaNode schemaNode) {
@@ -438,9 +580,25 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
     @Override
     public List<EditContainmentNode> editConfig(EditConfigRequest request, NotificationContext notificationContext)
             throws EditConfigException {
+        boolean edited = false;
+        try {
+            List<EditContainmentNode> editTrees = editRootNodes(request, notificationContext);
+            edited = true;
+            return editTrees;
+        } finally {
+            if (!edited) {
+                m_dsm.abortModify();
+            }
+        }
+    }
+
+    private List<EditContainmentNode> editRootNodes(EditConfigRequest request, NotificationContext
+            notificationContext) throws EditConfigException {
         List<EditContainmentNode> editTrees = new ArrayList<EditContainmentNode>();
         //go over the list of items to edit, and choose the right node to edit and let it edit itself.
         for (Element rootElement : request.getConfigElement().getConfigElementContents()) {
+            //the root node created for the request is a change of the request too
+            m_dsm.beginModify();
             ModelNode modelNode = null;
             try {
                 modelNode = getMatchingRootNode(rootElement, getModelServiceRoots());
@@ -463,7 +621,6 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
                 editTree.setEditOperation(request.getDefaultOperation());
             }
             try {
-                m_dsm.beginModify();
                 //prepare tree for this root node and let it edit itself
                 modelNode.prepareEditSubTree(editTree, rootElement);
                 EditContext editContext = new EditContext(editTree, notificationContext, request.getErrorOption(),
@@ -619,6 +776,18 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
             Exception.class})
     public void copyConfig(List<Element> copyConfigElements) throws CopyConfigException {
         m_dsm.beginModify();
+        boolean copied = false;
+        try {
+            copyRootNodes(copyConfigElements);
+            copied = true;
+        } finally {
+            if (!copied) {
+                m_dsm.abortModify();
+            }
+        }
+    }
+
+    private void copyRootNodes(List<Element> copyConfigElements) throws CopyConfigException {
         for (Element copyConfigElement : copyConfigElements) {
             if (!validNamespace(copyConfigElement)) {
                 throw new CopyConfigException(NetconfRpcError.getUnknownNamespaceError(copyConfigElement
@@ -647,6 +816,16 @@ public class RootModelNodeAggregatorImpl implements RootModelNodeAggregator {
         m_dsm.endModify();
     }
 
+    @Override
+    public void commitChanges() {
+        m_dsm.commitModify();
+    }
+
+    @Override
+    public void abortChanges() {
+        m_dsm.abortModify();
+    }
+
     @Override
     public void addModelServiceRootHelper(SchemaPath rootNodeSchemaPath, ChildContainerHelper rootNodeHelper) {
         m_rootContainerHelpers.put(rootNodeSchemaPath, rootNodeHelper);
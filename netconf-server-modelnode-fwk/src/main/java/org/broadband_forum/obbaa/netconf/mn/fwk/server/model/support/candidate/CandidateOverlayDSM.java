@@ -0,0 +1,718 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.candidate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeRdn;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDataStoreManager;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.MNKeyUtil;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
+import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
+
+/**
+ * A ModelNodeDataStoreManager that keeps the nodes of the candidate datastore as a delta over the nodes of the running
+ * datastore, which are stored by the wrapped DSM.
+ *
+ * The overlay is used in place of the running DSM, by the helpers and the root model node aggregator. Outside of
+ * {@link #setOnCandidate(boolean)} it passes every call to the running DSM. On the candidate, the nodes written are
+ * kept in the delta, the running nodes removed are hidden, and the reads merge the delta with the running nodes, so
+ * that the candidate costs the size of its changes rather than a copy of the running nodes.
+ *
+ * The delta works on ModelNodeWithAttributes, the changed nodes are copied as ModelNodeWithAttributes.
+ */
+public class CandidateOverlayDSM implements ModelNodeDataStoreManager {
+    private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(CandidateOverlayDSM.class,
+            "netconf-server-datastore", "DEBUG", "GLOBAL");
+    private final ModelNodeDataStoreManager m_runningDSM;
+    private final SchemaRegistry m_schemaRegistry;
+    private final ThreadLocal<Boolean> m_onCandidate = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return false;
+        }
+    };
+    private Delta m_delta = new Delta();
+
+    public CandidateOverlayDSM(ModelNodeDataStoreManager runningDSM, SchemaRegistry schemaRegistry) {
+        m_runningDSM = runningDSM;
+        m_schemaRegistry = schemaRegistry;
+    }
+
+    public ModelNodeDataStoreManager getRunningDSM() {
+        return m_runningDSM;
+    }
+
+    /**
+     * Makes the calls of the current thread work on the candidate or on running, and returns where they worked before.
+     */
+    public boolean setOnCandidate(boolean onCandidate) {
+        boolean previous = m_onCandidate.get();
+        m_onCandidate.set(onCandidate);
+        return previous;
+    }
+
+    public boolean isOnCandidate() {
+        return m_onCandidate.get();
+    }
+
+    /**
+     * Returns true if the candidate has no changes over running.
+     */
+    public boolean isEmpty() {
+        return m_delta.isEmpty();
+    }
+
+    /**
+     * Returns the changes of the candidate. They are changed by the later changes of the candidate, until
+     * {@link #discardChanges()} starts a new delta.
+     */
+    public Delta getDelta() {
+        return m_delta;
+    }
+
+    /**
+     * Drops the changes of the candidate, which then has the nodes of running.
+     */
+    public void discardChanges() {
+        m_delta = new Delta();
+    }
+
+    /**
+     * Starts recording the changes made to the candidate, so that {@link #rollbackTo(Savepoint)} can undo the changes
+     * made after the returned savepoint. Savepoints can be nested and are released in the reverse order.
+     */
+    public Savepoint setSavepoint() {
+        return m_delta.setSavepoint();
+    }
+
+    /**
+     * Undoes the changes made to the candidate after the given savepoint, which stays set.
+     */
+    public void rollbackTo(Savepoint savepoint) {
+        if (savepoint.m_delta == m_delta) {
+            m_delta.rollbackTo(savepoint.m_position);
+        }
+    }
+
+    /**
+     * Releases the given savepoint, the recording of the changes stops with the release of the first savepoint.
+     */
+    public void releaseSavepoint(Savepoint savepoint) {
+        if (savepoint.m_delta == m_delta && savepoint.m_position == 0) {
+            m_delta.m_undoLog = null;
+        }
+    }
+
+    /**
+     * Applies the given delta to running, in one modification of the running DSM, and returns the delta that brings
+     * running back to its nodes before. When the delta cannot be applied, the modification is aborted and the nodes
+     * it already changed are restored.
+     */
+    public Delta apply(Delta delta) throws DataStoreException {
+        LOGGER.debug("applying {} removed and {} written nodes to running", delta.m_removed.size(), delta.m_written
+                .size());
+        Delta inverse = invert(delta);
+        boolean applied = false;
+        try {
+            applyToRunning(delta);
+            applied = true;
+        } finally {
+            if (!applied) {
+                restore(inverse);
+            }
+        }
+        return inverse;
+    }
+
+    /**
+     * Brings running back to its nodes before a delta failed to apply. A DSM that drops the changes of an aborted
+     * modification is left unchanged by the inverse.
+     */
+    private void restore(Delta inverse) {
+        try {
+            applyToRunning(inverse);
+        } catch (RuntimeException e) {
+            LOGGER.error("Restoring running after a failed commit of the candidate changes failed", e);
+        }
+    }
+
+    private void applyToRunning(Delta delta) throws DataStoreException {
+        m_runningDSM.beginModify();
+        boolean applied = false;
+        try {
+            applyChanges(delta);
+            m_runningDSM.endModify();
+            m_runningDSM.commitModify();
+            applied = true;
+        } finally {
+            if (!applied) {
+                m_runningDSM.abortModify();
+            }
+        }
+    }
+
+    private void applyChanges(Delta delta) throws DataStoreException {
+        for (Entry removed : delta.m_removed.values()) {
+            ModelNode node = findRunningNode(removed.m_ref);
+            if (node != null) {
+                m_runningDSM.removeNode(node, removed.m_ref.m_parentId);
+            }
+        }
+        for (Entry written : delta.m_written.values()) {
+            ModelNode node = findRunningNode(written.m_ref);
+            if (node == null) {
+                m_runningDSM.createNode(written.m_node, written.m_ref.m_parentId, written.m_insertIndex);
+            } else {
+                Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>(written.m_node.getAttributes());
+                Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new LinkedHashMap<>(written.m_node
+                        .getLeafLists());
+                if (node instanceof ModelNodeWithAttributes) {
+                    for (QName attribute : ((ModelNodeWithAttributes) node).getAttributes().keySet()) {
+                        if (!attributes.containsKey(attribute)) {
+                            attributes.put(attribute, null);
+                        }
+                    }
+                    for (QName leafList : ((ModelNodeWithAttributes) node).getLeafLists().keySet()) {
+                        if (!leafLists.containsKey(leafList)) {
+                            leafLists.put(leafList, new LinkedHashSet<>());
+                        }
+                    }
+                }
+                m_runningDSM.updateNode(node, written.m_ref.m_parentId, attributes, leafLists, written.m_insertIndex,
+                        false);
+            }
+        }
+    }
+
+    /**
+     * Returns the delta that brings running back to its current nodes once the given delta is applied to it.
+     */
+    private Delta invert(Delta delta) throws DataStoreException {
+        Delta inverse = new Delta();
+        for (Entry written : delta.m_written.values()) {
+            ModelNode node = findRunningNode(written.m_ref);
+            if (node == null) {
+                inverse.remove(written);
+            } else {
+                inverse.write(new Entry(written.m_ref, copy(node), -1));
+            }
+        }
+        for (Entry removed : delta.m_removed.values()) {
+            ModelNode node = findRunningNode(removed.m_ref);
+            if (node != null) {
+                addSubtree(inverse, node, removed.m_ref.m_parentId);
+            }
+        }
+        return inverse;
+    }
+
+    private void addSubtree(Delta delta, ModelNode node, ModelNodeId parentId) throws DataStoreException {
+        NodeRef ref = getRef(node, parentId);
+        delta.write(new Entry(ref, copy(node), -1));
+        for (DataSchemaNode child : m_schemaRegistry.getNonChoiceChildren(node.getModelNodeSchemaPath())) {
+            if ((child instanceof ContainerSchemaNode || child instanceof ListSchemaNode) && child.isConfiguration()) {
+                List<ModelNode> childNodes = m_runningDSM.listChildNodes(child.getPath(), node.getModelNodeId());
+                if (childNodes != null) {
+                    for (ModelNode childNode : childNodes) {
+                        addSubtree(delta, childNode, node.getModelNodeId());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void beginModify() {
+        if (!isOnCandidate()) {
+            m_runningDSM.beginModify();
+        }
+    }
+
+    @Override
+    public void endModify() {
+        if (!isOnCandidate()) {
+            m_runningDSM.endModify();
+        }
+    }
+
+    @Override
+    public void commitModify() {
+        if (!isOnCandidate()) {
+            m_runningDSM.commitModify();
+        }
+    }
+
+    @Override
+    public void abortModify() {
+        if (!isOnCandidate()) {
+            m_runningDSM.abortModify();
+        }
+    }
+
+    /**
+     * The candidate is read over the running nodes, so both reads begin and end the read of running.
+     */
+    @Override
+    public void beginRead() {
+        m_runningDSM.beginRead();
+    }
+
+    @Override
+    public void endRead() {
+        m_runningDSM.endRead();
+    }
+
+    @Override
+    public List<ModelNode> listNodes(SchemaPath nodeType) throws DataStoreException {
+        if (!isOnCandidate()) {
+            return m_runningDSM.listNodes(nodeType);
+        }
+        List<ModelNode> nodes = new ArrayList<>();
+        for (ModelNode node : m_runningDSM.listNodes(nodeType)) {
+            if (!m_delta.isRemoved(node.getModelNodeId()) && !m_delta.m_written.containsKey(getRef(node, node
+                    .getModelNodeId().getParentId()))) {
+                nodes.add(node);
+            }
+        }
+        for (Entry written : m_delta.m_written.values()) {
+            if (written.m_ref.m_nodeType.equals(nodeType)) {
+                nodes.add(written.m_node);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public List<ModelNode> listChildNodes(SchemaPath childType, ModelNodeId parentId) throws DataStoreException {
+        if (!isOnCandidate()) {
+            return m_runningDSM.listChildNodes(childType, parentId);
+        }
+        List<ModelNode> nodes = new ArrayList<>();
+        Set<NodeRef> listed = new HashSet<>();
+        List<ModelNode> runningNodes = m_runningDSM.listChildNodes(childType, parentId);
+        if (runningNodes != null) {
+            for (ModelNode node : runningNodes) {
+                if (!m_delta.isRemoved(node.getModelNodeId())) {
+                    NodeRef ref = getRef(node, parentId);
+                    Entry written = m_delta.m_written.get(ref);
+                    nodes.add(written == null ? node : written.m_node);
+                    listed.add(ref);
+                }
+            }
+        }
+        for (Entry written : m_delta.getWrittenChildren(childType, parentId)) {
+            if (!listed.contains(written.m_ref)) {
+                nodes.add(written.m_node);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public ModelNode findNode(SchemaPath nodeType, ModelNodeKey key, ModelNodeId parentId) throws DataStoreException {
+        if (!isOnCandidate()) {
+            return m_runningDSM.findNode(nodeType, key, parentId);
+        }
+        Entry written = m_delta.m_written.get(new NodeRef(nodeType, key, parentId));
+        if (written != null) {
+            return written.m_node;
+        }
+        ModelNode node = m_runningDSM.findNode(nodeType, key, parentId);
+        if (node != null && m_delta.isRemoved(node.getModelNodeId())) {
+            return null;
+        }
+        return node;
+    }
+
+    @Override
+    public List<ModelNode> findNodes(SchemaPath nodeType, Map<QName, ConfigLeafAttribute> matchCriteria, ModelNodeId
+            parentId) throws DataStoreException {
+        if (!isOnCandidate()) {
+            return m_runningDSM.findNodes(nodeType, matchCriteria, parentId);
+        }
+        List<ModelNode> nodes = new ArrayList<>();
+        List<ModelNode> runningNodes = m_runningDSM.findNodes(nodeType, matchCriteria, parentId);
+        if (runningNodes != null) {
+            for (ModelNode node : runningNodes) {
+                if (!m_delta.isRemoved(node.getModelNodeId()) && !m_delta.m_written.containsKey(getRef(node,
+                        parentId))) {
+                    nodes.add(node);
+                }
+            }
+        }
+        for (Entry written : m_delta.getWrittenChildren(nodeType, parentId)) {
+            if (matchCriteria == null || MNKeyUtil.isMatch(matchCriteria, written.m_node, m_schemaRegistry)) {
+                nodes.add(written.m_node);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public void prefetchChildNodes(SchemaPath childType, Collection<ModelNodeId> parentIds) throws DataStoreException {
+        m_runningDSM.prefetchChildNodes(childType, parentIds);
+    }
+
+    @Override
+    public ModelNode createNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
+        return createNode(modelNode, parentId, -1);
+    }
+
+    @Override
+    public ModelNode createNode(ModelNode modelNode, ModelNodeId parentId, int insertIndex) throws DataStoreException {
+        if (!isOnCandidate()) {
+            return m_runningDSM.createNode(modelNode, parentId, insertIndex);
+        }
+        checkType(modelNode);
+        NodeRef ref = getRef(modelNode, parentId);
+        m_delta.write(new Entry(ref, (ModelNodeWithAttributes) modelNode, insertIndex));
+        return modelNode;
+    }
+
+    @Override
+    public void updateNode(ModelNode modelNode, ModelNodeId parentId, Map<QName, ConfigLeafAttribute> configAttributes,
+                           Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafListAttributes, boolean removeNode)
+            throws DataStoreException {
+        updateNode(modelNode, parentId, configAttributes, leafListAttributes, -1, removeNode);
+    }
+
+    @Override
+    public void updateNode(ModelNode modelNode, ModelNodeId parentId, Map<QName, ConfigLeafAttribute> configAttributes,
+                           Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafListAttributes, int insertIndex,
+                           boolean removeNode) throws DataStoreException {
+        if (!isOnCandidate()) {
+            m_runningDSM.updateNode(modelNode, parentId, configAttributes, leafListAttributes, insertIndex,
+                    removeNode);
+            return;
+        }
+        NodeRef ref = getRef(modelNode, parentId);
+        ModelNode node = findNode(ref.m_nodeType, ref.m_key, parentId);
+        if (node == null) {
+            return;
+        }
+        //the node is copied on each update, so that the deltas returned by getDelta are not changed
+        ModelNodeWithAttributes updatedNode = copy(node);
+        if (configAttributes != null) {
+            updatedNode.updateConfigAttributes(configAttributes);
+        }
+        if (leafListAttributes != null) {
+            if (removeNode) {
+                updatedNode.removeLeafListAttributes(leafListAttributes);
+            } else {
+                updatedNode.updateLeafListAttributes(leafListAttributes);
+            }
+        }
+        Iterator<ConfigLeafAttribute> attributes = updatedNode.getAttributes().values().iterator();
+        while (attributes.hasNext()) {
+            if (attributes.next() == null) {
+                attributes.remove();
+            }
+        }
+        Entry written = m_delta.m_written.get(ref);
+        if (written != null && insertIndex < 0) {
+            insertIndex = written.m_insertIndex;
+        }
+        m_delta.write(new Entry(ref, updatedNode, insertIndex));
+    }
+
+    @Override
+    public void removeNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
+        if (!isOnCandidate()) {
+            m_runningDSM.removeNode(modelNode, parentId);
+            return;
+        }
+        NodeRef ref = getRef(modelNode, parentId);
+        ModelNodeId nodeId = modelNode.getModelNodeId();
+        m_delta.unwriteSubtree(ref, nodeId);
+        if (!m_delta.isRemoved(nodeId) && m_runningDSM.findNode(ref.m_nodeType, ref.m_key, parentId) != null) {
+            m_delta.remove(new Entry(ref, copy(modelNode), -1));
+        }
+    }
+
+    @Override
+    public void removeAllNodes(ModelNode parentNode, SchemaPath nodeType, ModelNodeId grandParentId) throws
+            DataStoreException {
+        if (!isOnCandidate()) {
+            m_runningDSM.removeAllNodes(parentNode, nodeType, grandParentId);
+            return;
+        }
+        for (ModelNode node : listChildNodes(nodeType, parentNode.getModelNodeId())) {
+            removeNode(node, parentNode.getModelNodeId());
+        }
+    }
+
+    private ModelNode findRunningNode(NodeRef ref) throws DataStoreException {
+        return m_runningDSM.findNode(ref.m_nodeType, ref.m_key, ref.m_parentId);
+    }
+
+    private NodeRef getRef(ModelNode modelNode, ModelNodeId parentId) {
+        return new NodeRef(modelNode.getModelNodeSchemaPath(), MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry),
+                parentId);
+    }
+
+    private void checkType(ModelNode modelNode) throws DataStoreException {
+        if (!(modelNode instanceof ModelNodeWithAttributes)) {
+            throw new DataStoreException("Can work with only ModelNodeWithAttributes type");
+        }
+    }
+
+    private ModelNodeWithAttributes copy(ModelNode modelNode) throws DataStoreException {
+        checkType(modelNode);
+        ModelNodeWithAttributes node = (ModelNodeWithAttributes) modelNode;
+        ModelNodeWithAttributes copy = new ModelNodeWithAttributes(node.getModelNodeSchemaPath(), node
+                .getParentNodeId(), node.getModelNodeHelperRegistry(), node.getSubSystemRegistry(), node
+                .getSchemaRegistry(), this);
+        copy.setAttributes(node.getAttributes());
+        Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new LinkedHashMap<>();
+        for (Map.Entry<QName, LinkedHashSet<ConfigLeafAttribute>> leafList : node.getLeafLists().entrySet()) {
+            leafLists.put(leafList.getKey(), new LinkedHashSet<>(leafList.getValue()));
+        }
+        copy.setLeafLists(leafLists);
+        copy.setModelNodeId(node.getModelNodeId());
+        return copy;
+    }
+
+    /**
+     * The changes of a candidate over running: the running nodes removed, with their subtrees, and the nodes created
+     * or changed, in the order they were first written. The written nodes are indexed by parent and type, and the ids
+     * of the removed nodes are kept, so that reading the children of a node or checking whether a node is removed does
+     * not go through all the changes.
+     */
+    public static final class Delta {
+        private final LinkedHashMap<NodeRef, Entry> m_removed = new LinkedHashMap<>();
+        private final Set<ModelNodeId> m_removedIds = new HashSet<>();
+        private final LinkedHashMap<NodeRef, Entry> m_written = new LinkedHashMap<>();
+        private final Map<ModelNodeId, Map<SchemaPath, LinkedHashMap<NodeRef, Entry>>> m_writtenByParent =
+                new HashMap<>();
+        //the undo actions of the changes made since the first savepoint, null when no savepoint is set
+        private List<Runnable> m_undoLog;
+
+        private Delta() {
+        }
+
+        public boolean isEmpty() {
+            return m_removed.isEmpty() && m_written.isEmpty();
+        }
+
+        private Savepoint setSavepoint() {
+            if (m_undoLog == null) {
+                m_undoLog = new ArrayList<>();
+            }
+            return new Savepoint(this, m_undoLog.size());
+        }
+
+        private void rollbackTo(int position) {
+            if (m_undoLog == null) {
+                return;
+            }
+            List<Runnable> undoLog = m_undoLog;
+            //the undo actions change the delta without being recorded themselves
+            m_undoLog = null;
+            for (int index = undoLog.size() - 1; index >= position; index--) {
+                undoLog.remove(index).run();
+            }
+            m_undoLog = undoLog;
+        }
+
+        private void logUndo(Runnable undo) {
+            if (m_undoLog != null) {
+                m_undoLog.add(undo);
+            }
+        }
+
+        private Collection<Entry> getWrittenChildren(SchemaPath nodeType, ModelNodeId parentId) {
+            Map<SchemaPath, LinkedHashMap<NodeRef, Entry>> writtenChildren = m_writtenByParent.get(parentId == null ?
+                    ModelNodeId.EMPTY_NODE_ID : parentId);
+            if (writtenChildren != null) {
+                LinkedHashMap<NodeRef, Entry> writtenOfType = writtenChildren.get(nodeType);
+                if (writtenOfType != null) {
+                    return writtenOfType.values();
+                }
+            }
+            return Collections.emptyList();
+        }
+
+        private void write(Entry entry) {
+            Entry previous = putWritten(entry);
+            logUndo(() -> {
+                if (previous == null) {
+                    removeWritten(entry.m_ref);
+                } else {
+                    putWritten(previous);
+                }
+            });
+        }
+
+        /**
+         * Drops the written node with the given reference and id, and the written nodes below it.
+         */
+        private void unwriteSubtree(NodeRef ref, ModelNodeId nodeId) {
+            List<Entry> unwritten = new ArrayList<>();
+            Entry written = removeWritten(ref);
+            if (written != null) {
+                unwritten.add(written);
+            }
+            List<NodeRef> descendants = new ArrayList<>();
+            for (Map.Entry<ModelNodeId, Map<SchemaPath, LinkedHashMap<NodeRef, Entry>>> writtenChildren :
+                    m_writtenByParent.entrySet()) {
+                if (writtenChildren.getKey().beginsWith(nodeId)) {
+                    for (LinkedHashMap<NodeRef, Entry> writtenOfType : writtenChildren.getValue().values()) {
+                        descendants.addAll(writtenOfType.keySet());
+                    }
+                }
+            }
+            for (NodeRef descendant : descendants) {
+                unwritten.add(removeWritten(descendant));
+            }
+            if (!unwritten.isEmpty()) {
+                //written again parents first, as they are applied to running in the order they were written
+                unwritten.sort(Comparator.comparingInt(entry -> entry.m_ref.m_parentId.getRdns().size()));
+                logUndo(() -> unwritten.forEach(this::putWritten));
+            }
+        }
+
+        private Entry putWritten(Entry entry) {
+            m_writtenByParent.computeIfAbsent(entry.m_ref.m_parentId, parentId -> new HashMap<>()).computeIfAbsent(
+                    entry.m_ref.m_nodeType, nodeType -> new LinkedHashMap<>()).put(entry.m_ref, entry);
+            return m_written.put(entry.m_ref, entry);
+        }
+
+        private Entry removeWritten(NodeRef ref) {
+            Entry removed = m_written.remove(ref);
+            if (removed != null) {
+                Map<SchemaPath, LinkedHashMap<NodeRef, Entry>> writtenChildren = m_writtenByParent.get(ref
+                        .m_parentId);
+                LinkedHashMap<NodeRef, Entry> writtenOfType = writtenChildren.get(ref.m_nodeType);
+                writtenOfType.remove(ref);
+                if (writtenOfType.isEmpty()) {
+                    writtenChildren.remove(ref.m_nodeType);
+                    if (writtenChildren.isEmpty()) {
+                        m_writtenByParent.remove(ref.m_parentId);
+                    }
+                }
+            }
+            return removed;
+        }
+
+        private void remove(Entry entry) {
+            ModelNodeId nodeId = entry.m_node.getModelNodeId();
+            m_removed.put(entry.m_ref, entry);
+            m_removedIds.add(nodeId);
+            logUndo(() -> {
+                m_removed.remove(entry.m_ref);
+                m_removedIds.remove(nodeId);
+            });
+        }
+
+        /**
+         * Returns true if the running node with the given id is removed, alone or with one of its ancestors.
+         */
+        private boolean isRemoved(ModelNodeId nodeId) {
+            if (m_removedIds.isEmpty()) {
+                return false;
+            }
+            List<ModelNodeRdn> rdns = nodeId.getRdns();
+            for (int size = rdns.size(); size > 0; size--) {
+                if (m_removedIds.contains(new ModelNodeId(rdns.subList(0, size)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A point in the changes of the candidate, to which {@link #rollbackTo(Savepoint)} brings the candidate back.
+     */
+    public static final class Savepoint {
+        private final Delta m_delta;
+        private final int m_position;
+
+        private Savepoint(Delta delta, int position) {
+            m_delta = delta;
+            m_position = position;
+        }
+    }
+
+    private static final class Entry {
+        private final NodeRef m_ref;
+        private final ModelNodeWithAttributes m_node;
+        private final int m_insertIndex;
+
+        private Entry(NodeRef ref, ModelNodeWithAttributes node, int insertIndex) {
+            m_ref = ref;
+            m_node = node;
+            m_insertIndex = insertIndex;
+        }
+    }
+
+    private static final class NodeRef {
+        private final SchemaPath m_nodeType;
+        private final ModelNodeKey m_key;
+        private final ModelNodeId m_parentId;
+
+        private NodeRef(SchemaPath nodeType, ModelNodeKey key, ModelNodeId parentId) {
+            m_nodeType = nodeType;
+            m_key = key;
+            m_parentId = parentId == null ? ModelNodeId.EMPTY_NODE_ID : parentId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof NodeRef)) {
+                return false;
+            }
+            NodeRef that = (NodeRef) other;
+            return m_nodeType.equals(that.m_nodeType) && m_key.equals(that.m_key) && m_parentId.equals(that
+                    .m_parentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_nodeType, m_key, m_parentId);
+        }
+    }
+}
@@ -328,9 +328,7 @@ public class ChoiceMandatoryChildrenValidator {
     @SuppressWarnings("unchecked")
     private void checkForCreateOrDeleteDefault(ModelNode node, Collection<DataSchemaNode> childNodes) {
         for (DataSchemaNode childNode : childNodes) {
-            Collection<SchemaPath> schemaPathsToDelete = DataStoreValidationUtil.getValidationContext()
-                    .getSchemaPathsToDelete();
-            schemaPathsToDelete.add(childNode.getPath());
+            DataStoreValidationUtil.getValidationContext().recordForDelete(childNode.getPath());
             if (childNode instanceof LeafSchemaNode && ((LeafSchemaNode) childNode).getDefault() != null) {
                 m_dataStoreValidator.validateChild(node, childNode);
             }
@@ -17,9 +17,11 @@
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -32,6 +34,7 @@ import org.w3c.dom.Document;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditContainmentNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
 
 public class DSValidationContext {
 
@@ -47,6 +50,10 @@ public class DSValidationContext {
     private Map<String, QName> m_deletedChangeAttributes = new HashMap<String, QName>();
     private Collection<ModelNode> m_rootNodes;
     private Document m_document = DocumentUtils.createDocument();
+    private Map<SchemaPath, Map<ModelNodeId, ValidationState>> m_validatedNodes = new HashMap<SchemaPath,
+            Map<ModelNodeId, ValidationState>>();
+    private int m_modificationCount;
+    private Set<SchemaPath> m_schemaPathsToDeleteSnapshot;
 
     private SchemaNode m_validationNode;
     private DataSchemaNode m_childOfChoiceCase;
@@ -56,6 +63,49 @@ public class DSValidationContext {
         return m_nodesToCreate.size();
     }
 
+    /**
+     * Records that the constraints of a schema node were validated under a model node, along with the number of
+     * modifications of the nodes recorded for create, delete and merge, of the schema paths to create and of the
+     * default values at that time, and the schema paths to delete, see {@link #isValidated(ModelNode, SchemaPath)}.
+     */
+    public void recordValidated(ModelNode parentNode, SchemaPath schemaPath) {
+        if (parentNode != null && parentNode.getModelNodeId() != null) {
+            Map<ModelNodeId, ValidationState> validatedNodes = m_validatedNodes.get(schemaPath);
+            if (validatedNodes == null) {
+                validatedNodes = new HashMap<ModelNodeId, ValidationState>();
+                m_validatedNodes.put(schemaPath, validatedNodes);
+            }
+            validatedNodes.put(parentNode.getModelNodeId(), new ValidationState(m_modificationCount,
+                    getSchemaPathsToDeleteSnapshot()));
+        }
+    }
+
+    /**
+     * Returns true if the constraints of the schema node were already validated under the model node, nothing was
+     * recorded for create, delete or merge since then and the same schema paths are to delete, so validating them
+     * again would give the same result. The records are only modified through this context, which counts the
+     * modifications. The schema paths to delete are recorded and cleared again for every changed node, with the same
+     * impacted paths for every entry of a changed list, so they are compared instead of being counted.
+     */
+    public boolean isValidated(ModelNode parentNode, SchemaPath schemaPath) {
+        if (parentNode == null || parentNode.getModelNodeId() == null) {
+            return false;
+        }
+        Map<ModelNodeId, ValidationState> validatedNodes = m_validatedNodes.get(schemaPath);
+        if (validatedNodes == null) {
+            return false;
+        }
+        ValidationState state = validatedNodes.get(parentNode.getModelNodeId());
+        return state != null && state.m_modificationCount == m_modificationCount && state.m_schemaPathsToDelete
+                .equals(m_schemaPathToDelete);
+    }
+
+    private Set<SchemaPath> getSchemaPathsToDeleteSnapshot() {
+        if (m_schemaPathsToDeleteSnapshot == null) {
+            m_schemaPathsToDeleteSnapshot = Collections.unmodifiableSet(new HashSet<SchemaPath>(m_schemaPathToDelete));
+        }
+        return m_schemaPathsToDeleteSnapshot;
+    }
 
     public void addToModelNodeCache(SchemaPath schemaPath, ModelNode modelNode) {
         Map<String, ModelNode> valueMap = m_modelNodeCache.get(schemaPath);
@@ -73,20 +123,27 @@ public class DSValidationContext {
             childQNames = new TreeSet<QName>();
             parentMap.put(modelNode, childQNames);
         }
-        childQNames.add(child);
+        if (childQNames.add(child)) {
+            m_modificationCount++;
+        }
+    }
 
+    private void removeMappings(Map<ModelNode, Collection<QName>> parentMap, ModelNode modelNode) {
+        if (parentMap.remove(modelNode) != null) {
+            m_modificationCount++;
+        }
     }
 
     public void removeFromDelete(ModelNode modelNode) {
-        m_nodesToDelete.remove(modelNode);
+        removeMappings(m_nodesToDelete, modelNode);
     }
 
     public void removeFromMerge(ModelNode modelNode) {
-        m_nodesToMerge.remove(modelNode);
+        removeMappings(m_nodesToMerge, modelNode);
     }
 
     public void removeFromCreate(ModelNode modelNode) {
-        m_nodesToCreate.remove(modelNode);
+        removeMappings(m_nodesToCreate, modelNode);
     }
 
     public void recordForDelete(ModelNode modelNode, QName child) {
@@ -102,15 +159,30 @@ public class DSValidationContext {
     }
 
     public void recordForDelete(SchemaPath schemaPath) {
-        m_schemaPathToDelete.add(schemaPath);
+        if (m_schemaPathToDelete.add(schemaPath)) {
+            m_schemaPathsToDeleteSnapshot = null;
+        }
+    }
+
+    public void clearSchemaPathsToDelete() {
+        if (!m_schemaPathToDelete.isEmpty()) {
+            m_schemaPathToDelete.clear();
+            m_schemaPathsToDeleteSnapshot = null;
+        }
     }
 
     public void recrodForCreate(SchemaPath schemaPath) {
-        m_schemaPathToCreate.add(schemaPath);
+        if (m_schemaPathToCreate.add(schemaPath)) {
+            m_modificationCount++;
+        }
     }
 
     public void recordDefaultValue(SchemaPath schemaPath, Object object) {
-        m_whenDefaultValues.put(schemaPath, object);
+        boolean recorded = m_whenDefaultValues.containsKey(schemaPath);
+        Object previous = m_whenDefaultValues.put(schemaPath, object);
+        if (!recorded || !Objects.equals(previous, object)) {
+            m_modificationCount++;
+        }
     }
 
     public void recordDeletedChangeNode(String string, EditContainmentNode editContainmentNode) {
@@ -126,11 +198,11 @@ public class DSValidationContext {
     }
 
     public Map<SchemaPath, Object> getDefaultValues() {
-        return m_whenDefaultValues;
+        return Collections.unmodifiableMap(m_whenDefaultValues);
     }
 
     public Collection<SchemaPath> getSchemaPathsToCreate() {
-        return m_schemaPathToCreate;
+        return Collections.unmodifiableSet(m_schemaPathToCreate);
     }
 
     public Document getDocument() {
@@ -138,7 +210,7 @@ public class DSValidationContext {
     }
 
     public Collection<SchemaPath> getSchemaPathsToDelete() {
-        return m_schemaPathToDelete;
+        return Collections.unmodifiableSet(m_schemaPathToDelete);
     }
 
     public boolean isNodeForCreate(ModelNode modelNode) {
@@ -182,15 +254,15 @@ public class DSValidationContext {
     }
 
     public Map<ModelNode, Collection<QName>> getDeleteList() {
-        return m_nodesToDelete;
+        return Collections.unmodifiableMap(m_nodesToDelete);
     }
 
     public Map<ModelNode, Collection<QName>> getCreateList() {
-        return m_nodesToCreate;
+        return Collections.unmodifiableMap(m_nodesToCreate);
     }
 
     public Map<ModelNode, Collection<QName>> getMergeList() {
-        return m_nodesToMerge;
+        return Collections.unmodifiableMap(m_nodesToMerge);
     }
 
 
@@ -211,4 +283,16 @@ public class DSValidationContext {
         this.m_augmentChildNode = augmentChildNode;
     }
 
+    /**
+     * The state of the records when the constraints of a node were validated.
+     */
+    private static final class ValidationState {
+        private final int m_modificationCount;
+        private final Set<SchemaPath> m_schemaPathsToDelete;
+
+        ValidationState(int modificationCount, Set<SchemaPath> schemaPathsToDelete) {
+            m_modificationCount = modificationCount;
+            m_schemaPathsToDelete = schemaPathsToDelete;
+        }
+    }
 }
@@ -26,7 +26,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -74,11 +73,13 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditMatchNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.GetAttributeException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeRdn;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDataStoreManager;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootModelNodeAggregator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.MNKeyUtil;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DataStoreValidationErrors;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DataStoreValidationPathBuilder;
@@ -246,15 +247,6 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
         return false;
     }
 
-    private void addChild(Map<ModelNode, Collection<QName>> nodeMap, ModelNode parentNode, QName childName) {
-        Collection<QName> childList = nodeMap.get(parentNode);
-        if (childList == null) {
-            childList = new HashSet<QName>();
-            nodeMap.put(parentNode, childList);
-        }
-        childList.add(childName);
-    }
-
     private void checkForDeletion(ModelNode node, QName childName) throws ModelNodeGetException {
         if (node.getParent() == null) {
             // delete/remove on root node not allowed
@@ -404,13 +396,27 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
         DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(referencedSchemaPath);
         for (ModelNode parentModelNode : parentNodes) {
             if (isParent(parentModelNode, referencedSchemaPath)) {
-                validateChild(parentModelNode, schemaNode);
+                validateImpactedChild(parentModelNode, schemaNode);
             }
         }
 
 
     }
 
+    /**
+     * Validates a node impacted by a change. Every changed instance of a list impacts the same nodes, a node that was
+     * already validated with the same nodes to create, delete and merge is not validated again.
+     */
+    private void validateImpactedChild(ModelNode parentModelNode, DataSchemaNode schemaNode) {
+        DSValidationContext validationContext = getValidationContext();
+        if (validationContext.isValidated(parentModelNode, schemaNode.getPath())) {
+            logDebug("{} is already validated under {}", schemaNode.getQName(), parentModelNode.getModelNodeId());
+            return;
+        }
+        validateChild(parentModelNode, schemaNode);
+        validationContext.recordValidated(parentModelNode, schemaNode.getPath());
+    }
+
     private boolean isParent(ModelNode modelNode, SchemaPath childSchemaPath) {
 		/*
 		 * This method checks whether the childSchemaPath is present in the
@@ -571,7 +577,6 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
             LOGGER.debug("Validating changes for {}", editTree);
         }
         Set<SchemaPath> changeNodesSet = new HashSet<SchemaPath>(changeNodes);
-        Collection<SchemaPath> schemaPathToDelete = getValidationContext().getSchemaPathsToDelete();
         for (SchemaPath changePath : changeNodes) {
             DataSchemaNode changeSchemaNode = m_schemaRegistry.getDataSchemaNode(changePath);
             int nodesToCreateCount = getValidationContext().nodesToCreateCount();
@@ -614,8 +619,8 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
 				     */
                     validateChild(parentNode, changeSchemaNode);
                 }
-                parentNode = validateImpact(changeNodeMap, rootModelNode, changeNodesSet, schemaPathToDelete,
-                        changePath, changeSchemaNode,
+                parentNode = validateImpact(changeNodeMap, rootModelNode, changeNodesSet, changePath,
+                        changeSchemaNode,
                         nodesToCreateCount, changedNode, nodeNotDeleted, parentNode);
 
                 if (!isNodeDeleted(changedNode)) {
@@ -634,8 +639,7 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
 
     protected ModelNode validateImpact(Map<SchemaPath, Collection<EditContainmentNode>> changeNodeMap, ModelNode
             rootModelNode,
-                                       Set<SchemaPath> changeNodesSet, Collection<SchemaPath> schemaPathToDelete,
-                                       SchemaPath changePath,
+                                       Set<SchemaPath> changeNodesSet, SchemaPath changePath,
                                        DataSchemaNode changeSchemaNode, int nodesToCreateCount, EditContainmentNode
                                                changedNode, boolean nodeNotDeleted,
                                        ModelNode parentNode) {
@@ -644,8 +648,8 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
          * the changeNode
          */
         Map<SchemaPath, Expression> impactedPaths = m_schemaRegistry.getReferencedNodesForSchemaPaths(changePath);
-        if (schemaPathToDelete != null) {
-            schemaPathToDelete.addAll(impactedPaths.keySet());
+        for (SchemaPath impactedPath : impactedPaths.keySet()) {
+            getValidationContext().recordForDelete(impactedPath);
         }
         for (Map.Entry<SchemaPath, Expression> impactedPath : impactedPaths.entrySet()) {
             boolean validate = false;
@@ -668,7 +672,7 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
                 }
             }
         }
-        schemaPathToDelete.clear();
+        getValidationContext().clearSchemaPathsToDelete();
         return parentNode;
     }
 
@@ -724,16 +728,15 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
 
     private void addMergeNode(ModelNode parentNode, DataSchemaNode changeSchemaNode, EditContainmentNode changedNode) {
 
-        Map<ModelNode, Collection<QName>> nodesToMerge = getValidationContext().getMergeList();
-        Map<SchemaPath, Object> defaultValues = getValidationContext().getDefaultValues();
-        if (nodesToMerge != null) {
+        DSValidationContext validationContext = getValidationContext();
+        if (validationContext != null) {
             boolean found = false;
             for (EditChangeNode change : changedNode.getChangeNodes()) {
                 if (change.getQName().equals(changeSchemaNode.getQName())) {
-                    addChild(nodesToMerge, parentNode, change.getQName());
+                    validationContext.recordForMerge(parentNode, change.getQName());
                     SchemaPath childPath = new SchemaPathBuilder().withParent(parentNode.getModelNodeSchemaPath())
                             .appendQName(change.getQName()).build();
-                    defaultValues.put(childPath, change.getValue());
+                    validationContext.recordDefaultValue(childPath, change.getValue());
                     found = true;
                     break;
                 }
@@ -742,10 +745,10 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
             if (!found) {
                 for (EditMatchNode match : changedNode.getMatchNodes()) {
                     if (match.getQName().equals(changeSchemaNode.getQName())) {
-                        addChild(nodesToMerge, parentNode, match.getQName());
+                        validationContext.recordForMerge(parentNode, match.getQName());
                         SchemaPath childPath = new SchemaPathBuilder().withParent(parentNode.getModelNodeSchemaPath()
                         ).appendQName(match.getQName()).build();
-                        defaultValues.put(childPath, match.getValue());
+                        validationContext.recordDefaultValue(childPath, match.getValue());
                         found = true;
                         break;
                     }
@@ -1051,24 +1054,16 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
                         Map<ModelNode, Collection<QName>> nodesToCreate = getValidationContext().getCreateList();
                         if (!hasChild(nodesToCreate, modelNode, childQName)) {
                             // in case if the constraints on the node becomes true and it has a default, create it.
-                            Collection<SchemaPath> schemaPathsToCreate = DataStoreValidationUtil.getValidationContext
-                                    ().getSchemaPathsToCreate();
-                            schemaPathsToCreate.add(child.getPath());
+                            DataStoreValidationUtil.getValidationContext().recrodForCreate(child.getPath());
                             validateChild(modelNode, child);
                         }
                     } else if (modelNode.getAttribute(childQName) == null) {
 
                         Map<ModelNode, Collection<QName>> nodesToCreate = getValidationContext().getCreateList();
                         if (!hasChild(nodesToCreate, modelNode, childQName)) {
-                            Map<SchemaPath, Object> defaultValues = DataStoreValidationUtil.getValidationContext()
-                                    .getDefaultValues();
-                            Collection<QName> childQNames = nodesToCreate.get(modelNode);
-                            if (childQNames == null) {
-                                childQNames = new LinkedHashSet<QName>();
-                                nodesToCreate.put(modelNode, childQNames);
-                            }
-                            childQNames.add(childQName);
-                            defaultValues.put(child.getPath(), ((LeafSchemaNode) child).getDefault());
+                            getValidationContext().recordForCreate(modelNode, childQName);
+                            getValidationContext().recordDefaultValue(child.getPath(), ((LeafSchemaNode) child)
+                                    .getDefault());
                         }
                     }
                 }
@@ -1160,6 +1155,9 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
                             (childEditNode.getParent().getModelNodeId().xPathString())) {
                         Map<String, ModelNode> modelNodesMap = getFromModelNodeCache(parentPath);
                         returnValue = matchModelNode(modelNodesMap, childEditNode);
+                        if (returnValue == null && !isNodeDeleted(childEditNode)) {
+                            returnValue = findListEntry(parentPath, childEditNode, grandParentModelNode);
+                        }
                         if (returnValue == null) {
                             List<ModelNode> modelNodes = m_modelNodeDSM.listChildNodes(parentPath,
                                     grandParentModelNode.getModelNodeId());
@@ -1187,10 +1185,15 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
                     if (parentModelNode != null) {
                         if (!parentModelNode.getModelNodeId().xPathString().equals(childEditNode.getParent().getModelNodeId().xPathString())
                                 && parentModelNode.getModelNodeId().xPathString().equals(childEditNode.getParent().getParent().getModelNodeId().xPathString())) {
-                            List<ModelNode> parentModelNodes = m_modelNodeDSM.listChildNodes(parentPath, parentModelNode.getModelNodeId());
-                            returnValue = matchModelNode(parentModelNodes, childEditNode.getParent());
-                            if (!parentModelNodes.isEmpty()) {
-                                addToModelNodeCache(parentModelNodes, parentModelNodes.get(0).getModelNodeSchemaPath());
+                            returnValue = findListEntry(parentPath, childEditNode.getParent(), parentModelNode);
+                            if (returnValue == null) {
+                                List<ModelNode> parentModelNodes = m_modelNodeDSM.listChildNodes(parentPath,
+                                        parentModelNode.getModelNodeId());
+                                returnValue = matchModelNode(parentModelNodes, childEditNode.getParent());
+                                if (!parentModelNodes.isEmpty()) {
+                                    addToModelNodeCache(parentModelNodes, parentModelNodes.get(0)
+                                            .getModelNodeSchemaPath());
+                                }
                             }
                         } else if (parentModelNode.getModelNodeId().xPathString().equals(childEditNode.getParent().getModelNodeId().xPathString())) {
                             returnValue = parentModelNode;
@@ -1204,6 +1207,25 @@ public class DataStoreValidatorImpl implements DataStoreValidator {
 
     }
 
+    /**
+     * Looks up the list entry of an edit node by its keys, so that a change in one entry does not list all the entries
+     * of the list. Returns null if the node is not a list entry or is not found by its keys.
+     */
+    private ModelNode findListEntry(SchemaPath listPath, EditContainmentNode editNode, ModelNode parentModelNode) {
+        DataSchemaNode listNode = m_schemaRegistry.getDataSchemaNode(listPath);
+        if (!(listNode instanceof ListSchemaNode) || ((ListSchemaNode) listNode).getKeyDefinition().isEmpty()) {
+            return null;
+        }
+        String editNodeId = editNode.getModelNodeId().xPathString();
+        ModelNodeKey key = MNKeyUtil.getModelNodeKey(editNode.getModelNodeId(), listPath, m_schemaRegistry);
+        ModelNode modelNode = m_modelNodeDSM.findNode(listPath, key, parentModelNode.getModelNodeId());
+        if (modelNode != null && modelNode.getModelNodeId().xPathString().equals(editNodeId)) {
+            getValidationContext().addToModelNodeCache(listPath, modelNode);
+            return modelNode;
+        }
+        return null;
+    }
+
     private ModelNode matchModelNode(Map<String, ModelNode> modelNodes, EditContainmentNode editNode) {
         if (modelNodes != null) {
             ModelNode returnValue = modelNodes.get(editNode.getModelNodeId().xPathString());
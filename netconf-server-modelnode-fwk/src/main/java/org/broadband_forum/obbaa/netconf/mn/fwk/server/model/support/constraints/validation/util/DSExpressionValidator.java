@@ -34,10 +34,10 @@ import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.cons
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,13 +58,18 @@ import org.apache.commons.jxpath.ri.compiler.NodeNameTest;
 import org.apache.commons.jxpath.ri.compiler.NodeTest;
 import org.apache.commons.jxpath.ri.compiler.Operation;
 import org.apache.commons.jxpath.ri.compiler.Step;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DSValidationContext;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.ProxyValidationModelNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.typevalidators.ValidationException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.util.ChoiceCaseNodeUtil;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildContainerHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildListHelper;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeDynaBean;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeDynaClass;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeGetException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath.ModelNodeXPathEvaluator;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath.YangStep;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.common.QNameModule;
@@ -1496,7 +1501,15 @@ public class DSExpressionValidator {
         if (xPath == null) {
             xPath = JXPathUtils.getExpression(path);
         }
-        xPath = DataStoreValidationUtil.getDynaBeanAlignedPath(xPath);
+        if (JXPathUtils.isNativeSchemaExpression(xPath) && isTrueOnModelNodes(xPath, contextModelNode, schemaNode)) {
+            return true;
+        }
+        return validateXPathInDynaBeans(xPath, contextModelNode, schemaNode);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private boolean validateXPathInDynaBeans(Expression xPath, ModelNode contextModelNode, DataSchemaNode schemaNode) {
+        xPath = JXPathUtils.getDynaBeanAlignedExpression(xPath);
         ModelNodeDynaBean contextBean = (ModelNodeDynaBean) contextModelNode.getValue();
         String childName = schemaNode == null ? null : ModelNodeDynaBeanFactory.getDynaBeanAttributeName(schemaNode
                 .getQName().getLocalName());
@@ -1601,6 +1614,59 @@ public class DSExpressionValidator {
         }
     }
 
+    /**
+     * Evaluates a must or when expression of the subset handled by {@link ModelNodeXPathEvaluator} directly on the
+     * ModelNodes of the existing child. Returns false when the child does not exist or when the expression does not
+     * hold on it, the DynaBean based evaluation then decides.
+     */
+    protected boolean isTrueOnModelNodes(Expression xPath, ModelNode contextModelNode, DataSchemaNode schemaNode) {
+        if (schemaNode == null || !(contextModelNode instanceof ModelNodeWithAttributes) || ChoiceCaseNodeUtil
+                .isChoiceOrCaseNode(schemaNode)) {
+            return false;
+        }
+        ModelNodeWithAttributes parentNode = (ModelNodeWithAttributes) contextModelNode;
+        QName childQName = schemaNode.getQName();
+        if (schemaNode instanceof LeafSchemaNode) {
+            ConfigLeafAttribute leaf = parentNode.getAttribute(childQName);
+            return leaf != null && ModelNodeXPathEvaluator.isTrueOnLeaf(xPath, parentNode, leaf.getStringValue());
+        }
+        if (schemaNode instanceof LeafListSchemaNode) {
+            Set<ConfigLeafAttribute> leafList = parentNode.getLeafList(childQName);
+            if (leafList != null) {
+                for (ConfigLeafAttribute leaf : leafList) {
+                    if (ModelNodeXPathEvaluator.isTrueOnLeaf(xPath, parentNode, leaf.getStringValue())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        ModelNodeHelperRegistry helperRegistry = parentNode.getModelNodeHelperRegistry();
+        SchemaPath parentSchemaPath = parentNode.getModelNodeSchemaPath();
+        try {
+            if (schemaNode instanceof ContainerSchemaNode) {
+                ChildContainerHelper helper = helperRegistry.getChildContainerHelper(parentSchemaPath, childQName);
+                ModelNode child = helper == null ? null : helper.getValue(parentNode);
+                return child != null && ModelNodeXPathEvaluator.isTrue(xPath, child);
+            }
+            if (schemaNode instanceof ListSchemaNode) {
+                ChildListHelper helper = helperRegistry.getChildListHelper(parentSchemaPath, childQName);
+                if (helper != null) {
+                    for (ModelNode child : helper.getValue(parentNode, Collections.<QName, ConfigLeafAttribute>
+                            emptyMap())) {
+                        if (ModelNodeXPathEvaluator.isTrue(xPath, child)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        } catch (ModelNodeGetException e) {
+            logDebug("Child {} of {} is not read for the native evaluation of {}", childQName, parentNode
+                    .getModelNodeId(), xPath, e);
+        }
+        return false;
+    }
+
     public void validateMust(MustDefinition definition, DataSchemaNode schemaNode, ModelNode parentModelNode) {
         logDebug("must validation for xpath {} modelNode {} child {} callFromLeaf {} ", definition, parentModelNode
                         .getModelNodeId(),
@@ -1650,9 +1716,7 @@ public class DSExpressionValidator {
                 (schemaNode.getQName()) == null) {
             // if it is a leaf with default and that is not found in modelNode, then we need to create it if "when"
             // validates to true
-            Collection<SchemaPath> schemaPathToCreate = DataStoreValidationUtil.getValidationContext()
-                    .getSchemaPathsToCreate();
-            schemaPathToCreate.add(schemaNode.getPath());
+            DataStoreValidationUtil.getValidationContext().recrodForCreate(schemaNode.getPath());
         }
 
         returnValue = validateXPathInModelNode(expression.toString(), parentNode, schemaNode);
@@ -1699,14 +1763,7 @@ public class DSExpressionValidator {
                              * it means the node does not
                              * exists yet
                              */
-                            Map<ModelNode, Collection<QName>> nodesToDelete = DataStoreValidationUtil
-                                    .getValidationContext().getDeleteList();
-                            Collection<QName> childQNames = nodesToDelete.get(modelNode);
-                            if (childQNames == null) {
-                                childQNames = new LinkedHashSet<QName>();
-                                nodesToDelete.put(modelNode, childQNames);
-                            }
-                            childQNames.add(childQName);
+                            DataStoreValidationUtil.getValidationContext().recordForDelete(modelNode, childQName);
                             logDebug("childQName {} must be deleted from modelNode {}", childQName, modelNode
                                     .getModelNodeId());
                         }
@@ -1754,17 +1811,9 @@ public class DSExpressionValidator {
 
             }
             if (schemaPathsToCreate.contains(constraintNodePath)) {
-                Map<SchemaPath, Object> defaultValues = DataStoreValidationUtil.getValidationContext()
-                        .getDefaultValues();
-                Map<ModelNode, Collection<QName>> nodesToCreate = DataStoreValidationUtil.getValidationContext()
-                        .getCreateList();
-                Collection<QName> childQNames = nodesToCreate.get(modelNode);
-                if (childQNames == null) {
-                    childQNames = new LinkedHashSet<QName>();
-                    nodesToCreate.put(modelNode, childQNames);
-                }
-                childQNames.add(childQName);
-                defaultValues.put(constraintNodePath, getDefaults(schemaNode));
+                DSValidationContext validationContext = DataStoreValidationUtil.getValidationContext();
+                validationContext.recordForCreate(modelNode, childQName);
+                validationContext.recordDefaultValue(constraintNodePath, getDefaults(schemaNode));
             }
         }
     }
@@ -81,6 +81,14 @@ public class DsmListModelNodeHelper extends YangConstraintHelper implements Chil
         return modelNodes;
     }
 
+    /**
+     * Lets the DSM load the children of all the given parents ahead of the {@link #getValue(ModelNode, Map)} calls of
+     * each parent, see {@link ModelNodeDataStoreManager#prefetchChildNodes(SchemaPath, Collection)}.
+     */
+    public void prefetchValues(Collection<ModelNodeId> parentIds) {
+        m_modelNodeDSM.prefetchChildNodes(m_schemaNode.getPath(), parentIds);
+    }
+
     @Override
     public ModelNode addChild(ModelNode parentNode, ModelNode childNode) throws ModelNodeSetException {
         ModelNodeId parentNodeId;
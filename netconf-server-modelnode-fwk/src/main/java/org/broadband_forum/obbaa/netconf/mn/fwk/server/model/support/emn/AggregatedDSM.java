@@ -17,6 +17,7 @@
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
 
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +59,34 @@ public class AggregatedDSM implements ModelNodeDataStoreManager {
         }
     }
 
+    @Override
+    public void commitModify() {
+        for (ModelNodeDataStoreManager dsm : m_modelNodeDSMRegistry.getAllDSMs()) {
+            dsm.commitModify();
+        }
+    }
+
+    @Override
+    public void abortModify() {
+        for (ModelNodeDataStoreManager dsm : m_modelNodeDSMRegistry.getAllDSMs()) {
+            dsm.abortModify();
+        }
+    }
+
+    @Override
+    public void beginRead() {
+        for (ModelNodeDataStoreManager dsm : m_modelNodeDSMRegistry.getAllDSMs()) {
+            dsm.beginRead();
+        }
+    }
+
+    @Override
+    public void endRead() {
+        for (ModelNodeDataStoreManager dsm : m_modelNodeDSMRegistry.getAllDSMs()) {
+            dsm.endRead();
+        }
+    }
+
     @Override
     public List<ModelNode> listNodes(SchemaPath nodeType) throws DataStoreException {
         return getModelNodeDSM(nodeType).listNodes(nodeType);
@@ -79,6 +108,12 @@ public class AggregatedDSM implements ModelNodeDataStoreManager {
         return getModelNodeDSM(nodeType).findNodes(nodeType, matchCriteria, parentId);
     }
 
+    @Override
+    public void prefetchChildNodes(SchemaPath childType, Collection<ModelNodeId> parentIds) throws
+            DataStoreException {
+        getModelNodeDSM(childType).prefetchChildNodes(childType, parentIds);
+    }
+
     @Override
     public ModelNode createNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
         if (modelNode != null) {
@@ -19,17 +19,24 @@ package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
 import static org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.util.SchemaRegistryUtil
         .getDataParentSchemaPath;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.LockModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Version;
 import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
 
@@ -56,6 +63,7 @@ import org.broadband_forum.obbaa.netconf.stack.api.annotations.YangParentId;
 import org.broadband_forum.obbaa.netconf.persistence.EntityDataStoreManager;
 import org.broadband_forum.obbaa.netconf.persistence.PersistenceManagerUtil;
 import org.broadband_forum.obbaa.netconf.persistence.jpa.PredicateCondition;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
 import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
 
@@ -69,7 +77,22 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
     private final PersistenceManagerUtil m_persistenceManagerUtil;
     private final SchemaRegistry m_schemaRegistry;
     private ModelNodeDSMRegistry m_modelNodeDSMRegistry;
-
+    private EntityReadMode m_readMode = EntityReadMode.PESSIMISTIC;
+    private final String m_modifyScopeKey = MODIFY_SCOPE_KEY + c_instanceCounter.incrementAndGet();
+    private final Map<Class, Boolean> m_versionedEntityClasses = new ConcurrentHashMap<>();
+    private final String m_prefetchScopeKey = PREFETCH_SCOPE_KEY + c_instanceCounter.incrementAndGet();
+    private final String m_pendingWritesScopeKey = PENDING_WRITES_SCOPE_KEY + c_instanceCounter.incrementAndGet();
+    private int m_writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+
+    private static final String MODIFY_SCOPE_KEY = "AnnotationBasedModelNodeDataStoreManager-modify-";
+    private static final String PREFETCH_SCOPE_KEY = "AnnotationBasedModelNodeDataStoreManager-prefetch-";
+    private static final String PENDING_WRITES_SCOPE_KEY = "AnnotationBasedModelNodeDataStoreManager-pending-writes-";
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 1;
+    // the environment variable or system property with the write batch size, when it is not the default one
+    public static final String NC_DSM_WRITE_BATCH_SIZE = "NC_DSM_WRITE_BATCH_SIZE";
+    // the parent ids of a prefetch query, bounded to keep the statement within the limits of the databases
+    private static final int PREFETCH_BATCH_SIZE = 500;
+    private static final AtomicInteger c_instanceCounter = new AtomicInteger(0);
     private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(AnnotationBasedModelNodeDataStoreManager
             .class, "netconf-server-datastore", "DEBUG", "GLOBAL");
 
@@ -85,20 +108,174 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
         m_entityToModelNodeMapper = new EntityToModelNodeMapperImpl(m_entityRegistry, modelNodeHelperRegistry,
                 subsystemRegistry, schemaRegistry);
         m_modelNodeDSMRegistry = modelNodeDSMRegistry;
+        m_writeBatchSize = getWriteBatchSizeFromEnvOrSysProperty();
 
         if (m_persistenceManagerUtil.getEntityDataStoreManager() != null) {
             m_persistenceManagerUtil.getEntityDataStoreManager().dumpModifiedSessionVariables();
         }
     }
 
+    public EntityReadMode getReadMode() {
+        return m_readMode;
+    }
+
+    public void setReadMode(EntityReadMode readMode) {
+        m_readMode = readMode;
+    }
+
+    public int getWriteBatchSize() {
+        return m_writeBatchSize;
+    }
+
+    /**
+     * Sets how many nodes are created during a modification before the new entities are flushed. The JPA provider
+     * sends the inserts of a flush as JDBC batches when its batch size is set (hibernate.jdbc.batch_size, with
+     * hibernate.order_inserts to group them per entity class). A size of 1 or less flushes after each node, which is
+     * the default; another default can be set with the NC_DSM_WRITE_BATCH_SIZE environment variable or system
+     * property.
+     */
+    public void setWriteBatchSize(int writeBatchSize) {
+        m_writeBatchSize = writeBatchSize;
+    }
+
     @Override
     public void beginModify() {
-
+        RequestScope.getCurrentScope().putInCache(m_modifyScopeKey, Boolean.TRUE);
+        clearPrefetchedChildNodes();
     }
 
     @Override
     public void endModify() {
+        flushPendingWrites();
+        RequestScope.getCurrentScope().putInCache(m_modifyScopeKey, null);
+        if (m_readMode == EntityReadMode.OPTIMISTIC) {
+            // report the entities changed by another transaction since they were read now rather than on commit
+            try {
+                m_persistenceManagerUtil.getEntityDataStoreManager().flush();
+            } catch (OptimisticLockException e) {
+                throw new DataStoreException("The data store was modified by another transaction, entity: " + e
+                        .getEntity(), e);
+            }
+        }
+    }
 
+    /**
+     * Returns the lock to read an entity of the given class with, according to the read mode and whether the DSM is
+     * being modified in the current request.
+     */
+    protected LockModeType getReadLockMode(Class klass) {
+        if (m_readMode == EntityReadMode.PESSIMISTIC || isModifying()) {
+            return LockModeType.PESSIMISTIC_READ;
+        }
+        return isVersioned(klass) ? LockModeType.OPTIMISTIC : LockModeType.NONE;
+    }
+
+    private boolean isModifying() {
+        return RequestScope.getCurrentScope().getFromCache(m_modifyScopeKey) != null;
+    }
+
+    /**
+     * Flushes the entities written to the entity data store manager now, or once the write batch is full when the DSM
+     * is being modified. The writes still pending are flushed before a node is removed and at the end of the
+     * modification.
+     */
+    private void flushWrites(EntityDataStoreManager entityDSM) {
+        if (!isDeferringWrites()) {
+            entityDSM.getEntityManager().flush();
+            return;
+        }
+        RequestScope scope = RequestScope.getCurrentScope();
+        PendingWrites pendingWrites = (PendingWrites) scope.getFromCache(m_pendingWritesScopeKey);
+        if (pendingWrites == null) {
+            pendingWrites = new PendingWrites();
+            scope.putInCache(m_pendingWritesScopeKey, pendingWrites);
+        }
+        pendingWrites.m_entityDSMs.add(entityDSM);
+        if (++pendingWrites.m_count >= m_writeBatchSize) {
+            flushPendingWrites();
+        }
+    }
+
+    /**
+     * Keeps an entity created while writes are deferred, until the pending writes are flushed. The entity is only
+     * attached to its parent, which inserts it on flush, so it is not found by the entity data store manager before.
+     */
+    private void addCreatedEntity(Class klass, Object primaryKey, Object entity) {
+        RequestScope scope = RequestScope.getCurrentScope();
+        PendingWrites pendingWrites = (PendingWrites) scope.getFromCache(m_pendingWritesScopeKey);
+        if (pendingWrites == null) {
+            pendingWrites = new PendingWrites();
+            scope.putInCache(m_pendingWritesScopeKey, pendingWrites);
+        }
+        pendingWrites.m_createdEntities.put(Arrays.asList(klass, primaryKey), entity);
+    }
+
+    /**
+     * Finds an entity by its primary key, among the entities created since the writes were last flushed first.
+     */
+    private Object findEntityById(Class klass, Object primaryKey, LockModeType lockModeType) {
+        PendingWrites pendingWrites = (PendingWrites) RequestScope.getCurrentScope().getFromCache(
+                m_pendingWritesScopeKey);
+        if (pendingWrites != null) {
+            Object entity = pendingWrites.m_createdEntities.get(Arrays.asList(klass, primaryKey));
+            if (entity != null) {
+                return entity;
+            }
+        }
+        return getEntityDataStoreManager(klass).findById(klass, primaryKey, lockModeType);
+    }
+
+    private static int getWriteBatchSizeFromEnvOrSysProperty() {
+        String value = System.getenv(NC_DSM_WRITE_BATCH_SIZE);
+        if (value == null) {
+            value = System.getProperty(NC_DSM_WRITE_BATCH_SIZE);
+        }
+        if (value == null) {
+            return DEFAULT_WRITE_BATCH_SIZE;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} {}, using {}", NC_DSM_WRITE_BATCH_SIZE, value, DEFAULT_WRITE_BATCH_SIZE);
+            return DEFAULT_WRITE_BATCH_SIZE;
+        }
+    }
+
+    private boolean isDeferringWrites() {
+        return m_writeBatchSize > 1 && isModifying();
+    }
+
+    private void flushPendingWrites() {
+        RequestScope scope = RequestScope.getCurrentScope();
+        PendingWrites pendingWrites = (PendingWrites) scope.getFromCache(m_pendingWritesScopeKey);
+        if (pendingWrites != null) {
+            scope.putInCache(m_pendingWritesScopeKey, null);
+            for (EntityDataStoreManager entityDSM : pendingWrites.m_entityDSMs) {
+                entityDSM.getEntityManager().flush();
+            }
+        }
+    }
+
+    boolean isVersioned(Class klass) {
+        Boolean versioned = m_versionedEntityClasses.get(klass);
+        if (versioned == null) {
+            versioned = false;
+            for (Class type = klass; type != null && !versioned; type = type.getSuperclass()) {
+                versioned = hasVersionAnnotation(type.getDeclaredFields()) || hasVersionAnnotation(type
+                        .getDeclaredMethods());
+            }
+            m_versionedEntityClasses.put(klass, versioned);
+        }
+        return versioned;
+    }
+
+    private static boolean hasVersionAnnotation(AccessibleObject[] members) {
+        for (AccessibleObject member : members) {
+            if (member.isAnnotationPresent(Version.class)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @SuppressWarnings("unchecked")
@@ -110,8 +287,8 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
         Map<String, Object> matchValues = new HashMap<>();
         matchValues.put(SCHEMA_PATH, SchemaPathUtil.toString(nodeType));
 
-        List entities = getEntityDataStoreManager(entityClass).findByMatchValue(entityClass, matchValues,
-                m_entityRegistry.getOrderByFieldName(entityClass));
+        List entities = getEntityDataStoreManager(entityClass).findByMatchAndNotMatchValue(entityClass, matchValues,
+                null, m_entityRegistry.getOrderByFieldName(entityClass), getReadLockMode(entityClass));
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(String.format("listNodes with nodeType: %s, got: %s entities", nodeType, entities.size()));
@@ -161,7 +338,7 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
         Class klass = m_entityRegistry.getEntityClass(nodeType);
         if (klass != null) {
             Object pk = buildPrimaryKey(nodeType, klass, key, parentId);
-            Object entity = getEntityDataStoreManager(klass).findById(klass, pk, LockModeType.PESSIMISTIC_READ);
+            Object entity = findEntityById(klass, pk, getReadLockMode(klass));
             if (entity == null) {
                 return null;
             }
@@ -205,6 +382,12 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
     protected List<Object> getEntities(Class storedParentClass, Map<QName, ConfigLeafAttribute> matchCriteria,
                                        ModelNodeId parentId) throws
             DataStoreException {
+        if (matchCriteria.isEmpty()) {
+            List<Object> prefetchedEntities = takePrefetchedEntities(storedParentClass, parentId);
+            if (prefetchedEntities != null) {
+                return prefetchedEntities;
+            }
+        }
         Map<String, Object> matchValues = new HashMap<>();
         String yangParentId = m_entityRegistry.getYangParentIdFieldName(storedParentClass);
         if (yangParentId == null || yangParentId.isEmpty()) {
@@ -222,8 +405,94 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
             }
             matchValues.put(fieldName, entry.getValue().getStringValue());
         }
-        return getEntityDataStoreManager(storedParentClass).findByMatchValue(storedParentClass, matchValues,
-                m_entityRegistry.getOrderByFieldName(storedParentClass));
+        return getEntityDataStoreManager(storedParentClass).findByMatchAndNotMatchValue(storedParentClass,
+                matchValues, null, m_entityRegistry.getOrderByFieldName(storedParentClass), getReadLockMode(
+                        storedParentClass));
+    }
+
+    /**
+     * Loads the entities of the child type of all the given parents with one query per 500 parents. The entities of
+     * a parent are then returned by the next {@link #findNodes(SchemaPath, Map, ModelNodeId)} of that parent without
+     * match criteria in the current request, later reads query the entities again. Modifications drop the loaded
+     * entities.
+     */
+    @Override
+    public void prefetchChildNodes(SchemaPath childType, Collection<ModelNodeId> parentIds) throws
+            DataStoreException {
+        Class klass = m_entityRegistry.getEntityClass(childType);
+        String parentIdFieldName = klass == null ? null : m_entityRegistry.getYangParentIdFieldName(klass);
+        EntityAccessor parentIdGetter = klass == null ? null : m_entityRegistry.getParentIdGetterAccessor(klass);
+        if (parentIdFieldName == null || parentIdGetter == null || parentIds.size() < 2) {
+            return;
+        }
+        Map<String, List<Object>> entitiesByParentId = new ConcurrentHashMap<>();
+        List<Object> batch = new ArrayList<>();
+        for (ModelNodeId parentId : parentIds) {
+            String parentIdValue = parentId.getModelNodeIdAsString();
+            if (entitiesByParentId.put(parentIdValue, new ArrayList<>()) == null) {
+                batch.add(parentIdValue);
+            }
+            if (batch.size() == PREFETCH_BATCH_SIZE) {
+                prefetchEntities(klass, parentIdFieldName, parentIdGetter, batch, entitiesByParentId);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            prefetchEntities(klass, parentIdFieldName, parentIdGetter, batch, entitiesByParentId);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("prefetchChildNodes with childType: %s, got entities of %s parents", childType,
+                    entitiesByParentId.size()));
+        }
+        getPrefetchedEntities().put(klass, entitiesByParentId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void prefetchEntities(Class klass, String parentIdFieldName, EntityAccessor parentIdGetter,
+                                  List<Object> parentIds, Map<String, List<Object>> entitiesByParentId) {
+        Map<String, List<Object>> matchValues = new HashMap<>();
+        matchValues.put(parentIdFieldName, parentIds);
+        List<Object> entities = getEntityDataStoreManager(klass).findByMatchAndNotMatchValues(klass, matchValues,
+                null, m_entityRegistry.getOrderByFieldName(klass), getReadLockMode(klass));
+        try {
+            for (Object entity : entities) {
+                List<Object> siblings = entitiesByParentId.get(parentIdGetter.get(entity));
+                if (siblings != null) {
+                    siblings.add(entity);
+                }
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new DataStoreException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> takePrefetchedEntities(Class klass, ModelNodeId parentId) {
+        Map<Class, Map<String, List<Object>>> prefetchedEntities = (Map<Class, Map<String, List<Object>>>)
+                RequestScope.getCurrentScope().getFromCache(m_prefetchScopeKey);
+        if (prefetchedEntities != null) {
+            Map<String, List<Object>> entitiesByParentId = prefetchedEntities.get(klass);
+            if (entitiesByParentId != null) {
+                return entitiesByParentId.remove(parentId.getModelNodeIdAsString());
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Class, Map<String, List<Object>>> getPrefetchedEntities() {
+        RequestScope currentScope = RequestScope.getCurrentScope();
+        Map<Class, Map<String, List<Object>>> prefetchedEntities = (Map<Class, Map<String, List<Object>>>)
+                currentScope.getFromCache(m_prefetchScopeKey);
+        if (prefetchedEntities == null) {
+            prefetchedEntities = new ConcurrentHashMap<>();
+            currentScope.putInCache(m_prefetchScopeKey, prefetchedEntities);
+        }
+        return prefetchedEntities;
+    }
+
+    private void clearPrefetchedChildNodes() {
+        RequestScope.getCurrentScope().putInCache(m_prefetchScopeKey, null);
     }
 
     @Override
@@ -233,31 +502,35 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
 
     @Override
     public ModelNode createNode(ModelNode modelNode, ModelNodeId parentId, int insertIndex) {
+        clearPrefetchedChildNodes();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("createNode : {} parentId: {}", modelNode.getModelNodeSchemaPath(), parentId);
         }
         if (modelNode != null) {
             SchemaPath nodeType = modelNode.getModelNodeSchemaPath();
             Class klass = m_entityRegistry.getEntityClass(nodeType);
-            String columnName = m_entityRegistry.getOrderByFieldName(klass);
-            Map<String, Object> matchValues = new HashMap<>();
-            matchValues.put(SCHEMA_PATH, SchemaPathUtil.toString(nodeType));
-            if (columnName != null) {
-                matchValues.put(columnName, new Double(insertIndex));
-            }
-            List entities = getEntityDataStoreManager(klass).findByMatchValue(klass, matchValues, m_entityRegistry
-                    .getOrderByFieldName(klass));
-            if (insertIndex != -1 && entities != null && !entities.isEmpty()) {
-                incrementOrderByColumnForExistingEntities(klass, columnName, insertIndex);
+            // the query would flush the pending writes of the class, it is only needed to insert at an index
+            if (insertIndex != -1) {
+                String columnName = m_entityRegistry.getOrderByFieldName(klass);
+                Map<String, Object> matchValues = new HashMap<>();
+                matchValues.put(SCHEMA_PATH, SchemaPathUtil.toString(nodeType));
+                if (columnName != null) {
+                    matchValues.put(columnName, new Double(insertIndex));
+                }
+                List entities = getEntityDataStoreManager(klass).findByMatchAndNotMatchValue(klass, matchValues, null,
+                        m_entityRegistry.getOrderByFieldName(klass), getReadLockMode(klass));
+                if (entities != null && !entities.isEmpty()) {
+                    incrementOrderByColumnForExistingEntities(klass, columnName, insertIndex);
+                }
             }
 
             Object newEntity = m_entityToModelNodeMapper.getEntity(nodeType, modelNode, klass, parentId, insertIndex);
             LOGGER.debug("creating entity {} for parentId {}", newEntity, parentId);
             if (newEntity != null) {
-                createEntityAndUpdateParent(newEntity, nodeType, klass, parentId);
+                createEntityAndUpdateParent(newEntity, modelNode, klass, parentId);
             }
             //flush to make sure newly created objects are flushed
-            getEntityDataStoreManager(klass).getEntityManager().flush();
+            flushWrites(getEntityDataStoreManager(klass));
         }
         return modelNode;
     }
@@ -268,14 +541,14 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
                 PredicateCondition.GREATER_THAN_EQUAL, new Double(newInsertIndex));
         if (existingEntities != null && !existingEntities.isEmpty()) {
             for (Object entity : existingEntities) {
-                Method childOrderBySetter = m_entityRegistry.getOrderByUserSetter(entity.getClass());
-                Method childOrderByGetter = m_entityRegistry.getOrderByUserGetter(entity.getClass());
+                EntityAccessor childOrderBySetter = m_entityRegistry.getOrderByUserSetterAccessor(entity.getClass());
+                EntityAccessor childOrderByGetter = m_entityRegistry.getOrderByUserGetterAccessor(entity.getClass());
 
                 if (childOrderByGetter != null && childOrderBySetter != null) {
                     try {
-                        Integer currentIndex = (Integer) childOrderByGetter.invoke(entity);
+                        Integer currentIndex = (Integer) childOrderByGetter.get(entity);
                         currentIndex++;
-                        childOrderBySetter.invoke(entity, currentIndex);
+                        childOrderBySetter.set(entity, currentIndex);
                     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
                         throw new DataStoreException(e);
                     }
@@ -289,6 +562,7 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
             .class})
     public void updateNode(ModelNode modelNode, ModelNodeId parentId, Map<QName, ConfigLeafAttribute> configAttributes,
                            Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafListAttributes, boolean removeNode) {
+        clearPrefetchedChildNodes();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("updateNode : {} parentId: {}", modelNode.getModelNodeSchemaPath(), parentId);
         }
@@ -300,6 +574,7 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
     public void updateNode(ModelNode modelNode, ModelNodeId parentId, Map<QName, ConfigLeafAttribute> configAttributes,
                            Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafListAttributes, int insertIndex,
                            boolean removeNode) {
+        clearPrefetchedChildNodes();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("updateNode : {}, parentId: {}", modelNode.getModelNodeSchemaPath(), parentId);
         }
@@ -336,6 +611,8 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
 
     @Override
     public void removeNode(ModelNode modelNode, ModelNodeId parentId) {
+        clearPrefetchedChildNodes();
+        flushPendingWrites();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("removeNode : {} parentId: {}", modelNode.getModelNodeSchemaPath(), parentId);
         }
@@ -359,6 +636,8 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
      */
     @Override
     public void removeAllNodes(ModelNode parentNode, SchemaPath nodeType, ModelNodeId grandParentId) {
+        clearPrefetchedChildNodes();
+        flushPendingWrites();
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("removeAllNodes : {} parentId: {}", parentNode.getModelNodeSchemaPath(), grandParentId);
         }
@@ -374,7 +653,7 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
         matchBySchemaPathAndParentId.put(m_entityRegistry.getYangParentIdFieldName(childEntityClass), parentId
                 .getModelNodeIdAsString());
         return getEntityDataStoreManager(childEntityClass).findByMatchValue(childEntityClass,
-                matchBySchemaPathAndParentId);
+                matchBySchemaPathAndParentId, getReadLockMode(childEntityClass));
     }
 
     private Object findEntity(ModelNode modelNode, ModelNodeId parentId) {
@@ -384,8 +663,7 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
             if (klass != null) {
                 Object pk = buildPrimaryKey(nodeType, klass, MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry),
                         parentId);
-                Object entity = getEntityDataStoreManager(klass).findById(klass, pk, LockModeType.PESSIMISTIC_WRITE);
-                return entity;
+                return findEntityById(klass, pk, LockModeType.PESSIMISTIC_WRITE);
             }
         }
         return null;
@@ -405,8 +683,9 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
         return m_persistenceManagerUtil.getEntityDataStoreManager();
     }
 
-    private void createEntityAndUpdateParent(Object newEntity, SchemaPath nodeSchemaPath, Class klass, ModelNodeId
+    private void createEntityAndUpdateParent(Object newEntity, ModelNode modelNode, Class klass, ModelNodeId
             modelNodeId) {
+        SchemaPath nodeSchemaPath = modelNode.getModelNodeSchemaPath();
         DataSchemaNode parentNode = m_schemaRegistry.getNonChoiceParent(nodeSchemaPath);
         SchemaPath parentSchemaPath = null;
         if (parentNode != null) {
@@ -418,14 +697,18 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
                 Object parentPK = buildPrimaryKey(parentSchemaPath, parentKlass,
                         MNKeyUtil.getModelNodeKey(m_schemaRegistry, parentSchemaPath, modelNodeId),
                         EMNKeyUtil.getParentId(m_schemaRegistry, parentSchemaPath, modelNodeId));
-                Object parentEntity = getEntityDataStoreManager(parentKlass).findById(parentKlass, parentPK,
-                        LockModeType.PESSIMISTIC_WRITE);
+                Object parentEntity = findEntityById(parentKlass, parentPK, LockModeType.PESSIMISTIC_WRITE);
                 if (parentEntity != null) {
                     parentEntity = getChildSetAndAddChild(parentEntity, newEntity, parentKlass, klass,
                             m_schemaRegistry.getDataSchemaNode(nodeSchemaPath));
                     if (parentEntity == null) {
                         // Parent doesn't have a Field to store Child Container/List; Store the Child directly.
                         persistEntity(newEntity);
+                    } else if (isDeferringWrites()) {
+                        // the cascade from the parent inserts the child on flush, until then its own children find
+                        // it among the created entities
+                        addCreatedEntity(klass, buildPrimaryKey(nodeSchemaPath, klass, MNKeyUtil.getModelNodeKey(
+                                modelNode, m_schemaRegistry), modelNodeId), newEntity);
                     }
                 }
             }
@@ -449,8 +732,7 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
                 Object parentPK = buildPrimaryKey(parentSchemaPath, parentKlass, MNKeyUtil.getModelNodeKey
                                 (m_schemaRegistry, parentSchemaPath, modelNodeId),
                         EMNKeyUtil.getParentId(m_schemaRegistry, parentSchemaPath, modelNodeId));
-                Object parentEntity = getEntityDataStoreManager(parentKlass).findById(parentKlass, parentPK,
-                        LockModeType.PESSIMISTIC_WRITE);
+                Object parentEntity = findEntityById(parentKlass, parentPK, LockModeType.PESSIMISTIC_WRITE);
                 if (parentEntity != null) {
                     DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(nodeSchemaPath);
                     if (schemaNode instanceof ListSchemaNode) {
@@ -462,11 +744,12 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
                             deleteEntity(entity);
                         }
                     } else if (schemaNode instanceof ContainerSchemaNode) {
-                        Map<QName, Method> yangChildSetters = m_entityRegistry.getYangChildSetters(parentKlass);
+                        Map<QName, EntityAccessor> yangChildSetters = m_entityRegistry.getYangChildSetterAccessors(
+                                parentKlass);
                         if (yangChildSetters != null && !yangChildSetters.isEmpty()) {
-                            Method setter = yangChildSetters.get(nodeSchemaPath.getLastComponent());
+                            EntityAccessor setter = yangChildSetters.get(nodeSchemaPath.getLastComponent());
                             try {
-                                setter.invoke(parentEntity, new Object[]{null});
+                                setter.set(parentEntity, null);
                                 deleteEntity(entity); // workaround since orphanRemoval in oneToone mapping is not
                                 // removing orphans
                             } catch (IllegalAccessException | InvocationTargetException e) {
@@ -496,14 +779,14 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
     private Object getChildSetAndAddChild(Object parentEntity, Object childEntity, Class parentKlass, Class klass,
                                           DataSchemaNode schemaNode) {
         if (schemaNode instanceof ListSchemaNode) {
-            Map<QName, Method> childGetters = m_entityRegistry.getYangChildGetters(parentKlass);
+            Map<QName, EntityAccessor> childGetters = m_entityRegistry.getYangChildGetterAccessors(parentKlass);
             QName childQName = m_entityRegistry.getQName(klass);
             Collection<Object> childSet;
             if (childGetters != null && !childGetters.isEmpty() && childQName != null) {
                 try {
-                    Method childGetter = childGetters.get(childQName);
+                    EntityAccessor childGetter = childGetters.get(childQName);
                     if (childGetter != null) {
-                        childSet = (Collection<Object>) childGetter.invoke(parentEntity);
+                        childSet = (Collection<Object>) childGetter.get(parentEntity);
                         childSet.add(childEntity);
                         return parentEntity;
                     }
@@ -512,13 +795,13 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
                 }
             }
         } else if (schemaNode instanceof ContainerSchemaNode) {
-            Map<QName, Method> childSetters = m_entityRegistry.getYangChildSetters(parentKlass);
+            Map<QName, EntityAccessor> childSetters = m_entityRegistry.getYangChildSetterAccessors(parentKlass);
             QName childQName = m_entityRegistry.getQName(klass);
             if (childSetters != null && !childSetters.isEmpty() && childQName != null) {
                 try {
-                    Method childSetter = childSetters.get(childQName);
+                    EntityAccessor childSetter = childSetters.get(childQName);
                     if (childSetter != null) {
-                        childSetter.invoke(parentEntity, childEntity);
+                        childSetter.set(parentEntity, childEntity);
                         return parentEntity;
                     }
                 } catch (InvocationTargetException | IllegalAccessException e) {
@@ -526,23 +809,25 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
                 }
             }
         } else if (schemaNode instanceof LeafListSchemaNode) {
-            Map<QName, Method> childLeafListGetters = m_entityRegistry.getYangLeafListGetters(parentKlass);
-            Map<QName, Method> childLeafListSetters = m_entityRegistry.getYangLeafListSetters(parentKlass);
+            Map<QName, EntityAccessor> childLeafListGetters = m_entityRegistry.getYangLeafListGetterAccessors(
+                    parentKlass);
+            Map<QName, EntityAccessor> childLeafListSetters = m_entityRegistry.getYangLeafListSetterAccessors(
+                    parentKlass);
             QName childQName = m_entityRegistry.getQName(klass);
             Collection<Object> childSet;
             if (childLeafListGetters != null && !childLeafListGetters.isEmpty() && childLeafListSetters != null &&
                     !childLeafListSetters.isEmpty() && childQName != null) {
                 try {
-                    Method childLeafListGetter = childLeafListGetters.get(childQName);
+                    EntityAccessor childLeafListGetter = childLeafListGetters.get(childQName);
                     if (childLeafListGetter != null) {
-                        childSet = (Collection<Object>) childLeafListGetter.invoke(parentEntity);
+                        childSet = (Collection<Object>) childLeafListGetter.get(parentEntity);
                         if (childSet != null) {
                             childSet.add(childEntity);
                         } else {
-                            Method childLeafListSetter = childLeafListSetters.get(childQName);
+                            EntityAccessor childLeafListSetter = childLeafListSetters.get(childQName);
                             Set<Object> child = new LinkedHashSet<Object>();
                             child.add(childEntity);
-                            childLeafListSetter.invoke(parentEntity, child);
+                            childLeafListSetter.set(parentEntity, child);
                         }
                         return parentEntity;
                     }
@@ -560,4 +845,14 @@ public class AnnotationBasedModelNodeDataStoreManager implements ModelNodeDataSt
         }
         getEntityDataStoreManager(entity.getClass()).delete(entity);
     }
+
+    /**
+     * The entity data store managers with entities created since the last flush, in the current request, and the
+     * entities created since then, by class and primary key.
+     */
+    private static final class PendingWrites {
+        private final Set<EntityDataStoreManager> m_entityDSMs = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<List<Object>, Object> m_createdEntities = new HashMap<>();
+        private int m_count;
+    }
 }
@@ -0,0 +1,657 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.XmlModelNodeToXmlMapper.nodesMatch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigAttributeFactory;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InstanceIdentifierConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InvalidIdentityRefException;
+
+/**
+ * Stores XML subtrees in a compact binary form, encoded in Base64 to fit the string column of the entity.
+ *
+ * The element and attribute names of a subtree, and the values of its attributes, are written once, in a dictionary
+ * in the header of the subtree, and referred to by their index. The root nodes under the data element are written
+ * as separate fragments, each encoded in its own Base64 segment after the header, which lists their names and the
+ * values of their list keys. Replacing a root node looks the fragment up by the keys of the node and re-encodes only
+ * that fragment and the header: the segments of the other fragments are copied as they are, without being decoded,
+ * and the dictionary is only extended, so the indexes they use stay valid. Keys are compared as
+ * {@link ConfigLeafAttribute}s, like {@link XmlStringSubtreeCodec} does, so an identity matches whatever the prefix
+ * it is written with.
+ *
+ * Decoding is eager: it builds the DOM of all the root nodes of the subtree, directly, without parsing or indenting
+ * any XML text, because the XmlSubtreeDSM maps all of them to model nodes when it reads the stored parent entity.
+ *
+ * Subtrees stored as XML strings by {@link XmlStringSubtreeCodec} are still read, and are converted to the binary
+ * form the first time they are written.
+ */
+public class BinaryXmlSubtreeCodec implements XmlSubtreeCodec {
+
+    static final String PREFIX = "xsc2:";
+    static final char SEGMENT_SEPARATOR = '.';
+    private static final int NODE = 0;
+    private static final int DATA = 1;
+    private static final int TEXT = 0;
+    private static final int ELEMENT = 1;
+
+    private final SchemaRegistry m_schemaRegistry;
+    private final XmlStringSubtreeCodec m_xmlStringSubtreeCodec;
+
+    public BinaryXmlSubtreeCodec(SchemaRegistry schemaRegistry) {
+        m_schemaRegistry = schemaRegistry;
+        m_xmlStringSubtreeCodec = new XmlStringSubtreeCodec(schemaRegistry);
+    }
+
+    @Override
+    public Element decode(String storedSubtree) throws DataStoreException {
+        if (storedSubtree == null || storedSubtree.isEmpty()) {
+            return null;
+        }
+        if (!storedSubtree.startsWith(PREFIX)) {
+            return m_xmlStringSubtreeCodec.decode(storedSubtree);
+        }
+        try {
+            Subtree subtree = Subtree.read(storedSubtree);
+            Document document = DocumentUtils.createDocument();
+            if (subtree.m_kind == NODE) {
+                return readElement(subtree.m_fragments.get(0).open(), subtree.m_dictionary, document);
+            }
+            Element dataElement = subtree.createDataElement(document);
+            for (Fragment fragment : subtree.m_fragments) {
+                dataElement.appendChild(readElement(fragment.open(), subtree.m_dictionary, document));
+            }
+            return dataElement;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new DataStoreException("Error while decoding the stored XML subtree", e);
+        }
+    }
+
+    @Override
+    public String encode(Element node) throws DataStoreException {
+        try {
+            Subtree subtree = new Subtree(NODE);
+            subtree.add(Fragment.encode(toBytes(node, subtree.m_dictionary)));
+            return subtree.write();
+        } catch (IOException e) {
+            throw new DataStoreException("Error while encoding the XML subtree", e);
+        }
+    }
+
+    @Override
+    public String replaceRootNode(String storedSubtree, SchemaPath nodeType, Map<QName, ConfigLeafAttribute> keys,
+                                  Element node) throws DataStoreException {
+        try {
+            Subtree subtree;
+            if (storedSubtree != null && storedSubtree.startsWith(PREFIX)) {
+                subtree = Subtree.read(storedSubtree);
+                if (subtree.m_kind != DATA) {
+                    throw new DataStoreException("The stored XML subtree does not hold root nodes");
+                }
+            } else {
+                subtree = toSubtree(m_xmlStringSubtreeCodec.decode(storedSubtree));
+            }
+
+            Fragment replacement = Fragment.encode(toBytes(node, subtree.m_dictionary));
+            replacement.m_name = subtree.m_dictionary.indexOf(node.getNamespaceURI(), node.getNodeName());
+            QName qName = nodeType.getLastComponent();
+            replacement.m_key = new RootNodeKey(qName.getNamespace().toString(), qName.getLocalName(), getKey(
+                    nodeType, keys));
+            subtree.replace(replacement);
+            return subtree.write();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new DataStoreException("Error while replacing the node in the stored XML subtree", e);
+        }
+    }
+
+    private Subtree toSubtree(Element dataElement) throws IOException {
+        Subtree subtree = new Subtree(DATA);
+        Dictionary dictionary = subtree.m_dictionary;
+        if (dataElement == null) {
+            subtree.m_name = dictionary.indexOf(NetconfResources.NETCONF_RPC_NS_1_0, NetconfResources
+                    .RPC_REPLY_DATA);
+            return subtree;
+        }
+        subtree.m_name = dictionary.indexOf(dataElement.getNamespaceURI(), dataElement.getNodeName());
+        NamedNodeMap attributes = dataElement.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            subtree.m_attributeNames.add(dictionary.indexOf(attribute.getNamespaceURI(), attribute.getName()));
+            subtree.m_attributeValues.add(dictionary.stringIndexOf(attribute.getValue()));
+        }
+        for (Element rootNode : DocumentUtils.getChildElements(dataElement)) {
+            Fragment fragment = Fragment.encode(toBytes(rootNode, dictionary));
+            fragment.m_name = dictionary.indexOf(rootNode.getNamespaceURI(), rootNode.getNodeName());
+            fragment.m_key = new RootNodeKey(rootNode.getNamespaceURI(), rootNode.getLocalName(), getKey(rootNode));
+            subtree.add(fragment);
+        }
+        return subtree;
+    }
+
+    /**
+     * The values of the list keys of a root node, from the keys of its model node.
+     */
+    private List<String> getKey(SchemaPath nodeType, Map<QName, ConfigLeafAttribute> keys) {
+        DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(nodeType);
+        if (!(schemaNode instanceof ListSchemaNode) || keys == null) {
+            return Collections.emptyList();
+        }
+        List<String> key = new ArrayList<>();
+        for (QName keyQName : ((ListSchemaNode) schemaNode).getKeyDefinition()) {
+            key.add(toKeyValue(keys.get(keyQName)));
+        }
+        return key;
+    }
+
+    /**
+     * The values of the list keys of a root node, from its XML.
+     */
+    private List<String> getKey(Element rootNode) throws DataStoreException {
+        QName qName = m_schemaRegistry.lookupQName(rootNode.getNamespaceURI(), rootNode.getLocalName());
+        if (qName == null) {
+            return Collections.emptyList();
+        }
+        SchemaPath schemaPath = SchemaPath.create(true, qName);
+        DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(schemaPath);
+        if (!(schemaNode instanceof ListSchemaNode)) {
+            return Collections.emptyList();
+        }
+        List<String> key = new ArrayList<>();
+        for (QName keyQName : ((ListSchemaNode) schemaNode).getKeyDefinition()) {
+            ConfigLeafAttribute value = null;
+            for (Element field : DocumentUtils.getChildElements(rootNode)) {
+                if (nodesMatch(field, keyQName)) {
+                    try {
+                        value = ConfigAttributeFactory.getConfigAttribute(m_schemaRegistry, schemaPath, keyQName,
+                                field);
+                    } catch (InvalidIdentityRefException e) {
+                        throw new DataStoreException("Error while reading the keys of a stored root node", e);
+                    }
+                    break;
+                }
+            }
+            key.add(toKeyValue(value));
+        }
+        return key;
+    }
+
+    /**
+     * Returns the value of a key leaf as it is compared: identities by their namespace and name, instance identifiers
+     * with the namespaces of their prefixes, other values as they are.
+     */
+    static String toKeyValue(ConfigLeafAttribute attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        String value = attribute.getStringValue();
+        if (attribute instanceof IdentityRefConfigAttribute) {
+            return attribute.getNamespace() + " " + value.substring(value.indexOf(':') + 1);
+        }
+        if (attribute instanceof InstanceIdentifierConfigAttribute) {
+            return attribute.getNamespace() + " " + value;
+        }
+        return value;
+    }
+
+    private static byte[] toBytes(Element element, Dictionary dictionary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeElement(out, element, dictionary);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeElement(DataOutputStream out, Element element, Dictionary dictionary) throws IOException {
+        writeVarInt(out, dictionary.indexOf(element.getNamespaceURI(), element.getNodeName()));
+        NamedNodeMap attributes = element.getAttributes();
+        writeVarInt(out, attributes.getLength());
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            writeVarInt(out, dictionary.indexOf(attribute.getNamespaceURI(), attribute.getName()));
+            writeVarInt(out, dictionary.stringIndexOf(attribute.getValue()));
+        }
+        List<Node> children = new ArrayList<>();
+        boolean hasChildElements = false;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                hasChildElements = true;
+                children.add(child);
+            } else if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                children.add(child);
+            }
+        }
+        List<Node> content = new ArrayList<>(children.size());
+        for (Node child : children) {
+            // the indentation between child elements is not content
+            if (child.getNodeType() == Node.ELEMENT_NODE || !hasChildElements || !child.getNodeValue().trim()
+                    .isEmpty()) {
+                content.add(child);
+            }
+        }
+        writeVarInt(out, content.size());
+        for (Node child : content) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                writeVarInt(out, ELEMENT);
+                writeElement(out, (Element) child, dictionary);
+            } else {
+                writeVarInt(out, TEXT);
+                writeString(out, child.getNodeValue());
+            }
+        }
+    }
+
+    private static Element readElement(DataInputStream in, Dictionary dictionary, Document document) throws
+            IOException {
+        int name = readVarInt(in);
+        Element element = document.createElementNS(dictionary.getNamespace(name), dictionary.getName(name));
+        int attributeCount = readVarInt(in);
+        for (int i = 0; i < attributeCount; i++) {
+            int attributeName = readVarInt(in);
+            element.setAttributeNS(dictionary.getNamespace(attributeName), dictionary.getName(attributeName),
+                    dictionary.getString(readVarInt(in)));
+        }
+        int childCount = readVarInt(in);
+        for (int i = 0; i < childCount; i++) {
+            if (readVarInt(in) == ELEMENT) {
+                element.appendChild(readElement(in, dictionary, document));
+            } else {
+                element.appendChild(document.createTextNode(readString(in)));
+            }
+        }
+        return element;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed XML subtree, variable length integer is too long");
+    }
+
+    /**
+     * The namespaces and qualified names of the elements and attributes of a subtree, together with the values of
+     * its attributes, which are mostly namespace declarations. Each string is kept once.
+     */
+    private static class Dictionary {
+        private final List<String> m_strings = new ArrayList<>();
+        private final Map<String, Integer> m_stringIndexes = new HashMap<>();
+        private final List<Integer> m_namespaces = new ArrayList<>();
+        private final List<Integer> m_names = new ArrayList<>();
+        private final Map<List<Integer>, Integer> m_nameIndexes = new HashMap<>();
+
+        static Dictionary read(DataInputStream in) throws IOException {
+            Dictionary dictionary = new Dictionary();
+            int stringCount = readVarInt(in);
+            for (int i = 0; i < stringCount; i++) {
+                dictionary.stringIndexOf(readString(in));
+            }
+            int nameCount = readVarInt(in);
+            for (int i = 0; i < nameCount; i++) {
+                int namespace = readVarInt(in) - 1;
+                int name = readVarInt(in);
+                dictionary.checkString(name);
+                if (namespace >= 0) {
+                    dictionary.checkString(namespace);
+                }
+                dictionary.nameIndexOf(namespace, name);
+            }
+            return dictionary;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeVarInt(out, m_strings.size());
+            for (String string : m_strings) {
+                writeString(out, string);
+            }
+            writeVarInt(out, m_names.size());
+            for (int i = 0; i < m_names.size(); i++) {
+                writeVarInt(out, m_namespaces.get(i) + 1);
+                writeVarInt(out, m_names.get(i));
+            }
+        }
+
+        int indexOf(String namespace, String name) {
+            return nameIndexOf(namespace == null ? -1 : stringIndexOf(namespace), stringIndexOf(name));
+        }
+
+        int stringIndexOf(String string) {
+            Integer index = m_stringIndexes.get(string);
+            if (index == null) {
+                index = m_strings.size();
+                m_strings.add(string);
+                m_stringIndexes.put(string, index);
+            }
+            return index;
+        }
+
+        String getString(int index) throws IOException {
+            checkString(index);
+            return m_strings.get(index);
+        }
+
+        String getNamespace(int index) throws IOException {
+            checkIndex(index);
+            int namespace = m_namespaces.get(index);
+            return namespace < 0 ? null : m_strings.get(namespace);
+        }
+
+        String getName(int index) throws IOException {
+            checkIndex(index);
+            return m_strings.get(m_names.get(index));
+        }
+
+        private int nameIndexOf(int namespace, int name) {
+            List<Integer> entry = new ArrayList<>(2);
+            entry.add(namespace);
+            entry.add(name);
+            Integer index = m_nameIndexes.get(entry);
+            if (index == null) {
+                index = m_names.size();
+                m_namespaces.add(namespace);
+                m_names.add(name);
+                m_nameIndexes.put(entry, index);
+            }
+            return index;
+        }
+
+        private static String getLocalName(String name) {
+            return name.substring(name.indexOf(':') + 1);
+        }
+
+        private void checkIndex(int index) throws IOException {
+            if (index < 0 || index >= m_names.size()) {
+                throw new IOException("Malformed XML subtree, unknown name " + index);
+            }
+        }
+
+        private void checkString(int index) throws IOException {
+            if (index < 0 || index >= m_strings.size()) {
+                throw new IOException("Malformed XML subtree, unknown string " + index);
+            }
+        }
+    }
+
+    /**
+     * A stored subtree: its header, with the dictionary and, for root nodes, the data element and the names and keys
+     * of the root nodes under it, followed by the fragments of the nodes.
+     */
+    private static class Subtree {
+        private final int m_kind;
+        private final Dictionary m_dictionary;
+        private int m_name;
+        private final List<Integer> m_attributeNames = new ArrayList<>();
+        private final List<Integer> m_attributeValues = new ArrayList<>();
+        private final List<Fragment> m_fragments = new ArrayList<>();
+        private final Map<RootNodeKey, Integer> m_fragmentIndexes = new HashMap<>();
+
+        Subtree(int kind) {
+            this(kind, new Dictionary());
+        }
+
+        private Subtree(int kind, Dictionary dictionary) {
+            m_kind = kind;
+            m_dictionary = dictionary;
+        }
+
+        /**
+         * Reads the header of the stored subtree, the fragments are only located.
+         */
+        static Subtree read(String storedSubtree) throws IOException {
+            List<Fragment> segments = new ArrayList<>();
+            int start = PREFIX.length();
+            int end;
+            while ((end = storedSubtree.indexOf(SEGMENT_SEPARATOR, start)) >= 0) {
+                segments.add(new Fragment(storedSubtree, start, end));
+                start = end + 1;
+            }
+            segments.add(new Fragment(storedSubtree, start, storedSubtree.length()));
+
+            DataInputStream in = segments.get(0).open();
+            int kind = readVarInt(in);
+            Subtree subtree = new Subtree(kind, Dictionary.read(in));
+            if (kind == NODE) {
+                checkFragmentCount(1, segments);
+                subtree.m_fragments.add(segments.get(1));
+                return subtree;
+            }
+            if (kind != DATA) {
+                throw new IOException("Malformed XML subtree, unknown kind " + kind);
+            }
+            Dictionary dictionary = subtree.m_dictionary;
+            subtree.m_name = readVarInt(in);
+            dictionary.checkIndex(subtree.m_name);
+            int attributeCount = readVarInt(in);
+            for (int i = 0; i < attributeCount; i++) {
+                subtree.m_attributeNames.add(readVarInt(in));
+                subtree.m_attributeValues.add(readVarInt(in));
+            }
+            int fragmentCount = readVarInt(in);
+            checkFragmentCount(fragmentCount, segments);
+            for (int i = 0; i < fragmentCount; i++) {
+                Fragment fragment = segments.get(i + 1);
+                fragment.m_name = readVarInt(in);
+                int keyCount = readVarInt(in);
+                List<String> key = new ArrayList<>(keyCount);
+                for (int j = 0; j < keyCount; j++) {
+                    key.add(readString(in));
+                }
+                fragment.m_key = new RootNodeKey(dictionary.getNamespace(fragment.m_name), Dictionary.getLocalName(
+                        dictionary.getName(fragment.m_name)), key);
+                subtree.add(fragment);
+            }
+            return subtree;
+        }
+
+        private static void checkFragmentCount(int fragmentCount, List<Fragment> segments) throws IOException {
+            if (segments.size() != fragmentCount + 1) {
+                throw new IOException("Malformed XML subtree, " + fragmentCount + " fragments expected but "
+                        + (segments.size() - 1) + " found");
+            }
+        }
+
+        void add(Fragment fragment) {
+            if (fragment.m_key != null) {
+                m_fragmentIndexes.put(fragment.m_key, m_fragments.size());
+            }
+            m_fragments.add(fragment);
+        }
+
+        /**
+         * Replaces the fragment of the root node with the same name and keys, the fragment is added if there is none.
+         */
+        void replace(Fragment fragment) {
+            Integer index = m_fragmentIndexes.get(fragment.m_key);
+            if (index == null) {
+                add(fragment);
+            } else {
+                m_fragments.set(index, fragment);
+            }
+        }
+
+        /**
+         * Returns the string to store: the header is encoded again, the fragments are copied.
+         */
+        String write() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeVarInt(out, m_kind);
+            m_dictionary.write(out);
+            if (m_kind == DATA) {
+                writeVarInt(out, m_name);
+                writeVarInt(out, m_attributeNames.size());
+                for (int i = 0; i < m_attributeNames.size(); i++) {
+                    writeVarInt(out, m_attributeNames.get(i));
+                    writeVarInt(out, m_attributeValues.get(i));
+                }
+                writeVarInt(out, m_fragments.size());
+                for (Fragment fragment : m_fragments) {
+                    writeVarInt(out, fragment.m_name);
+                    writeVarInt(out, fragment.m_key.m_values.size());
+                    for (String keyValue : fragment.m_key.m_values) {
+                        writeString(out, keyValue);
+                    }
+                }
+            }
+            out.flush();
+            String header = Base64.getEncoder().encodeToString(bytes.toByteArray());
+            int length = PREFIX.length() + header.length();
+            for (Fragment fragment : m_fragments) {
+                length += fragment.m_end - fragment.m_start + 1;
+            }
+            StringBuilder storedSubtree = new StringBuilder(length).append(PREFIX).append(header);
+            for (Fragment fragment : m_fragments) {
+                storedSubtree.append(SEGMENT_SEPARATOR).append(fragment.m_encoded, fragment.m_start, fragment
+                        .m_end);
+            }
+            return storedSubtree.toString();
+        }
+
+        Element createDataElement(Document document) throws IOException {
+            Element dataElement = document.createElementNS(m_dictionary.getNamespace(m_name), m_dictionary.getName(
+                    m_name));
+            for (int i = 0; i < m_attributeNames.size(); i++) {
+                int attributeName = m_attributeNames.get(i);
+                dataElement.setAttributeNS(m_dictionary.getNamespace(attributeName), m_dictionary.getName(
+                        attributeName), m_dictionary.getString(m_attributeValues.get(i)));
+            }
+            return dataElement;
+        }
+    }
+
+    /**
+     * A node of a subtree, still encoded in its Base64 segment of the stored string.
+     */
+    private static class Fragment {
+        private final String m_encoded;
+        private final int m_start;
+        private final int m_end;
+        private int m_name;
+        private RootNodeKey m_key;
+
+        Fragment(String encoded, int start, int end) {
+            m_encoded = encoded;
+            m_start = start;
+            m_end = end;
+        }
+
+        static Fragment encode(byte[] bytes) {
+            String encoded = Base64.getEncoder().encodeToString(bytes);
+            return new Fragment(encoded, 0, encoded.length());
+        }
+
+        DataInputStream open() {
+            return new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(m_encoded.substring(
+                    m_start, m_end))));
+        }
+    }
+
+    /**
+     * Identifies a root node of a subtree by its name and the values of its list keys.
+     */
+    private static final class RootNodeKey {
+        private final String m_namespace;
+        private final String m_localName;
+        private final List<String> m_values;
+
+        RootNodeKey(String namespace, String localName, List<String> values) {
+            m_namespace = namespace;
+            m_localName = localName;
+            m_values = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RootNodeKey that = (RootNodeKey) o;
+            return Objects.equals(m_namespace, that.m_namespace) && Objects.equals(m_localName, that.m_localName)
+                    && Objects.equals(m_values, that.m_values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_namespace, m_localName, m_values);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * Calls a getter or a setter of an entity through a function built once, when the entity class is registered in the
+ * {@link EntityRegistry}.
+ *
+ * The function is built by {@link LambdaMetafactory} with a lookup in the class declaring the method, so it is
+ * defined next to the entity class, in its class loader, and calls the method directly: the JIT compiles and inlines
+ * it like any other call, unlike a {@link MethodHandle} held in a field, which it cannot constant fold. The functions
+ * implement {@link Function} and {@link BiConsumer}, which every class loader sees. Unlike
+ * {@link Method#invoke(Object, Object...)}, a call does not allocate an argument array nor check the access to the
+ * method.
+ *
+ * The runtime exceptions and errors thrown by the method are thrown as they are, its checked exceptions are reported
+ * in an {@link InvocationTargetException}. When no such lookup can be made, the method is called through reflection,
+ * with the same exceptions.
+ */
+public final class EntityAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_FACTORY_TYPE = MethodType.methodType(Function.class);
+    private static final MethodType SETTER_FACTORY_TYPE = MethodType.methodType(BiConsumer.class);
+    private static final PrivateLookupFactory LOOKUP_FACTORY = PrivateLookupFactory.create();
+
+    private final Method m_method;
+    private final Function<Object, Object> m_getter;
+    private final BiConsumer<Object, Object> m_setter;
+
+    private EntityAccessor(Method method, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+        m_method = method;
+        m_getter = getter;
+        m_setter = setter;
+    }
+
+    /**
+     * Returns the accessor of a getter, without parameters, or of a setter, with one parameter, null if the method
+     * is null.
+     */
+    @SuppressWarnings("unchecked")
+    public static EntityAccessor forMethod(Method method) {
+        if (method == null) {
+            return null;
+        }
+        int parameterCount = method.getParameterTypes().length;
+        if (!Modifier.isStatic(method.getModifiers()) && parameterCount <= 1) {
+            try {
+                MethodHandles.Lookup lookup = LOOKUP_FACTORY.lookupIn(method.getDeclaringClass());
+                if (lookup != null) {
+                    MethodHandle target = lookup.unreflect(method);
+                    if (parameterCount == 0) {
+                        CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", GETTER_FACTORY_TYPE,
+                                GETTER_TYPE, target, MethodType.methodType(wrap(method.getReturnType()), method
+                                        .getDeclaringClass()));
+                        return new EntityAccessor(method, (Function<Object, Object>) callSite.getTarget()
+                                .invoke(), null);
+                    }
+                    CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", SETTER_FACTORY_TYPE,
+                            SETTER_TYPE, target, MethodType.methodType(void.class, method.getDeclaringClass(),
+                                    wrap(method.getParameterTypes()[0])));
+                    return new EntityAccessor(method, null, (BiConsumer<Object, Object>) callSite.getTarget()
+                            .invoke());
+                }
+            } catch (Throwable t) {
+                // the method is called through reflection instead
+            }
+        }
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException e) {
+            // reflection reports the access error on each call
+        }
+        return new EntityAccessor(method, null, null);
+    }
+
+    /**
+     * Returns the accessors of the given methods, null if the methods are null.
+     */
+    public static Map<QName, EntityAccessor> forMethods(Map<QName, Method> methods) {
+        if (methods == null) {
+            return null;
+        }
+        Map<QName, EntityAccessor> accessors = new HashMap<>();
+        for (Map.Entry<QName, Method> method : methods.entrySet()) {
+            accessors.put(method.getKey(), forMethod(method.getValue()));
+        }
+        return accessors;
+    }
+
+    public Method getMethod() {
+        return m_method;
+    }
+
+    /**
+     * Calls the getter on the entity and returns its value.
+     */
+    public Object get(Object entity) throws IllegalAccessException, InvocationTargetException {
+        if (m_getter == null) {
+            return invoke(entity);
+        }
+        try {
+            return m_getter.apply(entity);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // a checked exception of the getter
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Calls the setter on the entity with the value.
+     */
+    public void set(Object entity, Object value) throws IllegalAccessException, InvocationTargetException {
+        if (m_setter == null) {
+            invoke(entity, value);
+            return;
+        }
+        try {
+            m_setter.accept(entity, value);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // a checked exception of the setter
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private Object invoke(Object entity, Object... arguments) throws IllegalAccessException,
+            InvocationTargetException {
+        try {
+            return m_method.invoke(entity, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityAccessor{" + m_method + "}";
+    }
+
+    /**
+     * Makes lookups with private access in a class, which {@link LambdaMetafactory} requires. Java 9 and later have
+     * MethodHandles.privateLookupIn, Java 8 only has the private constructor of {@link MethodHandles.Lookup}.
+     */
+    private static final class PrivateLookupFactory {
+        // PUBLIC | PRIVATE | PROTECTED | PACKAGE
+        private static final int ALL_MODES = 0xf;
+
+        private final Method m_privateLookupIn;
+        private final Constructor<MethodHandles.Lookup> m_lookupConstructor;
+
+        private PrivateLookupFactory(Method privateLookupIn, Constructor<MethodHandles.Lookup> lookupConstructor) {
+            m_privateLookupIn = privateLookupIn;
+            m_lookupConstructor = lookupConstructor;
+        }
+
+        static PrivateLookupFactory create() {
+            try {
+                return new PrivateLookupFactory(MethodHandles.class.getMethod("privateLookupIn", Class.class,
+                        MethodHandles.Lookup.class), null);
+            } catch (NoSuchMethodException e) {
+                try {
+                    Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class
+                            .getDeclaredConstructor(Class.class, int.class);
+                    constructor.setAccessible(true);
+                    return new PrivateLookupFactory(null, constructor);
+                } catch (NoSuchMethodException | RuntimeException e1) {
+                    return new PrivateLookupFactory(null, null);
+                }
+            }
+        }
+
+        /**
+         * Returns a lookup with private access in the class, null if none can be made.
+         */
+        MethodHandles.Lookup lookupIn(Class<?> klass) throws ReflectiveOperationException {
+            if (m_privateLookupIn != null) {
+                return (MethodHandles.Lookup) m_privateLookupIn.invoke(null, klass, MethodHandles.lookup());
+            }
+            if (m_lookupConstructor != null) {
+                return m_lookupConstructor.newInstance(klass, ALL_MODES);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+/**
+ * How {@link AnnotationBasedModelNodeDataStoreManager} locks the entities it looks up outside of a modification.
+ */
+public enum EntityReadMode {
+
+    /**
+     * Every lookup takes a shared row lock, reads wait for the concurrent edits and block them.
+     */
+    PESSIMISTIC,
+
+    /**
+     * Lookups made outside of {@link AnnotationBasedModelNodeDataStoreManager#beginModify()} and
+     * {@link AnnotationBasedModelNodeDataStoreManager#endModify()} take no row lock. The entities with a JPA
+     * {@link javax.persistence.Version} attribute are read with an optimistic lock, so a transaction reading an entity
+     * that a concurrent edit changed fails on commit. Lookups made during a modification still take row locks.
+     */
+    OPTIMISTIC
+}
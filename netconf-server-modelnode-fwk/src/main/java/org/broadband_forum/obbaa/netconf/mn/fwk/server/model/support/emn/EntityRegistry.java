@@ -116,4 +116,74 @@ public interface EntityRegistry {
 
     Map<QName, Method> getYangAttributeNSSetters(Class klass);
 
+    /*
+     * The accessors below call the registered getters and setters without reflection, they are built when the methods
+     * are registered. The default methods build them from the registered methods on each call, for the registries
+     * that do not keep them.
+     */
+
+    default Map<QName, EntityAccessor> getAttributeGetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getAttributeGetters(klass));
+    }
+
+    default Map<QName, EntityAccessor> getAttributeSetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getAttributeSetters(klass));
+    }
+
+    default EntityAccessor getParentIdGetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getParentIdGetter(klass));
+    }
+
+    default EntityAccessor getParentIdSetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getParentIdSetter(klass));
+    }
+
+    default EntityAccessor getSchemaPathGetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getSchemaPathGetter(klass));
+    }
+
+    default EntityAccessor getSchemaPathSetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getSchemaPathSetter(klass));
+    }
+
+    default Map<QName, EntityAccessor> getYangChildGetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getYangChildGetters(klass));
+    }
+
+    default Map<QName, EntityAccessor> getYangChildSetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getYangChildSetters(klass));
+    }
+
+    default EntityAccessor getYangXmlSubtreeGetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getYangXmlSubtreeGetter(klass));
+    }
+
+    default EntityAccessor getYangXmlSubtreeSetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getYangXmlSubtreeSetter(klass));
+    }
+
+    default Map<QName, EntityAccessor> getYangLeafListGetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getYangLeafListGetters(klass));
+    }
+
+    default Map<QName, EntityAccessor> getYangLeafListSetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getYangLeafListSetters(klass));
+    }
+
+    default EntityAccessor getOrderByUserGetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getOrderByUserGetter(klass));
+    }
+
+    default EntityAccessor getOrderByUserSetterAccessor(Class klass) {
+        return EntityAccessor.forMethod(getOrderByUserSetter(klass));
+    }
+
+    default Map<QName, EntityAccessor> getYangAttributeNSGetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getYangAttributeNSGetters(klass));
+    }
+
+    default Map<QName, EntityAccessor> getYangAttributeNSSetterAccessors(Class klass) {
+        return EntityAccessor.forMethods(getYangAttributeNSSetters(klass));
+    }
+
 }
@@ -33,6 +33,7 @@ import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.model.api.SchemaPath;
 
 import org.broadband_forum.obbaa.netconf.persistence.EntityDataStoreManager;
+import org.broadband_forum.obbaa.netconf.persistence.jpa.AbstractEntityDataStoreManager;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
 import org.broadband_forum.obbaa.netconf.stack.api.annotations.YangOrderByUser;
 import org.broadband_forum.obbaa.netconf.stack.api.annotations.YangParentId;
@@ -65,6 +66,30 @@ public class EntityRegistryImpl implements EntityRegistry {
     private final ConcurrentHashMap<Class, Map<QName, Method>> m_yangLeafListSetters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Class, Method> m_orderByUserGetters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Class, Method> m_orderByUserSetters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_configAttributeGetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_configAttributeSetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_yangAttributeNSGetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_yangAttributeNSSetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_yangChildGetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_yangChildSetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_yangLeafListGetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, Map<QName, EntityAccessor>> m_yangLeafListSetterAccessors = new
+            ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_yangXmlSubtreeGetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_yangXmlSubtreeSetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_schemaPathGetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_schemaPathSetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_parentIdGetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_parentIdSetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_orderByUserGetterAccessors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class, EntityAccessor> m_orderByUserSetterAccessors = new ConcurrentHashMap<>();
 
     private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(EntityRegistryImpl.class,
             "netconf-server-datastore", "DEBUG", "GLOBAL");
@@ -115,6 +140,7 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingGetters = m_configAttributeGetters.get(klass);
         }
         existingGetters.putAll(configAttributeGetters);
+        addAccessors(m_configAttributeGetterAccessors, klass, configAttributeGetters);
 
         Map<QName, String> existingFieldNamesMap = m_fieldNames.get(klass);
         if (existingFieldNamesMap == null) {
@@ -145,8 +171,10 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingSetters = m_configAttributeSetters.get(klass);
         }
         existingSetters.putAll(configAttributeSetters);
+        addAccessors(m_configAttributeSetterAccessors, klass, configAttributeSetters);
 
         m_parentIdSetters.put(klass, parentIdSetter);
+        addAccessor(m_parentIdSetterAccessors, klass, parentIdSetter);
     }
 
     @Override
@@ -162,6 +190,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     @Override
     public void addParentIdGetter(Class subrootClass, Method parentIdGetter) {
         m_parentIdGetters.put(subrootClass, parentIdGetter);
+        addAccessor(m_parentIdGetterAccessors, subrootClass, parentIdGetter);
     }
 
     public Method getParentIdGetter(Class klass) {
@@ -171,6 +200,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     @Override
     public void addYangSchemaPathGetter(Class subrootClass, Method schemaPathGetter) {
         m_schemaPathGetters.put(subrootClass, schemaPathGetter);
+        addAccessor(m_schemaPathGetterAccessors, subrootClass, schemaPathGetter);
     }
 
     public Method getSchemaPathGetter(Class klass) {
@@ -180,6 +210,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     @Override
     public void addYangSchemaPathSetter(Class subrootClass, Method schemaPathSetter) {
         m_schemaPathSetters.put(subrootClass, schemaPathSetter);
+        addAccessor(m_schemaPathSetterAccessors, subrootClass, schemaPathSetter);
     }
 
     @Override
@@ -191,6 +222,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     public void addOrderByUserGetter(Class subrootClass, Method schemaPathGetter) {
         if (schemaPathGetter != null) {
             m_orderByUserGetters.put(subrootClass, schemaPathGetter);
+            addAccessor(m_orderByUserGetterAccessors, subrootClass, schemaPathGetter);
         }
     }
 
@@ -202,6 +234,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     public void addOrderByUserSetter(Class subrootClass, Method schemaPathSetter) {
         if (schemaPathSetter != null) {
             m_orderByUserSetters.put(subrootClass, schemaPathSetter);
+            addAccessor(m_orderByUserSetterAccessors, subrootClass, schemaPathSetter);
         }
     }
 
@@ -219,6 +252,7 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingGetters = m_yangChildGetters.get(subrootClass);
         }
         existingGetters.putAll(yangChildGetters);
+        addAccessors(m_yangChildGetterAccessors, subrootClass, yangChildGetters);
     }
 
     @Override
@@ -235,6 +269,7 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingSetters = m_yangChildSetters.get(subrootClass);
         }
         existingSetters.putAll(yangChildSetters);
+        addAccessors(m_yangChildSetterAccessors, subrootClass, yangChildSetters);
     }
 
     @Override
@@ -245,6 +280,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     @Override
     public void addYangXmlSubtreeGetter(Class klass, Method yangXmlSubtreeGetter) {
         m_yangXmlSubtreeGetter.put(klass, yangXmlSubtreeGetter);
+        addAccessor(m_yangXmlSubtreeGetterAccessors, klass, yangXmlSubtreeGetter);
     }
 
     @Override
@@ -255,6 +291,7 @@ public class EntityRegistryImpl implements EntityRegistry {
     @Override
     public void addYangXmlSubtreeSetter(Class klass, Method yangXmlSubtreeSetter) {
         m_yangXmlSubtreeSetter.put(klass, yangXmlSubtreeSetter);
+        addAccessor(m_yangXmlSubtreeSetterAccessors, klass, yangXmlSubtreeSetter);
     }
 
     @Override
@@ -271,6 +308,7 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingGetters = m_yangLeafListGetters.get(subrootClass);
         }
         existingGetters.putAll(yangLeafListGetters);
+        addAccessors(m_yangLeafListGetterAccessors, subrootClass, yangLeafListGetters);
     }
 
     @Override
@@ -287,6 +325,7 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingSetters = m_yangLeafListSetters.get(subrootClass);
         }
         existingSetters.putAll(yangLeafListSetters);
+        addAccessors(m_yangLeafListSetterAccessors, subrootClass, yangLeafListSetters);
     }
 
     @Override
@@ -313,6 +352,23 @@ public class EntityRegistryImpl implements EntityRegistry {
             m_yangLeafListGetters.keySet().removeAll(classSet);
             m_yangLeafListSetters.keySet().removeAll(classSet);
             m_fieldNames.keySet().removeAll(classSet);
+            m_configAttributeGetterAccessors.keySet().removeAll(classSet);
+            m_configAttributeSetterAccessors.keySet().removeAll(classSet);
+            m_yangAttributeNSGetterAccessors.keySet().removeAll(classSet);
+            m_yangAttributeNSSetterAccessors.keySet().removeAll(classSet);
+            m_yangChildGetterAccessors.keySet().removeAll(classSet);
+            m_yangChildSetterAccessors.keySet().removeAll(classSet);
+            m_yangLeafListGetterAccessors.keySet().removeAll(classSet);
+            m_yangLeafListSetterAccessors.keySet().removeAll(classSet);
+            m_yangXmlSubtreeGetterAccessors.keySet().removeAll(classSet);
+            m_yangXmlSubtreeSetterAccessors.keySet().removeAll(classSet);
+            m_schemaPathGetterAccessors.keySet().removeAll(classSet);
+            m_schemaPathSetterAccessors.keySet().removeAll(classSet);
+            m_parentIdGetterAccessors.keySet().removeAll(classSet);
+            m_parentIdSetterAccessors.keySet().removeAll(classSet);
+            m_orderByUserGetterAccessors.keySet().removeAll(classSet);
+            m_orderByUserSetterAccessors.keySet().removeAll(classSet);
+            AbstractEntityDataStoreManager.removeCachedQueries(classSet);
         }
         List<Map<SchemaPath, Class>> schemaPathsFromComponent = m_schemaPathsFromComponent.get(componentId);
         if (schemaPathsFromComponent != null) {
@@ -386,6 +442,7 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingGetters = m_yangAttributeNSGetters.get(klass);
         }
         existingGetters.putAll(yangAttributeNSGetters);
+        addAccessors(m_yangAttributeNSGetterAccessors, klass, yangAttributeNSGetters);
     }
 
     @Override
@@ -402,10 +459,110 @@ public class EntityRegistryImpl implements EntityRegistry {
             existingSetters = m_yangAttributeNSSetters.get(klass);
         }
         existingSetters.putAll(yangAttributeNSSetters);
+        addAccessors(m_yangAttributeNSSetterAccessors, klass, yangAttributeNSSetters);
     }
 
     @Override
     public Map<QName, Method> getYangAttributeNSSetters(Class klass) {
         return m_yangAttributeNSSetters.get(klass);
     }
+
+    @Override
+    public Map<QName, EntityAccessor> getAttributeGetterAccessors(Class klass) {
+        return m_configAttributeGetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getAttributeSetterAccessors(Class klass) {
+        return m_configAttributeSetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getParentIdGetterAccessor(Class klass) {
+        return m_parentIdGetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getParentIdSetterAccessor(Class klass) {
+        return m_parentIdSetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getSchemaPathGetterAccessor(Class klass) {
+        return m_schemaPathGetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getSchemaPathSetterAccessor(Class klass) {
+        return m_schemaPathSetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getYangChildGetterAccessors(Class klass) {
+        return m_yangChildGetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getYangChildSetterAccessors(Class klass) {
+        return m_yangChildSetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getYangXmlSubtreeGetterAccessor(Class klass) {
+        return m_yangXmlSubtreeGetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getYangXmlSubtreeSetterAccessor(Class klass) {
+        return m_yangXmlSubtreeSetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getYangLeafListGetterAccessors(Class klass) {
+        return m_yangLeafListGetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getYangLeafListSetterAccessors(Class klass) {
+        return m_yangLeafListSetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getOrderByUserGetterAccessor(Class klass) {
+        return m_orderByUserGetterAccessors.get(klass);
+    }
+
+    @Override
+    public EntityAccessor getOrderByUserSetterAccessor(Class klass) {
+        return m_orderByUserSetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getYangAttributeNSGetterAccessors(Class klass) {
+        return m_yangAttributeNSGetterAccessors.get(klass);
+    }
+
+    @Override
+    public Map<QName, EntityAccessor> getYangAttributeNSSetterAccessors(Class klass) {
+        return m_yangAttributeNSSetterAccessors.get(klass);
+    }
+
+    private void addAccessors(ConcurrentHashMap<Class, Map<QName, EntityAccessor>> accessors, Class klass, Map<QName,
+            Method> methods) {
+        Map<QName, EntityAccessor> existingAccessors = accessors.get(klass);
+        if (existingAccessors == null) {
+            existingAccessors = new HashMap<>();
+            accessors.putIfAbsent(klass, existingAccessors);
+            existingAccessors = accessors.get(klass);
+        }
+        existingAccessors.putAll(EntityAccessor.forMethods(methods));
+    }
+
+    private void addAccessor(Map<Class, EntityAccessor> accessors, Class klass, Method method) {
+        if (method != null) {
+            accessors.put(klass, EntityAccessor.forMethod(method));
+        } else {
+            accessors.remove(klass);
+        }
+    }
 }
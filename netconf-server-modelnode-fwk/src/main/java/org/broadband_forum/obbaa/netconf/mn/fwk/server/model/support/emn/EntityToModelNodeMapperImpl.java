@@ -33,7 +33,6 @@ import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.SchemaPath;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -67,10 +66,10 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
         Class<?> klass = getEntityClass(entityObject);
         SchemaPath parentSchemaPath = null;
         try {
-            Method parentIdMethod = m_entityRegistry.getParentIdGetter(klass);
-            String parentIdStr = (String) parentIdMethod.invoke(entityObject);
-            Method schemaPathMethod = m_entityRegistry.getSchemaPathGetter(klass);
-            schemaPath = SchemaPathUtil.fromString((String) schemaPathMethod.invoke(entityObject));
+            EntityAccessor parentIdGetter = m_entityRegistry.getParentIdGetterAccessor(klass);
+            String parentIdStr = (String) parentIdGetter.get(entityObject);
+            EntityAccessor schemaPathGetter = m_entityRegistry.getSchemaPathGetterAccessor(klass);
+            schemaPath = SchemaPathUtil.fromString((String) schemaPathGetter.get(entityObject));
             if (parentIdStr != null) {
                 parentId = new ModelNodeId(parentIdStr, m_entityRegistry.getQName(klass)
                         .getNamespace().toString());
@@ -91,17 +90,17 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
         ModelNodeWithAttributes node = new ModelNodeWithAttributes(schemaPath,
                 parentId, m_modelNodeHelperRegistry, m_subsystemRegistry, m_schemaRegistry, modelNodeDSM);
         // Set the config attributes
-        Map<QName, Method> attributeGetters = m_entityRegistry.getAttributeGetters(klass);
-        Map<QName, Method> attributeNSGetters = m_entityRegistry.getYangAttributeNSGetters(klass);
+        Map<QName, EntityAccessor> attributeGetters = m_entityRegistry.getAttributeGetterAccessors(klass);
+        Map<QName, EntityAccessor> attributeNSGetters = m_entityRegistry.getYangAttributeNSGetterAccessors(klass);
         Map<QName, ConfigLeafAttribute> configValues = new HashMap<>();
-        for (Map.Entry<QName, Method> attributeGetter : attributeGetters.entrySet()) {
+        for (Map.Entry<QName, EntityAccessor> attributeGetter : attributeGetters.entrySet()) {
             try {
-                String value = (String) attributeGetter.getValue().invoke(entityObject);
+                String value = (String) attributeGetter.getValue().get(entityObject);
                 if (value != null) {
-                    Method identityRefNSGetter = attributeNSGetters.get(attributeGetter.getKey());
+                    EntityAccessor identityRefNSGetter = attributeNSGetters.get(attributeGetter.getKey());
                     ConfigLeafAttribute configLeafAttribute;
                     if (identityRefNSGetter != null) {
-                        String namespace = (String) identityRefNSGetter.invoke(entityObject);
+                        String namespace = (String) identityRefNSGetter.get(entityObject);
                         configLeafAttribute = ConfigAttributeFactory.getConfigAttributeFromEntity(m_schemaRegistry,
                                 schemaPath, namespace,
                                 attributeGetter.getKey(), value);
@@ -118,12 +117,12 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
         }
         node.setAttributes(configValues);
         // Set the config leafLists
-        Map<QName, Method> leafListGetters = m_entityRegistry.getYangLeafListGetters(klass);
+        Map<QName, EntityAccessor> leafListGetters = m_entityRegistry.getYangLeafListGetterAccessors(klass);
         Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new HashMap<>();
-        for (Map.Entry<QName, Method> leafListGetter : leafListGetters.entrySet()) {
+        for (Map.Entry<QName, EntityAccessor> leafListGetter : leafListGetters.entrySet()) {
             Set<Object> values;
             try {
-                values = (Set<Object>) leafListGetter.getValue().invoke(entityObject);
+                values = (Set<Object>) leafListGetter.getValue().get(entityObject);
                 if (values != null && !values.isEmpty()) {
                     QName leafListQName = leafListGetter.getKey();
                     LinkedHashSet<ConfigLeafAttribute> leafList = new LinkedHashSet<>();
@@ -133,17 +132,17 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
                         Object leafListEntity = iterator.next();
                         Class<?> leafListKlass = getEntityClass(leafListEntity);
                         if (leafListKlass != null) {
-                            Map<QName, Method> leafListEntityAttrGetters = m_entityRegistry.getAttributeGetters
-                                    (leafListKlass);
-                            Method attributeGetter = leafListEntityAttrGetters.get(leafListQName);
-                            String leafListStringValue = (String) attributeGetter.invoke(leafListEntity);
+                            Map<QName, EntityAccessor> leafListEntityAttrGetters = m_entityRegistry
+                                    .getAttributeGetterAccessors(leafListKlass);
+                            EntityAccessor attributeGetter = leafListEntityAttrGetters.get(leafListQName);
+                            String leafListStringValue = (String) attributeGetter.get(leafListEntity);
 
-                            Map<QName, Method> leafListEntityAttrNsGetters = m_entityRegistry
-                                    .getYangAttributeNSGetters(leafListKlass);
-                            Method identityRefNSGetter = leafListEntityAttrNsGetters.get(leafListQName);
+                            Map<QName, EntityAccessor> leafListEntityAttrNsGetters = m_entityRegistry
+                                    .getYangAttributeNSGetterAccessors(leafListKlass);
+                            EntityAccessor identityRefNSGetter = leafListEntityAttrNsGetters.get(leafListQName);
 
                             if (identityRefNSGetter != null) {
-                                String leafListStringNsValue = (String) identityRefNSGetter.invoke(leafListEntity);
+                                String leafListStringNsValue = (String) identityRefNSGetter.get(leafListEntity);
                                 ConfigLeafAttribute configLeafAttribute = ConfigAttributeFactory
                                         .getConfigAttributeFromEntity(m_schemaRegistry,
                                         parentSchemaPath, leafListStringNsValue, leafListQName, leafListStringValue);
@@ -171,44 +170,44 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
             ModelNodeWithAttributes node = (ModelNodeWithAttributes) modelNode;
             Map<QName, ConfigLeafAttribute> configValues = node.getAttributes();
             // Set config attributes
-            Map<QName, Method> attributeSetters = m_entityRegistry.getAttributeSetters(klass);
-            for (Map.Entry<QName, Method> configAttribute : attributeSetters.entrySet()) {
+            Map<QName, EntityAccessor> attributeSetters = m_entityRegistry.getAttributeSetterAccessors(klass);
+            for (Map.Entry<QName, EntityAccessor> configAttribute : attributeSetters.entrySet()) {
                 ConfigLeafAttribute configLeafAttribute = configValues.get(configAttribute.getKey());
                 if (configLeafAttribute != null) {
-                    configAttribute.getValue().invoke(entity, configLeafAttribute.getStringValue());
+                    configAttribute.getValue().set(entity, configLeafAttribute.getStringValue());
                 } else {
-                    configAttribute.getValue().invoke(entity, (String) null);
+                    configAttribute.getValue().set(entity, null);
                 }
             }
 
-            Map<QName, Method> attributeNSSetters = m_entityRegistry.getYangAttributeNSSetters(klass);
-            for (Map.Entry<QName, Method> identityRefNSSetter : attributeNSSetters.entrySet()) {
+            Map<QName, EntityAccessor> attributeNSSetters = m_entityRegistry.getYangAttributeNSSetterAccessors(klass);
+            for (Map.Entry<QName, EntityAccessor> identityRefNSSetter : attributeNSSetters.entrySet()) {
                 ConfigLeafAttribute configLeafAttribute = configValues.get(identityRefNSSetter.getKey());
                 if (configLeafAttribute != null) {
-                    identityRefNSSetter.getValue().invoke(entity, configLeafAttribute.getNamespace());
+                    identityRefNSSetter.getValue().set(entity, configLeafAttribute.getNamespace());
 
                 }
             }
             // Set Parent id and schema Path
-            Method schemaPathSetter = m_entityRegistry.getSchemaPathSetter(klass);
-            schemaPathSetter.invoke(entity, SchemaPathUtil.toString(nodeSchemaPath));
-            Method parentIdSetter = m_entityRegistry.getParentIdSetter(klass);
-            parentIdSetter.invoke(entity, parentId.getModelNodeIdAsString());
+            EntityAccessor schemaPathSetter = m_entityRegistry.getSchemaPathSetterAccessor(klass);
+            schemaPathSetter.set(entity, SchemaPathUtil.toString(nodeSchemaPath));
+            EntityAccessor parentIdSetter = m_entityRegistry.getParentIdSetterAccessor(klass);
+            parentIdSetter.set(entity, parentId.getModelNodeIdAsString());
 
             // Set Leaflist attributes
-            Map<QName, Method> leafListGetters = m_entityRegistry.getYangLeafListGetters(klass);
-            for (Map.Entry<QName, Method> leafListQNameGetterEntry : leafListGetters.entrySet()) {
+            Map<QName, EntityAccessor> leafListGetters = m_entityRegistry.getYangLeafListGetterAccessors(klass);
+            for (Map.Entry<QName, EntityAccessor> leafListQNameGetterEntry : leafListGetters.entrySet()) {
                 QName leafListQName = leafListQNameGetterEntry.getKey();
                 Set<ConfigLeafAttribute> values = ((ModelNodeWithAttributes) modelNode).getLeafList(leafListQName);
                 if (values != null && !values.isEmpty()) {
                     Collection<Object> updatedEntities = buildLeafListEntities(leafListQName, modelNode, values);
-                    ((Collection) leafListQNameGetterEntry.getValue().invoke(entity)).addAll(updatedEntities);
+                    ((Collection) leafListQNameGetterEntry.getValue().get(entity)).addAll(updatedEntities);
                 }
             }
 
             if (insertIndex != -1) {
-                Method orderByUserSetter = m_entityRegistry.getOrderByUserSetter(klass);
-                orderByUserSetter.invoke(entity, insertIndex);
+                EntityAccessor orderByUserSetter = m_entityRegistry.getOrderByUserSetterAccessor(klass);
+                orderByUserSetter.set(entity, insertIndex);
             }
         } catch (InvocationTargetException | IllegalAccessException e) {
             throw new RuntimeException(e);
@@ -230,20 +229,21 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
             Object leafListEntity;
             try {
                 leafListEntity = leafListKlass.newInstance();
-                Method schemaPathSetter = m_entityRegistry.getSchemaPathSetter(leafListKlass);
-                schemaPathSetter.invoke(leafListEntity, SchemaPathUtil.toString(parentSchemaPath));
-                Method parentIdSetter = m_entityRegistry.getParentIdSetter(leafListKlass);
-                parentIdSetter.invoke(leafListEntity, parentModelNode.getModelNodeId().getModelNodeIdAsString());
+                EntityAccessor schemaPathSetter = m_entityRegistry.getSchemaPathSetterAccessor(leafListKlass);
+                schemaPathSetter.set(leafListEntity, SchemaPathUtil.toString(parentSchemaPath));
+                EntityAccessor parentIdSetter = m_entityRegistry.getParentIdSetterAccessor(leafListKlass);
+                parentIdSetter.set(leafListEntity, parentModelNode.getModelNodeId().getModelNodeIdAsString());
 
-                Map<QName, Method> attributeSetters = m_entityRegistry.getAttributeSetters(leafListKlass);
-                Method attributeSetter = attributeSetters.get(leafListQName);
+                Map<QName, EntityAccessor> attributeSetters = m_entityRegistry.getAttributeSetterAccessors(
+                        leafListKlass);
+                EntityAccessor attributeSetter = attributeSetters.get(leafListQName);
                 if (attributeSetter != null) {
-                    attributeSetter.invoke(leafListEntity, configLeafAttribute.getStringValue());
+                    attributeSetter.set(leafListEntity, configLeafAttribute.getStringValue());
 
-                    Method attributeNsSetter = m_entityRegistry.getYangAttributeNSSetters(leafListKlass).get
-                            (leafListQName);
+                    EntityAccessor attributeNsSetter = m_entityRegistry.getYangAttributeNSSetterAccessors(
+                            leafListKlass).get(leafListQName);
                     if (attributeNsSetter != null) {
-                        attributeNsSetter.invoke(leafListEntity, configLeafAttribute.getNamespace());
+                        attributeNsSetter.set(leafListEntity, configLeafAttribute.getNamespace());
                     }
                 }
             } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
@@ -272,11 +272,11 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
     public Collection<Object> getChildEntities(Object parentEntityObj, QName childQname) {
         try {
             Class<?> entityClass = getEntityClass(parentEntityObj);
-            Map<QName, Method> childGetters = m_entityRegistry.getYangChildGetters(entityClass);
+            Map<QName, EntityAccessor> childGetters = m_entityRegistry.getYangChildGetterAccessors(entityClass);
             if (childGetters != null && !childGetters.isEmpty()) {
-                Method childGetter = childGetters.get(childQname);
+                EntityAccessor childGetter = childGetters.get(childQname);
                 if (childGetter != null) {
-                    return (Collection<Object>) childGetter.invoke(parentEntityObj);
+                    return (Collection<Object>) childGetter.get(parentEntityObj);
                 }
             }
         } catch (IllegalAccessException | InvocationTargetException e) {
@@ -288,10 +288,10 @@ public class EntityToModelNodeMapperImpl implements EntityToModelNodeMapper {
     @Override
     public void clearLeafLists(Object entity, Set<QName> qNames) {
         Class<?> klass = getEntityClass(entity);
-        Map<QName, Method> leafListGetters = m_entityRegistry.getYangLeafListGetters(klass);
+        Map<QName, EntityAccessor> leafListGetters = m_entityRegistry.getYangLeafListGetterAccessors(klass);
         for (QName qName : qNames) {
             try {
-                Collection leafListValues = (Collection) leafListGetters.get(qName).invoke(entity);
+                Collection leafListValues = (Collection) leafListGetters.get(qName).get(entity);
                 leafListValues.clear();
             } catch (IllegalAccessException | InvocationTargetException e) {
                 throw new RuntimeException(e);
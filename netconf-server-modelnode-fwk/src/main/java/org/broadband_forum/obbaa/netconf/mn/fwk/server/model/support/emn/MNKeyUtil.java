@@ -24,6 +24,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeRdn;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKeyBuilder;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
@@ -185,6 +186,18 @@ public class MNKeyUtil {
     }
 
 
+    /**
+     * Returns the value of a leaf as it is compared: an identityref is compared by the namespace and the name of its
+     * identity, whatever the prefix it was written with, the other values as they are.
+     */
+    public static String getComparableValue(ConfigLeafAttribute attribute) {
+        String value = attribute.getStringValue();
+        if (attribute instanceof IdentityRefConfigAttribute && attribute.getNamespace() != null) {
+            return "{" + attribute.getNamespace() + "}" + value.substring(value.indexOf(':') + 1);
+        }
+        return value;
+    }
+
     /**
      * Returns true of the ModelNode matches the given criteria, false otherwise.
      *
@@ -206,8 +219,14 @@ public class MNKeyUtil {
             DataSchemaNode schemaNode = schemaRegistry.getDataSchemaNode(nodeSchemaPath);
             if (schemaNode instanceof LeafSchemaNode) {
                 Map<QName, ConfigLeafAttribute> configAttributes = modelNode.getAttributes();
-                if (configAttributes.get(attributeQName) != null) {
-                    if (!configAttributes.get(attributeQName).getStringValue().equals(expectedValue)) {
+                ConfigLeafAttribute attribute = configAttributes.get(attributeQName);
+                if (attribute != null) {
+                    if (attribute instanceof IdentityRefConfigAttribute && entry.getValue() instanceof
+                            IdentityRefConfigAttribute) {
+                        if (!getComparableValue(attribute).equals(getComparableValue(entry.getValue()))) {
+                            return false;
+                        }
+                    } else if (!attribute.getStringValue().equals(expectedValue)) {
                         return false;
                     }
                 } else if (expectedValue != null) {
@@ -16,10 +16,7 @@
 
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
 
-import static org.broadband_forum.obbaa.netconf.api.util.DocumentUtils.stringToDocument;
-
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -54,7 +51,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
-import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
 import org.broadband_forum.obbaa.netconf.api.util.SchemaPathUtil;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
@@ -72,6 +68,7 @@ public class XmlModelNodeToXmlMapperImpl implements XmlModelNodeToXmlMapper {
 
     private final ModelNodeHelperRegistry m_modelNodeHelperRegistry;
     private final XmlDSMCache m_dsmCache;
+    private final XmlSubtreeCache m_xmlSubtreeCache;
     private SchemaRegistry m_schemaRegistry;
     private SubSystemRegistry m_subSystemRegistry;
     private EntityRegistry m_entityRegistry;
@@ -83,6 +80,14 @@ public class XmlModelNodeToXmlMapperImpl implements XmlModelNodeToXmlMapper {
 
     public XmlModelNodeToXmlMapperImpl(XmlDSMCache dsmCache, SchemaRegistry schemaRegistry, ModelNodeHelperRegistry
             modelNodeHelperRegistry, SubSystemRegistry subsystemRegistry, EntityRegistry entityRegistry) {
+        this(dsmCache, schemaRegistry, modelNodeHelperRegistry, subsystemRegistry, entityRegistry, new
+                XmlSubtreeCache(new XmlStringSubtreeCodec(schemaRegistry)));
+    }
+
+    public XmlModelNodeToXmlMapperImpl(XmlDSMCache dsmCache, SchemaRegistry schemaRegistry, ModelNodeHelperRegistry
+            modelNodeHelperRegistry, SubSystemRegistry subsystemRegistry, EntityRegistry entityRegistry,
+                                       XmlSubtreeCache xmlSubtreeCache) {
+        m_xmlSubtreeCache = xmlSubtreeCache;
         m_schemaRegistry = schemaRegistry;
         m_modelNodeHelperRegistry = modelNodeHelperRegistry;
         m_subSystemRegistry = subsystemRegistry;
@@ -236,10 +241,10 @@ public class XmlModelNodeToXmlMapperImpl implements XmlModelNodeToXmlMapper {
         try {
             //Get parentId and Schemapath
             Class<?> klass = getEntityClass(entity);
-            Method parentIdMethod = m_entityRegistry.getParentIdGetter(klass);
-            String parentIdStr = (String) parentIdMethod.invoke(entity);
-            Method schemaPathMethod = m_entityRegistry.getSchemaPathGetter(klass);
-            schemaPath = SchemaPathUtil.fromString((String) schemaPathMethod.invoke(entity));
+            EntityAccessor parentIdGetter = m_entityRegistry.getParentIdGetterAccessor(klass);
+            String parentIdStr = (String) parentIdGetter.get(entity);
+            EntityAccessor schemaPathGetter = m_entityRegistry.getSchemaPathGetterAccessor(klass);
+            schemaPath = SchemaPathUtil.fromString((String) schemaPathGetter.get(entity));
             if (parentIdStr != null) {
                 parentId = new ModelNodeId(parentIdStr, m_entityRegistry.getQName(klass)
                         .getNamespace().toString());
@@ -254,23 +259,19 @@ public class XmlModelNodeToXmlMapperImpl implements XmlModelNodeToXmlMapper {
             }
             Map<QName, List<Object>> leafListAttrs = new HashMap<>();
             //Get leafList attributes
-            Map<QName, Method> leafListGetters = m_entityRegistry.getYangLeafListGetters(klass);
-            for (Map.Entry<QName, Method> getter : leafListGetters.entrySet()) {
-                List<Object> values = (List<Object>) getter.getValue().invoke(entity);
+            Map<QName, EntityAccessor> leafListGetters = m_entityRegistry.getYangLeafListGetterAccessors(klass);
+            for (Map.Entry<QName, EntityAccessor> getter : leafListGetters.entrySet()) {
+                List<Object> values = (List<Object>) getter.getValue().get(entity);
                 leafListAttrs.put(getter.getKey(), values);
             }
 
             // Get XmlSubtree
-            Method yangXmlSubtreeGetter = m_entityRegistry.getYangXmlSubtreeGetter(klass);
-            String xmlSubtree = (String) yangXmlSubtreeGetter.invoke(entity);
+            EntityAccessor yangXmlSubtreeGetter = m_entityRegistry.getYangXmlSubtreeGetterAccessor(klass);
+            String xmlSubtree = (String) yangXmlSubtreeGetter.get(entity);
 
             if (xmlSubtree != null && !xmlSubtree.isEmpty()) {
-                Collection<Element> rootElements = getChildElements(stringToDocument(xmlSubtree));
-                List<Element> childElements = new ArrayList<>();
-                for (Element element : rootElements) {
-                    Collection<Element> children = getChildElements(element);
-                    childElements.addAll(children);
-                }
+                List<Element> childElements = getChildElements(m_xmlSubtreeCache.decode(klass, nodeId,
+                        xmlSubtree));
                 Collection<DataSchemaNode> dataSchemaNodes = m_schemaRegistry.getChildren(schemaPath);
 
                 for (Element childElement : childElements) {
@@ -287,7 +288,7 @@ public class XmlModelNodeToXmlMapperImpl implements XmlModelNodeToXmlMapper {
                     }
                 }
             }
-        } catch (InvocationTargetException | IllegalAccessException | NetconfMessageBuilderException e) {
+        } catch (InvocationTargetException | IllegalAccessException e) {
             LOGGER.error("Error while getting model node", e);
             throw new RuntimeException("Error while getting model node", e);
         }
@@ -372,16 +373,16 @@ public class XmlModelNodeToXmlMapperImpl implements XmlModelNodeToXmlMapper {
             IllegalAccessException, InvocationTargetException {
         Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>();
         //Get attributes
-        Map<QName, Method> attributeGetters = entityRegistry.getAttributeGetters(klass);
-        Map<QName, Method> attributeNSGetters = entityRegistry.getYangAttributeNSGetters(klass);
+        Map<QName, EntityAccessor> attributeGetters = entityRegistry.getAttributeGetterAccessors(klass);
+        Map<QName, EntityAccessor> attributeNSGetters = entityRegistry.getYangAttributeNSGetterAccessors(klass);
 
-        for (Map.Entry<QName, Method> attributeGetter : attributeGetters.entrySet()) {
-            String value = (String) attributeGetter.getValue().invoke(entity);
+        for (Map.Entry<QName, EntityAccessor> attributeGetter : attributeGetters.entrySet()) {
+            String value = (String) attributeGetter.getValue().get(entity);
             if (value != null) {
-                Method identityRefNSGetter = attributeNSGetters.get(attributeGetter.getKey());
+                EntityAccessor identityRefNSGetter = attributeNSGetters.get(attributeGetter.getKey());
                 ConfigLeafAttribute configLeafAttribute;
                 if (identityRefNSGetter != null) {
-                    String namespace = (String) identityRefNSGetter.invoke(entity);
+                    String namespace = (String) identityRefNSGetter.get(entity);
                     configLeafAttribute = ConfigAttributeFactory.getConfigAttributeFromEntity(schemaRegistry,
                             schemaPath, namespace,
                             attributeGetter.getKey(), value);
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import static org.broadband_forum.obbaa.netconf.api.util.DocumentUtils.documentToPrettyString;
+import static org.broadband_forum.obbaa.netconf.api.util.DocumentUtils.stringToDocument;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.XmlModelNodeToXmlMapper.nodesMatch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
+import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigAttributeFactory;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InvalidIdentityRefException;
+
+/**
+ * Stores XML subtrees as pretty printed XML strings, the default format of {@link XmlSubtreeDSM}.
+ */
+public class XmlStringSubtreeCodec implements XmlSubtreeCodec {
+
+    private final SchemaRegistry m_schemaRegistry;
+
+    public XmlStringSubtreeCodec(SchemaRegistry schemaRegistry) {
+        m_schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public Element decode(String storedSubtree) throws DataStoreException {
+        if (storedSubtree == null || storedSubtree.isEmpty()) {
+            return null;
+        }
+        try {
+            return stringToDocument(storedSubtree).getDocumentElement();
+        } catch (NetconfMessageBuilderException e) {
+            throw new DataStoreException("Error while parsing the stored XML subtree", e);
+        }
+    }
+
+    @Override
+    public String encode(Element node) throws DataStoreException {
+        try {
+            return documentToPrettyString(node);
+        } catch (NetconfMessageBuilderException e) {
+            throw new DataStoreException("Error while serializing the XML subtree", e);
+        }
+    }
+
+    @Override
+    public String replaceRootNode(String storedSubtree, SchemaPath nodeType, Map<QName, ConfigLeafAttribute> keys,
+                                  Element node) throws DataStoreException {
+        Element dataElement = decode(storedSubtree);
+        if (dataElement != null) {
+            try {
+                appendXmlValue(dataElement, m_schemaRegistry.getDataSchemaNode(nodeType), node, keys);
+            } catch (InvalidIdentityRefException e) {
+                throw new DataStoreException("Error while replacing the node in the stored XML subtree", e);
+            }
+        } else {
+            Document ownerDocument = node.getOwnerDocument();
+            dataElement = ownerDocument.createElementNS(NetconfResources.NETCONF_RPC_NS_1_0, NetconfResources
+                    .RPC_REPLY_DATA);
+            dataElement.appendChild(node);
+        }
+        return encode(dataElement);
+    }
+
+    private void appendXmlValue(Element dataElement, DataSchemaNode dataSchemaNode, Element xmlValue, Map<QName,
+            ConfigLeafAttribute> keyAttributesFromNode) throws InvalidIdentityRefException {
+
+        Document ownerDocument = dataElement.getOwnerDocument();
+        boolean appended = false;
+        if (dataSchemaNode instanceof ListSchemaNode) {
+            ListSchemaNode listSchemaNode = (ListSchemaNode) dataSchemaNode;
+            for (Element rootNode : DocumentUtils.getChildElements(dataElement)) {
+                Map<QName, ConfigLeafAttribute> keyAttributesFromXml = getKeysFromXml(listSchemaNode, rootNode);
+                if (keyAttributesFromNode.equals(keyAttributesFromXml)) {
+                    rootNode.getParentNode().removeChild(rootNode);
+                    dataElement.appendChild(ownerDocument.importNode(xmlValue, true));
+                    appended = true;
+                    break;
+                }
+            }
+        } else {
+            //container
+            for (Element rootNode : DocumentUtils.getChildElements(dataElement)) {
+                if (rootNode.getNamespaceURI().equals(xmlValue.getNamespaceURI()) && rootNode.getLocalName().equals
+                        (xmlValue.getLocalName())) {
+                    rootNode.getParentNode().removeChild(rootNode);
+                    dataElement.appendChild(ownerDocument.importNode(xmlValue, true));
+                    appended = true;
+                    break;
+                }
+            }
+        }
+        if (!appended) {
+            //newly created node, so append at the end
+            dataElement.appendChild(ownerDocument.importNode(xmlValue, true));
+        }
+    }
+
+    private Map<QName, ConfigLeafAttribute> getKeysFromXml(ListSchemaNode listSchemaNode, Element rootNode) throws
+            InvalidIdentityRefException {
+        Map<QName, ConfigLeafAttribute> keyAttributesFromXml = new LinkedHashMap<>();
+        for (QName keyQname : listSchemaNode.getKeyDefinition()) {
+            for (Element field : DocumentUtils.getChildElements(rootNode)) {
+                if (nodesMatch(field, keyQname)) {
+                    keyAttributesFromXml.put(keyQname, ConfigAttributeFactory.getConfigAttribute(m_schemaRegistry,
+                            listSchemaNode.getPath(), keyQname, field));
+                }
+            }
+        }
+        return keyAttributesFromXml;
+    }
+}
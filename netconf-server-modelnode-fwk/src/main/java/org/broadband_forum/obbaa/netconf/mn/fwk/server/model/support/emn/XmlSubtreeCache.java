@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+
+/**
+ * Keeps the decoded XML subtrees of the stored parent entities across requests, unlike {@link RequestScopeXmlDSMCache}
+ * which only keeps the nodes of the current request.
+ *
+ * An entry is keyed by the entity class and the id of the stored parent node, and its version is the length and two
+ * independent hashes of the stored string it was decoded from: a lookup with another string is a miss and replaces
+ * the entry, so an entry never outlives the data it was decoded from, whichever way the entity was changed, and the
+ * stored string itself is not kept. The entries hold a copy of the decoded DOM that is never modified nor handed out;
+ * a DOM is not safe to use from several threads, so every lookup imports the copy into a new document, which only
+ * reads it and costs a fraction of decoding the stored string. The nodes of a request can then be edited without
+ * affecting the cache, and the edited subtree is cached again once it is read back after
+ * {@link XmlSubtreeDSM#endModify()}.
+ *
+ * The cache is bounded by the estimated total size of its entries, the least recently used ones are evicted first.
+ * A cache with a maximum size of 0 decodes every lookup.
+ */
+public class XmlSubtreeCache {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 64L * 1024 * 1024;
+    // the estimated size of a DOM node without its strings
+    private static final long NODE_SIZE = 64;
+
+    private final XmlSubtreeCodec m_xmlSubtreeCodec;
+    private final long m_maximumSize;
+    private final LinkedHashMap<EntryKey, Entry> m_entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long m_size;
+    private final AtomicLong m_hitCount = new AtomicLong();
+    private final AtomicLong m_missCount = new AtomicLong();
+    private final AtomicLong m_evictionCount = new AtomicLong();
+
+    public XmlSubtreeCache(XmlSubtreeCodec xmlSubtreeCodec) {
+        this(xmlSubtreeCodec, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize - the maximum total size of the entries, in bytes
+     */
+    public XmlSubtreeCache(XmlSubtreeCodec xmlSubtreeCodec, long maximumSize) {
+        m_xmlSubtreeCodec = xmlSubtreeCodec;
+        m_maximumSize = maximumSize;
+    }
+
+    public XmlSubtreeCodec getXmlSubtreeCodec() {
+        return m_xmlSubtreeCodec;
+    }
+
+    /**
+     * Returns the stored subtree of the entity as a new element, null if nothing is stored.
+     */
+    public Element decode(Class entityClass, ModelNodeId nodeId, String storedSubtree) throws DataStoreException {
+        if (storedSubtree == null || storedSubtree.isEmpty()) {
+            return null;
+        }
+        EntryKey key = new EntryKey(entityClass, nodeId);
+        Entry entry;
+        synchronized (m_entries) {
+            entry = m_entries.get(key);
+        }
+        Version version = Version.of(storedSubtree);
+        if (entry != null && entry.m_version.equals(version)) {
+            m_hitCount.incrementAndGet();
+            return copy(entry.m_element);
+        }
+        m_missCount.incrementAndGet();
+        Element element = m_xmlSubtreeCodec.decode(storedSubtree);
+        if (element != null && m_maximumSize > 0) {
+            Element cachedElement = copy(element);
+            put(key, new Entry(version, cachedElement, prepare(cachedElement)));
+        }
+        return element;
+    }
+
+    /**
+     * Returns a copy of the element, as the document element of a new document.
+     */
+    private static Element copy(Element element) {
+        Document document = DocumentUtils.createDocument();
+        Element copy = (Element) document.importNode(element, true);
+        document.appendChild(copy);
+        return copy;
+    }
+
+    /**
+     * Creates the attribute maps that the DOM creates on their first access, so that reading the cached copy does
+     * not modify it, and returns an estimate of the size of the copy, in bytes.
+     */
+    private static long prepare(Node node) {
+        long size = NODE_SIZE;
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            size += 2L * node.getNodeName().length();
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attribute = attributes.item(i);
+                size += NODE_SIZE + 2L * (attribute.getNodeName().length() + attribute.getNodeValue().length());
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                size += prepare(child);
+            }
+        } else if (node.getNodeValue() != null) {
+            size += 2L * node.getNodeValue().length();
+        }
+        return size;
+    }
+
+    /**
+     * Removes the entry of the entity, if any.
+     */
+    public void invalidate(Class entityClass, ModelNodeId nodeId) {
+        synchronized (m_entries) {
+            Entry entry = m_entries.remove(new EntryKey(entityClass, nodeId));
+            if (entry != null) {
+                m_size -= entry.size();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (m_entries) {
+            m_entries.clear();
+            m_size = 0;
+        }
+    }
+
+    public long getHitCount() {
+        return m_hitCount.get();
+    }
+
+    public long getMissCount() {
+        return m_missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return m_evictionCount.get();
+    }
+
+    public int getEntryCount() {
+        synchronized (m_entries) {
+            return m_entries.size();
+        }
+    }
+
+    /**
+     * Returns the total size of the entries, in bytes.
+     */
+    public long getSize() {
+        synchronized (m_entries) {
+            return m_size;
+        }
+    }
+
+    private void put(EntryKey key, Entry entry) {
+        if (entry.size() > m_maximumSize) {
+            return;
+        }
+        synchronized (m_entries) {
+            Entry previous = m_entries.put(key, entry);
+            if (previous != null) {
+                m_size -= previous.size();
+            }
+            m_size += entry.size();
+            Iterator<Map.Entry<EntryKey, Entry>> eldest = m_entries.entrySet().iterator();
+            while (m_size > m_maximumSize && eldest.hasNext()) {
+                m_size -= eldest.next().getValue().size();
+                eldest.remove();
+                m_evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class EntryKey {
+        private final Class m_entityClass;
+        private final ModelNodeId m_nodeId;
+
+        EntryKey(Class entityClass, ModelNodeId nodeId) {
+            m_entityClass = entityClass;
+            m_nodeId = nodeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            EntryKey that = (EntryKey) o;
+            return Objects.equals(m_entityClass, that.m_entityClass) && Objects.equals(m_nodeId, that.m_nodeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_entityClass, m_nodeId);
+        }
+    }
+
+    /**
+     * Identifies a stored string without keeping it: a different string is taken for the same one only if it has the
+     * same length and the same 32 and 64 bit hashes.
+     */
+    private static final class Version {
+        private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        private final int m_length;
+        private final int m_hashCode;
+        private final long m_hash;
+
+        private Version(int length, int hashCode, long hash) {
+            m_length = length;
+            m_hashCode = hashCode;
+            m_hash = hash;
+        }
+
+        static Version of(String storedSubtree) {
+            long hash = FNV_OFFSET_BASIS;
+            for (int i = 0; i < storedSubtree.length(); i++) {
+                hash = (hash ^ storedSubtree.charAt(i)) * FNV_PRIME;
+            }
+            return new Version(storedSubtree.length(), storedSubtree.hashCode(), hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Version that = (Version) o;
+            return m_length == that.m_length && m_hashCode == that.m_hashCode && m_hash == that.m_hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_hashCode;
+        }
+    }
+
+    private static final class Entry {
+        private final Version m_version;
+        private final Element m_element;
+        private final long m_size;
+
+        Entry(Version version, Element element, long size) {
+            m_version = version;
+            m_element = element;
+            m_size = size;
+        }
+
+        long size() {
+            return m_size;
+        }
+    }
+}
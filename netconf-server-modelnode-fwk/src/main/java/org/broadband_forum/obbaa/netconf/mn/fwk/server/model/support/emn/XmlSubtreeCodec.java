@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import java.util.Map;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.w3c.dom.Element;
+
+/**
+ * Converts the XML subtree of a {@link org.broadband_forum.obbaa.netconf.stack.api.annotations.YangXmlSubtree}
+ * entity to and from the string stored in the entity.
+ *
+ * The subtree of a root node is stored under a data element, which holds the root nodes stored in the same entity.
+ * The subtree of any other node is stored as the element of the node.
+ */
+public interface XmlSubtreeCodec {
+
+    /**
+     * Returns the stored subtree as an element, null if nothing is stored.
+     */
+    Element decode(String storedSubtree) throws DataStoreException;
+
+    /**
+     * Returns the string to store for the subtree of a node that is not a root node.
+     */
+    String encode(Element node) throws DataStoreException;
+
+    /**
+     * Returns the string to store after replacing the root node with the given type and keys in the stored subtree,
+     * the node is added if it is not there yet.
+     */
+    String replaceRootNode(String storedSubtree, SchemaPath nodeType, Map<QName, ConfigLeafAttribute> keys, Element
+            node) throws DataStoreException;
+}
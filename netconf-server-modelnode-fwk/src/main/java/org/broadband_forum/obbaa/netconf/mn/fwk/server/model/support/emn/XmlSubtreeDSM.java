@@ -16,16 +16,10 @@
 
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
 
-import static org.broadband_forum.obbaa.netconf.api.util.DocumentUtils.documentToPrettyString;
-import static org.broadband_forum.obbaa.netconf.api.util.DocumentUtils.stringToDocument;
-import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.XmlModelNodeToXmlMapper.nodesMatch;
-
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -35,15 +29,9 @@ import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
 
 import org.opendaylight.yangtools.yang.common.QName;
-import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
-import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.SchemaPath;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
-import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
-import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
@@ -52,9 +40,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDSMRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
-import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigAttributeFactory;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
-import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InvalidIdentityRefException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
 import org.broadband_forum.obbaa.netconf.persistence.EntityDataStoreManager;
@@ -76,11 +62,27 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
     private final RequestScopeXmlDSMCache m_dsmCache;
     private final ModelNodeDSMRegistry m_modelNodeDSMRegistry;
     private final ModelNodeHelperRegistry m_modelNodeHelperRegistry;
+    private final XmlSubtreeCodec m_xmlSubtreeCodec;
+    private final XmlSubtreeCache m_xmlSubtreeCache;
 
     public XmlSubtreeDSM(PersistenceManagerUtil persistenceManagerUtil, EntityRegistry entityRegistry, SchemaRegistry
             schemaRegistry,
                          ModelNodeHelperRegistry modelNodeHelperRegistry, SubSystemRegistry subsystemRegistry,
                          ModelNodeDSMRegistry modelNodeDSMRegistry) {
+        this(persistenceManagerUtil, entityRegistry, schemaRegistry, modelNodeHelperRegistry, subsystemRegistry,
+                modelNodeDSMRegistry, new XmlStringSubtreeCodec(schemaRegistry));
+    }
+
+    public XmlSubtreeDSM(PersistenceManagerUtil persistenceManagerUtil, EntityRegistry entityRegistry, SchemaRegistry
+            schemaRegistry, ModelNodeHelperRegistry modelNodeHelperRegistry, SubSystemRegistry subsystemRegistry,
+                         ModelNodeDSMRegistry modelNodeDSMRegistry, XmlSubtreeCodec xmlSubtreeCodec) {
+        this(persistenceManagerUtil, entityRegistry, schemaRegistry, modelNodeHelperRegistry, subsystemRegistry,
+                modelNodeDSMRegistry, new XmlSubtreeCache(xmlSubtreeCodec));
+    }
+
+    public XmlSubtreeDSM(PersistenceManagerUtil persistenceManagerUtil, EntityRegistry entityRegistry, SchemaRegistry
+            schemaRegistry, ModelNodeHelperRegistry modelNodeHelperRegistry, SubSystemRegistry subsystemRegistry,
+                         ModelNodeDSMRegistry modelNodeDSMRegistry, XmlSubtreeCache xmlSubtreeCache) {
         super(persistenceManagerUtil, entityRegistry, schemaRegistry, modelNodeHelperRegistry, subsystemRegistry,
                 modelNodeDSMRegistry);
         m_modelNodeHelperRegistry = modelNodeHelperRegistry;
@@ -89,8 +91,18 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
         m_schemaRegistry = schemaRegistry;
         m_dsmCache = new RequestScopeXmlDSMCache();
         m_modelNodeDSMRegistry = modelNodeDSMRegistry;
+        m_xmlSubtreeCache = xmlSubtreeCache;
+        m_xmlSubtreeCodec = xmlSubtreeCache.getXmlSubtreeCodec();
         m_xmlModelNodeToXmlMapper = new XmlModelNodeToXmlMapperImpl(m_dsmCache, m_schemaRegistry,
-                modelNodeHelperRegistry, subsystemRegistry, m_entityRegistry);
+                modelNodeHelperRegistry, subsystemRegistry, m_entityRegistry, xmlSubtreeCache);
+    }
+
+    /**
+     * Returns the cache of the decoded stored subtrees, shared by all requests, which reports its hits, misses and
+     * evictions.
+     */
+    public XmlSubtreeCache getXmlSubtreeCache() {
+        return m_xmlSubtreeCache;
     }
 
     @Override
@@ -182,6 +194,16 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
         return null;
     }
 
+    @Override
+    public void prefetchChildNodes(SchemaPath childType, Collection<ModelNodeId> parentIds) throws
+            DataStoreException {
+        // the nodes stored in XML subtrees are read from the request scope cache of their stored parent
+        Class klass = m_entityRegistry.getEntityClass(childType);
+        if (klass != null && m_entityRegistry.getYangXmlSubtreeGetter(klass) == null) {
+            super.prefetchChildNodes(childType, parentIds);
+        }
+    }
+
     @Override
     public List<ModelNode> findNodes(SchemaPath nodeType, Map<QName, ConfigLeafAttribute> matchCriteria, ModelNodeId
             parentId) throws DataStoreException {
@@ -218,7 +240,6 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
                 if (storedParentEntities != null) {
                     for (Object storedParentEntity : storedParentEntities) {
                         String yangXmlSubtree = getXmlSubtree(storedParentEntity, storedParentClass);
-                        Element element = getXmlSubtreeElement(yangXmlSubtree);
                         Map<QName, ConfigLeafAttribute> configAttrsFromEntity = null;
                         try {
                             configAttrsFromEntity = XmlModelNodeToXmlMapperImpl.getConfigAttributesFromEntity
@@ -227,6 +248,10 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
                         } catch (IllegalAccessException | InvocationTargetException e) {
                             throw new RuntimeException(e);
                         }
+                        ModelNodeId storedParentId = EMNKeyUtil.getModelNodeId(MNKeyUtil.getKeyFromCriteria(
+                                storedParentSchemaPath, configAttrsFromEntity, m_schemaRegistry), storedGrandParentId,
+                                storedParentSchemaPath);
+                        Element element = getXmlSubtreeElement(storedParentClass, storedParentId, yangXmlSubtree);
                         List<XmlModelNodeImpl> storedParentModelNodes = m_xmlModelNodeToXmlMapper
                                 .getModelNodeFromNodeSchemaPath(element,
                                 configAttrsFromEntity, storedParentSchemaPath, storedGrandParentId, null, this);
@@ -349,9 +374,11 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
                     nodeToBeUpdated, xmlValue);
             if (xmlSubtreeString != null) {
                 setXmlSubtree(storedParentEntity, storedParentClass, xmlSubtreeString);
+                m_xmlSubtreeCache.invalidate(storedParentClass, nodeToBeUpdated.getModelNodeId());
             }
         }
         LOGGER.debug("Updating the modified stored parent XML subtree nodes from cache into hibernate context done");
+        super.endModify();
     }
 
     @Override
@@ -471,6 +498,7 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
                 setXmlSubtree(entity, klass, "");
                 super.removeNode(modelNode, parentId);
                 m_dsmCache.removeFromCache(modelNode.getModelNodeId());
+                m_xmlSubtreeCache.invalidate(klass, modelNode.getModelNodeId());
             } else {
                 SchemaPath storedParentSchemaPath = getStoredParentSchemaPath(schemaPath);
                 ModelNode storedModelNode = findNode(modelNode.getModelNodeSchemaPath(), MNKeyUtil.getModelNodeKey
@@ -633,17 +661,18 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
         XmlModelNodeImpl storedParentModelNode;
         Class storedParentClass = m_entityRegistry.getEntityClass(storedParentSchemaPath);
         ModelNodeKey modelNodeKey = MNKeyUtil.getModelNodeKey(m_schemaRegistry, storedParentSchemaPath, parentId);
-        storedParentModelNode = m_dsmCache.getFromCache(storedParentSchemaPath, EMNKeyUtil.getModelNodeId
-                (modelNodeKey, storedGrandParentId, storedParentSchemaPath));
+        ModelNodeId storedParentId = EMNKeyUtil.getModelNodeId(modelNodeKey, storedGrandParentId,
+                storedParentSchemaPath);
+        storedParentModelNode = m_dsmCache.getFromCache(storedParentSchemaPath, storedParentId);
         if (storedParentModelNode != null) {
             return storedParentModelNode;
         }
         try {
             Object storedParentEntity = getParentEntity(storedParentClass, modelNodeKey, storedGrandParentId,
-                    LockModeType.PESSIMISTIC_READ);
+                    getReadLockMode(storedParentClass));
             if (storedParentEntity != null) {
                 String yangXmlSubtree = getXmlSubtree(storedParentEntity, storedParentClass);
-                Element element = getXmlSubtreeElement(yangXmlSubtree);
+                Element element = getXmlSubtreeElement(storedParentClass, storedParentId, yangXmlSubtree);
                 Map<QName, ConfigLeafAttribute> configAttrsFromEntity = XmlModelNodeToXmlMapperImpl
                         .getConfigAttributesFromEntity(m_schemaRegistry, storedParentSchemaPath, m_entityRegistry,
                                 storedParentClass, storedParentEntity);
@@ -705,103 +734,24 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
         return schemaPath;
     }
 
-    private Element getXmlSubtreeElement(String yangXmlSubtree) {
-        Element parentElement = null;
-        try {
-            if (yangXmlSubtree != null && !yangXmlSubtree.isEmpty()) {
-                parentElement = stringToDocument(yangXmlSubtree).getDocumentElement();
-            }
-        } catch (NetconfMessageBuilderException e) {
-            throw new RuntimeException(e);
-        }
-        return parentElement;
+    private Element getXmlSubtreeElement(Class storedParentClass, ModelNodeId storedParentId, String yangXmlSubtree) {
+        return m_xmlSubtreeCache.decode(storedParentClass, storedParentId, yangXmlSubtree);
     }
 
     private String getXmlSubtreeString(String currentXmlStr, XmlModelNodeImpl node, Element xmlValue) {
-        Element fulXmlElement = xmlValue;
         if (node.isRoot()) {
-            if (currentXmlStr != null && !currentXmlStr.isEmpty()) {
-                try {
-                    Element dataElement = DocumentUtils.stringToDocument(currentXmlStr).getDocumentElement();
-                    fulXmlElement = dataElement;
-                    appendXmlValue(dataElement, m_schemaRegistry.getDataSchemaNode(node.getModelNodeSchemaPath()),
-                            xmlValue, node);
-                } catch (NetconfMessageBuilderException | InvalidIdentityRefException e) {
-                    throw new RuntimeException(e);
-                }
-            } else {
-                //xml string is null or empty string
-                Document ownerDocument = xmlValue.getOwnerDocument();
-                fulXmlElement = ownerDocument.createElementNS(NetconfResources.NETCONF_RPC_NS_1_0, NetconfResources
-                        .RPC_REPLY_DATA);
-                fulXmlElement.appendChild(xmlValue);
-            }
-        }
-
-        String xmlSubtreeString;
-        try {
-            xmlSubtreeString = documentToPrettyString(fulXmlElement);
-        } catch (NetconfMessageBuilderException e) {
-            throw new RuntimeException(e);
-        }
-        return xmlSubtreeString;
-    }
-
-    private void appendXmlValue(Element dataElement, DataSchemaNode dataSchemaNode, Element xmlValue,
-                                XmlModelNodeImpl node) throws InvalidIdentityRefException {
-
-        Document ownerDocument = dataElement.getOwnerDocument();
-        boolean appended = false;
-        if (dataSchemaNode instanceof ListSchemaNode) {
-            Map<QName, ConfigLeafAttribute> keyAttributesFromNode = node.getKeyAttributes();
-            ListSchemaNode listSchemaNode = (ListSchemaNode) dataSchemaNode;
-            for (Element rootNode : DocumentUtils.getChildElements(dataElement)) {
-                Map<QName, ConfigLeafAttribute> keyAttributesFromXml = getKeysFromXml(listSchemaNode, rootNode);
-                if (keyAttributesFromNode.equals(keyAttributesFromXml)) {
-                    rootNode.getParentNode().removeChild(rootNode);
-                    dataElement.appendChild(ownerDocument.importNode(xmlValue, true));
-                    appended = true;
-                    break;
-                }
-            }
-        } else {
-            //container
-            for (Element rootNode : DocumentUtils.getChildElements(dataElement)) {
-                if (rootNode.getNamespaceURI().equals(xmlValue.getNamespaceURI()) && rootNode.getLocalName().equals
-                        (xmlValue.getLocalName())) {
-                    rootNode.getParentNode().removeChild(rootNode);
-                    dataElement.appendChild(ownerDocument.importNode(xmlValue, true));
-                    appended = true;
-                    break;
-                }
-            }
-        }
-        if (!appended) {
-            //newly created node, so append at the end
-            dataElement.appendChild(ownerDocument.importNode(xmlValue, true));
-        }
-    }
-
-    private Map<QName, ConfigLeafAttribute> getKeysFromXml(ListSchemaNode listSchemaNode, Element rootNode) throws
-            InvalidIdentityRefException {
-        Map<QName, ConfigLeafAttribute> keyAttributesFromXml = new LinkedHashMap<>();
-        for (QName keyQname : listSchemaNode.getKeyDefinition()) {
-            for (Element field : DocumentUtils.getChildElements(rootNode)) {
-                if (nodesMatch(field, keyQname)) {
-                    keyAttributesFromXml.put(keyQname, ConfigAttributeFactory.getConfigAttribute(m_schemaRegistry,
-                            listSchemaNode.getPath(), keyQname, field));
-                }
-            }
+            return m_xmlSubtreeCodec.replaceRootNode(currentXmlStr, node.getModelNodeSchemaPath(), node
+                    .getKeyAttributes(), xmlValue);
         }
-        return keyAttributesFromXml;
+        return m_xmlSubtreeCodec.encode(xmlValue);
     }
 
     private String getXmlSubtree(Object parentEntity, Class parentKlass) throws DataStoreException {
-        Method yangXmlSubtreeGetter = m_entityRegistry.getYangXmlSubtreeGetter(parentKlass);
+        EntityAccessor yangXmlSubtreeGetter = m_entityRegistry.getYangXmlSubtreeGetterAccessor(parentKlass);
         String yangXmlSubtree = "";
         if (yangXmlSubtreeGetter != null) {
             try {
-                yangXmlSubtree = (String) yangXmlSubtreeGetter.invoke(parentEntity);
+                yangXmlSubtree = (String) yangXmlSubtreeGetter.get(parentEntity);
             } catch (IllegalAccessException | InvocationTargetException e) {
                 throw new RuntimeException(e);
             }
@@ -810,10 +760,10 @@ public class XmlSubtreeDSM extends AnnotationBasedModelNodeDataStoreManager {
     }
 
     private void setXmlSubtree(Object parentEntity, Class parentKlass, String value) throws DataStoreException {
-        Method yangXmlSubtreeSetter = m_entityRegistry.getYangXmlSubtreeSetter(parentKlass);
+        EntityAccessor yangXmlSubtreeSetter = m_entityRegistry.getYangXmlSubtreeSetterAccessor(parentKlass);
         if (yangXmlSubtreeSetter != null) {
             try {
-                yangXmlSubtreeSetter.invoke(parentEntity, value);
+                yangXmlSubtreeSetter.set(parentEntity, value);
             } catch (IllegalAccessException | InvocationTargetException e) {
                 throw new RuntimeException(e);
             }
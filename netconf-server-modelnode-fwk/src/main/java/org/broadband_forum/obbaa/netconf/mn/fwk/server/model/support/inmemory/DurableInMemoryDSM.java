@@ -0,0 +1,548 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.MNKeyUtil;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
+import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
+
+/**
+ * An {@link InMemoryDSM} that keeps its nodes in a directory, so that they survive a restart.
+ *
+ * The changes made from {@link #beginModify()} up to {@link #commitModify()} are one transaction: on commitModify
+ * they are appended as one record to a memory mapped write-ahead log and the log is synced before commitModify
+ * returns, before the version of the request is published when versioned. The root nodes of an edit are each
+ * modified between their own beginModify and {@link #endModify()}, they join the transaction opened by the first
+ * one, so an edit of several roots is synced once. Changes made outside of a transaction are committed one by one.
+ * Transactions committed by several threads at the same time share a single sync of the log.
+ *
+ * {@link #abortModify()} ends the transaction of a failed request. Unversioned, the changes the request already made
+ * stay in memory, so they are written to the log as well, versioned they are dropped with the version of the
+ * request.
+ *
+ * Once the log grows beyond the snapshot threshold, the next commit that finds no other transaction open writes a
+ * snapshot of all the nodes and starts a new log. Modifications wait while the snapshot is written. On
+ * {@link #init()} the latest snapshot is loaded and the logs written after it are replayed, so the recovery time
+ * depends on the size of the log tail and not on the number of transactions since the first start.
+ *
+ * Like InMemoryDSM, concurrent modifications of the same nodes are expected to be serialized by the caller.
+ */
+public class DurableInMemoryDSM extends InMemoryDSM {
+    private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(DurableInMemoryDSM.class,
+            "netconf-server-datastore", "DEBUG", "GLOBAL");
+    public static final long DEFAULT_SNAPSHOT_THRESHOLD = 64L * 1024 * 1024;
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+    private static final String LOG_FILE_PREFIX = "wal-";
+    private static final String LOG_FILE_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x494d4453;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final SchemaRegistry m_schemaRegistry;
+    private final ModelNodeHelperRegistry m_modelNodeHelperRegistry;
+    private final SubSystemRegistry m_subSystemRegistry;
+    private final File m_directory;
+    private final ThreadLocal<Transaction> m_transaction = new ThreadLocal<>();
+    private final AtomicInteger m_openTransactions = new AtomicInteger();
+    // modifications share the lock, writing a snapshot takes it exclusively
+    private final ReentrantReadWriteLock m_snapshotLock = new ReentrantReadWriteLock();
+    private long m_snapshotThreshold = DEFAULT_SNAPSHOT_THRESHOLD;
+    private int m_logRegionSize = TransactionLog.DEFAULT_REGION_SIZE;
+    private volatile TransactionLog m_log;
+    private long m_generation;
+
+    public DurableInMemoryDSM(SchemaRegistry schemaRegistry, ModelNodeHelperRegistry modelNodeHelperRegistry,
+                              SubSystemRegistry subSystemRegistry, File directory) {
+        this(schemaRegistry, modelNodeHelperRegistry, subSystemRegistry, directory, DEFAULT_DS_NAME);
+    }
+
+    public DurableInMemoryDSM(SchemaRegistry schemaRegistry, ModelNodeHelperRegistry modelNodeHelperRegistry,
+                              SubSystemRegistry subSystemRegistry, File directory, String dsmName) {
+        super(schemaRegistry, dsmName);
+        m_schemaRegistry = schemaRegistry;
+        m_modelNodeHelperRegistry = modelNodeHelperRegistry;
+        m_subSystemRegistry = subSystemRegistry;
+        m_directory = directory;
+    }
+
+    public long getSnapshotThreshold() {
+        return m_snapshotThreshold;
+    }
+
+    /**
+     * Sets the size in bytes the log has to reach before a snapshot is written.
+     */
+    public void setSnapshotThreshold(long snapshotThreshold) {
+        m_snapshotThreshold = snapshotThreshold;
+    }
+
+    public void setLogRegionSize(int logRegionSize) {
+        m_logRegionSize = logRegionSize;
+    }
+
+    /**
+     * Loads the latest snapshot and replays the logs written after it. The schema of the stored nodes has to be
+     * deployed before.
+     */
+    public void init() {
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(m_directory.toPath());
+            Files.deleteIfExists(new File(m_directory, SNAPSHOT_TEMP_FILE).toPath());
+            m_generation = loadSnapshot();
+            TreeMap<Long, File> logs = getLogs();
+            int transactions = 0;
+            long logPosition = 0;
+            File lastLog = getLogFile(m_generation);
+            for (Map.Entry<Long, File> log : logs.entrySet()) {
+                if (log.getKey() < m_generation) {
+                    // already in the snapshot
+                    Files.delete(log.getValue().toPath());
+                    continue;
+                }
+                TransactionCounter counter = new TransactionCounter();
+                logPosition = TransactionLog.read(log.getValue(), counter);
+                transactions += counter.m_count;
+                lastLog = log.getValue();
+                m_generation = log.getKey();
+            }
+            m_log = new TransactionLog(lastLog, logPosition, m_logRegionSize);
+            LOGGER.info("DSM: {} recovered {} nodes from {} in {} ms, {} transactions replayed", getDsmName(),
+                    countNodes(), m_directory, System.currentTimeMillis() - start, transactions);
+        } catch (IOException e) {
+            throw new DataStoreException("Could not recover the datastore from " + m_directory, e);
+        }
+    }
+
+    public void close() {
+        TransactionLog log = m_log;
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                LOGGER.error("Error while closing the log " + log.getFile(), e);
+            }
+        }
+    }
+
+    @Override
+    public void beginModify() {
+        if (m_transaction.get() == null) {
+            m_snapshotLock.readLock().lock();
+            try {
+                m_transaction.set(new Transaction());
+                m_openTransactions.incrementAndGet();
+            } finally {
+                m_snapshotLock.readLock().unlock();
+            }
+        }
+        super.beginModify();
+    }
+
+    @Override
+    public void commitModify() {
+        endTransaction(true);
+        super.commitModify();
+    }
+
+    @Override
+    public void abortModify() {
+        try {
+            endTransaction(!isVersioned());
+        } finally {
+            super.abortModify();
+        }
+    }
+
+    /**
+     * Ends the transaction of the current thread, if it has one, writing it to the log or dropping it.
+     */
+    private void endTransaction(boolean commit) {
+        Transaction transaction = m_transaction.get();
+        if (transaction != null) {
+            m_transaction.remove();
+            try {
+                if (commit) {
+                    commit(transaction);
+                }
+            } finally {
+                m_openTransactions.decrementAndGet();
+            }
+            snapshotIfDue();
+        }
+    }
+
+    @Override
+    public ModelNode createNode(ModelNode modelNode, ModelNodeId parentId, int insertIndex) throws
+            DataStoreException {
+        return modify(output -> {
+            ModelNode createdNode = super.createNode(modelNode, parentId, insertIndex);
+            output.writeCreate(parentId, insertIndex, (ModelNodeWithAttributes) modelNode);
+            return createdNode;
+        });
+    }
+
+    @Override
+    public void updateNode(ModelNode modelNode, ModelNodeId parentId, Map<QName, ConfigLeafAttribute> configAttributes,
+                           Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafListAttributes, int insertIndex,
+                           boolean removeNode) throws DataStoreException {
+        modify(output -> {
+            super.updateNode(modelNode, parentId, configAttributes, leafListAttributes, insertIndex, removeNode);
+            ModelNodeWithAttributes updatedNode = (ModelNodeWithAttributes) findNode(modelNode
+                    .getModelNodeSchemaPath(), MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry), parentId);
+            if (updatedNode != null) {
+                output.writeUpdate(parentId, updatedNode);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void removeNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
+        modify(output -> {
+            ModelNodeKey key = MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry);
+            super.removeNode(modelNode, parentId);
+            output.writeRemove(modelNode.getModelNodeSchemaPath(), key, parentId);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllNodes(ModelNode parentNode, SchemaPath nodeType, ModelNodeId grandParentId) throws
+            DataStoreException {
+        modify(output -> {
+            super.removeAllNodes(parentNode, nodeType, grandParentId);
+            output.writeRemoveAll(parentNode.getModelNodeId(), nodeType);
+            return null;
+        });
+    }
+
+    private <T> T modify(Modification<T> modification) {
+        Transaction transaction;
+        boolean autoCommit;
+        T result;
+        m_snapshotLock.readLock().lock();
+        try {
+            transaction = m_transaction.get();
+            autoCommit = transaction == null;
+            if (autoCommit) {
+                transaction = new Transaction();
+            }
+            result = modification.apply(transaction.m_output);
+            transaction.m_modifications++;
+            if (autoCommit) {
+                commit(transaction);
+            }
+        } catch (IOException e) {
+            throw new DataStoreException("Could not record the modification", e);
+        } finally {
+            m_snapshotLock.readLock().unlock();
+        }
+        if (autoCommit) {
+            snapshotIfDue();
+        }
+        return result;
+    }
+
+    private void commit(Transaction transaction) {
+        if (transaction.m_modifications == 0) {
+            return;
+        }
+        TransactionLog log = m_log;
+        if (log == null) {
+            throw new DataStoreException("DSM " + getDsmName() + " is not initialized, modifications cannot be made "
+                    + "durable");
+        }
+        try {
+            transaction.m_output.writeEnd();
+            transaction.m_output.flush();
+            log.sync(log.append(transaction.m_bytes.toByteArray()));
+        } catch (IOException e) {
+            throw new DataStoreException("Could not write the transaction to " + log.getFile(), e);
+        }
+    }
+
+    private void snapshotIfDue() {
+        if (m_log.getPosition() < m_snapshotThreshold) {
+            return;
+        }
+        m_snapshotLock.writeLock().lock();
+        try {
+            if (m_openTransactions.get() == 0 && m_log.getPosition() >= m_snapshotThreshold) {
+                writeSnapshot();
+            }
+        } finally {
+            m_snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a new log and writes the snapshot of the nodes it starts from, then deletes the older logs. If writing
+     * the snapshot fails, the previous snapshot and all the logs written since are kept.
+     */
+    private void writeSnapshot() {
+        long start = System.currentTimeMillis();
+        long generation = m_generation + 1;
+        TransactionLog previousLog = m_log;
+        try {
+            m_log = new TransactionLog(getLogFile(generation), 0, m_logRegionSize);
+            m_generation = generation;
+            previousLog.close();
+        } catch (IOException e) {
+            LOGGER.error("Could not start a new log, the snapshot is postponed", e);
+            return;
+        }
+        File snapshotTempFile = new File(m_directory, SNAPSHOT_TEMP_FILE);
+        try {
+            int nodes;
+            try (FileOutputStream fileOut = new FileOutputStream(snapshotTempFile)) {
+                CheckedOutputStream checkedOut = new CheckedOutputStream(new BufferedOutputStream(fileOut),
+                        new CRC32());
+                DataOutputStream out = new DataOutputStream(checkedOut);
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(generation);
+                ModelNodeRecordOutput records = new ModelNodeRecordOutput(out);
+                nodes = writeNodes(records);
+                records.writeEnd();
+                records.flush();
+                out.writeLong(checkedOut.getChecksum().getValue());
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            Files.move(snapshotTempFile.toPath(), new File(m_directory, SNAPSHOT_FILE).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+            for (Map.Entry<Long, File> log : getLogs().headMap(generation).entrySet()) {
+                Files.delete(log.getValue().toPath());
+            }
+            LOGGER.info("DSM: {} wrote a snapshot of {} nodes in {} ms", getDsmName(), nodes,
+                    System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            LOGGER.error("Could not write the snapshot " + snapshotTempFile + ", the logs are kept", e);
+        }
+    }
+
+    private int writeNodes(ModelNodeRecordOutput records) throws IOException {
+        int nodes = 0;
+        for (Map.Entry<ModelNodeId, ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>>> parent :
+                getChildNodeIndex().entrySet()) {
+            for (List<ModelNodeWithAttributes> children : parent.getValue().values()) {
+                for (ModelNodeWithAttributes child : children) {
+                    records.writeCreate(parent.getKey(), -1, child);
+                    nodes++;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Loads the snapshot, if there is one, and returns the generation of the first log written after it.
+     */
+    private long loadSnapshot() throws IOException {
+        File snapshotFile = new File(m_directory, SNAPSHOT_FILE);
+        if (!snapshotFile.exists()) {
+            return 0;
+        }
+        try (InputStream fileIn = new BufferedInputStream(new FileInputStream(snapshotFile))) {
+            CheckedInputStream checkedIn = new CheckedInputStream(fileIn, new CRC32());
+            DataInputStream in = new DataInputStream(checkedIn);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException(snapshotFile + " is not a snapshot of a datastore");
+            }
+            long generation = in.readLong();
+            apply(new ModelNodeRecordInput(in, this::createModelNode));
+            long checksum = checkedIn.getChecksum().getValue();
+            if (new DataInputStream(fileIn).readLong() != checksum) {
+                throw new IOException("The snapshot " + snapshotFile + " is corrupted");
+            }
+            return generation;
+        }
+    }
+
+    /**
+     * Applies the records of a snapshot or of a logged transaction. Applying a record a second time leaves the nodes
+     * as they are.
+     */
+    private void apply(ModelNodeRecordInput records) throws IOException {
+        int operation;
+        while ((operation = records.readOperation()) != ModelNodeRecordOutput.END) {
+            switch (operation) {
+                case ModelNodeRecordOutput.CREATE: {
+                    ModelNodeId parentId = records.readModelNodeId();
+                    int insertIndex = records.readInsertIndex();
+                    ModelNodeWithAttributes node = records.readNode();
+                    if (findStoredNode(node, parentId) == null) {
+                        super.createNode(node, parentId, insertIndex);
+                    } else {
+                        replaceAttributes(node, parentId);
+                    }
+                    break;
+                }
+                case ModelNodeRecordOutput.UPDATE: {
+                    ModelNodeId parentId = records.readModelNodeId();
+                    replaceAttributes(records.readNode(), parentId);
+                    break;
+                }
+                case ModelNodeRecordOutput.REMOVE: {
+                    SchemaPath nodeType = records.readSchemaPath();
+                    ModelNodeId parentId = records.readModelNodeId();
+                    ModelNode node = findNode(nodeType, records.readModelNodeKey(), parentId);
+                    if (node != null) {
+                        super.removeNode(node, parentId);
+                    }
+                    break;
+                }
+                case ModelNodeRecordOutput.REMOVE_ALL: {
+                    ModelNodeId parentId = records.readModelNodeId();
+                    removeAllNodes(parentId, records.readSchemaPath());
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown operation " + operation);
+            }
+        }
+    }
+
+    private void replaceAttributes(ModelNodeWithAttributes node, ModelNodeId parentId) {
+        ModelNodeWithAttributes storedNode = findStoredNode(node, parentId);
+        if (storedNode == null) {
+            return;
+        }
+        Map<QName, ConfigLeafAttribute> attributes = new HashMap<>();
+        for (QName qName : storedNode.getAttributes().keySet()) {
+            attributes.put(qName, null);
+        }
+        attributes.putAll(node.getAttributes());
+        Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new HashMap<>();
+        for (QName qName : storedNode.getLeafLists().keySet()) {
+            leafLists.put(qName, new LinkedHashSet<>());
+        }
+        leafLists.putAll(node.getLeafLists());
+        super.updateNode(storedNode, parentId, attributes, leafLists, -1, false);
+    }
+
+    private ModelNodeWithAttributes findStoredNode(ModelNodeWithAttributes node, ModelNodeId parentId) {
+        return (ModelNodeWithAttributes) findNode(node.getModelNodeSchemaPath(), MNKeyUtil.getModelNodeKey(node,
+                m_schemaRegistry), parentId);
+    }
+
+    private ModelNodeWithAttributes createModelNode(SchemaPath schemaPath, ModelNodeId parentId) {
+        return new ModelNodeWithAttributes(schemaPath, parentId, m_modelNodeHelperRegistry, m_subSystemRegistry,
+                m_schemaRegistry, this);
+    }
+
+    private int countNodes() {
+        int nodes = 0;
+        for (Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType : getNodeIndex().values()) {
+            nodes += nodesOfType.size();
+        }
+        return nodes;
+    }
+
+    private TreeMap<Long, File> getLogs() {
+        TreeMap<Long, File> logs = new TreeMap<>();
+        File[] files = m_directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(LOG_FILE_PREFIX) && name.endsWith(LOG_FILE_SUFFIX)) {
+                    try {
+                        logs.put(Long.parseLong(name.substring(LOG_FILE_PREFIX.length(), name.length()
+                                - LOG_FILE_SUFFIX.length())), file);
+                    } catch (NumberFormatException e) {
+                        LOGGER.warn("Ignoring unexpected file {} in {}", name, m_directory);
+                    }
+                }
+            }
+        }
+        return logs;
+    }
+
+    private File getLogFile(long generation) {
+        return new File(m_directory, LOG_FILE_PREFIX + generation + LOG_FILE_SUFFIX);
+    }
+
+    private void syncDirectory() {
+        // makes the rename of the snapshot durable, not supported on every platform
+        try (FileChannel directory = FileChannel.open(m_directory.toPath(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Could not sync the directory {}", m_directory);
+        }
+    }
+
+    private interface Modification<T> {
+        T apply(ModelNodeRecordOutput output) throws IOException;
+    }
+
+    private static class Transaction {
+        private final ByteArrayOutputStream m_bytes = new ByteArrayOutputStream();
+        private final ModelNodeRecordOutput m_output = new ModelNodeRecordOutput(m_bytes);
+        private int m_modifications;
+    }
+
+    private class TransactionCounter implements TransactionLog.RecordHandler {
+        private int m_count;
+
+        @Override
+        public void handle(byte[] record) throws IOException {
+            apply(new ModelNodeRecordInput(new ByteArrayInputStream(record), DurableInMemoryDSM.this::createModelNode));
+            m_count++;
+        }
+    }
+}
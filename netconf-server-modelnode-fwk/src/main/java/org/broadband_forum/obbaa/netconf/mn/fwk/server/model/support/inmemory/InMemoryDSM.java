@@ -17,12 +17,18 @@
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
@@ -33,25 +39,46 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDataStoreManager;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.opendaylight.yangtools.yang.model.api.UniqueConstraint;
+import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Relative;
+
+import com.google.common.collect.Iterables;
 
 import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
 import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
 
 /**
  * Created by pgorai on 2/25/16.
+ *
+ * When versioned, the nodes are kept in immutable versions: the changes a request makes from its first
+ * {@link #beginModify()} build a new version, which shares the maps and nodes it does not change with the committed
+ * version, and {@link #commitModify()} publishes it at once, once the request, including its post-edit validation,
+ * succeeded. {@link #abortModify()} drops the version of a request that failed, so no undo is needed. The thread
+ * making the changes reads the version it builds, other threads read the committed version. A request that reads
+ * between {@link #beginRead()} and {@link #endRead()} keeps reading the version committed when it began, in its
+ * {@link RequestScope}, so it neither waits for an edit nor sees a part of it. Changes made outside of a request are
+ * committed one by one. The edits are expected to be serialized by the caller, a thread that starts a version while
+ * another thread builds one fails with a {@link DataStoreException}.
  */
 public class InMemoryDSM implements ModelNodeDataStoreManager {
     public static final String DEFAULT_DS_NAME = "default";
     private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(InMemoryDSM.class,
             "netconf-server-datastore", "DEBUG", "GLOBAL");
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
     private String m_dsmName;
-    ConcurrentHashMap<SchemaPath, Map<InMemoryNodeKey, ModelNodeWithAttributes>> m_nodes = new ConcurrentHashMap<>();
     private final SchemaRegistry m_schemaRegistry;
-    //An index to to retrieve children of a given node faster
-    private ConcurrentHashMap<ModelNodeId, ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>>> m_childNodes
-            = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<SchemaPath, List<List<QName>>> m_uniqueLeafSets = new ConcurrentHashMap<>();
+    private final String m_versionCacheKey = InMemoryDSM.class.getName() + ".version." + INSTANCE_COUNTER
+            .incrementAndGet();
+    private boolean m_versioned;
+    private volatile Version m_committed = new Version();
+    private volatile Version m_working;
+    private final AtomicReference<Thread> m_writer = new AtomicReference<>();
 
     public InMemoryDSM(SchemaRegistry schemaRegistry) {
         this(schemaRegistry, DEFAULT_DS_NAME);
@@ -70,21 +97,159 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
         this.m_dsmName = dsmName;
     }
 
+    public boolean isVersioned() {
+        return m_versioned;
+    }
+
+    /**
+     * Switches the versioned mode described above on or off, before the datastore is used.
+     */
+    public void setVersioned(boolean versioned) {
+        m_versioned = versioned;
+    }
+
+    /**
+     * Starts the version of the request, unless the current thread already builds one: the root nodes of an
+     * edit-config are modified one after the other, in the same version.
+     */
     @Override
     public void beginModify() {
-
+        if (m_versioned && getWorkingVersion() == null) {
+            startVersion();
+        }
     }
 
+    /**
+     * The version of the request is published by {@link #commitModify()}, changes made in between, such as the
+     * changes implied by the post-edit validation, are made on it too.
+     */
     @Override
     public void endModify() {
+    }
+
+    @Override
+    public void commitModify() {
+        Version working = getWorkingVersion();
+        if (working != null) {
+            publishVersion(working);
+        }
+    }
+
+    @Override
+    public void abortModify() {
+        if (getWorkingVersion() != null) {
+            dropVersion();
+        }
+    }
+
+    /**
+     * Keeps the version committed at that time as the version the request reads, until the matching
+     * {@link #endRead()}. Nested reads keep the version of the outermost one.
+     */
+    @Override
+    public void beginRead() {
+        if (m_versioned) {
+            RequestScope scope = RequestScope.getCurrentScope();
+            ReadPin pin = (ReadPin) scope.getFromCache(m_versionCacheKey);
+            if (pin == null) {
+                scope.putInCache(m_versionCacheKey, new ReadPin(m_committed));
+            } else {
+                pin.m_depth++;
+            }
+        }
+    }
+
+    @Override
+    public void endRead() {
+        if (m_versioned) {
+            RequestScope scope = RequestScope.getCurrentScope();
+            ReadPin pin = (ReadPin) scope.getFromCache(m_versionCacheKey);
+            if (pin != null && --pin.m_depth == 0) {
+                scope.putInCache(m_versionCacheKey, null);
+            }
+        }
+    }
+
+    private Version startVersion() {
+        Thread writer = Thread.currentThread();
+        if (!m_writer.compareAndSet(null, writer)) {
+            Thread otherWriter = m_writer.get();
+            throw new DataStoreException("Datastore " + m_dsmName + " is being modified by thread " + (otherWriter
+                    == null ? null : otherWriter.getName()) + ", the edits must be serialized");
+        }
+        Version working = new Version(m_committed);
+        m_working = working;
+        return working;
+    }
+
+    private void publishVersion(Version working) {
+        m_committed = working;
+        dropVersion();
+        //a request that made the changes while reading reads them from now on
+        ReadPin pin = (ReadPin) RequestScope.getCurrentScope().getFromCache(m_versionCacheKey);
+        if (pin != null) {
+            pin.m_version = working;
+        }
+    }
+
+    private void dropVersion() {
+        m_working = null;
+        m_writer.set(null);
+    }
+
+    /**
+     * Returns the version the current thread reads.
+     */
+    private Version getReadVersion() {
+        if (!m_versioned) {
+            return m_committed;
+        }
+        Version working = getWorkingVersion();
+        if (working != null) {
+            return working;
+        }
+        ReadPin pin = (ReadPin) RequestScope.getCurrentScope().getFromCache(m_versionCacheKey);
+        return pin == null ? m_committed : pin.m_version;
+    }
 
+    private Version getWorkingVersion() {
+        if (m_writer.get() == Thread.currentThread()) {
+            return m_working;
+        }
+        return null;
+    }
+
+    /**
+     * Makes the change on the version the current thread builds, or on a version of its own committed right after
+     * the change when there is none.
+     */
+    private <T> T modify(Change<T> change) throws DataStoreException {
+        if (!m_versioned) {
+            return change.apply(m_committed);
+        }
+        Version working = getWorkingVersion();
+        if (working != null) {
+            return change.apply(working);
+        }
+        working = startVersion();
+        boolean committed = false;
+        try {
+            T result = change.apply(working);
+            publishVersion(working);
+            committed = true;
+            return result;
+        } finally {
+            if (!committed) {
+                dropVersion();
+            }
+        }
     }
 
     @Override
     public List<ModelNode> listNodes(SchemaPath nodeType) {
         LOGGER.debug("DSM: {} -listNodes with childType: {}", m_dsmName, nodeType);
         List<ModelNode> listNodes = new ArrayList<>();
-        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = m_nodes.get(nodeType);
+        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = getReadVersion().m_nodes.get(nodeType);
         if (nodesOfType != null) {
             for (Map.Entry<InMemoryNodeKey, ModelNodeWithAttributes> key : nodesOfType.entrySet()) {
                 listNodes.add(key.getValue());
@@ -96,24 +261,22 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
     @Override
     public List<ModelNode> listChildNodes(SchemaPath childType, ModelNodeId parentId) throws DataStoreException {
         LOGGER.debug("DSM: {} -listChildNodes with childType: {} parentId: {}", m_dsmName, childType, parentId);
-        ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> allChildren = getAllChildren(parentId);
-        if (allChildren != null) {
-            List<ModelNodeWithAttributes> childrenOfType = getChildrenOfType(childType, allChildren);
-            List<ModelNode> nodesToReturn = new ArrayList<>();
-            nodesToReturn.addAll(childrenOfType);
-            return nodesToReturn;
-        }
-        return null;
+        List<ModelNode> nodesToReturn = new ArrayList<>();
+        nodesToReturn.addAll(getChildrenOfType(getReadVersion(), childType, parentId));
+        return nodesToReturn;
     }
 
     @Override
     public ModelNode findNode(SchemaPath nodeType, ModelNodeKey key, ModelNodeId parentId) throws DataStoreException {
         LOGGER.debug("DSM: {} -findNode with nodeType: {} key: {} parentId: {}", m_dsmName, nodeType, key, parentId);
-        InMemoryNodeKey inMemoryNodeKey = new InMemoryNodeKey(key, parentId);
-        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = getNodesOfType(nodeType);
+        return findNode(getReadVersion(), nodeType, key, parentId);
+    }
+
+    private ModelNodeWithAttributes findNode(Version version, SchemaPath nodeType, ModelNodeKey key, ModelNodeId
+            parentId) {
+        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = version.m_nodes.get(nodeType);
         if (nodesOfType != null) {
-            ModelNode node = nodesOfType.get(inMemoryNodeKey);
-            return node;
+            return nodesOfType.get(new InMemoryNodeKey(key, getParentId(parentId)));
         }
         return null;
     }
@@ -123,18 +286,48 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
             parentId) throws DataStoreException {
         LOGGER.debug("DSM: {} -findNodes with nodeType: {} matchCriteria: {} parentId: {}", m_dsmName, nodeType,
                 matchCriteria, parentId);
+        Version version = getReadVersion();
         List<ModelNode> nodes = new ArrayList<>();
-        List<ModelNodeWithAttributes> childNodesOfType = getChildrenOfType(nodeType, getAllChildren(parentId));
-        if (childNodesOfType != null) {
-            for (ModelNodeWithAttributes node : childNodesOfType) {
-                if (MNKeyUtil.isMatch(matchCriteria, node, m_schemaRegistry)) {
-                    nodes.add(node);
-                }
+        Collection<ModelNodeWithAttributes> childNodesOfType = findIndexedNodes(version, nodeType, matchCriteria,
+                parentId);
+        if (childNodesOfType == null) {
+            childNodesOfType = getChildrenOfType(version, nodeType, parentId);
+        }
+        for (ModelNodeWithAttributes node : childNodesOfType) {
+            if (MNKeyUtil.isMatch(matchCriteria, node, m_schemaRegistry)) {
+                nodes.add(node);
             }
         }
         return nodes;
     }
 
+    /**
+     * Looks up the candidate entries of a list in the key index, or in the index of a unique leaf set, when the match
+     * criteria has values for all the keys or all the leaves of the set. Returns null if none of the indexes apply.
+     */
+    private Collection<ModelNodeWithAttributes> findIndexedNodes(Version version, SchemaPath nodeType, Map<QName,
+            ConfigLeafAttribute> matchCriteria, ModelNodeId parentId) {
+        if (matchCriteria == null || !(m_schemaRegistry.getDataSchemaNode(nodeType) instanceof ListSchemaNode)) {
+            return null;
+        }
+        ModelNodeKey key = MNKeyUtil.getKeyFromCriteria(nodeType, matchCriteria, m_schemaRegistry);
+        if (!key.isEmpty()) {
+            ModelNodeWithAttributes node = findNode(version, nodeType, key, parentId);
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(node);
+        }
+        for (UniqueLeafIndex index : getUniqueIndexes(version, parentId, nodeType)) {
+            if (index.isCoveredBy(matchCriteria)) {
+                LOGGER.debug("DSM: {} -findNodes using the index on unique leaves {} of nodeType: {}", m_dsmName,
+                        index.getLeaves(), nodeType);
+                return index.find(matchCriteria);
+            }
+        }
+        return null;
+    }
+
     @Override
     public ModelNode createNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
         return createNode(modelNode, parentId, -1);
@@ -147,10 +340,17 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
                 insertIndex);
         checkType(modelNode);
         ModelNodeWithAttributes modelNodeWithAttr = (ModelNodeWithAttributes) modelNode;
-        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = getNodesOfType(modelNode.getModelNodeSchemaPath());
-        nodesOfType.put(getNodeKey(modelNode, parentId), modelNodeWithAttr);
-        updateChildIndex(parentId, modelNodeWithAttr, insertIndex);
-        return modelNode;
+        return modify(version -> {
+            version.own(modelNodeWithAttr);
+            getWritableNodesOfType(version, modelNode.getModelNodeSchemaPath()).put(getNodeKey(modelNode, parentId),
+                    modelNodeWithAttr);
+            updateChildIndex(version, parentId, modelNodeWithAttr, insertIndex);
+            for (UniqueLeafIndex index : getWritableUniqueIndexes(version, parentId, modelNode
+                    .getModelNodeSchemaPath())) {
+                index.add(modelNodeWithAttr);
+            }
+            return modelNode;
+        });
     }
 
     private void checkType(ModelNode modelNode) throws DataStoreException {
@@ -159,60 +359,182 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
         }
     }
 
-    private void updateChildIndex(ModelNodeId parentId, ModelNodeWithAttributes childNode, int insertIndex) {
-        ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> allChildren = getAllChildren(parentId);
-        //all children can be null when the node being added is root node
+    private void updateChildIndex(Version version, ModelNodeId parentId, ModelNodeWithAttributes childNode, int
+            insertIndex) {
+        List<ModelNodeWithAttributes> childrenOfType = getWritableChildrenOfType(version, parentId, childNode
+                .getModelNodeSchemaPath());
+        if (insertIndex >= 0 && insertIndex < childrenOfType.size()) {
+            childrenOfType.add(insertIndex, childNode);
+        } else {
+            childrenOfType.add(childNode);
+        }
+    }
+
+    private List<ModelNodeWithAttributes> getChildrenOfType(Version version, SchemaPath nodeType, ModelNodeId
+            parentId) {
+        Map<SchemaPath, List<ModelNodeWithAttributes>> allChildren = version.m_childNodes.get(getParentId(parentId));
         if (allChildren != null) {
-            List<ModelNodeWithAttributes> childrenOfType = getChildrenOfType(childNode.getModelNodeSchemaPath(),
-                    allChildren);
-            if (insertIndex >= 0 && insertIndex < childrenOfType.size()) {
-                childrenOfType.add(insertIndex, childNode);
-            } else {
-                childrenOfType.add(childNode);
+            List<ModelNodeWithAttributes> childrenOfType = allChildren.get(nodeType);
+            if (childrenOfType != null) {
+                return childrenOfType;
             }
         }
+        return Collections.emptyList();
     }
 
-    private List<ModelNodeWithAttributes> getChildrenOfType(SchemaPath modelNodeSchemaPath,
-                                                            ConcurrentHashMap<SchemaPath,
-                                                                    List<ModelNodeWithAttributes>> allChildren) {
-        List<ModelNodeWithAttributes> childrenOfType = allChildren.get(modelNodeSchemaPath);
-        if (childrenOfType == null) {
-            childrenOfType = new ArrayList<>();
-            allChildren.putIfAbsent(modelNodeSchemaPath, childrenOfType);
-            childrenOfType = allChildren.get(modelNodeSchemaPath);
+    private List<ModelNodeWithAttributes> getWritableChildrenOfType(Version version, ModelNodeId parentId,
+                                                                    SchemaPath nodeType) {
+        ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> allChildren = getWritableChildren(version,
+                parentId);
+        List<ModelNodeWithAttributes> childrenOfType = allChildren.get(nodeType);
+        if (childrenOfType == null || !version.owns(childrenOfType)) {
+            childrenOfType = version.own(childrenOfType == null ? new ArrayList<>() : new ArrayList<>(childrenOfType));
+            allChildren.put(nodeType, childrenOfType);
         }
         return childrenOfType;
     }
 
-    private ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> getAllChildren(ModelNodeId parentId) {
-        if (parentId == null) {
-            parentId = ModelNodeId.EMPTY_NODE_ID;
-        }
-        ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> children = m_childNodes.get(parentId);
-        if (children == null) {
-            children = new ConcurrentHashMap<>();
-            m_childNodes.putIfAbsent(parentId, children);
-            children = m_childNodes.get(parentId);
+    private ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> getWritableChildren(Version version,
+                                                                                            ModelNodeId parentId) {
+        parentId = getParentId(parentId);
+        ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>> children = version.m_childNodes.get(parentId);
+        if (children == null || !version.owns(children)) {
+            children = version.own(children == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(children));
+            version.m_childNodes.put(parentId, children);
         }
         return children;
     }
 
+    /**
+     * Returns the indexes on the unique leaf sets of the given list, for its entries under the given parent. Unique
+     * statements on leaves of descendant nodes are not indexed.
+     */
+    private List<UniqueLeafIndex> getUniqueIndexes(Version version, ModelNodeId parentId, SchemaPath nodeType) {
+        Map<SchemaPath, List<UniqueLeafIndex>> indexesOfParent = version.m_uniqueIndexes.get(getParentId(parentId));
+        if (indexesOfParent != null) {
+            List<UniqueLeafIndex> indexes = indexesOfParent.get(nodeType);
+            if (indexes != null) {
+                return indexes;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<UniqueLeafIndex> getWritableUniqueIndexes(Version version, ModelNodeId parentId, SchemaPath
+            nodeType) {
+        List<List<QName>> uniqueLeafSets = getUniqueLeafSets(nodeType);
+        if (uniqueLeafSets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        parentId = getParentId(parentId);
+        ConcurrentHashMap<SchemaPath, List<UniqueLeafIndex>> indexesOfParent = version.m_uniqueIndexes.get(parentId);
+        if (indexesOfParent == null || !version.owns(indexesOfParent)) {
+            indexesOfParent = version.own(indexesOfParent == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(
+                    indexesOfParent));
+            version.m_uniqueIndexes.put(parentId, indexesOfParent);
+        }
+        List<UniqueLeafIndex> indexes = indexesOfParent.get(nodeType);
+        if (indexes == null || !version.owns(indexes)) {
+            List<UniqueLeafIndex> writableIndexes = new ArrayList<>();
+            if (indexes == null) {
+                for (List<QName> leaves : uniqueLeafSets) {
+                    writableIndexes.add(new UniqueLeafIndex(leaves));
+                }
+            } else {
+                for (UniqueLeafIndex index : indexes) {
+                    writableIndexes.add(new UniqueLeafIndex(index));
+                }
+            }
+            indexes = version.own(writableIndexes);
+            indexesOfParent.put(nodeType, indexes);
+        }
+        return indexes;
+    }
+
+    private List<List<QName>> getUniqueLeafSets(SchemaPath nodeType) {
+        List<List<QName>> uniqueLeafSets = m_uniqueLeafSets.get(nodeType);
+        if (uniqueLeafSets == null) {
+            uniqueLeafSets = new ArrayList<>();
+            DataSchemaNode schemaNode = m_schemaRegistry.getDataSchemaNode(nodeType);
+            if (schemaNode instanceof ListSchemaNode) {
+                for (UniqueConstraint constraint : ((ListSchemaNode) schemaNode).getUniqueConstraints()) {
+                    List<QName> leaves = new ArrayList<>();
+                    for (Relative leaf : constraint.getTag()) {
+                        if (Iterables.size(leaf.getPathFromRoot()) == 1) {
+                            leaves.add(leaf.getLastComponent());
+                        }
+                    }
+                    if (leaves.size() == constraint.getTag().size()) {
+                        uniqueLeafSets.add(leaves);
+                    }
+                }
+            }
+            m_uniqueLeafSets.putIfAbsent(nodeType, uniqueLeafSets);
+            uniqueLeafSets = m_uniqueLeafSets.get(nodeType);
+        }
+        return uniqueLeafSets;
+    }
+
+    private ModelNodeId getParentId(ModelNodeId parentId) {
+        if (parentId == null) {
+            return ModelNodeId.EMPTY_NODE_ID;
+        }
+        return parentId;
+    }
+
     private InMemoryNodeKey getNodeKey(ModelNode modelNode, ModelNodeId parentId) {
-        InMemoryNodeKey key = new InMemoryNodeKey(MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry), parentId);
+        InMemoryNodeKey key = new InMemoryNodeKey(MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry),
+                getParentId(parentId));
         return key;
     }
 
-    private Map<InMemoryNodeKey, ModelNodeWithAttributes> getNodesOfType(SchemaPath nodeType) {
-        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = m_nodes.get(nodeType);
-        if (nodesOfType == null) {
-            nodesOfType = new HashMap<>();
-            m_nodes.putIfAbsent(nodeType, nodesOfType);
-            nodesOfType = m_nodes.get(nodeType);
+    private Map<InMemoryNodeKey, ModelNodeWithAttributes> getWritableNodesOfType(Version version, SchemaPath
+            nodeType) {
+        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = version.m_nodes.get(nodeType);
+        if (nodesOfType == null || !version.owns(nodesOfType)) {
+            nodesOfType = version.ownNodes(nodesOfType);
+            version.m_nodes.put(nodeType, nodesOfType);
         }
         return nodesOfType;
     }
 
+    /**
+     * Returns the node the version can change: a node of a committed version is replaced by a copy in all the indexes
+     * of the version. Nodes of a subclass of ModelNodeWithAttributes are not copied and are changed in place.
+     */
+    private ModelNodeWithAttributes getWritableNode(Version version, ModelNodeWithAttributes node, ModelNodeId
+            parentId) {
+        if (version.owns(node) || node.getClass() != ModelNodeWithAttributes.class) {
+            return node;
+        }
+        ModelNodeWithAttributes copy = version.own(new ModelNodeWithAttributes(node.getModelNodeSchemaPath(), node
+                .getParentNodeId(), node.getModelNodeHelperRegistry(), node.getSubSystemRegistry(), node
+                .getSchemaRegistry(), node.getModelNodeDSM()));
+        copy.setAttributes(node.getAttributes());
+        Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new HashMap<>();
+        for (Map.Entry<QName, LinkedHashSet<ConfigLeafAttribute>> leafList : node.getLeafLists().entrySet()) {
+            leafLists.put(leafList.getKey(), new LinkedHashSet<>(leafList.getValue()));
+        }
+        copy.setLeafLists(leafLists);
+        copy.setModelNodeId(node.getModelNodeId());
+
+        getWritableNodesOfType(version, node.getModelNodeSchemaPath()).put(getNodeKey(node, parentId), copy);
+        List<ModelNodeWithAttributes> siblings = getWritableChildrenOfType(version, parentId, node
+                .getModelNodeSchemaPath());
+        //the list holds the node itself, compared by reference rather than with the costlier equals
+        for (int position = 0; position < siblings.size(); position++) {
+            if (siblings.get(position) == node) {
+                siblings.set(position, copy);
+                break;
+            }
+        }
+        for (UniqueLeafIndex index : getWritableUniqueIndexes(version, parentId, node.getModelNodeSchemaPath())) {
+            index.remove(node);
+            index.add(copy);
+        }
+        return copy;
+    }
+
     @Override
     public void updateNode(ModelNode modelNode, ModelNodeId parentId, Map<QName, ConfigLeafAttribute> configAttributes,
                            Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafListAttributes, boolean removeNode)
@@ -227,92 +549,111 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
         LOGGER.debug("DSM: {} -updateNode called with modelNode: {} parentId: {} configAttributes: {} " +
                         "leafListAttributes: {} insertIndex: {}",
                 m_dsmName, modelNode, parentId, configAttributes, leafListAttributes, insertIndex);
-        ModelNodeWithAttributes freshNode = (ModelNodeWithAttributes) findNode(modelNode.getModelNodeSchemaPath(),
-                MNKeyUtil.getModelNodeKey(modelNode, m_schemaRegistry), parentId);
-        if (freshNode != null) {
-            if (configAttributes != null) {
-                freshNode.updateConfigAttributes(configAttributes);
-            }
+        modify(version -> {
+            ModelNodeWithAttributes freshNode = findNode(version, modelNode.getModelNodeSchemaPath(), MNKeyUtil
+                    .getModelNodeKey(modelNode, m_schemaRegistry), parentId);
+            if (freshNode != null) {
+                freshNode = getWritableNode(version, freshNode, parentId);
+                if (configAttributes != null) {
+                    List<UniqueLeafIndex> uniqueIndexes = getWritableUniqueIndexes(version, parentId, freshNode
+                            .getModelNodeSchemaPath());
+                    for (UniqueLeafIndex index : uniqueIndexes) {
+                        index.remove(freshNode);
+                    }
+                    freshNode.updateConfigAttributes(configAttributes);
+                    for (UniqueLeafIndex index : uniqueIndexes) {
+                        index.add(freshNode);
+                    }
+                }
 
-            if (leafListAttributes != null) {
-                if (removeNode) {
-                    freshNode.removeLeafListAttributes(leafListAttributes);
-                } else {
-                    freshNode.updateLeafListAttributes(leafListAttributes);
+                if (leafListAttributes != null) {
+                    if (removeNode) {
+                        freshNode.removeLeafListAttributes(leafListAttributes);
+                    } else {
+                        freshNode.updateLeafListAttributes(leafListAttributes);
+                    }
                 }
             }
-        }
 
-        Iterator<Map.Entry<QName, ConfigLeafAttribute>> configLeafAttrIterator = freshNode.getAttributes().entrySet()
-                .iterator();
-        while (configLeafAttrIterator.hasNext()) {
-            Map.Entry<QName, ConfigLeafAttribute> configAttributeMap = configLeafAttrIterator.next();
-            if (configAttributeMap.getValue() == null) {
-                configLeafAttrIterator.remove();
+            Iterator<Map.Entry<QName, ConfigLeafAttribute>> configLeafAttrIterator = freshNode.getAttributes()
+                    .entrySet().iterator();
+            while (configLeafAttrIterator.hasNext()) {
+                Map.Entry<QName, ConfigLeafAttribute> configAttributeMap = configLeafAttrIterator.next();
+                if (configAttributeMap.getValue() == null) {
+                    configLeafAttrIterator.remove();
+                }
             }
-        }
+            return null;
+        });
     }
 
     @Override
     public void removeNode(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
         LOGGER.debug("DSM: {} -removeNode called with modelNode: {} parentId: {} ", m_dsmName, modelNode, parentId);
-        //remove the node and its children
-        removeNodeInternal(modelNode, parentId);
-        //update the parent node's index that the child is removed
-        removeNodeFromChildNodeIndex(modelNode, parentId);
-
+        modify(version -> {
+            //remove the node and its children
+            removeNodeInternal(version, modelNode, parentId);
+            //update the parent node's index that the child is removed
+            removeNodeFromChildNodeIndex(version, modelNode, parentId);
+            return null;
+        });
     }
 
     /**
      * remove the modelNode and all its children
      *
+     * @param version
      * @param modelNode
      * @param parentId
-     * @throws DataStoreException
      */
-    private void removeNodeInternal(ModelNode modelNode, ModelNodeId parentId) throws DataStoreException {
+    private void removeNodeInternal(Version version, ModelNode modelNode, ModelNodeId parentId) {
         InMemoryNodeKey inMemoryNodeKey = getNodeKey(modelNode, parentId);
-        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = getNodesOfType(modelNode.getModelNodeSchemaPath());
-        if (nodesOfType != null) {
-            nodesOfType.remove(inMemoryNodeKey);
+        Map<InMemoryNodeKey, ModelNodeWithAttributes> nodesOfType = version.m_nodes.get(modelNode
+                .getModelNodeSchemaPath());
+        if (nodesOfType != null && nodesOfType.containsKey(inMemoryNodeKey)) {
+            ModelNodeWithAttributes removedNode = getWritableNodesOfType(version, modelNode.getModelNodeSchemaPath())
+                    .remove(inMemoryNodeKey);
+            for (UniqueLeafIndex index : getWritableUniqueIndexes(version, parentId, removedNode
+                    .getModelNodeSchemaPath())) {
+                index.remove(removedNode);
+            }
         }
-        removeAllChildren(modelNode);
+        removeAllChildren(version, modelNode);
     }
 
     /**
      * remove all children of a given node.
      *
+     * @param version
      * @param modelNode
-     * @throws DataStoreException
      */
-    private void removeAllChildren(ModelNode modelNode) throws DataStoreException {
+    private void removeAllChildren(Version version, ModelNode modelNode) {
         if (modelNode == null) {
             return;
         }
-        Map<SchemaPath, List<ModelNodeWithAttributes>> nodesToRemove = m_childNodes.get(modelNode.getModelNodeId());
+        Map<SchemaPath, List<ModelNodeWithAttributes>> nodesToRemove = version.m_childNodes.get(modelNode
+                .getModelNodeId());
         if (nodesToRemove != null) {
             for (List<ModelNodeWithAttributes> nodesOfType : nodesToRemove.values()) {
                 for (ModelNodeWithAttributes node : nodesOfType) {
-                    removeNodeInternal(node, node.getParentNodeId());
+                    removeNodeInternal(version, node, node.getParentNodeId());
                 }
             }
         }
-        m_childNodes.remove(modelNode.getModelNodeId());
+        version.m_childNodes.remove(modelNode.getModelNodeId());
+        version.m_uniqueIndexes.remove(modelNode.getModelNodeId());
     }
 
     /**
      * remove the node from parent's child index.
      *
+     * @param version
      * @param modelNode
      * @param parentId
      */
-    private void removeNodeFromChildNodeIndex(ModelNode modelNode, ModelNodeId parentId) {
-        Map<SchemaPath, List<ModelNodeWithAttributes>> siblings = m_childNodes.get(parentId);
-        if (siblings != null) {
-            List<ModelNodeWithAttributes> siblingsOfType = siblings.get(modelNode.getModelNodeSchemaPath());
-            if (siblingsOfType != null) {
-                siblingsOfType.remove(modelNode);
-            }
+    private void removeNodeFromChildNodeIndex(Version version, ModelNode modelNode, ModelNodeId parentId) {
+        if (getChildrenOfType(version, modelNode.getModelNodeSchemaPath(), parentId).contains(modelNode)) {
+            getWritableChildrenOfType(version, parentId, modelNode.getModelNodeSchemaPath()).remove(modelNode);
         }
     }
 
@@ -322,18 +663,113 @@ public class InMemoryDSM implements ModelNodeDataStoreManager {
         LOGGER.debug("DSM: {} -removeAllNodes called with modelNode: {} childQname: {} parentId: {} ", m_dsmName,
                 parentNode, nodeType,
                 grandParentId);
-        Map<SchemaPath, List<ModelNodeWithAttributes>> allChildren = m_childNodes.get(parentNode.getModelNodeId());
-        if (allChildren != null) {
-            List<ModelNodeWithAttributes> childrenToRemove = allChildren.get(nodeType);
+        removeAllNodes(parentNode.getModelNodeId(), nodeType);
+    }
 
-            if (childrenToRemove != null) {
-                for (ModelNodeWithAttributes childToBeRemoved : childrenToRemove) {
-                    removeNodeInternal(childToBeRemoved, parentNode.getModelNodeId());
+    void removeAllNodes(ModelNodeId parentId, SchemaPath nodeType) throws DataStoreException {
+        modify(version -> {
+            Map<SchemaPath, List<ModelNodeWithAttributes>> allChildren = version.m_childNodes.get(parentId);
+            if (allChildren != null && allChildren.containsKey(nodeType)) {
+                //only the children of the given type are removed, the other children stay indexed under the parent
+                List<ModelNodeWithAttributes> childrenToRemove = getWritableChildren(version, parentId).remove(
+                        nodeType);
+                if (childrenToRemove != null) {
+                    for (ModelNodeWithAttributes childToBeRemoved : childrenToRemove) {
+                        removeNodeInternal(version, childToBeRemoved, parentId);
+                    }
                 }
             }
-            m_childNodes.remove(parentNode.getModelNodeId());
-        }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the index of the children of each parent node, in the version the current thread reads.
+     */
+    Map<ModelNodeId, ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>>> getChildNodeIndex() {
+        return getReadVersion().m_childNodes;
+    }
+
+    /**
+     * Returns the nodes of each type, in the version the current thread reads.
+     */
+    Map<SchemaPath, Map<InMemoryNodeKey, ModelNodeWithAttributes>> getNodeIndex() {
+        return getReadVersion().m_nodes;
+    }
 
+    private interface Change<T> {
+        T apply(Version version) throws DataStoreException;
     }
 
+    /**
+     * The version a request reads between beginRead and endRead, kept in its scope.
+     */
+    private static final class ReadPin {
+        private volatile Version m_version;
+        private int m_depth = 1;
+
+        private ReadPin(Version version) {
+            m_version = version;
+        }
+    }
+
+    /**
+     * The nodes and the indexes on them of one version. The version an edit builds starts from copies of the maps of
+     * the committed version, which share the entries of the committed maps: the maps keyed by node or by parent are
+     * {@link VersionedMap}s, copied in constant time, a change of one of them copies the path to the changed entry.
+     * Each list, index or node the version shares with the committed version is copied the first time the edit
+     * changes it, so that the committed version stays unchanged. An edit therefore costs time proportional to the
+     * nodes it changes and to the siblings of the lists it changes. An unversioned datastore keeps one version, which
+     * is changed in place.
+     */
+    private static final class Version {
+        private final ConcurrentHashMap<SchemaPath, Map<InMemoryNodeKey, ModelNodeWithAttributes>> m_nodes;
+        //An index to to retrieve children of a given node faster
+        private final VersionedMap<ModelNodeId, ConcurrentHashMap<SchemaPath, List<ModelNodeWithAttributes>>>
+                m_childNodes;
+        //Indexes on the unique leaf sets of lists, to retrieve the list entries under a given node faster
+        private final VersionedMap<ModelNodeId, ConcurrentHashMap<SchemaPath, List<UniqueLeafIndex>>>
+                m_uniqueIndexes;
+        //the maps, lists and nodes copied or created by the edit, null when the version is changed in place
+        private final Set<Object> m_owned;
+        //the owner of the entries of the versioned maps created by the edit, rather than the version itself, so that
+        //the entries shared with later versions do not keep the earlier versions from being collected
+        private final Object m_owner;
+
+        private Version() {
+            m_nodes = new ConcurrentHashMap<>();
+            m_childNodes = new VersionedMap<>(null);
+            m_uniqueIndexes = new VersionedMap<>(null);
+            m_owned = null;
+            m_owner = null;
+        }
+
+        private Version(Version base) {
+            m_owner = new Object();
+            m_nodes = new ConcurrentHashMap<>(base.m_nodes);
+            m_childNodes = new VersionedMap<>(base.m_childNodes, m_owner);
+            m_uniqueIndexes = new VersionedMap<>(base.m_uniqueIndexes, m_owner);
+            m_owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+
+        private boolean owns(Object object) {
+            return m_owned == null || m_owned.contains(object);
+        }
+
+        private <T> T own(T object) {
+            if (m_owned != null) {
+                m_owned.add(object);
+            }
+            return object;
+        }
+
+        /**
+         * Returns an empty map of nodes owned by the version, or a copy of the given one.
+         */
+        private Map<InMemoryNodeKey, ModelNodeWithAttributes> ownNodes(Map<InMemoryNodeKey, ModelNodeWithAttributes>
+                                                                               nodes) {
+            return own(nodes == null ? new VersionedMap<>(m_owner) : new VersionedMap<>(
+                    (VersionedMap<InMemoryNodeKey, ModelNodeWithAttributes>) nodes, m_owner));
+        }
+    }
 }
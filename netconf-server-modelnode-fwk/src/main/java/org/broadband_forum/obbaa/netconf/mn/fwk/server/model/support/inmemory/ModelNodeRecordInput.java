@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .GENERIC_ATTRIBUTE;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .IDENTITY_REF_ATTRIBUTE;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .INSTANCE_IDENTIFIER_ATTRIBUTE;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .NEW_STRING;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .NULL_ATTRIBUTE;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .NULL_STRING;
+import static org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.ModelNodeRecordOutput
+        .STRING_REFERENCE;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeRdn;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InstanceIdentifierConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+/**
+ * Reads the records written by {@link ModelNodeRecordOutput}. The fields of a record are read in the order they
+ * were written, starting with {@link #readOperation()}.
+ */
+class ModelNodeRecordInput {
+    private final DataInputStream m_in;
+    private final ModelNodeFactory m_modelNodeFactory;
+    private final List<String> m_strings = new ArrayList<>();
+    private final Map<String, QName> m_qNames = new HashMap<>();
+
+    /**
+     * Creates the nodes read back, wired to the helpers and the DSM they are to be stored in.
+     */
+    interface ModelNodeFactory {
+        ModelNodeWithAttributes createModelNode(SchemaPath schemaPath, ModelNodeId parentId);
+    }
+
+    ModelNodeRecordInput(InputStream in, ModelNodeFactory modelNodeFactory) {
+        m_in = new DataInputStream(in);
+        m_modelNodeFactory = modelNodeFactory;
+    }
+
+    /**
+     * Returns the operation of the next record, {@link ModelNodeRecordOutput#END} at the end of the records.
+     */
+    public int readOperation() throws IOException {
+        return readVarInt();
+    }
+
+    public int readInsertIndex() throws IOException {
+        return readVarInt() - 1;
+    }
+
+    public ModelNodeWithAttributes readNode() throws IOException {
+        SchemaPath schemaPath = readSchemaPath();
+        ModelNodeWithAttributes node = m_modelNodeFactory.createModelNode(schemaPath, readModelNodeId());
+        node.setModelNodeId(readModelNodeId());
+        int attributeCount = readVarInt();
+        Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            QName qName = readQName();
+            attributes.put(qName, readAttribute());
+        }
+        node.setAttributes(attributes);
+        int leafListCount = readVarInt();
+        Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new HashMap<>();
+        for (int i = 0; i < leafListCount; i++) {
+            QName qName = readQName();
+            int valueCount = readVarInt() - 1;
+            LinkedHashSet<ConfigLeafAttribute> values = null;
+            if (valueCount >= 0) {
+                values = new LinkedHashSet<>();
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(readAttribute());
+                }
+            }
+            leafLists.put(qName, values);
+        }
+        node.setLeafLists(leafLists);
+        return node;
+    }
+
+    public ModelNodeKey readModelNodeKey() throws IOException {
+        int keyCount = readVarInt();
+        Map<QName, String> keys = new LinkedHashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            QName qName = readQName();
+            keys.put(qName, readString());
+        }
+        return new ModelNodeKey(keys);
+    }
+
+    public SchemaPath readSchemaPath() throws IOException {
+        int length = readVarInt();
+        List<QName> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            path.add(readQName());
+        }
+        return SchemaPath.create(path, true);
+    }
+
+    public ModelNodeId readModelNodeId() throws IOException {
+        int rdnCount = readVarInt() - 1;
+        if (rdnCount < 0) {
+            return null;
+        }
+        List<ModelNodeRdn> rdns = new ArrayList<>(rdnCount);
+        for (int i = 0; i < rdnCount; i++) {
+            String rdnName = readString();
+            String namespace = readString();
+            rdns.add(new ModelNodeRdn(rdnName, namespace, readString()));
+        }
+        return new ModelNodeId(rdns);
+    }
+
+    private ConfigLeafAttribute readAttribute() throws IOException {
+        int type = readVarInt();
+        switch (type) {
+            case NULL_ATTRIBUTE:
+                return null;
+            case GENERIC_ATTRIBUTE:
+                String localName = readString();
+                String namespace = readString();
+                return new GenericConfigAttribute(localName, namespace, readString());
+            case IDENTITY_REF_ATTRIBUTE:
+                String identityRefNs = readString();
+                String identityRefPrefix = readString();
+                String attributeLocalName = readString();
+                String attributeValue = readString();
+                return new IdentityRefConfigAttribute(identityRefNs, identityRefPrefix, attributeLocalName,
+                        attributeValue, readString());
+            case INSTANCE_IDENTIFIER_ATTRIBUTE:
+                int prefixCount = readVarInt();
+                Map<String, String> nsPrefixMap = new LinkedHashMap<>();
+                for (int i = 0; i < prefixCount; i++) {
+                    String prefixNamespace = readString();
+                    nsPrefixMap.put(prefixNamespace, readString());
+                }
+                String attributeNamespace = readString();
+                String instanceIdentifierName = readString();
+                return new InstanceIdentifierConfigAttribute(nsPrefixMap, attributeNamespace, instanceIdentifierName,
+                        readString());
+            default:
+                throw new DataStoreException("Unknown attribute type " + type);
+        }
+    }
+
+    private QName readQName() throws IOException {
+        String qName = readString();
+        QName result = m_qNames.get(qName);
+        if (result == null) {
+            result = QName.create(qName);
+            m_qNames.put(qName, result);
+        }
+        return result;
+    }
+
+    private String readString() throws IOException {
+        int reference = readVarInt();
+        if (reference == NULL_STRING) {
+            return null;
+        }
+        if (reference == NEW_STRING) {
+            byte[] bytes = new byte[readVarInt()];
+            m_in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            m_strings.add(value);
+            return value;
+        }
+        int index = reference - STRING_REFERENCE;
+        if (index >= m_strings.size()) {
+            throw new DataStoreException("Unknown string reference " + index);
+        }
+        return m_strings.get(index);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = m_in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new DataStoreException("Malformed record, variable length integer is too long");
+    }
+}
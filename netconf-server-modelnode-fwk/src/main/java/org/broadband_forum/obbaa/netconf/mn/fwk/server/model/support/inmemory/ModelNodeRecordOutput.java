@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeRdn;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InstanceIdentifierConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+/**
+ * Writes the changes made to an {@link InMemoryDSM} as compact binary records, read back by
+ * {@link ModelNodeRecordInput}.
+ *
+ * Each record starts with its operation and carries what is needed to apply it again: a created node is written
+ * whole, an updated node with all its attributes and leaf-lists after the update, a removed node by its key. Every
+ * string, namespaces and QNames included, is written once per output and referred to by its index afterwards.
+ */
+class ModelNodeRecordOutput {
+    static final int END = 0;
+    static final int CREATE = 1;
+    static final int UPDATE = 2;
+    static final int REMOVE = 3;
+    static final int REMOVE_ALL = 4;
+
+    static final int NULL_STRING = 0;
+    static final int NEW_STRING = 1;
+    static final int STRING_REFERENCE = 2;
+
+    static final int NULL_ATTRIBUTE = 0;
+    static final int GENERIC_ATTRIBUTE = 1;
+    static final int IDENTITY_REF_ATTRIBUTE = 2;
+    static final int INSTANCE_IDENTIFIER_ATTRIBUTE = 3;
+
+    private final DataOutputStream m_out;
+    private final Map<String, Integer> m_strings = new HashMap<>();
+
+    ModelNodeRecordOutput(OutputStream out) {
+        m_out = new DataOutputStream(out);
+    }
+
+    public void writeCreate(ModelNodeId parentId, int insertIndex, ModelNodeWithAttributes node) throws IOException {
+        writeVarInt(CREATE);
+        writeModelNodeId(parentId);
+        writeVarInt(insertIndex + 1);
+        writeNode(node);
+    }
+
+    public void writeUpdate(ModelNodeId parentId, ModelNodeWithAttributes node) throws IOException {
+        writeVarInt(UPDATE);
+        writeModelNodeId(parentId);
+        writeNode(node);
+    }
+
+    public void writeRemove(SchemaPath nodeType, ModelNodeKey key, ModelNodeId parentId) throws IOException {
+        writeVarInt(REMOVE);
+        writeSchemaPath(nodeType);
+        writeModelNodeId(parentId);
+        writeVarInt(key.getKeys().size());
+        for (Map.Entry<QName, String> keyValue : key.entrySet()) {
+            writeQName(keyValue.getKey());
+            writeString(keyValue.getValue());
+        }
+    }
+
+    public void writeRemoveAll(ModelNodeId parentId, SchemaPath nodeType) throws IOException {
+        writeVarInt(REMOVE_ALL);
+        writeModelNodeId(parentId);
+        writeSchemaPath(nodeType);
+    }
+
+    public void writeEnd() throws IOException {
+        writeVarInt(END);
+    }
+
+    public void flush() throws IOException {
+        m_out.flush();
+    }
+
+    private void writeNode(ModelNodeWithAttributes node) throws IOException {
+        writeSchemaPath(node.getModelNodeSchemaPath());
+        writeModelNodeId(node.getParentNodeId());
+        writeModelNodeId(node.getModelNodeId());
+        Map<QName, ConfigLeafAttribute> attributes = node.getAttributes();
+        writeVarInt(attributes.size());
+        for (Map.Entry<QName, ConfigLeafAttribute> attribute : attributes.entrySet()) {
+            writeQName(attribute.getKey());
+            writeAttribute(attribute.getValue());
+        }
+        Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = node.getLeafLists();
+        writeVarInt(leafLists.size());
+        for (Map.Entry<QName, LinkedHashSet<ConfigLeafAttribute>> leafList : leafLists.entrySet()) {
+            writeQName(leafList.getKey());
+            if (leafList.getValue() == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(leafList.getValue().size() + 1);
+                for (ConfigLeafAttribute value : leafList.getValue()) {
+                    writeAttribute(value);
+                }
+            }
+        }
+    }
+
+    private void writeAttribute(ConfigLeafAttribute attribute) throws IOException {
+        if (attribute == null) {
+            writeVarInt(NULL_ATTRIBUTE);
+        } else if (attribute instanceof GenericConfigAttribute) {
+            GenericConfigAttribute generic = (GenericConfigAttribute) attribute;
+            writeVarInt(GENERIC_ATTRIBUTE);
+            writeString(generic.getAttributeLocalName());
+            writeString(generic.getNamespace());
+            writeString(generic.getStringValue());
+        } else if (attribute instanceof IdentityRefConfigAttribute) {
+            IdentityRefConfigAttribute identityRef = (IdentityRefConfigAttribute) attribute;
+            writeVarInt(IDENTITY_REF_ATTRIBUTE);
+            writeString(identityRef.getNamespace());
+            writeString(identityRef.getIdentityRefPrefix());
+            writeString(identityRef.getAttributeLocalName());
+            writeString(identityRef.getAttributeValue());
+            writeString(identityRef.getAttributeNamespace());
+        } else if (attribute instanceof InstanceIdentifierConfigAttribute) {
+            InstanceIdentifierConfigAttribute instanceIdentifier = (InstanceIdentifierConfigAttribute) attribute;
+            writeVarInt(INSTANCE_IDENTIFIER_ATTRIBUTE);
+            Map<String, String> nsPrefixMap = instanceIdentifier.getNsPrefixMap();
+            writeVarInt(nsPrefixMap.size());
+            for (Map.Entry<String, String> nsPrefix : nsPrefixMap.entrySet()) {
+                writeString(nsPrefix.getKey());
+                writeString(nsPrefix.getValue());
+            }
+            writeString(instanceIdentifier.getAttributeNamespace());
+            writeString(instanceIdentifier.getAttributeLocalName());
+            writeString(instanceIdentifier.getStringValue());
+        } else {
+            throw new DataStoreException("Cannot persist attribute of type " + attribute.getClass().getName());
+        }
+    }
+
+    private void writeSchemaPath(SchemaPath schemaPath) throws IOException {
+        List<QName> path = schemaPath.getPath();
+        writeVarInt(path.size());
+        for (QName qName : path) {
+            writeQName(qName);
+        }
+    }
+
+    private void writeModelNodeId(ModelNodeId modelNodeId) throws IOException {
+        if (modelNodeId == null) {
+            writeVarInt(0);
+            return;
+        }
+        List<ModelNodeRdn> rdns = modelNodeId.getRdns();
+        writeVarInt(rdns.size() + 1);
+        for (ModelNodeRdn rdn : rdns) {
+            writeString(rdn.getRdnName());
+            writeString(rdn.getNamespace());
+            writeString(rdn.getRdnValue());
+        }
+    }
+
+    private void writeQName(QName qName) throws IOException {
+        writeString(qName.toString());
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(NULL_STRING);
+            return;
+        }
+        Integer index = m_strings.get(value);
+        if (index != null) {
+            writeVarInt(STRING_REFERENCE + index);
+            return;
+        }
+        m_strings.put(value, m_strings.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(NEW_STRING);
+        writeVarInt(bytes.length);
+        m_out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            m_out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        m_out.write(value);
+    }
+}
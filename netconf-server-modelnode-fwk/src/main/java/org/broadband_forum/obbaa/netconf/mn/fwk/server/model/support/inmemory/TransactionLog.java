@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
+import org.broadband_forum.obbaa.netconf.stack.logging.LoggerFactory;
+
+/**
+ * An append-only log of transactions, written through memory mapped regions of the file.
+ *
+ * Each transaction is one record: its length, the CRC32 of its content and the content. A record is durable once
+ * {@link #sync(long)} returns for its end position. Transactions appended while a sync is in progress are made
+ * durable together by the next sync, so concurrent committers share the cost of flushing the file.
+ *
+ * A log is read back with {@link #read(File, RecordHandler)}, which stops at the first incomplete or corrupted
+ * record, the one that was being written when the process stopped.
+ */
+class TransactionLog implements Closeable {
+    private static final AdvancedLogger LOGGER = LoggerFactory.getLogger(TransactionLog.class,
+            "netconf-server-datastore", "DEBUG", "GLOBAL");
+    static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final File m_file;
+    private final RandomAccessFile m_randomAccessFile;
+    private final FileChannel m_channel;
+    private final int m_regionSize;
+    private final Object m_syncLock = new Object();
+    private MappedByteBuffer m_region;
+    private long m_position;
+    private volatile long m_syncedPosition;
+    private boolean m_closed;
+
+    /**
+     * Processes the records of a log as it is read.
+     */
+    interface RecordHandler {
+        void handle(byte[] record) throws IOException;
+    }
+
+    /**
+     * Opens the log for appending after the given position, the end of its last complete record. Anything after it
+     * is discarded.
+     */
+    TransactionLog(File file, long position, int regionSize) throws IOException {
+        m_file = file;
+        m_regionSize = regionSize;
+        m_randomAccessFile = new RandomAccessFile(file, "rw");
+        m_channel = m_randomAccessFile.getChannel();
+        if (m_channel.size() > position) {
+            m_channel.truncate(position);
+        }
+        m_position = position;
+        m_syncedPosition = position;
+    }
+
+    /**
+     * Reads the complete records of the log and returns the position after the last one.
+     */
+    static long read(File file, RecordHandler handler) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        long fileLength = file.length();
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (position + RECORD_HEADER_SIZE <= fileLength) {
+                int length = in.readInt();
+                if (length <= 0) {
+                    break;
+                }
+                if (position + RECORD_HEADER_SIZE + length > fileLength) {
+                    LOGGER.warn("Ignoring the incomplete record at {} of {}", position, file);
+                    break;
+                }
+                int checksum = in.readInt();
+                byte[] record = new byte[length];
+                in.readFully(record);
+                if (checksum != checksum(record)) {
+                    LOGGER.warn("Ignoring the corrupted record at {} of {}", position, file);
+                    break;
+                }
+                handler.handle(record);
+                position += RECORD_HEADER_SIZE + length;
+            }
+        } catch (EOFException e) {
+            LOGGER.warn("Ignoring the incomplete record at {} of {}", position, file);
+        }
+        return position;
+    }
+
+    /**
+     * Appends a record and returns the position after it, to be passed to {@link #sync(long)}.
+     */
+    public synchronized long append(byte[] record) throws IOException {
+        if (m_closed) {
+            throw new IOException("The log " + m_file + " is closed");
+        }
+        int size = RECORD_HEADER_SIZE + record.length;
+        if (m_region == null || m_region.remaining() < size) {
+            mapRegion(size);
+        }
+        m_region.putInt(record.length);
+        m_region.putInt(checksum(record));
+        m_region.put(record);
+        m_position += size;
+        return m_position;
+    }
+
+    /**
+     * Returns once the records up to the given position are on disk.
+     */
+    public void sync(long position) {
+        if (m_syncedPosition >= position) {
+            return;
+        }
+        synchronized (m_syncLock) {
+            if (m_syncedPosition >= position) {
+                return;
+            }
+            MappedByteBuffer region;
+            long syncedPosition;
+            synchronized (this) {
+                region = m_region;
+                syncedPosition = m_position;
+            }
+            region.force();
+            m_syncedPosition = syncedPosition;
+        }
+    }
+
+    /**
+     * The position after the last appended record, which is also the size of the log.
+     */
+    public synchronized long getPosition() {
+        return m_position;
+    }
+
+    public File getFile() {
+        return m_file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (m_closed) {
+            return;
+        }
+        m_closed = true;
+        if (m_region != null) {
+            m_region.force();
+        }
+        m_syncedPosition = m_position;
+        m_randomAccessFile.close();
+    }
+
+    private void mapRegion(int recordSize) throws IOException {
+        if (m_region != null) {
+            // the records in the previous region may not have been synced yet
+            m_region.force();
+        }
+        m_region = m_channel.map(FileChannel.MapMode.READ_WRITE, m_position, Math.max(m_regionSize, recordSize));
+        // mapping grew the file, its new length has to survive a crash too
+        m_channel.force(true);
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+}
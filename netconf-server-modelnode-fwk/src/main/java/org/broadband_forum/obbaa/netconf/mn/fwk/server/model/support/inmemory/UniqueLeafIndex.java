@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.MNKeyUtil;
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * Hash index on the values of the leaves of one YANG unique statement, for the entries of a list under one parent.
+ *
+ * As with the unique statement itself, an entry is indexed only when it has a value for every leaf of the set.
+ * Several entries can share the same values until the unique constraint is validated. The values are indexed as
+ * {@link MNKeyUtil#getComparableValue(ConfigLeafAttribute)} returns them, so that an identityref is found whatever
+ * its prefix.
+ *
+ * The sets of entries are replaced rather than changed, so the index can be read while an unversioned datastore
+ * changes it.
+ */
+class UniqueLeafIndex {
+    private final List<QName> m_leaves;
+    private final Map<List<String>, Set<ModelNodeWithAttributes>> m_entries = new ConcurrentHashMap<>();
+
+    UniqueLeafIndex(List<QName> leaves) {
+        m_leaves = leaves;
+    }
+
+    /**
+     * Copies the index, the copy is changed independently of the given index.
+     */
+    UniqueLeafIndex(UniqueLeafIndex index) {
+        m_leaves = index.m_leaves;
+        //the sets are never changed, the copy shares them
+        m_entries.putAll(index.m_entries);
+    }
+
+    public List<QName> getLeaves() {
+        return m_leaves;
+    }
+
+    public void add(ModelNodeWithAttributes node) {
+        List<String> values = getValues(node.getAttributes());
+        if (values != null) {
+            m_entries.compute(values, (key, nodes) -> {
+                Set<ModelNodeWithAttributes> changedNodes = nodes == null ? new LinkedHashSet<>() : new
+                        LinkedHashSet<>(nodes);
+                changedNodes.add(node);
+                return changedNodes;
+            });
+        }
+    }
+
+    public void remove(ModelNodeWithAttributes node) {
+        List<String> values = getValues(node.getAttributes());
+        if (values != null) {
+            m_entries.computeIfPresent(values, (key, nodes) -> {
+                Set<ModelNodeWithAttributes> changedNodes = new LinkedHashSet<>(nodes);
+                changedNodes.remove(node);
+                return changedNodes.isEmpty() ? null : changedNodes;
+            });
+        }
+    }
+
+    /**
+     * Returns true if the match criteria has a value for every leaf of the set.
+     */
+    public boolean isCoveredBy(Map<QName, ConfigLeafAttribute> matchCriteria) {
+        return getValues(matchCriteria) != null;
+    }
+
+    /**
+     * Returns the entries with the values of the match criteria for the leaves of the set. The other criteria are not
+     * looked at.
+     */
+    public Collection<ModelNodeWithAttributes> find(Map<QName, ConfigLeafAttribute> matchCriteria) {
+        Set<ModelNodeWithAttributes> nodes = m_entries.get(getValues(matchCriteria));
+        if (nodes == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(nodes);
+    }
+
+    private List<String> getValues(Map<QName, ConfigLeafAttribute> attributes) {
+        List<String> values = new ArrayList<>(m_leaves.size());
+        for (QName leaf : m_leaves) {
+            ConfigLeafAttribute attribute = attributes.get(leaf);
+            if (attribute == null || attribute.getStringValue() == null) {
+                return null;
+            }
+            values.add(MNKeyUtil.getComparableValue(attribute));
+        }
+        return values;
+    }
+}
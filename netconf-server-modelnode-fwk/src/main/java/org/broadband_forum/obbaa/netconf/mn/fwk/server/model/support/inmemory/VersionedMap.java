@@ -0,0 +1,325 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A hash trie map whose copies share the nodes of the trie. A copy is made in constant time, and a change copies only
+ * the path from the root to the changed entry, so a version of the datastore can be derived from the committed one at
+ * a cost that does not depend on the size of the map.
+ *
+ * The nodes created by a change belong to the owner of the map, and further changes of the map make them in place,
+ * until the map is copied: from then on both the map and its copy copy the nodes they share. A map without owner
+ * copies the path on each change and publishes the new root with a volatile write, so readers on other threads
+ * always see a complete trie. Changes are expected to be made by one thread at a time.
+ * Null keys and values are not supported.
+ */
+final class VersionedMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private Object m_owner;
+    private volatile Node m_root;
+    private volatile int m_size;
+
+    /**
+     * Creates an empty map, the nodes of which can be changed in place by the given owner, which can be null.
+     */
+    VersionedMap(Object owner) {
+        m_owner = owner;
+        m_root = new Node(owner);
+    }
+
+    /**
+     * Creates a copy of the given map, changed independently of it.
+     */
+    VersionedMap(VersionedMap<K, V> base, Object owner) {
+        //the nodes of the base are shared from now on
+        base.m_owner = null;
+        m_owner = owner;
+        m_root = base.m_root;
+        m_size = base.m_size;
+    }
+
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int hash = hash(key);
+        Node node = m_root;
+        for (int shift = 0; ; shift += BITS) {
+            Object slot = node.m_slots[(hash >>> shift) & MASK];
+            if (slot instanceof Node) {
+                node = (Node) slot;
+            } else if (slot != null && ((Leaf) slot).m_hash == hash) {
+                return ((Leaf<K, V>) slot).get(key);
+            } else {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Object[] previous = new Object[1];
+        m_root = put(m_root, 0, hash(key), key, value, previous);
+        if (previous[0] == null) {
+            m_size++;
+        }
+        return (V) previous[0];
+    }
+
+    private Node put(Node node, int shift, int hash, K key, V value, Object[] previous) {
+        Node writable = writable(node);
+        int index = (hash >>> shift) & MASK;
+        Object slot = node.m_slots[index];
+        if (slot == null) {
+            writable.m_slots[index] = new Leaf<>(hash, key, value);
+        } else if (slot instanceof Node) {
+            writable.m_slots[index] = put((Node) slot, shift + BITS, hash, key, value, previous);
+        } else {
+            Leaf<K, V> leaf = (Leaf<K, V>) slot;
+            if (leaf.m_hash == hash) {
+                previous[0] = leaf.get(key);
+                writable.m_slots[index] = leaf.with(key, value);
+            } else {
+                //the hashes differ in the bits of a deeper level
+                Node child = new Node(m_owner);
+                child.m_slots[(leaf.m_hash >>> (shift + BITS)) & MASK] = leaf;
+                writable.m_slots[index] = put(child, shift + BITS, hash, key, value, previous);
+            }
+        }
+        return writable;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (get(key) == null) {
+            return null;
+        }
+        Object[] previous = new Object[1];
+        m_root = remove(m_root, 0, hash(key), key, previous);
+        m_size--;
+        return (V) previous[0];
+    }
+
+    private Node remove(Node node, int shift, int hash, Object key, Object[] previous) {
+        Node writable = writable(node);
+        int index = (hash >>> shift) & MASK;
+        Object slot = node.m_slots[index];
+        if (slot instanceof Node) {
+            writable.m_slots[index] = remove((Node) slot, shift + BITS, hash, key, previous);
+        } else {
+            Leaf<K, V> leaf = (Leaf<K, V>) slot;
+            previous[0] = leaf.get(key);
+            writable.m_slots[index] = leaf.without(key);
+        }
+        return writable;
+    }
+
+    @Override
+    public void clear() {
+        m_root = new Node(m_owner);
+        m_size = 0;
+    }
+
+    private Node writable(Node node) {
+        if (m_owner != null && node.m_owner == m_owner) {
+            return node;
+        }
+        return new Node(m_owner, node.m_slots.clone());
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(m_root);
+            }
+
+            @Override
+            public int size() {
+                return m_size;
+            }
+        };
+    }
+
+    private static final class Node {
+        private final Object m_owner;
+        private final Object[] m_slots;
+
+        private Node(Object owner) {
+            this(owner, new Object[1 << BITS]);
+        }
+
+        private Node(Object owner, Object[] slots) {
+            m_owner = owner;
+            m_slots = slots;
+        }
+    }
+
+    /**
+     * The entries whose keys have the same hash, never changed once created.
+     */
+    private static final class Leaf<K, V> {
+        private final int m_hash;
+        private final Object[] m_keys;
+        private final Object[] m_values;
+
+        private Leaf(int hash, K key, V value) {
+            this(hash, new Object[]{key}, new Object[]{value});
+        }
+
+        private Leaf(int hash, Object[] keys, Object[] values) {
+            m_hash = hash;
+            m_keys = keys;
+            m_values = values;
+        }
+
+        private int indexOf(Object key) {
+            for (int index = 0; index < m_keys.length; index++) {
+                if (m_keys[index].equals(key)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private V get(Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : (V) m_values[index];
+        }
+
+        private Leaf<K, V> with(K key, V value) {
+            int index = indexOf(key);
+            Object[] keys = m_keys;
+            Object[] values;
+            if (index < 0) {
+                index = m_keys.length;
+                keys = new Object[index + 1];
+                System.arraycopy(m_keys, 0, keys, 0, index);
+                keys[index] = key;
+                values = new Object[index + 1];
+                System.arraycopy(m_values, 0, values, 0, index);
+            } else {
+                values = m_values.clone();
+            }
+            values[index] = value;
+            return new Leaf<>(m_hash, keys, values);
+        }
+
+        private Leaf<K, V> without(Object key) {
+            int index = indexOf(key);
+            if (m_keys.length == 1) {
+                return null;
+            }
+            Object[] keys = new Object[m_keys.length - 1];
+            Object[] values = new Object[m_keys.length - 1];
+            System.arraycopy(m_keys, 0, keys, 0, index);
+            System.arraycopy(m_keys, index + 1, keys, index, keys.length - index);
+            System.arraycopy(m_values, 0, values, 0, index);
+            System.arraycopy(m_values, index + 1, values, index, values.length - index);
+            return new Leaf<>(m_hash, keys, values);
+        }
+    }
+
+    /**
+     * Iterates over the entries of the trie with the given root, later changes of the map are not seen.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Deque<Object[]> m_slots = new ArrayDeque<>();
+        private final Deque<Integer> m_positions = new ArrayDeque<>();
+        private Leaf<K, V> m_leaf;
+        private int m_leafPosition;
+
+        private EntryIterator(Node root) {
+            m_slots.push(root.m_slots);
+            m_positions.push(0);
+            advance();
+        }
+
+        private void advance() {
+            if (m_leaf != null && m_leafPosition < m_leaf.m_keys.length) {
+                return;
+            }
+            m_leaf = null;
+            while (!m_slots.isEmpty()) {
+                Object[] slots = m_slots.peek();
+                int position = m_positions.pop();
+                if (position == slots.length) {
+                    m_slots.pop();
+                    continue;
+                }
+                m_positions.push(position + 1);
+                Object slot = slots[position];
+                if (slot instanceof Node) {
+                    m_slots.push(((Node) slot).m_slots);
+                    m_positions.push(0);
+                } else if (slot != null) {
+                    m_leaf = (Leaf<K, V>) slot;
+                    m_leafPosition = 0;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_leaf != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (m_leaf == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = new SimpleImmutableEntry<>((K) m_leaf.m_keys[m_leafPosition], (V) m_leaf
+                    .m_values[m_leafPosition]);
+            m_leafPosition++;
+            advance();
+            return entry;
+        }
+    }
+}
@@ -19,10 +19,16 @@ package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.jxpath.JXPathContext;
+import org.apache.commons.jxpath.JXPathException;
 import org.apache.commons.jxpath.ri.Compiler;
 import org.apache.commons.jxpath.ri.JXPathCompiledExpression;
 import org.apache.commons.jxpath.ri.compiler.Constant;
@@ -38,6 +44,7 @@ import org.apache.commons.jxpath.ri.compiler.CoreOperationSubtract;
 import org.apache.commons.jxpath.ri.compiler.Expression;
 import org.apache.commons.jxpath.ri.compiler.LocationPath;
 
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
 import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DataStoreValidationUtil;
 import org.broadband_forum.obbaa.netconf.stack.logging.AdvancedLogger;
@@ -50,13 +57,29 @@ public class JXPathUtils {
 
     private static final String EXPRESSION_CACHE = "EXPRESSION_CACHE";
 
+    /**
+     * Upper bound of the schema expression cache, the must, when and leafref paths of all deployed modules normally
+     * stay far below it.
+     */
+    public static final int MAX_SCHEMA_EXPRESSIONS = 50000;
+
+    private static final Map<Class<?>, Method> c_getExpressionMethods = new ConcurrentHashMap<>();
+    private static final Map<String, Expression> c_schemaExpressions = new ConcurrentHashMap<>();
+    private static final Set<Expression> c_compiledSchemaExpressions = ConcurrentHashMap.newKeySet();
+    private static final Map<Expression, Expression> c_alignedSchemaExpressions = new ConcurrentHashMap<>();
+    private static final Set<Expression> c_nativeSchemaExpressions = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Set<Map.Entry<SchemaRegistry, String>>> c_schemaExpressionOwners = new
+            HashMap<>();
+
     public static Expression getExpression(JXPathCompiledExpression compiledExpression) {
         if (compiledExpression != null) {
             try {
-                Class<? extends JXPathCompiledExpression> clazz = compiledExpression.getClass();
-                Method method;
-                method = clazz.getDeclaredMethod("getExpression");
-                method.setAccessible(true);
+                Method method = c_getExpressionMethods.get(compiledExpression.getClass());
+                if (method == null) {
+                    method = compiledExpression.getClass().getDeclaredMethod("getExpression");
+                    method.setAccessible(true);
+                    c_getExpressionMethods.put(compiledExpression.getClass(), method);
+                }
                 return (Expression) method.invoke(compiledExpression);
             } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
                     | InvocationTargetException e) {
@@ -183,7 +206,11 @@ public class JXPathUtils {
      * @return
      */
     public static Expression getExpression(String xPathCondition) {
-        Expression returnValue = getExpressionFromCache(xPathCondition);
+        Expression returnValue = xPathCondition == null ? null : c_schemaExpressions.get(xPathCondition);
+        if (returnValue != null) {
+            return returnValue;
+        }
+        returnValue = getExpressionFromCache(xPathCondition);
         if (returnValue == null && xPathCondition != null) {
             returnValue = getExpression((JXPathCompiledExpression) JXPathContext.compile(xPathCondition));
             cacheExpression(xPathCondition, returnValue);
@@ -209,4 +236,113 @@ public class JXPathUtils {
             expressionMap.put(xPathCondition, expression);
         }
     }
+
+    /**
+     * Compiles a must, when or leafref path of a schema node once, when the schema is deployed. The compiled
+     * expression is shared by all the requests that evaluate the path, requests never modify a compiled expression.
+     * It is kept until all the components that deployed the path are released with
+     * {@link #releaseSchemaExpressions(SchemaRegistry, String)}.
+     *
+     * @param schemaRegistry
+     * @param componentId
+     * @param xPathCondition
+     * @return the compiled expression, null if the path cannot be compiled
+     */
+    public static synchronized Expression compileSchemaExpression(SchemaRegistry schemaRegistry, String componentId,
+                                                                  String xPathCondition) {
+        if (xPathCondition == null) {
+            return null;
+        }
+        Expression expression = c_schemaExpressions.get(xPathCondition);
+        if (expression == null) {
+            try {
+                expression = getExpression((JXPathCompiledExpression) JXPathContext.compile(xPathCondition));
+            } catch (JXPathException e) {
+                LOGGER.debug("Schema path {} is compiled when it is evaluated", xPathCondition, e);
+                return null;
+            }
+            if (expression == null || c_schemaExpressions.size() >= MAX_SCHEMA_EXPRESSIONS) {
+                return expression;
+            }
+            c_schemaExpressions.put(xPathCondition, expression);
+            c_compiledSchemaExpressions.add(expression);
+            if (ModelNodeXPathEvaluator.isSupported(expression)) {
+                c_nativeSchemaExpressions.add(expression);
+            }
+        }
+        c_schemaExpressionOwners.computeIfAbsent(xPathCondition, path -> new HashSet<>()).add(new
+                SimpleImmutableEntry<>(schemaRegistry, componentId));
+        return expression;
+    }
+
+    /**
+     * Drops the compiled schema expressions that were deployed only by the given component of the given registry,
+     * when the component is unloaded or the schema of the registry is built again.
+     *
+     * @param schemaRegistry
+     * @param componentId the component, null for all the components of the registry
+     */
+    public static synchronized void releaseSchemaExpressions(SchemaRegistry schemaRegistry, String componentId) {
+        Iterator<Map.Entry<String, Set<Map.Entry<SchemaRegistry, String>>>> iterator = c_schemaExpressionOwners
+                .entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Set<Map.Entry<SchemaRegistry, String>>> entry = iterator.next();
+            entry.getValue().removeIf(owner -> owner.getKey() == schemaRegistry && (componentId == null || componentId
+                    .equals(owner.getValue())));
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+                Expression expression = c_schemaExpressions.remove(entry.getKey());
+                c_compiledSchemaExpressions.remove(expression);
+                c_alignedSchemaExpressions.remove(expression);
+                c_nativeSchemaExpressions.remove(expression);
+            }
+        }
+    }
+
+    /**
+     * Returns the expression with its steps aligned to the attribute names of the ModelNodeDynaBeans. The aligned form
+     * of a compiled schema expression is built once, other expressions are aligned on every call.
+     *
+     * @param expression
+     * @return
+     */
+    public static Expression getDynaBeanAlignedExpression(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        Expression aligned = c_alignedSchemaExpressions.get(expression);
+        if (aligned == null) {
+            aligned = DataStoreValidationUtil.getDynaBeanAlignedPath(expression);
+            if (c_compiledSchemaExpressions.contains(expression)) {
+                c_alignedSchemaExpressions.put(expression, aligned);
+            }
+        }
+        return aligned;
+    }
+
+    /**
+     * Tells if the expression is a compiled schema expression that {@link ModelNodeXPathEvaluator} evaluates, which is
+     * decided once when the schema is deployed.
+     *
+     * @param expression
+     * @return
+     */
+    public static boolean isNativeSchemaExpression(Expression expression) {
+        return expression != null && c_nativeSchemaExpressions.contains(expression);
+    }
+
+    public static int getSchemaExpressionCount() {
+        return c_schemaExpressions.size();
+    }
+
+    /**
+     * Drops all the compiled schema expressions, whatever the components that deployed them.
+     */
+    public static synchronized void clearSchemaExpressions() {
+        c_schemaExpressionOwners.clear();
+        c_schemaExpressions.clear();
+        c_compiledSchemaExpressions.clear();
+        c_alignedSchemaExpressions.clear();
+        c_nativeSchemaExpressions.clear();
+    }
 }
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.jxpath.ri.Compiler;
+import org.apache.commons.jxpath.ri.compiler.Constant;
+import org.apache.commons.jxpath.ri.compiler.CoreFunction;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationAnd;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationEqual;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationGreaterThan;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationGreaterThanOrEqual;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationLessThan;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationLessThanOrEqual;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationNotEqual;
+import org.apache.commons.jxpath.ri.compiler.CoreOperationOr;
+import org.apache.commons.jxpath.ri.compiler.Expression;
+import org.apache.commons.jxpath.ri.compiler.LocationPath;
+import org.apache.commons.jxpath.ri.compiler.NodeNameTest;
+import org.apache.commons.jxpath.ri.compiler.NodeTypeTest;
+import org.apache.commons.jxpath.ri.compiler.Operation;
+import org.apache.commons.jxpath.ri.compiler.Step;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildContainerHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildListHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.DsmNotRegisteredException;
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * Evaluates a subset of YANG XPath directly over the ModelNodes of a data store, without building
+ * ModelNodeDynaBeans or a JXPathContext.
+ *
+ * The subset holds the expressions whose result can only turn from false to true when nodes are added to the tree:
+ * relative location paths of child, parent and self steps without predicates, 'and', 'or', the comparison
+ * operators, literals and the true(), false() and boolean() functions. The evaluator does not know about default
+ * values, cross tree references and the other extensions of the DynaBean based evaluation, so a true result holds for
+ * it as well, while a false result has to be confirmed by it.
+ */
+public final class ModelNodeXPathEvaluator {
+
+    private static final Pattern XPATH_NUMBER = Pattern.compile("\\s*-?(\\d+(\\.\\d*)?|\\.\\d+)\\s*");
+
+    private ModelNodeXPathEvaluator() {
+    }
+
+    /**
+     * Tells if the expression is in the subset this evaluator handles.
+     *
+     * @param expression
+     * @return
+     */
+    public static boolean isSupported(Expression expression) {
+        if (expression instanceof Constant) {
+            return true;
+        }
+        if (expression instanceof CoreOperationAnd || expression instanceof CoreOperationOr
+                || expression instanceof CoreOperationEqual || expression instanceof CoreOperationNotEqual
+                || isRelationalOperation(expression)) {
+            for (Expression argument : ((Operation) expression).getArguments()) {
+                if (!isSupported(argument)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expression instanceof CoreFunction) {
+            CoreFunction function = (CoreFunction) expression;
+            switch (function.getFunctionCode()) {
+                case Compiler.FUNCTION_TRUE:
+                case Compiler.FUNCTION_FALSE:
+                    return function.getArgumentCount() == 0;
+                case Compiler.FUNCTION_BOOLEAN:
+                    return function.getArgumentCount() == 1 && isSupported(function.getArg1());
+                default:
+                    return false;
+            }
+        }
+        if (expression instanceof LocationPath) {
+            LocationPath path = (LocationPath) expression;
+            if (path.isAbsolute()) {
+                return false;
+            }
+            for (Step step : path.getSteps()) {
+                if (!isSupported(step)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isSupported(Step step) {
+        if (step.getPredicates() != null && step.getPredicates().length > 0) {
+            return false;
+        }
+        switch (step.getAxis()) {
+            case Compiler.AXIS_CHILD:
+                return step.getNodeTest() instanceof NodeNameTest && !((NodeNameTest) step.getNodeTest()).isWildcard();
+            case Compiler.AXIS_PARENT:
+            case Compiler.AXIS_SELF:
+                return step.getNodeTest() instanceof NodeTypeTest && ((NodeTypeTest) step.getNodeTest())
+                        .getNodeType() == Compiler.NODE_TYPE_NODE;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Evaluates a supported expression on a node.
+     *
+     * @param expression an expression for which {@link #isSupported(Expression)} holds
+     * @param contextNode
+     * @return true if the expression holds on the node, false if it does not or cannot be decided on the ModelNodes
+     */
+    public static boolean isTrue(Expression expression, ModelNode contextNode) {
+        return isTrue(expression, (Object) contextNode);
+    }
+
+    /**
+     * Evaluates a supported expression on the value of a leaf or of a leaf-list entry of a node.
+     *
+     * @param expression an expression for which {@link #isSupported(Expression)} holds
+     * @param parentNode
+     * @param leafValue
+     * @return true if the expression holds on the leaf, false if it does not or cannot be decided on the ModelNodes
+     */
+    public static boolean isTrueOnLeaf(Expression expression, ModelNode parentNode, String leafValue) {
+        return isTrue(expression, new LeafNode(parentNode, leafValue));
+    }
+
+    private static boolean isTrue(Expression expression, Object contextNode) {
+        try {
+            return toBoolean(evaluate(expression, contextNode));
+        } catch (UndecidedException e) {
+            return false;
+        }
+    }
+
+    private static Object evaluate(Expression expression, Object contextNode) {
+        if (expression instanceof Constant) {
+            return ((Constant) expression).computeValue(null);
+        }
+        if (expression instanceof LocationPath) {
+            return select((LocationPath) expression, contextNode);
+        }
+        if (expression instanceof CoreFunction) {
+            CoreFunction function = (CoreFunction) expression;
+            switch (function.getFunctionCode()) {
+                case Compiler.FUNCTION_TRUE:
+                    return Boolean.TRUE;
+                case Compiler.FUNCTION_FALSE:
+                    return Boolean.FALSE;
+                default:
+                    return toBoolean(evaluate(function.getArg1(), contextNode));
+            }
+        }
+        Expression[] arguments = ((Operation) expression).getArguments();
+        if (expression instanceof CoreOperationAnd) {
+            for (Expression argument : arguments) {
+                if (!toBoolean(evaluate(argument, contextNode))) {
+                    return Boolean.FALSE;
+                }
+            }
+            return Boolean.TRUE;
+        }
+        if (expression instanceof CoreOperationOr) {
+            for (Expression argument : arguments) {
+                if (toBoolean(evaluate(argument, contextNode))) {
+                    return Boolean.TRUE;
+                }
+            }
+            return Boolean.FALSE;
+        }
+        return compare(expression, evaluate(arguments[0], contextNode), evaluate(arguments[1], contextNode));
+    }
+
+    private static List<Object> select(LocationPath path, Object contextNode) {
+        List<Object> nodes = Collections.singletonList(contextNode);
+        for (Step step : path.getSteps()) {
+            Collection<Object> nextNodes = new LinkedHashSet<>();
+            for (Object node : nodes) {
+                switch (step.getAxis()) {
+                    case Compiler.AXIS_SELF:
+                        nextNodes.add(node);
+                        break;
+                    case Compiler.AXIS_PARENT:
+                        nextNodes.add(getParent(node));
+                        break;
+                    default:
+                        addChildren(node, ((NodeNameTest) step.getNodeTest()).getNodeName().getName(), nextNodes);
+                        break;
+                }
+            }
+            nodes = new ArrayList<>(nextNodes);
+        }
+        return nodes;
+    }
+
+    private static Object getParent(Object node) {
+        if (node instanceof LeafNode) {
+            return ((LeafNode) node).m_parent;
+        }
+        ModelNode parent = ((ModelNode) node).getParent();
+        if (parent == null) {
+            // above a root node the DynaBean based evaluation looks for the other roots
+            throw UndecidedException.INSTANCE;
+        }
+        return parent;
+    }
+
+    /**
+     * Adds the children of the node with the local name, the namespaces are not compared, as for the DynaBeans.
+     */
+    private static void addChildren(Object node, String localName, Collection<Object> children) {
+        if (node instanceof LeafNode) {
+            return;
+        }
+        if (!(node instanceof ModelNodeWithAttributes)) {
+            throw UndecidedException.INSTANCE;
+        }
+        ModelNodeWithAttributes modelNode = (ModelNodeWithAttributes) node;
+        for (Map.Entry<QName, ConfigLeafAttribute> attribute : modelNode.getAttributes().entrySet()) {
+            if (attribute.getKey().getLocalName().equals(localName)) {
+                children.add(new LeafNode(modelNode, attribute.getValue().getStringValue()));
+            }
+        }
+        for (Map.Entry<QName, LinkedHashSet<ConfigLeafAttribute>> leafList : modelNode.getLeafLists().entrySet()) {
+            if (leafList.getKey().getLocalName().equals(localName)) {
+                for (ConfigLeafAttribute value : leafList.getValue()) {
+                    children.add(new LeafNode(modelNode, value.getStringValue()));
+                }
+            }
+        }
+        try {
+            for (Map.Entry<QName, ChildContainerHelper> container : modelNode.getModelNodeHelperRegistry()
+                    .getChildContainerHelpers(modelNode.getModelNodeSchemaPath()).entrySet()) {
+                if (container.getKey().getLocalName().equals(localName)) {
+                    ModelNode child;
+                    try {
+                        child = container.getValue().getValue(modelNode);
+                    } catch (DsmNotRegisteredException e) {
+                        // not the container of this node, only the local names are compared
+                        continue;
+                    }
+                    if (child != null) {
+                        children.add(child);
+                    }
+                }
+            }
+            for (Map.Entry<QName, ChildListHelper> list : modelNode.getModelNodeHelperRegistry()
+                    .getChildListHelpers(modelNode.getModelNodeSchemaPath()).entrySet()) {
+                if (list.getKey().getLocalName().equals(localName)) {
+                    children.addAll(list.getValue().getValue(modelNode, Collections.<QName,
+                            ConfigLeafAttribute>emptyMap()));
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw UndecidedException.INSTANCE;
+        }
+    }
+
+    private static boolean isRelationalOperation(Expression expression) {
+        return expression instanceof CoreOperationLessThan || expression instanceof CoreOperationLessThanOrEqual
+                || expression instanceof CoreOperationGreaterThan
+                || expression instanceof CoreOperationGreaterThanOrEqual;
+    }
+
+    /**
+     * Compares two values as XPath 1.0 does, a comparison with a node-set holds if it holds for one of its nodes.
+     */
+    @SuppressWarnings("unchecked")
+    private static Boolean compare(Expression operation, Object left, Object right) {
+        if (left instanceof List && right instanceof List) {
+            for (Object leftNode : (List<Object>) left) {
+                for (Object rightNode : (List<Object>) right) {
+                    if (compareValues(operation, stringValue(leftNode), stringValue(rightNode))) {
+                        return Boolean.TRUE;
+                    }
+                }
+            }
+            return Boolean.FALSE;
+        }
+        if (left instanceof List || right instanceof List) {
+            boolean nodesOnTheLeft = left instanceof List;
+            List<Object> nodes = (List<Object>) (nodesOnTheLeft ? left : right);
+            Object other = nodesOnTheLeft ? right : left;
+            if (other instanceof Boolean) {
+                Boolean nodesValue = !nodes.isEmpty();
+                return nodesOnTheLeft ? compareValues(operation, nodesValue, other) : compareValues(operation, other,
+                        nodesValue);
+            }
+            for (Object node : nodes) {
+                Object value = other instanceof Double ? toNumber(stringValue(node)) : stringValue(node);
+                if (nodesOnTheLeft ? compareValues(operation, value, other) : compareValues(operation, other,
+                        value)) {
+                    return Boolean.TRUE;
+                }
+            }
+            return Boolean.FALSE;
+        }
+        return compareValues(operation, left, right);
+    }
+
+    private static boolean compareValues(Expression operation, Object left, Object right) {
+        if (isRelationalOperation(operation)) {
+            double leftNumber = toNumber(left);
+            double rightNumber = toNumber(right);
+            if (operation instanceof CoreOperationLessThan) {
+                return leftNumber < rightNumber;
+            } else if (operation instanceof CoreOperationLessThanOrEqual) {
+                return leftNumber <= rightNumber;
+            } else if (operation instanceof CoreOperationGreaterThan) {
+                return leftNumber > rightNumber;
+            }
+            return leftNumber >= rightNumber;
+        }
+        boolean equal;
+        if (left instanceof Boolean || right instanceof Boolean) {
+            equal = toBoolean(left) == toBoolean(right);
+        } else if (left instanceof Double || right instanceof Double) {
+            equal = toNumber(left) == toNumber(right);
+        } else {
+            equal = left.equals(right);
+        }
+        return operation instanceof CoreOperationEqual ? equal : !equal;
+    }
+
+    private static String stringValue(Object node) {
+        if (node instanceof LeafNode) {
+            return ((LeafNode) node).m_value;
+        }
+        // the string value of a container or list entry is the text of all its leaves
+        throw UndecidedException.INSTANCE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double toNumber(Object value) {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof List) {
+            List<Object> nodes = (List<Object>) value;
+            return nodes.isEmpty() ? Double.NaN : toNumber(stringValue(nodes.get(0)));
+        }
+        String string = (String) value;
+        return XPATH_NUMBER.matcher(string).matches() ? Double.parseDouble(string.trim()) : Double.NaN;
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return number != 0 && !Double.isNaN(number);
+        }
+        if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        return !((List<?>) value).isEmpty();
+    }
+
+    /**
+     * The value of a leaf or of a leaf-list entry, in the node-set of a location path.
+     */
+    private static final class LeafNode {
+        private final ModelNode m_parent;
+        private final String m_value;
+
+        LeafNode(ModelNode parent, String value) {
+            m_parent = parent;
+            m_value = value;
+        }
+    }
+
+    /**
+     * Thrown when the expression cannot be decided on the ModelNodes.
+     */
+    private static final class UndecidedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private static final UndecidedException INSTANCE = new UndecidedException();
+
+        private UndecidedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -21,10 +21,11 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -137,13 +138,12 @@ public class SchemaRegistryImplTest {
         m_schemaRegistry.setReadWriteLockService(readWriteLockService);
         m_schemaRegistry.buildSchemaContext(getYangFiles());
         verify(readWriteLockService).executeWithWriteLock(Mockito.any());
-        verify(readWriteLockService).executeWithReadLock(Mockito.any());
 
         assertEquals(JUKEBOX_PATH.getLastComponent(), m_schemaRegistry.lookupQName(JB_NS, "jukebox"));
         assertEquals("artist", m_schemaRegistry.lookupQName(JB_NS, "artist").getLocalName());
         assertEquals(JB_NS, m_schemaRegistry.lookupQName(JB_NS, "artist").getNamespace().toString());
         assertEquals(JB_REVISION, m_schemaRegistry.lookupQName(JB_NS, "artist").getFormattedRevision());
-        verify(readWriteLockService, times(5)).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
     }
 
     private List<YangTextSchemaSource> getYangFiles() {
@@ -590,7 +590,7 @@ public class SchemaRegistryImplTest {
                 .appendLocalName("pma")
                 .build();
         assertEquals(8, m_schemaRegistry.getChildren(pmaSchemaPath).size());
-        verify(readWriteLockService, atLeastOnce()).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
 
         SchemaPath usersCountSchemaPath = new SchemaPathBuilder()
                 .withNamespace("urn:org:bbf:pma")
@@ -628,7 +628,7 @@ public class SchemaRegistryImplTest {
         //test Non Choice children
         m_schemaRegistry.setReadWriteLockService(spy(new ReadWriteLockServiceImpl()));
         Collection<DataSchemaNode> effectiveDeviceChidlren = m_schemaRegistry.getNonChoiceChildren(deviceSchemaPath);
-        verify(readWriteLockService, atLeastOnce()).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
         assertEquals(10, effectiveDeviceChidlren.size());
 
         //build expected device children
@@ -694,7 +694,7 @@ public class SchemaRegistryImplTest {
         m_schemaRegistry.setReadWriteLockService(spy(new ReadWriteLockServiceImpl()));
         Collection<DataSchemaNode> effectiveDeviceChidlren = m_schemaRegistry.getNonChoiceChildren(albumSchemaPath);
         assertEquals(8, effectiveDeviceChidlren.size());
-        verify(readWriteLockService, atLeastOnce()).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
 
         //build expected album children
         Collection<DataSchemaNode> expectedAlbumChilren = buildExpectedAlbumChildren(albumSchemaPath);
@@ -738,6 +738,37 @@ public class SchemaRegistryImplTest {
 
     }
 
+    @Test
+    public void testLookupsReadIndexPublishedByLoadAndUnload() throws SchemaBuildException {
+        String toasterNs = MAKE_TOAST_PATH.getLastComponent().getNamespace().toString();
+        ReadWriteLockServiceImpl readWriteLockService = spy(new ReadWriteLockServiceImpl());
+        m_schemaRegistry.setReadWriteLockService(readWriteLockService);
+        m_schemaRegistry.buildSchemaContext(getYangFiles());
+
+        Map<QName, DataSchemaNode> jukeboxChildren = m_schemaRegistry.getIndexedChildren(JUKEBOX_PATH);
+        RequestScope.resetScope();
+        assertSame(jukeboxChildren, m_schemaRegistry.getIndexedChildren(JUKEBOX_PATH));
+        Collection<DataSchemaNode> rootNodes = m_schemaRegistry.getRootDataSchemaNodes();
+        assertFalse(m_schemaRegistry.isKnownNamespace(toasterNs));
+        assertNull(m_schemaRegistry.getRpcDefinition(MAKE_TOAST_PATH));
+
+        m_schemaRegistry.loadSchemaContext(TOASTER_COMPONENT, Arrays.asList(c_toasterYangTypesFile), null,
+                Collections.emptyMap());
+        assertTrue(m_schemaRegistry.isKnownNamespace(toasterNs));
+        assertEquals("toast", m_schemaRegistry.getPrefix(toasterNs));
+        assertNotNull(m_schemaRegistry.getRpcDefinition(MAKE_TOAST_PATH));
+        assertEquals(2, m_schemaRegistry.getRootDataSchemaNodes().size());
+        // a snapshot taken before the load is not modified by it
+        assertEquals(1, rootNodes.size());
+
+        m_schemaRegistry.unloadSchemaContext(TOASTER_COMPONENT, Collections.emptyMap());
+        assertFalse(m_schemaRegistry.isKnownNamespace(toasterNs));
+        assertNull(m_schemaRegistry.getRpcDefinition(MAKE_TOAST_PATH));
+        assertEquals(1, m_schemaRegistry.getRootDataSchemaNodes().size());
+        verify(readWriteLockService, times(3)).executeWithWriteLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
+    }
+
     private Collection<DataSchemaNode> buildExpectedAlbumChildren(SchemaPath deviceSchemaPath) {
         Collection<DataSchemaNode> expectedAlbumChildren = new HashSet<>();
         DataNodeContainer deviceSchemaNode = (DataNodeContainer) m_schemaRegistry.getDataSchemaNode(deviceSchemaPath);
@@ -802,11 +833,9 @@ public class SchemaRegistryImplTest {
         ReadWriteLockServiceImpl readWriteLockService = spy(new ReadWriteLockServiceImpl());
         m_schemaRegistry.setReadWriteLockService(readWriteLockService);
         m_schemaRegistry.buildSchemaContext(getYangFiles());
-        verify(readWriteLockService).executeWithReadLock(Mockito.any());
         assertEquals("jbox", m_schemaRegistry.getPrefix(JB_NS));
-        verify(readWriteLockService, times(2)).executeWithReadLock(Mockito.any());
         assertEquals("inet", m_schemaRegistry.getPrefix(IETF_INET_TYPES_NS));
-        verify(readWriteLockService, times(3)).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
     }
 
     @Test
@@ -814,11 +843,9 @@ public class SchemaRegistryImplTest {
         ReadWriteLockServiceImpl readWriteLockService = spy(new ReadWriteLockServiceImpl());
         m_schemaRegistry.setReadWriteLockService(readWriteLockService);
         m_schemaRegistry.buildSchemaContext(getYangFiles());
-        verify(readWriteLockService).executeWithReadLock(Mockito.any());
         assertEquals(JB_NS, m_schemaRegistry.getNamespaceURI("jbox"));
-        verify(readWriteLockService, times(2)).executeWithReadLock(Mockito.any());
         assertEquals(IETF_INET_TYPES_NS, m_schemaRegistry.getNamespaceURI("inet"));
-        verify(readWriteLockService, times(3)).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
     }
 
     @Test
@@ -826,7 +853,6 @@ public class SchemaRegistryImplTest {
         ReadWriteLockServiceImpl readWriteLockService = spy(new ReadWriteLockServiceImpl());
         m_schemaRegistry.setReadWriteLockService(readWriteLockService);
         m_schemaRegistry.buildSchemaContext(getYangFiles());
-        verify(readWriteLockService, times(1)).executeWithReadLock(Mockito.any());
         String moduleSetId = m_schemaRegistry.getModuleSetId();
         assertEquals(MODULE_SET_ID, moduleSetId);
 
@@ -836,7 +862,7 @@ public class SchemaRegistryImplTest {
         assertEquals(MODULE_SET_ID, moduleSetId);
 
         assertEquals(JB_NS, m_schemaRegistry.getNamespaceURI("jbox"));
-        verify(readWriteLockService, times(3)).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
     }
 
     @Test
@@ -881,9 +907,8 @@ public class SchemaRegistryImplTest {
         ReadWriteLockServiceImpl readWriteLockService = spy(new ReadWriteLockServiceImpl());
         m_schemaRegistry.setReadWriteLockService(readWriteLockService);
         m_schemaRegistry.buildSchemaContext(getYangFiles());
-        verify(readWriteLockService).executeWithReadLock(Mockito.any());
         assertEquals(JB_NS, m_schemaRegistry.getNamespaceOfModule("example-jukebox"));
-        verify(readWriteLockService, times(2)).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
     }
 
     @Test
@@ -893,13 +918,11 @@ public class SchemaRegistryImplTest {
         m_schemaRegistry.setReadWriteLockService(readWriteLockService);
         m_schemaRegistry.buildSchemaContext(getYangFiles());
         verify(readWriteLockService).executeWithWriteLock(Mockito.any());
-        verify(readWriteLockService).executeWithReadLock(Mockito.any());
 
         Module module = m_schemaRegistry.getModuleByNamespace(JB_NS);
-        verify(readWriteLockService, times(2)).executeWithReadLock(Mockito.any());
         module = m_schemaRegistry.findModuleByNamespaceAndRevision(new URI(JB_NS), module.getRevision());
         assertEquals("example-jukebox", module.getName());
-        verify(readWriteLockService, times(3)).executeWithReadLock(Mockito.any());
+        verify(readWriteLockService, never()).executeWithReadLock(Mockito.any());
 
     }
 
@@ -18,21 +18,30 @@ package org.broadband_forum.obbaa.netconf.mn.fwk.schema.validation;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
 
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.SchemaNodeConstraintParser;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.ConstraintValidatorFactory;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.constraints.payloadparsing.ConstraintValidatorFactoryImpl;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.util.DSExpressionValidator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.validation.ContainerValidator;
 import org.broadband_forum.obbaa.netconf.mn.fwk.validation.LeafListValidator;
 import org.broadband_forum.obbaa.netconf.mn.fwk.validation.LeafValidator;
 import org.broadband_forum.obbaa.netconf.mn.fwk.validation.ListValidator;
+import org.junit.After;
 import org.junit.Test;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.LeafListSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.LeafSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
 
 /**
  * Created by keshava on 11/23/15.
@@ -40,6 +49,11 @@ import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
 public class ConstraintTypeValidatorFactoryTest {
     ConstraintValidatorFactory m_factory = ConstraintValidatorFactoryImpl.getInstance();
 
+    @After
+    public void tearDown() {
+        m_factory.clearCache();
+    }
+
     @Test
     public void testFactoryMethod() {
         DataSchemaNode dataSchemaNode = mock(LeafSchemaNode.class);
@@ -60,4 +74,79 @@ public class ConstraintTypeValidatorFactoryTest {
         assertTrue(schemaNodeConstraintParser instanceof ListValidator);
         assertEquals(dataSchemaNode, schemaNodeConstraintParser.getDataSchemaNode());
     }
+
+    @Test
+    public void testValidatorsOfTheSchemaRegistryAreBuiltAtOnce() {
+        ContainerSchemaNode containerNode = mock(ContainerSchemaNode.class);
+        LeafSchemaNode leafNode = mock(LeafSchemaNode.class);
+        when(containerNode.getChildNodes()).thenReturn(Collections.<DataSchemaNode>singleton(leafNode));
+        SchemaRegistry schemaRegistry = mock(SchemaRegistry.class);
+        when(schemaRegistry.getRootDataSchemaNodes()).thenReturn(Collections.<DataSchemaNode>singleton(
+                containerNode));
+        DSExpressionValidator expValidator = mock(DSExpressionValidator.class);
+
+        m_factory.buildValidators(schemaRegistry, expValidator);
+        SchemaNodeConstraintParser containerValidator = m_factory.getConstraintNodeValidator(containerNode,
+                schemaRegistry, expValidator);
+        SchemaNodeConstraintParser leafValidator = m_factory.getConstraintNodeValidator(leafNode, schemaRegistry,
+                expValidator);
+        assertTrue(containerValidator instanceof ContainerValidator);
+        assertTrue(leafValidator instanceof LeafValidator);
+        assertEquals(leafNode, leafValidator.getDataSchemaNode());
+        assertSame(leafValidator, m_factory.getConstraintNodeValidator(leafNode, schemaRegistry, expValidator));
+
+        // a node outside of the data tree, such as an rpc input node, is built on first use
+        LeafSchemaNode inputNode = mock(LeafSchemaNode.class);
+        SchemaNodeConstraintParser inputValidator = m_factory.getConstraintNodeValidator(inputNode, schemaRegistry,
+                expValidator);
+        assertSame(inputValidator, m_factory.getConstraintNodeValidator(inputNode, schemaRegistry, expValidator));
+
+        m_factory.clearCache();
+        assertNotSame(leafValidator, m_factory.getConstraintNodeValidator(leafNode, schemaRegistry, expValidator));
+        assertNotSame(inputValidator, m_factory.getConstraintNodeValidator(inputNode, schemaRegistry, expValidator));
+    }
+
+    @Test
+    public void testValidatorsAreBuiltOnFirstUseOfTheSchemaRegistry() {
+        LeafSchemaNode leafNode = mock(LeafSchemaNode.class);
+        ContainerSchemaNode containerNode = mock(ContainerSchemaNode.class);
+        when(containerNode.getChildNodes()).thenReturn(Collections.<DataSchemaNode>singleton(leafNode));
+        SchemaRegistry schemaRegistry = mock(SchemaRegistry.class);
+        when(schemaRegistry.getRootDataSchemaNodes()).thenReturn(Collections.<DataSchemaNode>singleton(
+                containerNode));
+        DSExpressionValidator expValidator = mock(DSExpressionValidator.class);
+
+        SchemaNodeConstraintParser containerValidator = m_factory.getConstraintNodeValidator(containerNode,
+                schemaRegistry, expValidator);
+        assertSame(containerValidator, m_factory.getConstraintNodeValidator(containerNode, schemaRegistry,
+                expValidator));
+        assertSame(m_factory.getConstraintNodeValidator(leafNode, schemaRegistry, expValidator), m_factory
+                .getConstraintNodeValidator(leafNode, schemaRegistry, expValidator));
+    }
+
+    @Test
+    public void testValidatorsAreKeptPerSchemaRegistry() {
+        LeafSchemaNode leafNode = mock(LeafSchemaNode.class);
+        SchemaRegistry schemaRegistry = mock(SchemaRegistry.class);
+        when(schemaRegistry.getRootDataSchemaNodes()).thenReturn(Collections.<DataSchemaNode>singleton(leafNode));
+        LeafSchemaNode otherLeafNode = mock(LeafSchemaNode.class);
+        SchemaRegistry otherSchemaRegistry = mock(SchemaRegistry.class);
+        when(otherSchemaRegistry.getRootDataSchemaNodes()).thenReturn(Collections.<DataSchemaNode>singleton(
+                otherLeafNode));
+        DSExpressionValidator expValidator = mock(DSExpressionValidator.class);
+
+        SchemaNodeConstraintParser leafValidator = m_factory.getConstraintNodeValidator(leafNode, schemaRegistry,
+                expValidator);
+        SchemaNodeConstraintParser otherLeafValidator = m_factory.getConstraintNodeValidator(otherLeafNode,
+                otherSchemaRegistry, expValidator);
+        m_factory.clearCache(schemaRegistry);
+        assertNotSame(leafValidator, m_factory.getConstraintNodeValidator(leafNode, schemaRegistry, expValidator));
+        assertSame(otherLeafValidator, m_factory.getConstraintNodeValidator(otherLeafNode, otherSchemaRegistry,
+                expValidator));
+
+        // the validators built for a previous schema context are not used
+        leafValidator = m_factory.getConstraintNodeValidator(leafNode, schemaRegistry, expValidator);
+        when(schemaRegistry.getSchemaContext()).thenReturn(mock(SchemaContext.class));
+        assertNotSame(leafValidator, m_factory.getConstraintNodeValidator(leafNode, schemaRegistry, expValidator));
+    }
 }
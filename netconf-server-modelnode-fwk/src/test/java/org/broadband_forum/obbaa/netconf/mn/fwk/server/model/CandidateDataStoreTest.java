@@ -0,0 +1,343 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model;
+
+import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.loadAsXml;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigElement;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigErrorOptions;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.EditConfigTestOptions;
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
+import org.broadband_forum.obbaa.netconf.api.messages.StandardDataStores;
+import org.broadband_forum.obbaa.netconf.api.server.NetconfQueryParams;
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDataStoreManager;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.rpc.AbstractCandidateRpcRequestHandler;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildContainerHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootEntityContainerModelNodeHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootModelNodeAggregator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootModelNodeAggregatorImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.candidate.CandidateOverlayDSM;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DataStoreIntegrityService;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DataStoreValidator;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.DataStoreValidatorImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation.service
+        .DataStoreIntegrityServiceImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory.InMemoryDSM;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.yang.LocalSubSystem;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.yang.util.YangUtils;
+import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.restaurant.RestaurantConstants;
+import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
+import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.repo.api.YangTextSchemaSource;
+import org.w3c.dom.Element;
+
+public class CandidateDataStoreTest extends AbstractEditConfigTestSetup {
+
+    private static final String INSTANCE_XML = "/leaftest/expected-restaurant-instance.xml";
+    private static final String DELETE_LOCATION_XML = "/leaftest/expected-delete-location.xml";
+    private static final String DELETE_VIAND_XML = "/leaftest/expected-delete-viand.xml";
+    private static final String COPIED_RESTAURANT = "<config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+            + "<restaurant xmlns=\"http://example.com/ns/example-restaurant\">%s<owner>Nam</owner></restaurant>"
+            + "</config>";
+
+    private NetConfServerImpl m_server;
+    private SubSystemRegistry m_subSystemRegistry = new SubSystemRegistryImpl();
+    private SchemaRegistry m_schemaRegistry;
+    private ModelNodeHelperRegistry m_modelNodeHelperRegistry = new ModelNodeHelperRegistryImpl(m_schemaRegistry);
+    private InMemoryDSM m_runningDSM;
+    private CandidateOverlayDSM m_overlayDSM;
+    private CandidateDataStore m_candidate;
+    private NetconfClientInfo m_clientInfo = new NetconfClientInfo("unit-test", 1);
+
+    @Before
+    public void initServer() throws Exception {
+        String yangFilePath = getClass().getResource("/leaftest/example-restaurant.yang").getPath();
+        String xmlFilePath = getClass().getResource("/leaftest/example-restaurant-instance.xml").getPath();
+
+        m_schemaRegistry = new SchemaRegistryImpl(Collections.<YangTextSchemaSource>emptyList(), new NoLockService());
+        m_schemaRegistry.loadSchemaContext("restaurant", Arrays.asList(TestUtil.getByteSource
+                ("/leaftest/example-restaurant.yang")), Collections.emptySet(), Collections.emptyMap());
+        m_runningDSM = spy(new InMemoryDSM(m_schemaRegistry));
+        m_overlayDSM = new CandidateOverlayDSM(m_runningDSM, m_schemaRegistry);
+        RootModelNodeAggregator rootModelNodeAggregator = new RootModelNodeAggregatorImpl(m_schemaRegistry,
+                m_modelNodeHelperRegistry, mock(ModelNodeDataStoreManager.class), m_subSystemRegistry);
+        m_server = new NetConfServerImpl(m_schemaRegistry);
+        DataStoreIntegrityService integrityService = new DataStoreIntegrityServiceImpl(m_modelNodeHelperRegistry,
+                m_schemaRegistry, m_server);
+        DataStoreValidator validator = new DataStoreValidatorImpl(m_schemaRegistry, m_modelNodeHelperRegistry,
+                m_overlayDSM, integrityService, m_expValidator);
+
+        YangUtils.deployInMemoryHelpers(yangFilePath, new LocalSubSystem(), m_modelNodeHelperRegistry,
+                m_subSystemRegistry, m_schemaRegistry, m_overlayDSM);
+        ContainerSchemaNode schemaNode = (ContainerSchemaNode) m_schemaRegistry.getDataSchemaNode(RestaurantConstants
+                .RESTAURANT_SCHEMA_PATH);
+        ChildContainerHelper containerHelper = new RootEntityContainerModelNodeHelper(schemaNode,
+                m_modelNodeHelperRegistry, m_subSystemRegistry, m_schemaRegistry, m_overlayDSM);
+        rootModelNodeAggregator.addModelServiceRootHelper(RestaurantConstants.RESTAURANT_SCHEMA_PATH,
+                containerHelper);
+
+        DataStore running = new DataStore(StandardDataStores.RUNNING, rootModelNodeAggregator, m_subSystemRegistry,
+                validator);
+        running.setNbiNotificationHelper(mock(NbiNotificationHelper.class));
+        m_server.setRunningDataStore(running);
+        m_candidate = new CandidateDataStore(StandardDataStores.CANDIDATE, rootModelNodeAggregator,
+                m_subSystemRegistry, validator, running, m_overlayDSM);
+        m_candidate.setNbiNotificationHelper(mock(NbiNotificationHelper.class));
+        m_server.setDataStore(StandardDataStores.CANDIDATE, m_candidate);
+        RpcRequestHandlerRegistry rpcRequestHandlerRegistry = new RpcRequestHandlerRegistryImpl();
+        AbstractCandidateRpcRequestHandler.registerHandlers(rpcRequestHandlerRegistry, "test", m_candidate);
+        m_server.setRpcRequestHandlerRegistry(rpcRequestHandlerRegistry);
+        YangUtils.loadXmlDataIntoServer(m_server, xmlFilePath);
+    }
+
+    @After
+    public void closeCandidate() {
+        m_candidate.close();
+    }
+
+    @Test
+    public void testCommitAppliesTheCandidateChangesToRunning() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-location.xml"), m_clientInfo);
+        assertTrue(m_candidate.hasUncommitedChanges());
+        verifyGetConfig(StandardDataStores.CANDIDATE, DELETE_LOCATION_XML);
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+
+        m_candidate.commit(m_clientInfo);
+        assertFalse(m_candidate.hasUncommitedChanges());
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_LOCATION_XML);
+        verifyGetConfig(StandardDataStores.CANDIDATE, DELETE_LOCATION_XML);
+    }
+
+    @Test
+    public void testDiscardChangesRestoresRunningInTheCandidate() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        verifyGetConfig(StandardDataStores.CANDIDATE, DELETE_VIAND_XML);
+
+        m_candidate.discardChanges();
+        assertFalse(m_candidate.hasUncommitedChanges());
+        verifyGetConfig(StandardDataStores.CANDIDATE, INSTANCE_XML);
+    }
+
+    @Test
+    public void testInvalidCandidateIsRejectedAtCommit() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-restaurant-name.xml"), m_clientInfo);
+        try {
+            m_candidate.commit(m_clientInfo);
+            fail("Expected the commit of a candidate without the mandatory name to fail");
+        } catch (EditConfigException e) {
+            assertEquals(NetconfRpcErrorTag.DATA_MISSING, e.getRpcError().getErrorTag());
+        }
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+        assertTrue(m_candidate.hasUncommitedChanges());
+    }
+
+    @Test
+    public void testTestOnlyEditLeavesTheCandidateUnchanged() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-location.xml"), m_clientInfo);
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml").setTestOption(EditConfigTestOptions.TEST_ONLY),
+                m_clientInfo);
+        verifyGetConfig(StandardDataStores.CANDIDATE, DELETE_LOCATION_XML);
+
+        m_candidate.commit(m_clientInfo);
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_LOCATION_XML);
+    }
+
+    @Test
+    public void testFailedCommitLeavesRunningUnchanged() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        m_candidate.edit(editRequest("/leaftest/delete-location.xml"), m_clientInfo);
+        //the viand is removed from running before the location update fails
+        doThrow(new DataStoreException("update failed")).doCallRealMethod().when(m_runningDSM).updateNode(any(
+                ModelNode.class), any(ModelNodeId.class), anyMap(), anyMap(), anyInt(), anyBoolean());
+        try {
+            m_candidate.commit(m_clientInfo);
+            fail("Expected the commit to fail");
+        } catch (EditConfigException e) {
+            assertEquals(NetconfRpcErrorTag.OPERATION_FAILED, e.getRpcError().getErrorTag());
+        }
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+        assertTrue(m_candidate.hasUncommitedChanges());
+    }
+
+    @Test
+    public void testCancelCommitRollsBackAConfirmedCommit() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 0);
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_VIAND_XML);
+        assertTrue(m_candidate.hasOngoingConfirmedCommitFromOtherSession(2));
+
+        m_candidate.cancelCommit(m_clientInfo);
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+        assertFalse(m_candidate.hasOngoingConfirmedCommitFromOtherSession(2));
+    }
+
+    @Test
+    public void testConfirmingCommitKeepsTheChanges() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-location.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 0);
+        m_candidate.commit(m_clientInfo);
+        assertFalse(m_candidate.hasOngoingConfirmedCommitFromOtherSession(2));
+
+        m_candidate.sessionClosed(m_clientInfo.getSessionId());
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_LOCATION_XML);
+    }
+
+    @Test
+    public void testConfirmedCommitIsRolledBackWhenTheSessionCloses() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-location.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 0);
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 0);
+
+        m_candidate.sessionClosed(m_clientInfo.getSessionId());
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+        assertFalse(m_candidate.hasUncommitedChanges());
+    }
+
+    @Test
+    public void testConfirmedCommitIsRolledBackOnTimeout() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 1);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (m_candidate.hasOngoingConfirmedCommitFromOtherSession(2) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertFalse(m_candidate.hasOngoingConfirmedCommitFromOtherSession(2));
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+    }
+
+    @Test
+    public void testCopiedContentIsValidatedAtCommit() throws Exception {
+        m_candidate.copyFrom(m_clientInfo.getSessionId(), configElement(String.format(COPIED_RESTAURANT, "")));
+        try {
+            m_candidate.commit(m_clientInfo);
+            fail("Expected the commit of a copied candidate without the mandatory name to fail");
+        } catch (EditConfigException e) {
+            assertEquals(NetconfRpcErrorTag.DATA_MISSING, e.getRpcError().getErrorTag());
+        }
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+
+        m_candidate.copyFrom(m_clientInfo.getSessionId(), configElement(String.format(COPIED_RESTAURANT,
+                "<name>Guru</name>")));
+        m_candidate.commit(m_clientInfo);
+        assertFalse(m_candidate.hasUncommitedChanges());
+        Element restaurant = m_server.getDataStore(StandardDataStores.RUNNING).getConfig(DocumentUtils
+                .getNewDocument(), null, NetconfQueryParams.NO_PARAMS).get(0);
+        assertEquals("Nam", DocumentUtils.getDescendant(restaurant, "owner", restaurant.getNamespaceURI())
+                .getTextContent());
+    }
+
+    @Test
+    public void testPersistentConfirmedCommitIsConfirmedWithItsPersistId() throws Exception {
+        NetconfClientInfo otherClient = new NetconfClientInfo("other", 2);
+        m_candidate.edit(editRequest("/leaftest/delete-location.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 0, "token", null);
+
+        m_candidate.sessionClosed(m_clientInfo.getSessionId());
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_LOCATION_XML);
+        try {
+            m_candidate.commit(otherClient);
+            fail("Expected a commit without the persist-id to fail");
+        } catch (EditConfigException e) {
+            assertEquals(NetconfRpcErrorTag.INVALID_VALUE, e.getRpcError().getErrorTag());
+        }
+
+        m_candidate.commit(otherClient, false, 0, null, "token");
+        assertFalse(m_candidate.hasOngoingConfirmedCommitFromOtherSession(3));
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_LOCATION_XML);
+    }
+
+    @Test
+    public void testClosedCandidateDoesNotRollBackTheConfirmedCommit() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        m_candidate.commit(m_clientInfo, true, 1);
+
+        m_candidate.close();
+        Thread.sleep(1500);
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_VIAND_XML);
+    }
+
+    @Test
+    public void testCommitAndCancelCommitRequests() throws Exception {
+        m_candidate.edit(editRequest("/leaftest/delete-viand.xml"), m_clientInfo);
+        NetConfResponse response = TestUtil.onRpc(m_server, m_clientInfo, baseElement("<commit><confirmed/>"
+                + "<confirm-timeout>120</confirm-timeout><persist>token</persist></commit>"), "1");
+        assertTrue(response.responseToString(), response.isOk());
+        verifyGetConfig(StandardDataStores.RUNNING, DELETE_VIAND_XML);
+
+        response = TestUtil.onRpc(m_server, m_clientInfo, baseElement("<cancel-commit/>"), "2");
+        assertFalse(response.isOk());
+        assertEquals(NetconfRpcErrorTag.INVALID_VALUE, response.getErrors().get(0).getErrorTag());
+
+        response = TestUtil.onRpc(m_server, m_clientInfo, baseElement("<cancel-commit><persist-id>token"
+                + "</persist-id></cancel-commit>"), "3");
+        assertTrue(response.responseToString(), response.isOk());
+        verifyGetConfig(StandardDataStores.RUNNING, INSTANCE_XML);
+
+        response = TestUtil.onRpc(m_server, m_clientInfo, baseElement("<commit><confirmed/><confirm-timeout>0"
+                + "</confirm-timeout></commit>"), "4");
+        assertEquals(NetconfRpcErrorTag.INVALID_VALUE, response.getErrors().get(0).getErrorTag());
+    }
+
+    private static Element configElement(String xml) throws Exception {
+        return DocumentUtils.stringToDocument(xml).getDocumentElement();
+    }
+
+    private static Element baseElement(String xml) throws Exception {
+        return configElement(xml.replaceFirst(">|/>", " xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"$0"));
+    }
+
+    private EditConfigRequest editRequest(String requestXml) {
+        EditConfigRequest request = new EditConfigRequest().setTarget(StandardDataStores.CANDIDATE)
+                .setTestOption(EditConfigTestOptions.SET).setErrorOption(EditConfigErrorOptions.STOP_ON_ERROR)
+                .setConfigElement(new EditConfigElement().addConfigElementContent(loadAsXml(requestXml)));
+        request.setMessageId("1");
+        return request;
+    }
+
+    private void verifyGetConfig(String source, String expectedXml) throws Exception {
+        TestUtil.verifyGetConfig(m_server, source, null, expectedXml, "1");
+    }
+}
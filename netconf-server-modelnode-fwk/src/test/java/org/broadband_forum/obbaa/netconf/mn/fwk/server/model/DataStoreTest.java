@@ -17,12 +17,15 @@
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,6 +49,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.yang.AbstractValida
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.w3c.dom.Document;
 
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
@@ -173,6 +177,31 @@ public class DataStoreTest extends AbstractValidationTestSetup {
 
     }
 
+    @Test
+    public void testEditPublishesItsChangesOnceValidated() throws Exception {
+        m_dataStore.edit(m_request, m_clientInfo);
+        InOrder inOrder = inOrder(m_rootAggregator, m_dsValidator);
+        inOrder.verify(m_rootAggregator).editConfig(eq(m_request), any(NotificationContext.class));
+        inOrder.verify(m_dsValidator).validate(m_rootAggregator, m_editTrees.get(0), m_request, m_clientInfo);
+        inOrder.verify(m_rootAggregator).commitChanges();
+        verify(m_rootAggregator, never()).abortChanges();
+    }
+
+    @Test
+    public void testEditDropsItsChangesWhenTheValidationFails() throws Exception {
+        doThrow(new ValidationException(NetconfRpcErrorUtil.getApplicationError(NetconfRpcErrorTag.OPERATION_FAILED,
+                "must condition not satisfied"))).when(m_dsValidator).validate(m_rootAggregator, m_editTrees.get(0),
+                m_request, m_clientInfo);
+        try {
+            m_dataStore.edit(m_request, m_clientInfo);
+            fail("Expected the edit to fail");
+        } catch (EditConfigException e) {
+            verify(m_rootAggregator).abortChanges();
+            verify(m_rootAggregator, never()).commitChanges();
+            verify(m_editNotifcationExecutor, never()).sendNotifications(m_subMap);
+        }
+    }
+
     @Test
     public void testSentNotificationWithUploadToPmaRequest() throws Exception {
         m_request.setUploadToPmaRequest();
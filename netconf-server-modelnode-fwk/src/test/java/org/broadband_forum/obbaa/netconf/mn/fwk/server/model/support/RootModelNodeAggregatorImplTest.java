@@ -23,6 +23,9 @@ import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.responseToS
 import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.verifyGet;
 import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.verifyGetConfig;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
@@ -35,8 +38,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
 import org.broadband_forum.obbaa.netconf.api.messages.CopyConfigRequest;
@@ -48,6 +57,7 @@ import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfFilter;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
 import org.broadband_forum.obbaa.netconf.api.messages.StandardDataStores;
+import org.broadband_forum.obbaa.netconf.api.server.NetconfQueryParams;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
 import org.broadband_forum.obbaa.netconf.api.util.Pair;
 import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaBuildException;
@@ -58,9 +68,12 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.DataStore;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.EditConfigException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.FilterNode;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.GetAttributeException;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.GetContext;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.GetException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.NbiNotificationHelper;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.NetConfServerImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.StateAttributeGetContext;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystem;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistryImpl;
@@ -75,8 +88,10 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.teste
 import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.toaster.ToasterConstants;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
 import org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.server.rpc.RpcPayloadConstraintParser;
 import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.yangtools.yang.common.QName;
@@ -169,6 +184,10 @@ public class RootModelNodeAggregatorImplTest {
             "/rootmodelnodetest/get_config_resp_after_copy_config.xml";
     private static final String GET_CONFIG_RESPONSE_WITH_MULTIPLE_ROOTS_XML =
             "/rootmodelnodetest/get-config-response-with-multiple-roots.xml";
+    private static final ModelNodeId PLAYER_ID = new ModelNodeId("/container=jukebox/container=player",
+            JukeboxConstants.JB_NS);
+    private static final ModelNodeId LIBRARY_ID = new ModelNodeId("/container=jukebox/container=library",
+            JukeboxConstants.JB_NS);
 
     private RootModelNodeAggregator m_runningAggregator;
     private SchemaRegistry m_schemaRegistry = null;
@@ -179,6 +198,7 @@ public class RootModelNodeAggregatorImplTest {
 
     private DsmJukeboxSubsystem m_jukeBoxSystem;
     private ModelNodeHelperRegistry m_modelNodeHelperRegistry = new ModelNodeHelperRegistryImpl(m_schemaRegistry);
+    private ExecutorService m_stateRetrievalExecutor = Executors.newFixedThreadPool(2);
 
     @Before
     public void setUp() throws ModelNodeInitException, SchemaBuildException, ModelNodeFactoryException {
@@ -216,6 +236,11 @@ public class RootModelNodeAggregatorImplTest {
         YangUtils.loadXmlDataIntoServer(m_server, xmlFilePath1);
     }
 
+    @After
+    public void tearDown() {
+        m_stateRetrievalExecutor.shutdownNow();
+    }
+
     private void deployToasterHelpers(ModelNodeDataStoreManager dsm, ModelNodeHelperRegistry modelNodeHelperRegistry,
                                       SubSystemRegistry subSystemRegistry) throws ModelNodeInitException,
             ModelNodeFactoryException {
@@ -511,6 +536,37 @@ public class RootModelNodeAggregatorImplTest {
         assertFalse(response.isOk());
     }
 
+    @Test
+    public void testFailedEditOnAVersionedDSMIsDropped() throws IOException, SAXException {
+        ((InMemoryDSM) m_runningDsm).setVersioned(true);
+        EditConfigRequest request = new EditConfigRequest()
+                .setTargetRunning()
+                .setTestOption(EditConfigTestOptions.SET)
+                .setErrorOption(EditConfigErrorOptions.ROLLBACK_ON_ERROR)
+                .setConfigElement(new EditConfigElement().addConfigElementContent(loadAsXml(EDIT_ON_TOASTER))
+                        .addConfigElementContent(loadAsXml(INVALID_EDIT1)));
+        request.setMessageId("1");
+        NetConfResponse response = new NetConfResponse().setMessageId("1");
+        m_server.onEditConfig(new NetconfClientInfo("unit-test", 1), request, response);
+        assertFalse(response.isOk());
+        verify(m_runningDsm, atLeastOnce()).abortModify();
+
+        // the same thread reads the committed nodes, without the change made on the toaster
+        verifyGetConfig(m_server, "", FULL_GET_CONFIG_RESPONSE, "1");
+
+        request = new EditConfigRequest()
+                .setTargetRunning()
+                .setTestOption(EditConfigTestOptions.SET)
+                .setErrorOption(EditConfigErrorOptions.STOP_ON_ERROR)
+                .setConfigElement(new EditConfigElement().addConfigElementContent(loadAsXml(EDIT_ON_TOASTER)));
+        request.setMessageId("1");
+        response = new NetConfResponse().setMessageId("1");
+        m_server.onEditConfig(new NetconfClientInfo("unit-test", 1), request, response);
+        assertEquals(load("/ok-response.xml"), responseToString(response));
+        verify(m_runningDsm, atLeastOnce()).commitModify();
+        verifyGetConfig(m_server, "", RESPONSE_AFTER_EDIT_ON_TOASTER, "1");
+    }
+
     @Test
     public void testGetConfig() throws IOException, SAXException {
         //No filter
@@ -769,6 +825,151 @@ public class RootModelNodeAggregatorImplTest {
     }
 
 
+    @Test
+    public void testStateIsRetrievedConcurrentlyInRequestScope() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        try {
+            RequestScope requestScope = RequestScope.getCurrentScope();
+            CountDownLatch bothSubSystemsCalled = new CountDownLatch(2);
+            List<RequestScope> scopesSeen = Collections.synchronizedList(new ArrayList<>());
+            SubSystem playerSubSystem = getStateSubSystem(() -> {
+                bothSubSystemsCalled.countDown();
+                scopesSeen.add(RequestScope.getCurrentScope());
+                // only returns true if the other subsystem is called while this one is still busy
+                return bothSubSystemsCalled.await(5, TimeUnit.SECONDS);
+            });
+            SubSystem libraryCountSubSystem = getStateSubSystem(() -> {
+                bothSubSystemsCalled.countDown();
+                scopesSeen.add(RequestScope.getCurrentScope());
+                return bothSubSystemsCalled.await(5, TimeUnit.SECONDS);
+            });
+            StateAttributeGetContext stateContext = getStateContext(playerSubSystem, libraryCountSubSystem);
+            RootModelNodeAggregatorImpl aggregator = getStateAggregator();
+            aggregator.setStateRetrievalExecutor(m_stateRetrievalExecutor);
+
+            aggregator.get(new GetContext(DocumentUtils.createDocument(), null, stateContext),
+                    NetconfQueryParams.NO_PARAMS);
+
+            assertEquals(1, stateContext.getStateMatchNodes().get(PLAYER_ID).size());
+            assertEquals(1, stateContext.getStateMatchNodes().get(LIBRARY_ID).size());
+            assertEquals("true", stateContext.getStateMatchNodes().get(PLAYER_ID).get(0).getTextContent());
+            assertEquals("true", stateContext.getStateMatchNodes().get(LIBRARY_ID).get(0).getTextContent());
+            assertEquals(Arrays.asList(requestScope, requestScope), scopesSeen);
+        } finally {
+            RequestScope.setEnableThreadLocalInUT(false);
+        }
+    }
+
+    @Test
+    public void testStateRetrievalTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SubSystem slowSubSystem = getStateSubSystem(() -> release.await(5, TimeUnit.SECONDS));
+        SubSystem fastSubSystem = getStateSubSystem(() -> true);
+        RootModelNodeAggregatorImpl aggregator = getStateAggregator();
+        aggregator.setStateRetrievalExecutor(m_stateRetrievalExecutor);
+        aggregator.setStateRetrievalTimeoutMillis(100);
+        try {
+            try {
+                aggregator.get(new GetContext(DocumentUtils.createDocument(), null, getStateContext(slowSubSystem,
+                        fastSubSystem)), NetconfQueryParams.NO_PARAMS);
+                fail("Expected the get to time out");
+            } catch (GetException e) {
+                assertEquals(NetconfRpcErrorTag.DATA_MISSING, e.getRpcError().getErrorTag());
+                assertTrue(e.getRpcError().getErrorMessage().contains("timed out after 100 ms"));
+            }
+
+            aggregator.setPartialStateResultsAllowed(true);
+            StateAttributeGetContext stateContext = getStateContext(slowSubSystem, fastSubSystem);
+            aggregator.get(new GetContext(DocumentUtils.createDocument(), null, stateContext), NetconfQueryParams
+                    .NO_PARAMS);
+            assertNull(stateContext.getStateMatchNodes().get(PLAYER_ID));
+            assertEquals(1, stateContext.getStateMatchNodes().get(LIBRARY_ID).size());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testStateIsRetrievedInTheCallingThreadByDefault() throws Exception {
+        Thread caller = Thread.currentThread();
+        List<String> calls = new ArrayList<>();
+        SubSystem playerSubSystem = getStateSubSystem(() -> calls.add("player") && Thread.currentThread() == caller);
+        SubSystem libraryCountSubSystem = getStateSubSystem(() -> calls.add("library") && Thread.currentThread() ==
+                caller);
+        StateAttributeGetContext stateContext = getStateContext(playerSubSystem, libraryCountSubSystem);
+
+        getStateAggregator().get(new GetContext(DocumentUtils.createDocument(), null, stateContext),
+                NetconfQueryParams.NO_PARAMS);
+
+        assertEquals(Arrays.asList("player", "library"), calls);
+        assertEquals("true", stateContext.getStateMatchNodes().get(PLAYER_ID).get(0).getTextContent());
+        assertEquals("true", stateContext.getStateMatchNodes().get(LIBRARY_ID).get(0).getTextContent());
+    }
+
+    @Test
+    public void testStateRetrievalErrors() throws Exception {
+        SubSystem failingSubSystem = getStateSubSystem(() -> {
+            throw new GetAttributeException("device unreachable");
+        });
+        SubSystem workingSubSystem = getStateSubSystem(() -> true);
+        RootModelNodeAggregatorImpl aggregator = getStateAggregator();
+        try {
+            aggregator.get(new GetContext(DocumentUtils.createDocument(), null, getStateContext(failingSubSystem,
+                    workingSubSystem)), NetconfQueryParams.NO_PARAMS);
+            fail("Expected the get to fail");
+        } catch (GetException e) {
+            assertEquals(NetconfRpcErrorTag.DATA_MISSING, e.getRpcError().getErrorTag());
+            assertEquals("Could not get state values device unreachable", e.getRpcError().getErrorMessage());
+        }
+
+        aggregator.setPartialStateResultsAllowed(true);
+        StateAttributeGetContext stateContext = getStateContext(failingSubSystem, workingSubSystem);
+        aggregator.get(new GetContext(DocumentUtils.createDocument(), null, stateContext), NetconfQueryParams
+                .NO_PARAMS);
+        assertNull(stateContext.getStateMatchNodes().get(PLAYER_ID));
+        assertEquals(1, stateContext.getStateMatchNodes().get(LIBRARY_ID).size());
+    }
+
+    private RootModelNodeAggregatorImpl getStateAggregator() {
+        // no configuration roots, so only the state of the subsystems is retrieved
+        return new RootModelNodeAggregatorImpl(m_schemaRegistry, m_modelNodeHelperRegistry, m_runningDsm,
+                m_subSystemRegistry);
+    }
+
+    private StateAttributeGetContext getStateContext(SubSystem playerSubSystem, SubSystem librarySubSystem) {
+        Map<SubSystem, Map<ModelNodeId, Pair<List<QName>, List<FilterNode>>>> subSystems = new LinkedHashMap<>();
+        subSystems.put(playerSubSystem, Collections.singletonMap(PLAYER_ID, new Pair<>(Collections.emptyList(),
+                Collections.emptyList())));
+        subSystems.put(librarySubSystem, Collections.singletonMap(LIBRARY_ID, new Pair<>(Collections.emptyList(),
+                Collections.emptyList())));
+        return new StateAttributeGetContext(subSystems, new HashMap<>());
+    }
+
+    private SubSystem getStateSubSystem(Callable<Boolean> stateValue) {
+        return new LocalSubSystem() {
+            @Override
+            public Map<ModelNodeId, List<Element>> retrieveStateAttributes(Map<ModelNodeId, Pair<List<QName>,
+                    List<FilterNode>>> attributes, NetconfQueryParams queryParams) throws GetAttributeException {
+                String value;
+                try {
+                    value = String.valueOf(stateValue.call());
+                } catch (GetAttributeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new GetAttributeException(e);
+                }
+                Map<ModelNodeId, List<Element>> stateInfo = new HashMap<>();
+                for (ModelNodeId nodeId : attributes.keySet()) {
+                    Element element = DocumentUtils.createDocument().createElementNS(JukeboxConstants.JB_NS,
+                            "state");
+                    element.setTextContent(value);
+                    stateInfo.put(nodeId, new ArrayList<>(Collections.singletonList(element)));
+                }
+                return stateInfo;
+            }
+        };
+    }
+
     private void copyFromRunningToCandidate() {
         copyConfig(StandardDataStores.RUNNING, StandardDataStores.CANDIDATE);
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+public class DSValidationContextTest {
+
+    private static final String NAMESPACE = "urn:org:bbf:pma:validation";
+    private static final QName VALIDATION_QNAME = QName.create(NAMESPACE, "2015-12-14", "validation");
+    private static final QName LEAF_QNAME = QName.create(NAMESPACE, "2015-12-14", "leaf1");
+    private static final SchemaPath LEAF_SCHEMA_PATH = SchemaPath.create(true, VALIDATION_QNAME, LEAF_QNAME);
+
+    private DSValidationContext m_context;
+    private ModelNode m_parentNode;
+    private ModelNode m_otherParentNode;
+
+    @Before
+    public void setUp() {
+        m_context = new DSValidationContext();
+        m_parentNode = mock(ModelNode.class);
+        when(m_parentNode.getModelNodeId()).thenReturn(new ModelNodeId("/container=validation/name=a", NAMESPACE));
+        m_otherParentNode = mock(ModelNode.class);
+        when(m_otherParentNode.getModelNodeId()).thenReturn(new ModelNodeId("/container=validation/name=b",
+                NAMESPACE));
+    }
+
+    @Test
+    public void testNodeIsValidatedUntilANodeIsRecorded() {
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+
+        m_context.recordValidated(m_parentNode, LEAF_SCHEMA_PATH);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        assertFalse(m_context.isValidated(m_otherParentNode, LEAF_SCHEMA_PATH));
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH.getParent()));
+
+        m_context.recordForDelete(m_otherParentNode, LEAF_QNAME);
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+
+        m_context.recordValidated(m_parentNode, LEAF_SCHEMA_PATH);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.recordForDelete(m_otherParentNode, LEAF_QNAME);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.recordForCreate(m_otherParentNode, LEAF_QNAME);
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+
+        m_context.recordValidated(m_parentNode, LEAF_SCHEMA_PATH);
+        m_context.removeFromMerge(m_otherParentNode);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.removeFromCreate(m_otherParentNode);
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+    }
+
+    @Test
+    public void testNodeIsValidatedWhileTheSameSchemaPathsAreToDelete() {
+        m_context.recordForDelete(LEAF_SCHEMA_PATH);
+        m_context.recordValidated(m_parentNode, LEAF_SCHEMA_PATH);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+
+        m_context.clearSchemaPathsToDelete();
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.recordForDelete(LEAF_SCHEMA_PATH.getParent());
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+
+        // the next changed entry of a list records the same impacted paths again
+        m_context.clearSchemaPathsToDelete();
+        m_context.recordForDelete(LEAF_SCHEMA_PATH);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.recordForDelete(LEAF_SCHEMA_PATH);
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.recordForDelete(LEAF_SCHEMA_PATH.getParent());
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+    }
+
+    @Test
+    public void testNodeIsNotValidatedOnceADefaultValueIsChanged() {
+        m_context.recordDefaultValue(LEAF_SCHEMA_PATH, "1");
+        m_context.recordValidated(m_parentNode, LEAF_SCHEMA_PATH);
+        m_context.recordDefaultValue(LEAF_SCHEMA_PATH, "1");
+        assertTrue(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+        m_context.recordDefaultValue(LEAF_SCHEMA_PATH, "2");
+        assertFalse(m_context.isValidated(m_parentNode, LEAF_SCHEMA_PATH));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRecordsAreOnlyModifiedThroughTheContext() {
+        m_context.getCreateList().put(m_otherParentNode, new HashSet<QName>());
+    }
+
+    @Test
+    public void testNodesWithoutIdAreNotRecorded() {
+        ModelNode node = mock(ModelNode.class);
+        m_context.recordValidated(node, LEAF_SCHEMA_PATH);
+        assertFalse(m_context.isValidated(node, LEAF_SCHEMA_PATH));
+        assertFalse(m_context.isValidated(null, LEAF_SCHEMA_PATH));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.constraints.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.RootEntityContainerModelNodeHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.yang.validation.AbstractDataStoreValidatorTest;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
+import org.junit.After;
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+public class DataStoreValidatorImplTest extends AbstractDataStoreValidatorTest {
+    private static final String YANG_FILE = "/datastorevalidatortest/yangs/impact-validation-test.yang";
+    private static final String DEFAULT_XML = "/datastorevalidatortest/yangs/impact-validation-default.xml";
+    private static final String NAMESPACE = "urn:org:bbf:pma:impact-validation";
+    private static final QName IMPACT_VALIDATION_QNAME = QName.create(NAMESPACE, "2015-12-14", "impact-validation");
+    private static final SchemaPath IMPACT_VALIDATION_SCHEMA_PATH = SchemaPath.create(true, IMPACT_VALIDATION_QNAME);
+    private static final SchemaPath MAX_ENABLED_SCHEMA_PATH = IMPACT_VALIDATION_SCHEMA_PATH.createChild(QName.create(
+            IMPACT_VALIDATION_QNAME, "max-enabled"));
+
+    @Override
+    protected List<String> getYang() {
+        return Arrays.asList(YANG_FILE);
+    }
+
+    @Override
+    protected String getXml() {
+        return DEFAULT_XML;
+    }
+
+    @Override
+    protected SchemaPath getSchemaPath() {
+        return IMPACT_VALIDATION_SCHEMA_PATH;
+    }
+
+    @Override
+    protected void addRootNodeHelpers() {
+        ContainerSchemaNode schemaNode = (ContainerSchemaNode) m_schemaRegistry.getDataSchemaNode(getSchemaPath());
+        m_rootModelNodeAggregator.addModelServiceRootHelper(getSchemaPath(), new RootEntityContainerModelNodeHelper(
+                schemaNode, m_modelNodeHelperRegistry, m_subSystemRegistry, m_schemaRegistry, m_modelNodeDsm));
+    }
+
+    @After
+    public void tearDown() {
+        RequestScope.setEnableThreadLocalInUT(false);
+    }
+
+    @Test
+    public void testImpactedNodeIsValidatedOnceWhenSeveralListEntriesChange() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        getModelNode();
+        editConfig(m_server, m_clientInfo, impactValidation("<max-enabled>1</max-enabled>"
+                + "<interface><name>eth0</name><enabled>true</enabled></interface>"
+                + "<interface><name>eth1</name><enabled>false</enabled></interface>"), true);
+
+        DataStoreValidator validator = spy(m_datastoreValidator);
+        m_dataStore.setValidator(validator);
+        editConfig(m_server, m_clientInfo, impactValidation(
+                "<interface><name>eth0</name><enabled>false</enabled></interface>"
+                + "<interface><name>eth1</name><enabled>true</enabled></interface>"), true);
+
+        // both changed interfaces impact the must constraint of max-enabled
+        DataSchemaNode maxEnabled = m_schemaRegistry.getDataSchemaNode(MAX_ENABLED_SCHEMA_PATH);
+        verify(validator, times(1)).validateChild(any(ModelNode.class), eq(maxEnabled));
+
+        NetConfResponse response = editConfig(m_server, m_clientInfo, impactValidation(
+                "<interface><name>eth0</name><enabled>true</enabled></interface>"
+                + "<interface><name>eth2</name><enabled>false</enabled></interface>"), false);
+        assertEquals("Violate must constraints: count(../interface[enabled = 'true']) <= .", response.getErrors()
+                .get(0).getErrorMessage());
+    }
+
+    private static String impactValidation(String children) {
+        return "<impact-validation xmlns=\"" + NAMESPACE + "\">" + children + "</impact-validation>";
+    }
+}
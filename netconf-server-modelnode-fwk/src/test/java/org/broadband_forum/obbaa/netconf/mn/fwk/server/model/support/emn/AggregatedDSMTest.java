@@ -186,6 +186,19 @@ public class AggregatedDSMTest {
         verify(m_mnDSM3).endModify();
     }
 
+    @Test
+    public void testCommitAndAbortDelegation() {
+        m_aggregatedDSM.commitModify();
+        verify(m_mnDSM1).commitModify();
+        verify(m_mnDSM2).commitModify();
+        verify(m_mnDSM3).commitModify();
+
+        m_aggregatedDSM.abortModify();
+        verify(m_mnDSM1).abortModify();
+        verify(m_mnDSM2).abortModify();
+        verify(m_mnDSM3).abortModify();
+    }
+
     //@Test
     public void testFindNodes_CacheHasEmptyList() {
         ModelNodeId parentId = new ModelNodeId(Arrays.asList(
@@ -16,12 +16,21 @@
 
 package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +38,9 @@ import java.util.Map;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Version;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.Metamodel;
 import javax.persistence.metamodel.Type;
@@ -45,6 +57,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.SubSystemRegistryIm
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.DataStoreException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDSMRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeDataStoreManager;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.utils.AnnotationAnalysisException;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.utils.EntityRegistryBuilder;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
@@ -55,7 +68,9 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.utils.TestT
 import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.TestConstants;
 import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.billboard.Billboard;
 import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.billboard.BillboardConstants;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.yangtools.yang.common.QName;
@@ -113,6 +128,11 @@ public class AnnotationBasedModelNodeDataStoreManagerTest {
         m_dataStoreManager = TestTxUtils.getTxDecoratedDSM(m_persistenceManagerUtil, m_dataStoreManager);
     }
 
+    @After
+    public void tearDown() {
+        RequestScope.setEnableThreadLocalInUT(false);
+    }
+
     /*
      * Test for case of creating node which is inside choice-case statement
      */
@@ -160,4 +180,120 @@ public class AnnotationBasedModelNodeDataStoreManagerTest {
         verify(entityDSManager).commitTransaction();
     }
 
+    @Test
+    public void testFindNodeLocksAccordingToTheReadMode() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        EntityDataStoreManager entityDSManager = mockEntityDataStoreManager();
+        AnnotationBasedModelNodeDataStoreManager dataStoreManager = new AnnotationBasedModelNodeDataStoreManager(
+                m_persistenceManagerUtil, m_entityRegistry, m_schemaRegistry, m_modelNodeHelperRegistry,
+                m_subSystemRegistry, m_modelNodeDSMRegistry);
+        SchemaPath billboardSchemaPath = SchemaPath.create(true, BillboardConstants.BB_QNAME);
+
+        dataStoreManager.findNode(billboardSchemaPath, ModelNodeKey.EMPTY_KEY, TestConstants.EMPTY_NODE_ID);
+        verify(entityDSManager).findById(eq(Billboard.class), any(), eq(LockModeType.PESSIMISTIC_READ));
+
+        dataStoreManager.setReadMode(EntityReadMode.OPTIMISTIC);
+        dataStoreManager.findNode(billboardSchemaPath, ModelNodeKey.EMPTY_KEY, TestConstants.EMPTY_NODE_ID);
+        verify(entityDSManager).findById(eq(Billboard.class), any(), eq(LockModeType.NONE));
+
+        // edits keep locking what they read
+        dataStoreManager.beginModify();
+        dataStoreManager.findNode(billboardSchemaPath, ModelNodeKey.EMPTY_KEY, TestConstants.EMPTY_NODE_ID);
+        verify(entityDSManager, times(2)).findById(eq(Billboard.class), any(), eq(LockModeType.PESSIMISTIC_READ));
+        dataStoreManager.endModify();
+        verify(entityDSManager).flush();
+
+        dataStoreManager.findNode(billboardSchemaPath, ModelNodeKey.EMPTY_KEY, TestConstants.EMPTY_NODE_ID);
+        verify(entityDSManager, times(2)).findById(eq(Billboard.class), any(), eq(LockModeType.NONE));
+    }
+
+    @Test
+    public void testQueriesLockAccordingToTheReadMode() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        EntityDataStoreManager entityDSManager = mockEntityDataStoreManager();
+        when(entityDSManager.findByMatchAndNotMatchValue(eq(Billboard.class), any(Map.class), any(Map.class), any(
+                String.class), any(LockModeType.class))).thenReturn(Collections.emptyList());
+        when(entityDSManager.findByMatchValue(eq(Billboard.class), any(Map.class), any(LockModeType.class)))
+                .thenReturn(Collections.emptyList());
+        AnnotationBasedModelNodeDataStoreManager dataStoreManager = new AnnotationBasedModelNodeDataStoreManager(
+                m_persistenceManagerUtil, m_entityRegistry, m_schemaRegistry, m_modelNodeHelperRegistry,
+                m_subSystemRegistry, m_modelNodeDSMRegistry);
+        SchemaPath billboardSchemaPath = SchemaPath.create(true, BillboardConstants.BB_QNAME);
+
+        dataStoreManager.setReadMode(EntityReadMode.OPTIMISTIC);
+        dataStoreManager.listNodes(billboardSchemaPath);
+        dataStoreManager.findNodes(billboardSchemaPath, Collections.emptyMap(), TestConstants.EMPTY_NODE_ID);
+        dataStoreManager.listChildNodes(billboardSchemaPath, TestConstants.EMPTY_NODE_ID);
+        verify(entityDSManager, times(2)).findByMatchAndNotMatchValue(eq(Billboard.class), any(Map.class), any(
+                Map.class), any(String.class), eq(LockModeType.NONE));
+        verify(entityDSManager).findByMatchValue(eq(Billboard.class), any(Map.class), eq(LockModeType.NONE));
+
+        dataStoreManager.setReadMode(EntityReadMode.PESSIMISTIC);
+        dataStoreManager.listNodes(billboardSchemaPath);
+        dataStoreManager.findNodes(billboardSchemaPath, Collections.emptyMap(), TestConstants.EMPTY_NODE_ID);
+        dataStoreManager.listChildNodes(billboardSchemaPath, TestConstants.EMPTY_NODE_ID);
+        verify(entityDSManager, times(2)).findByMatchAndNotMatchValue(eq(Billboard.class), any(Map.class), any(
+                Map.class), any(String.class), eq(LockModeType.PESSIMISTIC_READ));
+        verify(entityDSManager).findByMatchValue(eq(Billboard.class), any(Map.class), eq(LockModeType
+                .PESSIMISTIC_READ));
+    }
+
+    @Test
+    public void testEndModifyReportsConcurrentModifications() throws Exception {
+        EntityDataStoreManager entityDSManager = mockEntityDataStoreManager();
+        OptimisticLockException conflict = new OptimisticLockException("stale billboard");
+        doThrow(conflict).when(entityDSManager).flush();
+        AnnotationBasedModelNodeDataStoreManager dataStoreManager = new AnnotationBasedModelNodeDataStoreManager(
+                m_persistenceManagerUtil, m_entityRegistry, m_schemaRegistry, m_modelNodeHelperRegistry,
+                m_subSystemRegistry, m_modelNodeDSMRegistry);
+
+        // without optimistic reads the conflicts are left to the commit
+        dataStoreManager.beginModify();
+        dataStoreManager.endModify();
+
+        dataStoreManager.setReadMode(EntityReadMode.OPTIMISTIC);
+        dataStoreManager.beginModify();
+        try {
+            dataStoreManager.endModify();
+            fail("expected a DataStoreException");
+        } catch (DataStoreException e) {
+            assertSame(conflict, e.getCause());
+        }
+    }
+
+    @Test
+    public void testOnlyEntitiesWithAVersionAreReadOptimistically() throws Exception {
+        AnnotationBasedModelNodeDataStoreManager dataStoreManager = new AnnotationBasedModelNodeDataStoreManager(
+                m_persistenceManagerUtil, m_entityRegistry, m_schemaRegistry, m_modelNodeHelperRegistry,
+                m_subSystemRegistry, m_modelNodeDSMRegistry);
+        dataStoreManager.setReadMode(EntityReadMode.OPTIMISTIC);
+
+        assertFalse(dataStoreManager.isVersioned(Billboard.class));
+        assertTrue(dataStoreManager.isVersioned(VersionedEntity.class));
+        assertTrue(dataStoreManager.isVersioned(ExtendedVersionedEntity.class));
+        assertSame(LockModeType.NONE, dataStoreManager.getReadLockMode(Billboard.class));
+        assertSame(LockModeType.OPTIMISTIC, dataStoreManager.getReadLockMode(ExtendedVersionedEntity.class));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private EntityDataStoreManager mockEntityDataStoreManager() {
+        EntityDataStoreManager entityDSManager = mock(EntityDataStoreManager.class);
+        Metamodel metaModel = mock(Metamodel.class);
+        EntityType entity = mock(EntityType.class);
+        Type type = mock(Type.class);
+        when(m_persistenceManagerUtil.getEntityDataStoreManager()).thenReturn(entityDSManager);
+        when(entityDSManager.getMetaModel()).thenReturn(metaModel);
+        when(metaModel.entity(Billboard.class)).thenReturn(entity);
+        when(entity.getIdType()).thenReturn(type);
+        when(type.getJavaType()).thenReturn(String.class);
+        return entityDSManager;
+    }
+
+    static class VersionedEntity {
+        @Version
+        private long m_version;
+    }
+
+    static class ExtendedVersionedEntity extends VersionedEntity {
+    }
 }
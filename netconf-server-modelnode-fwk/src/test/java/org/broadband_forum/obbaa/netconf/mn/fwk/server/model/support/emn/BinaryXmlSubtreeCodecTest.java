@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.assertXMLEquals;
+import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.transformToElement;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
+import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+import org.w3c.dom.Element;
+
+public class BinaryXmlSubtreeCodecTest {
+    private static final String NS = "urn:org:bbf:pma:xml-subtree-codec-test";
+    private static final String REVISION = "2018-10-01";
+    private static final QName DEVICE_QNAME = QName.create(NS, REVISION, "device");
+    private static final QName NAME_QNAME = QName.create(NS, REVISION, "name");
+    private static final SchemaPath DEVICE_SCHEMA_PATH = SchemaPath.create(true, DEVICE_QNAME);
+    private static final QName TYPE_QNAME = QName.create(NS, REVISION, "type");
+    private static final SchemaPath PORT_SCHEMA_PATH = SchemaPath.create(true, QName.create(NS, REVISION, "port"));
+    private static final SchemaPath NETWORK_SCHEMA_PATH = SchemaPath.create(true, QName.create(NS, REVISION,
+            "network"));
+
+    private SchemaRegistry m_schemaRegistry;
+    private BinaryXmlSubtreeCodec m_codec;
+
+    @Before
+    public void setUp() throws Exception {
+        m_schemaRegistry = new SchemaRegistryImpl(Collections.singletonList(TestUtil.getByteSource(
+                "/xmlsubtreecodectest/xml-subtree-codec-test.yang")), new NoLockService());
+        m_codec = new BinaryXmlSubtreeCodec(m_schemaRegistry);
+    }
+
+    @Test
+    public void testEncodeAndDecodeNode() throws Exception {
+        Element device = device("olt-1", "ethernet 1/1 é");
+        String encoded = m_codec.encode(device);
+
+        assertTrue(encoded.startsWith(BinaryXmlSubtreeCodec.PREFIX));
+        Element decoded = m_codec.decode(encoded);
+        assertEquals("xsct:ethernet", DocumentUtils.getChildElements(DocumentUtils.getChildElements(decoded).get(1))
+                .get(1).getTextContent());
+        assertEquals(NS, decoded.lookupNamespaceURI("xsct"));
+        assertXMLEquals(device, decoded);
+        assertNull(m_codec.decode(""));
+        assertNull(m_codec.decode(null));
+    }
+
+    @Test
+    public void testEncodedNodeIsSmallerThanTheXml() throws Exception {
+        StringBuilder interfaces = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            interfaces.append("<interface><name>ethernet 1/").append(i).append("</name><type>xsct:ethernet</type>"
+                    + "<description>uplink port</description></interface>");
+        }
+        Element device = transformToElement("<device xmlns=\"" + NS + "\" xmlns:xsct=\"" + NS + "\"><name>olt-1"
+                + "</name>" + interfaces + "</device>");
+
+        String encoded = m_codec.encode(device);
+        assertTrue(encoded.length() * 4 < DocumentUtils.documentToPrettyString(device).length() * 3);
+        assertXMLEquals(device, m_codec.decode(encoded));
+    }
+
+    @Test
+    public void testReplaceRootNodeKeepsTheOtherRootNodes() throws Exception {
+        String stored = m_codec.replaceRootNode(null, DEVICE_SCHEMA_PATH, key("olt-1"), device("olt-1", "uplink"));
+        stored = m_codec.replaceRootNode(stored, DEVICE_SCHEMA_PATH, key("olt-2"), device("olt-2", "uplink"));
+        stored = m_codec.replaceRootNode(stored, NETWORK_SCHEMA_PATH, Collections.emptyMap(), transformToElement(
+                "<network xmlns=\"" + NS + "\"><name>access</name></network>"));
+
+        Element newDevice = transformToElement("<device xmlns=\"" + NS + "\"><name>olt-1</name><location>room 1"
+                + "</location></device>");
+        stored = m_codec.replaceRootNode(stored, DEVICE_SCHEMA_PATH, key("olt-1"), newDevice);
+
+        List<Element> rootNodes = DocumentUtils.getChildElements(m_codec.decode(stored));
+        assertEquals(3, rootNodes.size());
+        assertXMLEquals(newDevice, rootNodes.get(0));
+        assertXMLEquals(device("olt-2", "uplink"), rootNodes.get(1));
+        assertEquals("network", rootNodes.get(2).getLocalName());
+    }
+
+    @Test
+    public void testReplaceRootNodeCopiesTheOtherFragments() throws Exception {
+        String stored = m_codec.replaceRootNode(null, DEVICE_SCHEMA_PATH, key("olt-1"), device("olt-1", "uplink"));
+        stored = m_codec.replaceRootNode(stored, DEVICE_SCHEMA_PATH, key("olt-2"), device("olt-2", "uplink"));
+        String[] segments = stored.split("\\" + BinaryXmlSubtreeCodec.SEGMENT_SEPARATOR);
+        assertEquals(3, segments.length);
+
+        stored = m_codec.replaceRootNode(stored, DEVICE_SCHEMA_PATH, key("olt-1"), device("olt-1", "downlink"));
+        String[] newSegments = stored.split("\\" + BinaryXmlSubtreeCodec.SEGMENT_SEPARATOR);
+        assertEquals(3, newSegments.length);
+        assertNotEquals(segments[1], newSegments[1]);
+        assertEquals(segments[2], newSegments[2]);
+        assertXMLEquals(device("olt-1", "downlink"), DocumentUtils.getChildElements(m_codec.decode(stored)).get(0));
+    }
+
+    @Test
+    public void testIdentityKeysMatchWhateverTheirPrefix() throws Exception {
+        String stored = m_codec.replaceRootNode(null, PORT_SCHEMA_PATH, portKey("a"), port("a", "1G"));
+        stored = m_codec.replaceRootNode(stored, PORT_SCHEMA_PATH, portKey("b"), port("b", "10G"));
+
+        List<Element> rootNodes = DocumentUtils.getChildElements(m_codec.decode(stored));
+        assertEquals(1, rootNodes.size());
+        assertXMLEquals(port("b", "10G"), rootNodes.get(0));
+    }
+
+    @Test
+    public void testXmlStringsAreReadAndConvertedOnWrite() throws Exception {
+        XmlStringSubtreeCodec xmlStringCodec = new XmlStringSubtreeCodec(m_schemaRegistry);
+        String stored = xmlStringCodec.replaceRootNode(null, DEVICE_SCHEMA_PATH, key("olt-1"), device("olt-1",
+                "uplink"));
+        stored = xmlStringCodec.replaceRootNode(stored, DEVICE_SCHEMA_PATH, key("olt-2"), device("olt-2",
+                "uplink"));
+        assertXMLEquals(xmlStringCodec.decode(stored), m_codec.decode(stored));
+
+        stored = m_codec.replaceRootNode(stored, DEVICE_SCHEMA_PATH, key("olt-2"), device("olt-2", "downlink"));
+        assertTrue(stored.startsWith(BinaryXmlSubtreeCodec.PREFIX));
+        List<Element> rootNodes = DocumentUtils.getChildElements(m_codec.decode(stored));
+        assertEquals(2, rootNodes.size());
+        assertXMLEquals(device("olt-1", "uplink"), rootNodes.get(0));
+        assertXMLEquals(device("olt-2", "downlink"), rootNodes.get(1));
+    }
+
+    private Element device(String name, String interfaceName) {
+        return transformToElement("<device xmlns=\"" + NS + "\" xmlns:xsct=\"" + NS + "\">\n"
+                + "  <name>" + name + "</name>\n"
+                + "  <interface>\n"
+                + "    <name>" + interfaceName + "</name>\n"
+                + "    <type>xsct:ethernet</type>\n"
+                + "  </interface>\n"
+                + "</device>");
+    }
+
+    private Element port(String prefix, String speed) {
+        return transformToElement("<port xmlns=\"" + NS + "\" xmlns:" + prefix + "=\"" + NS + "\"><type>" + prefix
+                + ":ethernet</type><speed>" + speed + "</speed></port>");
+    }
+
+    private Map<QName, ConfigLeafAttribute> portKey(String prefix) {
+        return Collections.singletonMap(TYPE_QNAME, new IdentityRefConfigAttribute(NS, prefix, "type", prefix
+                + ":ethernet", NS));
+    }
+
+    private Map<QName, ConfigLeafAttribute> key(String name) {
+        return Collections.singletonMap(NAME_QNAME, new GenericConfigAttribute("name", NS, name));
+    }
+}
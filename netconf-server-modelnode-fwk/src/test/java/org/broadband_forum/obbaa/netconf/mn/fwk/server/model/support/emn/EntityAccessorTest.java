@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.jukebox1.Jukebox;
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+
+public class EntityAccessorTest {
+
+    @Test
+    public void testGetterAndSetterOfAPublicEntity() throws Exception {
+        Jukebox jukebox = new Jukebox();
+        EntityAccessor setter = EntityAccessor.forMethod(Jukebox.class.getMethod("setParentId", String.class));
+        EntityAccessor getter = EntityAccessor.forMethod(Jukebox.class.getMethod("getParentId"));
+
+        setter.set(jukebox, "/container=jukebox");
+        assertEquals("/container=jukebox", getter.get(jukebox));
+        setter.set(jukebox, null);
+        assertNull(getter.get(jukebox));
+        assertEquals(Jukebox.class.getMethod("getParentId"), getter.getMethod());
+        assertNull(EntityAccessor.forMethod(null));
+    }
+
+    @Test
+    public void testAccessorsOfANonPublicEntity() throws Exception {
+        Map<QName, EntityAccessor> accessors = EntityAccessor.forMethods(Collections.singletonMap(QName.create("ns",
+                "count"), Counter.class.getDeclaredMethod("setCount", int.class)));
+        Counter counter = new Counter();
+        accessors.get(QName.create("ns", "count")).set(counter, 3);
+
+        assertEquals(3, EntityAccessor.forMethod(Counter.class.getDeclaredMethod("getCount")).get(counter));
+    }
+
+    @Test
+    public void testRuntimeExceptionsOfTheMethodAreThrownAsTheyAre() throws Exception {
+        IllegalStateException expected = new IllegalStateException("failed");
+        Counter counter = new Counter();
+        counter.m_failure = expected;
+        try {
+            EntityAccessor.forMethod(Counter.class.getDeclaredMethod("fail")).get(counter);
+            fail("expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertSame(expected, e);
+        }
+    }
+
+    @Test
+    public void testCheckedExceptionsOfTheMethodAreWrapped() throws Exception {
+        Exception expected = new Exception("failed");
+        Counter counter = new Counter();
+        counter.m_checkedFailure = expected;
+        try {
+            EntityAccessor.forMethod(Counter.class.getDeclaredMethod("setChecked", String.class)).set(counter, "a");
+            fail("expected an InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertSame(expected, e.getCause());
+        }
+    }
+
+    @Test
+    public void testRegistryBuildsTheAccessorsOfTheRegisteredMethods() throws Exception {
+        EntityRegistry entityRegistry = new EntityRegistryImpl();
+        Method parentIdGetter = Jukebox.class.getMethod("getParentId");
+        entityRegistry.addParentIdGetter(Jukebox.class, parentIdGetter);
+        Method parentIdSetter = Jukebox.class.getMethod("setParentId", String.class);
+        entityRegistry.addConfigAttributeSetters(Jukebox.class, Collections.singletonMap(QName.create("ns",
+                "parent-id"), parentIdSetter), parentIdSetter);
+
+        assertEquals(parentIdGetter, entityRegistry.getParentIdGetterAccessor(Jukebox.class).getMethod());
+        assertEquals(parentIdSetter, entityRegistry.getParentIdSetterAccessor(Jukebox.class).getMethod());
+        assertNull(entityRegistry.getSchemaPathGetterAccessor(Jukebox.class));
+        Jukebox jukebox = new Jukebox();
+        entityRegistry.getAttributeSetterAccessors(Jukebox.class).get(QName.create("ns", "parent-id")).set(jukebox,
+                "/container=jukebox");
+        assertEquals("/container=jukebox", jukebox.getParentId());
+    }
+
+    static class Counter {
+        private int m_count;
+        private RuntimeException m_failure;
+        private Exception m_checkedFailure;
+
+        int getCount() {
+            return m_count;
+        }
+
+        void setCount(int count) {
+            m_count = count;
+        }
+
+        Object fail() {
+            throw m_failure;
+        }
+
+        void setChecked(String value) throws Exception {
+            throw m_checkedFailure;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn;
+
+import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.assertXMLEquals;
+import static org.broadband_forum.obbaa.netconf.server.util.TestUtil.transformToElement;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+public class XmlSubtreeCacheTest {
+    private static final String NS = "urn:org:bbf:pma:xml-subtree-codec-test";
+    private static final ModelNodeId OLT_1 = new ModelNodeId("/container=device/name=olt-1", NS);
+    private static final ModelNodeId OLT_2 = new ModelNodeId("/container=device/name=olt-2", NS);
+
+    private XmlStringSubtreeCodec m_codec;
+    private XmlSubtreeCache m_cache;
+
+    @Before
+    public void setUp() {
+        m_codec = new XmlStringSubtreeCodec(mock(SchemaRegistry.class));
+        m_cache = new XmlSubtreeCache(m_codec);
+    }
+
+    @Test
+    public void testReadsOfTheSameVersionAreHits() throws Exception {
+        String stored = device("olt-1", "uplink");
+
+        Element first = m_cache.decode(Object.class, OLT_1, stored);
+        Element second = m_cache.decode(Object.class, OLT_1, new String(stored));
+        assertEquals(1, m_cache.getMissCount());
+        assertEquals(1, m_cache.getHitCount());
+        assertNotSame(first, second);
+        assertXMLEquals(m_codec.decode(stored), second);
+
+        // the elements belong to the caller, editing them does not change what is cached
+        DocumentUtils.getChildElements(second).get(0).setTextContent("olt-9");
+        assertEquals("olt-1", DocumentUtils.getChildElements(m_cache.decode(Object.class, OLT_1, stored)).get(0)
+                .getTextContent());
+        assertEquals(2, m_cache.getHitCount());
+
+        assertNull(m_cache.decode(Object.class, OLT_1, ""));
+        assertNull(m_cache.decode(Object.class, OLT_1, null));
+    }
+
+    @Test
+    public void testConcurrentHitsReadTheSameEntry() throws Exception {
+        String stored = device("olt-1", "uplink");
+        Element expected = m_cache.decode(Object.class, OLT_1, stored);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Element>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> m_cache.decode(Object.class, OLT_1, stored)));
+            }
+            for (Future<Element> result : results) {
+                assertXMLEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, m_cache.getMissCount());
+        assertEquals(100, m_cache.getHitCount());
+    }
+
+    @Test
+    public void testAnotherVersionReplacesTheEntry() throws Exception {
+        m_cache.decode(Object.class, OLT_1, device("olt-1", "uplink"));
+        Element updated = m_cache.decode(Object.class, OLT_1, device("olt-1", "downlink"));
+
+        assertEquals(2, m_cache.getMissCount());
+        assertEquals(0, m_cache.getHitCount());
+        assertEquals(1, m_cache.getEntryCount());
+        assertXMLEquals(m_codec.decode(device("olt-1", "downlink")), updated);
+
+        m_cache.decode(Object.class, OLT_1, device("olt-1", "downlink"));
+        assertEquals(1, m_cache.getHitCount());
+
+        m_cache.invalidate(Object.class, OLT_1);
+        assertEquals(0, m_cache.getEntryCount());
+        assertEquals(0, m_cache.getSize());
+        m_cache.decode(Object.class, OLT_1, device("olt-1", "downlink"));
+        assertEquals(3, m_cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        XmlSubtreeCache probe = new XmlSubtreeCache(m_codec);
+        probe.decode(Object.class, OLT_1, device("olt-1", "uplink"));
+        m_cache = new XmlSubtreeCache(m_codec, probe.getSize() * 2 + 10);
+
+        m_cache.decode(Object.class, OLT_1, device("olt-1", "uplink"));
+        m_cache.decode(Object.class, OLT_2, device("olt-2", "uplink"));
+        m_cache.decode(Object.class, OLT_1, device("olt-1", "uplink"));
+        m_cache.decode(String.class, OLT_1, device("olt-1", "uplink"));
+
+        assertEquals(1, m_cache.getEvictionCount());
+        assertEquals(2, m_cache.getEntryCount());
+        m_cache.decode(Object.class, OLT_1, device("olt-1", "uplink"));
+        assertEquals(2, m_cache.getHitCount());
+        m_cache.decode(Object.class, OLT_2, device("olt-2", "uplink"));
+        assertEquals(4, m_cache.getMissCount());
+    }
+
+    @Test
+    public void testCacheWithoutSizeOnlyDecodes() throws Exception {
+        m_cache = new XmlSubtreeCache(m_codec, 0);
+        String stored = device("olt-1", "uplink");
+
+        assertXMLEquals(m_codec.decode(stored), m_cache.decode(Object.class, OLT_1, stored));
+        m_cache.decode(Object.class, OLT_1, stored);
+        assertEquals(0, m_cache.getHitCount());
+        assertEquals(2, m_cache.getMissCount());
+        assertEquals(0, m_cache.getEntryCount());
+    }
+
+    private String device(String name, String interfaceName) throws Exception {
+        return m_codec.encode(transformToElement("<device xmlns=\"" + NS + "\">\n"
+                + "  <name>" + name + "</name>\n"
+                + "  <interface>\n"
+                + "    <name>" + interfaceName + "</name>\n"
+                + "  </interface>\n"
+                + "</device>"));
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistryImpl;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNode;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeId;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.ModelNodeRdn;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.InstanceIdentifierConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
+import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+public class DurableInMemoryDSMTest {
+    private static final String OLT_NS = "urn:org:bbf:pma:inmemory-dsm-test";
+    private static final String OLT_REVISION = "2018-10-01";
+    private static final QName OLT_QNAME = QName.create(OLT_NS, OLT_REVISION, "olt");
+    private static final QName ONU_QNAME = QName.create(OLT_NS, OLT_REVISION, "onu");
+    private static final QName CHANNEL_PARTITION_QNAME = QName.create(OLT_NS, OLT_REVISION, "channel-partition");
+    private static final QName ONU_NAME_QNAME = QName.create(OLT_NS, OLT_REVISION, "name");
+    private static final QName SERIAL_NUMBER_QNAME = QName.create(OLT_NS, OLT_REVISION, "serial-number");
+    private static final QName VENDOR_QNAME = QName.create(OLT_NS, OLT_REVISION, "vendor");
+    private static final SchemaPath OLT_SCHEMA_PATH = SchemaPath.create(true, OLT_QNAME);
+    private static final SchemaPath ONU_SCHEMA_PATH = OLT_SCHEMA_PATH.createChild(ONU_QNAME);
+    private static final ModelNodeId OLT_NODE_ID = new ModelNodeId().addRdn(new ModelNodeRdn(ModelNodeRdn.CONTAINER,
+            OLT_NS, "olt"));
+
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+    private SchemaRegistry m_schemaRegistry;
+    private File m_directory;
+    private DurableInMemoryDSM m_dsm;
+
+    @Before
+    public void setUp() throws Exception {
+        m_schemaRegistry = new SchemaRegistryImpl(Collections.singletonList(TestUtil.getByteSource(
+                "/inmemorydsmtest/inmemory-dsm-test.yang")), new NoLockService());
+        m_directory = m_folder.newFolder("datastore");
+        m_dsm = openDsm();
+    }
+
+    @After
+    public void tearDown() {
+        m_dsm.close();
+    }
+
+    @Test
+    public void testModificationsAreRecovered() throws Exception {
+        ModelNodeWithAttributes oltNode = createOlt();
+        m_dsm.beginModify();
+        ModelNodeWithAttributes onu1 = createOnu("cp1", "onu1", "BBFO00000001");
+        createOnu("cp1", "onu2", "BBFO00000002");
+        createOnu("cp2", "onu1", "BBFO00000003");
+        m_dsm.endModify();
+        m_dsm.commitModify();
+
+        Map<QName, ConfigLeafAttribute> update = new HashMap<>();
+        update.put(SERIAL_NUMBER_QNAME, null);
+        update.put(VENDOR_QNAME, onuAttribute(VENDOR_QNAME, "vendor1"));
+        m_dsm.updateNode(onu1, OLT_NODE_ID, update, null, false);
+        m_dsm.removeNode(findOnu("cp1", "onu2"), OLT_NODE_ID);
+
+        reopenDsm();
+        assertEquals(1, m_dsm.listNodes(OLT_SCHEMA_PATH).size());
+        List<ModelNode> onus = m_dsm.listChildNodes(ONU_SCHEMA_PATH, OLT_NODE_ID);
+        assertEquals(2, onus.size());
+        ModelNodeWithAttributes recoveredOnu1 = findOnu("cp1", "onu1");
+        assertEquals(onu1.getModelNodeId(), recoveredOnu1.getModelNodeId());
+        assertNull(recoveredOnu1.getAttributes().get(SERIAL_NUMBER_QNAME));
+        assertEquals(onuAttribute(VENDOR_QNAME, "vendor1"), recoveredOnu1.getAttributes().get(VENDOR_QNAME));
+        assertNull(findOnu("cp1", "onu2"));
+        assertEquals(onuAttribute(SERIAL_NUMBER_QNAME, "BBFO00000003"), findOnu("cp2", "onu1").getAttributes()
+                .get(SERIAL_NUMBER_QNAME));
+
+        // the unique leaf indexes are rebuilt on recovery
+        Map<QName, ConfigLeafAttribute> matchCriteria = Collections.singletonMap(SERIAL_NUMBER_QNAME, onuAttribute(
+                SERIAL_NUMBER_QNAME, "BBFO00000003"));
+        assertEquals(1, m_dsm.findNodes(ONU_SCHEMA_PATH, matchCriteria, OLT_NODE_ID).size());
+
+        m_dsm.removeAllNodes(oltNode, ONU_SCHEMA_PATH, null);
+        reopenDsm();
+        assertTrue(m_dsm.listChildNodes(ONU_SCHEMA_PATH, OLT_NODE_ID).isEmpty());
+        assertEquals(1, m_dsm.listNodes(OLT_SCHEMA_PATH).size());
+    }
+
+    @Test
+    public void testSnapshotReplacesTheLog() throws Exception {
+        m_dsm.setSnapshotThreshold(1024);
+        createOlt();
+        for (int i = 0; i < 50; i++) {
+            createOnu("cp1", "onu" + i, "BBFO000000" + i);
+        }
+        assertTrue(new File(m_directory, DurableInMemoryDSM.SNAPSHOT_FILE).exists());
+        File[] logs = m_directory.listFiles((dir, name) -> name.endsWith(".log"));
+        assertEquals(1, logs.length);
+        assertTrue(logs[0].length() < 1024);
+
+        reopenDsm();
+        List<ModelNode> onus = m_dsm.listChildNodes(ONU_SCHEMA_PATH, OLT_NODE_ID);
+        assertEquals(50, onus.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("onu" + i, ((ModelNodeWithAttributes) onus.get(i)).getAttributes().get(ONU_NAME_QNAME)
+                    .getStringValue());
+        }
+    }
+
+    @Test
+    public void testChangesOfAnAbortedTransactionAreKeptAndSnapshotsGoOn() throws Exception {
+        m_dsm.setSnapshotThreshold(1024);
+        createOlt();
+        m_dsm.beginModify();
+        createOnu("cp1", "failed", "BBFO00000000");
+        //the edit fails, the node created stays in memory
+        m_dsm.abortModify();
+        assertFalse(findOnu("cp1", "failed") == null);
+
+        for (int i = 0; i < 50; i++) {
+            createOnu("cp2", "onu" + i, "BBFO000000" + i);
+        }
+        assertTrue(new File(m_directory, DurableInMemoryDSM.SNAPSHOT_FILE).exists());
+
+        reopenDsm();
+        assertFalse(findOnu("cp1", "failed") == null);
+        assertEquals(51, m_dsm.listChildNodes(ONU_SCHEMA_PATH, OLT_NODE_ID).size());
+    }
+
+    @Test
+    public void testVersionedTransactionIsLoggedOnlyWhenCommitted() throws Exception {
+        m_dsm.setVersioned(true);
+        createOlt();
+        m_dsm.beginModify();
+        createOnu("cp1", "onu1", "BBFO00000001");
+        m_dsm.endModify();
+        //a change implied by the validation of the request
+        createOnu("cp1", "onu2", "BBFO00000002");
+        m_dsm.abortModify();
+        assertNull(findOnu("cp1", "onu1"));
+        assertNull(findOnu("cp1", "onu2"));
+
+        m_dsm.beginModify();
+        createOnu("cp1", "onu3", "BBFO00000003");
+        m_dsm.endModify();
+        createOnu("cp1", "onu4", "BBFO00000004");
+        m_dsm.commitModify();
+
+        reopenDsm();
+        assertNull(findOnu("cp1", "onu1"));
+        assertNull(findOnu("cp1", "onu2"));
+        assertFalse(findOnu("cp1", "onu3") == null);
+        assertFalse(findOnu("cp1", "onu4") == null);
+    }
+
+    @Test
+    public void testRootsOfAnEditAreLoggedAsOneTransaction() throws Exception {
+        createOlt();
+        m_dsm.beginModify();
+        createOnu("cp1", "onu1", "BBFO00000001");
+        m_dsm.endModify();
+        m_dsm.beginModify();
+        createOnu("cp2", "onu2", "BBFO00000002");
+        m_dsm.endModify();
+        assertEquals(1, countLogRecords());
+        m_dsm.commitModify();
+        assertEquals(2, countLogRecords());
+
+        reopenDsm();
+        assertFalse(findOnu("cp1", "onu1") == null);
+        assertFalse(findOnu("cp2", "onu2") == null);
+    }
+
+    @Test
+    public void testIncompleteTransactionIsIgnored() throws Exception {
+        createOlt();
+        createOnu("cp1", "onu1", "BBFO00000001");
+        m_dsm.close();
+        File log = m_directory.listFiles((dir, name) -> name.endsWith(".log"))[0];
+        long validLength = TransactionLog.read(log, record -> { });
+        // a transaction cut short by a crash
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(validLength);
+            file.writeInt(100);
+            file.writeInt(0);
+            file.write(new byte[10]);
+        }
+
+        m_dsm = openDsm();
+        assertFalse(findOnu("cp1", "onu1") == null);
+        createOnu("cp1", "onu2", "BBFO00000002");
+        reopenDsm();
+        assertEquals(2, m_dsm.listChildNodes(ONU_SCHEMA_PATH, OLT_NODE_ID).size());
+    }
+
+    @Test
+    public void testAttributeTypesAreWrittenAndReadBack() throws Exception {
+        ModelNodeWithAttributes onu = newOnu("cp1", "onu1", "BBFO00000001");
+        Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>(onu.getAttributes());
+        attributes.put(VENDOR_QNAME, new IdentityRefConfigAttribute("urn:vendors", "v", "vendor", "v:vendor1",
+                OLT_NS));
+        Map<String, String> nsPrefixMap = Collections.singletonMap(OLT_NS, "olt");
+        attributes.put(SERIAL_NUMBER_QNAME, new InstanceIdentifierConfigAttribute(nsPrefixMap, OLT_NS,
+                "serial-number", "/olt:olt/olt:onu"));
+        onu.setAttributes(attributes);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelNodeRecordOutput output = new ModelNodeRecordOutput(bytes);
+        output.writeCreate(OLT_NODE_ID, 3, onu);
+        output.writeRemove(ONU_SCHEMA_PATH, new ModelNodeKey(Collections.singletonMap(ONU_NAME_QNAME, "onu1")),
+                OLT_NODE_ID);
+        output.writeEnd();
+        output.flush();
+
+        ModelNodeRecordInput input = new ModelNodeRecordInput(new ByteArrayInputStream(bytes.toByteArray()),
+                (schemaPath, parentId) -> new ModelNodeWithAttributes(schemaPath, parentId, null, null,
+                        m_schemaRegistry, m_dsm));
+        assertEquals(ModelNodeRecordOutput.CREATE, input.readOperation());
+        assertEquals(OLT_NODE_ID, input.readModelNodeId());
+        assertEquals(3, input.readInsertIndex());
+        ModelNodeWithAttributes readOnu = input.readNode();
+        assertEquals(onu.getModelNodeSchemaPath(), readOnu.getModelNodeSchemaPath());
+        assertEquals(onu.getParentNodeId(), readOnu.getParentNodeId());
+        assertEquals(onu.getModelNodeId(), readOnu.getModelNodeId());
+        assertEquals(attributes, readOnu.getAttributes());
+        assertEquals(ModelNodeRecordOutput.REMOVE, input.readOperation());
+        assertEquals(ONU_SCHEMA_PATH, input.readSchemaPath());
+        assertEquals(OLT_NODE_ID, input.readModelNodeId());
+        assertEquals("onu1", input.readModelNodeKey().getKeys().get(ONU_NAME_QNAME));
+        assertEquals(ModelNodeRecordOutput.END, input.readOperation());
+    }
+
+    private DurableInMemoryDSM openDsm() {
+        DurableInMemoryDSM dsm = new DurableInMemoryDSM(m_schemaRegistry, null, null, m_directory);
+        dsm.init();
+        return dsm;
+    }
+
+    private void reopenDsm() {
+        m_dsm.close();
+        m_dsm = openDsm();
+    }
+
+    private int countLogRecords() throws Exception {
+        File log = m_directory.listFiles((dir, name) -> name.endsWith(".log"))[0];
+        AtomicInteger records = new AtomicInteger();
+        TransactionLog.read(log, record -> records.incrementAndGet());
+        return records.get();
+    }
+
+    private ModelNodeWithAttributes createOlt() {
+        ModelNodeWithAttributes oltNode = new ModelNodeWithAttributes(OLT_SCHEMA_PATH, null, null, null,
+                m_schemaRegistry, m_dsm);
+        oltNode.setModelNodeId(OLT_NODE_ID);
+        m_dsm.createNode(oltNode, null);
+        return oltNode;
+    }
+
+    private ModelNodeWithAttributes createOnu(String channelPartition, String name, String serialNumber) {
+        ModelNodeWithAttributes onuNode = newOnu(channelPartition, name, serialNumber);
+        m_dsm.createNode(onuNode, OLT_NODE_ID);
+        return onuNode;
+    }
+
+    private ModelNodeWithAttributes newOnu(String channelPartition, String name, String serialNumber) {
+        ModelNodeWithAttributes onuNode = new ModelNodeWithAttributes(ONU_SCHEMA_PATH, OLT_NODE_ID, null, null,
+                m_schemaRegistry, m_dsm);
+        onuNode.setModelNodeId(new ModelNodeId(OLT_NODE_ID).addRdn(new ModelNodeRdn(ModelNodeRdn.CONTAINER, OLT_NS,
+                "onu")).addRdn(new ModelNodeRdn("channel-partition", OLT_NS, channelPartition)).addRdn(new
+                ModelNodeRdn("name", OLT_NS, name)));
+        Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>();
+        attributes.put(CHANNEL_PARTITION_QNAME, onuAttribute(CHANNEL_PARTITION_QNAME, channelPartition));
+        attributes.put(ONU_NAME_QNAME, onuAttribute(ONU_NAME_QNAME, name));
+        attributes.put(SERIAL_NUMBER_QNAME, onuAttribute(SERIAL_NUMBER_QNAME, serialNumber));
+        onuNode.setAttributes(attributes);
+        return onuNode;
+    }
+
+    private ModelNodeWithAttributes findOnu(String channelPartition, String name) {
+        Map<QName, String> keys = new LinkedHashMap<>();
+        keys.put(CHANNEL_PARTITION_QNAME, channelPartition);
+        keys.put(ONU_NAME_QNAME, name);
+        return (ModelNodeWithAttributes) m_dsm.findNode(ONU_SCHEMA_PATH, new ModelNodeKey(keys), OLT_NODE_ID);
+    }
+
+    private ConfigLeafAttribute onuAttribute(QName qName, String value) {
+        return new GenericConfigAttribute(qName.getLocalName(), OLT_NS, value);
+    }
+}
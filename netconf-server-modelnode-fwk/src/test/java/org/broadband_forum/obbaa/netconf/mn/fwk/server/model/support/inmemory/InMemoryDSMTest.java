@@ -27,15 +27,19 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNode
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.datastore.ModelNodeKey;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.IdentityRefConfigAttribute;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
 import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.model.api.SchemaPath;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -44,6 +48,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants.ALBUM_LOCAL_NAME;
 import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants.ARTIST_LOCAL_NAME;
@@ -57,8 +64,10 @@ import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebo
 import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants.YEAR;
 import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants.SINGER_LOCAL_NAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Created by pgorai on 2/25/16.
@@ -84,12 +93,32 @@ public class InMemoryDSMTest {
     private SchemaPath m_artistSchemaPath = JukeboxConstants.ARTIST_SCHEMA_PATH;
     private SchemaPath m_albumSchemaPath = JukeboxConstants.ALBUM_SCHEMA_PATH;
 
+    private static final String OLT_NS = "urn:org:bbf:pma:inmemory-dsm-test";
+    private static final String OLT_REVISION = "2018-10-01";
+    private static final QName OLT_QNAME = QName.create(OLT_NS, OLT_REVISION, "olt");
+    private static final QName ONU_QNAME = QName.create(OLT_NS, OLT_REVISION, "onu");
+    private static final QName CHANNEL_PARTITION_QNAME = QName.create(OLT_NS, OLT_REVISION, "channel-partition");
+    private static final QName ONU_NAME_QNAME = QName.create(OLT_NS, OLT_REVISION, "name");
+    private static final QName SERIAL_NUMBER_QNAME = QName.create(OLT_NS, OLT_REVISION, "serial-number");
+    private static final QName ONU_ID_QNAME = QName.create(OLT_NS, OLT_REVISION, "onu-id");
+    private static final QName VENDOR_QNAME = QName.create(OLT_NS, OLT_REVISION, "vendor");
+    private static final QName PROFILE_QNAME = QName.create(OLT_NS, OLT_REVISION, "profile");
+    private static final SchemaPath OLT_SCHEMA_PATH = SchemaPath.create(true, OLT_QNAME);
+    private static final SchemaPath ONU_SCHEMA_PATH = OLT_SCHEMA_PATH.createChild(ONU_QNAME);
+    private static final ModelNodeId OLT_NODE_ID = new ModelNodeId().addRdn(new ModelNodeRdn(ModelNodeRdn.CONTAINER,
+            OLT_NS, "olt"));
+
     @Before
     public void setUp() throws Exception {
         m_schemaRegistry = new SchemaRegistryImpl(TestUtil.getJukeBoxYangs(), new NoLockService());
         m_inMemoryDSM = new InMemoryDSM(m_schemaRegistry);
     }
 
+    @After
+    public void tearDown() {
+        RequestScope.setEnableThreadLocalInUT(false);
+    }
+
     @Test
     public void testCreateNodes() throws DataStoreException {
 
@@ -125,6 +154,122 @@ public class InMemoryDSMTest {
         assertEquals(node.getQName(), m_artistSchemaPath.getLastComponent());
     }
 
+    @Test
+    public void testFindNodesWithAllKeysInMatchCriteria() throws DataStoreException {
+        createJukeBoxWithArtist();
+        addAnotherArtist();
+
+        Map<QName, ConfigLeafAttribute> matchCriteria = new HashMap<>();
+        matchCriteria.put(JukeboxConstants.NAME_QNAME, new GenericConfigAttribute(NAME, JB_NS, "Paramita"));
+        List<ModelNode> nodes = m_inMemoryDSM.findNodes(m_artistSchemaPath, matchCriteria, m_libraryNodeId);
+        assertEquals(1, nodes.size());
+        assertEquals(m_artist2Id, nodes.get(0).getModelNodeId());
+
+        matchCriteria.put(JukeboxConstants.NAME_QNAME, new GenericConfigAttribute(NAME, JB_NS, "unknown"));
+        assertTrue(m_inMemoryDSM.findNodes(m_artistSchemaPath, matchCriteria, m_libraryNodeId).isEmpty());
+
+        matchCriteria.put(JukeboxConstants.NAME_QNAME, new GenericConfigAttribute(NAME, JB_NS, "keshava"));
+        assertTrue(m_inMemoryDSM.findNodes(m_artistSchemaPath, matchCriteria, m_jukeboxNodeId).isEmpty());
+        assertEquals(1, m_inMemoryDSM.findNodes(m_artistSchemaPath, matchCriteria, m_libraryNodeId).size());
+    }
+
+    @Test
+    public void testFindNodesUsesIndexesOnKeysAndUniqueLeaves() throws Exception {
+        m_schemaRegistry = new SchemaRegistryImpl(Collections.singletonList(TestUtil.getByteSource(
+                "/inmemorydsmtest/inmemory-dsm-test.yang")), new NoLockService());
+        m_inMemoryDSM = new InMemoryDSM(m_schemaRegistry);
+        ModelNodeWithAttributes oltNode = new ModelNodeWithAttributes(OLT_SCHEMA_PATH, null, null, null,
+                m_schemaRegistry, m_inMemoryDSM);
+        oltNode.setModelNodeId(OLT_NODE_ID);
+        m_inMemoryDSM.createNode(oltNode, null);
+        ModelNodeWithAttributes onu1 = createOnu("cp1", "onu1", "BBFO00000001", "1");
+        ModelNodeWithAttributes onu2 = createOnu("cp1", "onu2", "BBFO00000002", "2");
+        ModelNodeWithAttributes onu3 = createOnu("cp2", "onu1", "BBFO00000003", "1");
+
+        assertEquals(Arrays.asList(onu3), findOnus(CHANNEL_PARTITION_QNAME, "cp2", ONU_NAME_QNAME, "onu1"));
+        assertEquals(Collections.emptyList(), findOnus(CHANNEL_PARTITION_QNAME, "cp2", ONU_NAME_QNAME, "onu1",
+                VENDOR_QNAME, "vendor1"));
+        assertEquals(Arrays.asList(onu2), findOnus(SERIAL_NUMBER_QNAME, "BBFO00000002"));
+        assertEquals(Arrays.asList(onu3), findOnus(CHANNEL_PARTITION_QNAME, "cp2", ONU_ID_QNAME, "1"));
+        assertEquals(Collections.emptyList(), findOnus(SERIAL_NUMBER_QNAME, "BBFO00000004"));
+        assertEquals(Arrays.asList(onu1, onu3), findOnus(ONU_NAME_QNAME, "onu1"));
+
+        // the index follows updates of the unique leaves
+        m_inMemoryDSM.updateNode(onu2, OLT_NODE_ID, Collections.singletonMap(SERIAL_NUMBER_QNAME,
+                onuAttribute(SERIAL_NUMBER_QNAME, "BBFO00000004")), null, false);
+        assertEquals(Collections.emptyList(), findOnus(SERIAL_NUMBER_QNAME, "BBFO00000002"));
+        assertEquals(Arrays.asList(onu2), findOnus(SERIAL_NUMBER_QNAME, "BBFO00000004"));
+        Map<QName, ConfigLeafAttribute> removeOnuId = new HashMap<>();
+        removeOnuId.put(ONU_ID_QNAME, null);
+        m_inMemoryDSM.updateNode(onu3, OLT_NODE_ID, removeOnuId, null, false);
+        assertEquals(Collections.emptyList(), findOnus(CHANNEL_PARTITION_QNAME, "cp2", ONU_ID_QNAME, "1"));
+
+        // and removals
+        m_inMemoryDSM.removeNode(onu1, OLT_NODE_ID);
+        assertEquals(Collections.emptyList(), findOnus(SERIAL_NUMBER_QNAME, "BBFO00000001"));
+        assertEquals(Collections.emptyList(), findOnus(CHANNEL_PARTITION_QNAME, "cp1", ONU_NAME_QNAME, "onu1"));
+        m_inMemoryDSM.removeAllNodes(oltNode, ONU_SCHEMA_PATH, null);
+        assertEquals(Collections.emptyList(), findOnus(SERIAL_NUMBER_QNAME, "BBFO00000004"));
+    }
+
+    @Test
+    public void testUniqueIdentityRefsAreFoundWhateverTheirPrefix() throws Exception {
+        m_schemaRegistry = new SchemaRegistryImpl(Collections.singletonList(TestUtil.getByteSource(
+                "/inmemorydsmtest/inmemory-dsm-test.yang")), new NoLockService());
+        m_inMemoryDSM = new InMemoryDSM(m_schemaRegistry);
+        ModelNodeWithAttributes oltNode = new ModelNodeWithAttributes(OLT_SCHEMA_PATH, null, null, null,
+                m_schemaRegistry, m_inMemoryDSM);
+        oltNode.setModelNodeId(OLT_NODE_ID);
+        m_inMemoryDSM.createNode(oltNode, null);
+        ModelNodeWithAttributes onu1 = createOnu("cp1", "onu1", "BBFO00000001", "1");
+        m_inMemoryDSM.updateNode(onu1, OLT_NODE_ID, Collections.singletonMap(PROFILE_QNAME, profile("imdt",
+                "gpon")), null, false);
+        ModelNodeWithAttributes onu2 = createOnu("cp1", "onu2", "BBFO00000002", "2");
+        m_inMemoryDSM.updateNode(onu2, OLT_NODE_ID, Collections.singletonMap(PROFILE_QNAME, profile("imdt",
+                "xgs-pon")), null, false);
+
+        Map<QName, ConfigLeafAttribute> matchCriteria = new HashMap<>();
+        matchCriteria.put(CHANNEL_PARTITION_QNAME, onuAttribute(CHANNEL_PARTITION_QNAME, "cp1"));
+        matchCriteria.put(PROFILE_QNAME, profile("other-prefix", "gpon"));
+        assertEquals(Arrays.asList(onu1), m_inMemoryDSM.findNodes(ONU_SCHEMA_PATH, matchCriteria, OLT_NODE_ID));
+        matchCriteria.put(PROFILE_QNAME, profile("imdt", "xgs-pon"));
+        assertEquals(Arrays.asList(onu2), m_inMemoryDSM.findNodes(ONU_SCHEMA_PATH, matchCriteria, OLT_NODE_ID));
+    }
+
+    private ConfigLeafAttribute profile(String prefix, String identity) {
+        return new IdentityRefConfigAttribute(OLT_NS, prefix, PROFILE_QNAME.getLocalName(), prefix + ":" + identity,
+                OLT_NS);
+    }
+
+    private ModelNodeWithAttributes createOnu(String channelPartition, String name, String serialNumber, String
+            onuId) throws DataStoreException {
+        ModelNodeWithAttributes onuNode = new ModelNodeWithAttributes(ONU_SCHEMA_PATH, OLT_NODE_ID, null, null,
+                m_schemaRegistry, m_inMemoryDSM);
+        onuNode.setModelNodeId(new ModelNodeId(OLT_NODE_ID).addRdn(new ModelNodeRdn(ModelNodeRdn.CONTAINER, OLT_NS,
+                "onu")).addRdn(new ModelNodeRdn("channel-partition", OLT_NS, channelPartition)).addRdn(new
+                ModelNodeRdn("name", OLT_NS, name)));
+        Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>();
+        attributes.put(CHANNEL_PARTITION_QNAME, onuAttribute(CHANNEL_PARTITION_QNAME, channelPartition));
+        attributes.put(ONU_NAME_QNAME, onuAttribute(ONU_NAME_QNAME, name));
+        attributes.put(SERIAL_NUMBER_QNAME, onuAttribute(SERIAL_NUMBER_QNAME, serialNumber));
+        attributes.put(ONU_ID_QNAME, onuAttribute(ONU_ID_QNAME, onuId));
+        onuNode.setAttributes(attributes);
+        m_inMemoryDSM.createNode(onuNode, OLT_NODE_ID);
+        return onuNode;
+    }
+
+    private List<ModelNode> findOnus(Object... criteria) throws DataStoreException {
+        Map<QName, ConfigLeafAttribute> matchCriteria = new HashMap<>();
+        for (int i = 0; i < criteria.length; i += 2) {
+            matchCriteria.put((QName) criteria[i], onuAttribute((QName) criteria[i], (String) criteria[i + 1]));
+        }
+        return m_inMemoryDSM.findNodes(ONU_SCHEMA_PATH, matchCriteria, OLT_NODE_ID);
+    }
+
+    private ConfigLeafAttribute onuAttribute(QName qName, String value) {
+        return new GenericConfigAttribute(qName.getLocalName(), OLT_NS, value);
+    }
+
     @Test
     public void testListNodes() throws DataStoreException {
 
@@ -348,4 +493,171 @@ public class InMemoryDSMTest {
         libraryNode.setAttributes(keys);
         assertTrue(jukeboxNode.compareTo(libraryNode) < 0);
     }
+
+    @Test
+    public void testVersionedDSMReadersKeepTheVersionOfTheirRead() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        ((InMemoryDSM) m_inMemoryDSM).setVersioned(true);
+        createJukeBoxWithArtist();
+        addAlbum();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            assertNull(reader.submit(() -> {
+                m_inMemoryDSM.beginRead();
+                return getAlbumYear();
+            }).get());
+
+            m_inMemoryDSM.beginModify();
+            ModelNodeWithAttributes albumNode = (ModelNodeWithAttributes) findAlbum();
+            QName year = QName.create(JB_NS, JB_REVISION, YEAR);
+            m_inMemoryDSM.updateNode(albumNode, m_artist1Id, Collections.singletonMap(year, new
+                    GenericConfigAttribute(YEAR, JB_NS, "2016")), null, false);
+            addAnotherArtist();
+            assertEquals("2016", getAlbumYear());
+            assertEquals(2, m_inMemoryDSM.listChildNodes(m_artistSchemaPath, m_libraryNodeId).size());
+            assertNull(reader.submit(() -> getAlbumYear()).get());
+            assertEquals(1, (int) reader.submit(() -> m_inMemoryDSM.listChildNodes(m_artistSchemaPath,
+                    m_libraryNodeId).size()).get());
+            m_inMemoryDSM.endModify();
+            //published only once the request succeeded
+            assertNull(reader.submit(() -> {
+                m_inMemoryDSM.beginRead();
+                String albumYear = getAlbumYear();
+                m_inMemoryDSM.endRead();
+                return albumYear;
+            }).get());
+            m_inMemoryDSM.commitModify();
+
+            assertEquals("2016", getAlbumYear());
+            //the reader keeps the version it started with until its read ends
+            assertNull(reader.submit(() -> getAlbumYear()).get());
+            assertNull(albumNode.getAttribute(year));
+            reader.submit(() -> m_inMemoryDSM.endRead()).get();
+            assertEquals("2016", reader.submit(() -> getAlbumYear()).get());
+            assertEquals(2, (int) reader.submit(() -> m_inMemoryDSM.listChildNodes(m_artistSchemaPath,
+                    m_libraryNodeId).size()).get());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVersionedDSMThreadsReadTheCommittedVersionOutsideOfARead() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        ((InMemoryDSM) m_inMemoryDSM).setVersioned(true);
+        createJukeBoxWithArtist();
+        addAlbum();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            //the scope of the reader thread is never reset
+            assertEquals(1, (int) reader.submit(() -> m_inMemoryDSM.listChildNodes(m_artistSchemaPath,
+                    m_libraryNodeId).size()).get());
+            addAnotherArtist();
+            assertEquals(2, (int) reader.submit(() -> m_inMemoryDSM.listChildNodes(m_artistSchemaPath,
+                    m_libraryNodeId).size()).get());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVersionedDSMRejectsAVersionStartedWhileAnotherThreadBuildsOne() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        ((InMemoryDSM) m_inMemoryDSM).setVersioned(true);
+        createJukeBoxWithArtist();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            m_inMemoryDSM.beginModify();
+            addAnotherArtist();
+            try {
+                writer.submit(() -> m_inMemoryDSM.beginModify()).get();
+                fail("a second thread must not start a version");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DataStoreException);
+            }
+            try {
+                writer.submit(() -> addAlbum()).get();
+                fail("a second thread must not start a version");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DataStoreException);
+            }
+            m_inMemoryDSM.endModify();
+            m_inMemoryDSM.commitModify();
+
+            writer.submit(() -> addAlbum()).get();
+            assertEquals(2, m_inMemoryDSM.listNodes(m_artistSchemaPath).size());
+            assertNotNull(findAlbum());
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVersionedDSMDropsTheChangesOfAFailedEdit() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        ((InMemoryDSM) m_inMemoryDSM).setVersioned(true);
+        createJukeBoxWithArtist();
+        addAlbum();
+
+        m_inMemoryDSM.beginModify();
+        addAnotherArtist();
+        ModelNode artist = m_inMemoryDSM.findNode(m_artistSchemaPath, new ModelNodeKey(Collections.singletonMap(
+                JukeboxConstants.NAME_QNAME, "keshava")), m_libraryNodeId);
+        m_inMemoryDSM.removeNode(artist, m_libraryNodeId);
+        assertNull(findAlbum());
+        //the edit fails
+        m_inMemoryDSM.abortModify();
+
+        //the same thread reads the committed nodes
+        assertNotNull(findAlbum());
+        assertEquals(1, m_inMemoryDSM.listChildNodes(m_artistSchemaPath, m_libraryNodeId).size());
+
+        m_inMemoryDSM.beginModify();
+        assertNotNull(findAlbum());
+        assertEquals(1, m_inMemoryDSM.listChildNodes(m_artistSchemaPath, m_libraryNodeId).size());
+        addAnotherArtist();
+        m_inMemoryDSM.endModify();
+        m_inMemoryDSM.commitModify();
+        assertNotNull(findAlbum());
+        assertEquals(2, m_inMemoryDSM.listNodes(m_artistSchemaPath).size());
+    }
+
+    @Test
+    public void testVersionedDSMKeepsTheChangesOfARequestUntilCommitted() throws Exception {
+        RequestScope.setEnableThreadLocalInUT(true);
+        ((InMemoryDSM) m_inMemoryDSM).setVersioned(true);
+        createJukeBoxWithArtist();
+        addAlbum();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            m_inMemoryDSM.beginModify();
+            addAnotherArtist();
+            m_inMemoryDSM.endModify();
+            //a change implied by the validation of the request, after endModify
+            ModelNode artist = m_inMemoryDSM.findNode(m_artistSchemaPath, new ModelNodeKey(Collections
+                    .singletonMap(JukeboxConstants.NAME_QNAME, "keshava")), m_libraryNodeId);
+            m_inMemoryDSM.removeNode(artist, m_libraryNodeId);
+            assertEquals(1, (int) reader.submit(() -> m_inMemoryDSM.listNodes(m_artistSchemaPath).size()).get());
+            assertNotNull(reader.submit(() -> findAlbum()).get());
+
+            //the validation fails
+            m_inMemoryDSM.abortModify();
+            assertEquals(1, m_inMemoryDSM.listNodes(m_artistSchemaPath).size());
+            assertNotNull(findAlbum());
+            assertNotNull(reader.submit(() -> findAlbum()).get());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    private ModelNode findAlbum() throws DataStoreException {
+        return m_inMemoryDSM.findNode(m_albumSchemaPath, new ModelNodeKey(Collections.singletonMap(JukeboxConstants
+                .NAME_QNAME, "1st Album")), m_artist1Id);
+    }
+
+    private String getAlbumYear() throws DataStoreException {
+        ConfigLeafAttribute year = ((ModelNodeWithAttributes) findAlbum()).getAttribute(QName.create(JB_NS,
+                JB_REVISION, YEAR));
+        return year == null ? null : year.getStringValue();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class VersionedMapTest {
+
+    @Test
+    public void testMapBehavesAsAHashMap() {
+        VersionedMap<Integer, String> map = new VersionedMap<>(null);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int key = 0; key < 5000; key++) {
+            assertNull(map.put(key * 31, "value" + key));
+            expected.put(key * 31, "value" + key);
+        }
+        assertEquals("value7", map.put(7 * 31, "changed"));
+        expected.put(7 * 31, "changed");
+        for (int key = 0; key < 5000; key += 3) {
+            assertEquals(expected.remove(key * 31), map.remove(key * 31));
+        }
+        assertNull(map.remove(-1));
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(expected, new HashMap<>(map));
+    }
+
+    @Test
+    public void testKeysWithTheSameHash() {
+        VersionedMap<CollidingKey, String> map = new VersionedMap<>(null);
+        map.put(new CollidingKey("a"), "1");
+        map.put(new CollidingKey("b"), "2");
+        map.put(new CollidingKey("c"), "3");
+        assertEquals("2", map.get(new CollidingKey("b")));
+        assertEquals("2", map.remove(new CollidingKey("b")));
+        assertFalse(map.containsKey(new CollidingKey("b")));
+        assertEquals("1", map.get(new CollidingKey("a")));
+        assertEquals("3", map.get(new CollidingKey("c")));
+        assertEquals(2, map.size());
+        assertEquals(2, map.entrySet().size());
+    }
+
+    @Test
+    public void testCopiesAreChangedIndependently() {
+        Object owner = new Object();
+        VersionedMap<Integer, String> base = new VersionedMap<>(owner);
+        for (int key = 0; key < 1000; key++) {
+            base.put(key, "base" + key);
+        }
+        Map<Integer, String> baseContent = new HashMap<>(base);
+
+        VersionedMap<Integer, String> copy = new VersionedMap<>(base, new Object());
+        for (int key = 0; key < 1000; key += 2) {
+            copy.put(key, "copy" + key);
+        }
+        copy.remove(1);
+        copy.put(1000, "copy1000");
+        assertEquals(baseContent, base);
+        assertEquals("copy0", copy.get(0));
+        assertNull(copy.get(1));
+        assertEquals("base3", copy.get(3));
+        assertEquals(1000, copy.size());
+
+        //the owner of the base changes it in place, the copy keeps its entries
+        base.put(3, "changed");
+        base.remove(5);
+        assertEquals("base3", copy.get(3));
+        assertEquals("base5", copy.get(5));
+        assertTrue(copy.containsKey(5));
+    }
+
+    private static final class CollidingKey {
+        private final String m_name;
+
+        private CollidingKey(String name) {
+            m_name = name;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CollidingKey && ((CollidingKey) other).m_name.equals(m_name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+}
@@ -19,10 +19,20 @@ package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath;
 import org.apache.commons.jxpath.ri.JXPathCompiledExpression;
 import org.apache.commons.jxpath.ri.compiler.CoreOperationEqual;
 import org.apache.commons.jxpath.ri.compiler.Expression;
+import org.broadband_forum.obbaa.netconf.mn.fwk.schema.SchemaRegistry;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 
 /**
@@ -30,6 +40,21 @@ import static org.junit.Assert.assertNull;
  */
 public class JXPathUtilsTest {
 
+    private SchemaRegistry m_schemaRegistry = mock(SchemaRegistry.class);
+
+    @Before
+    public void setUp() {
+        RequestScope.setEnableThreadLocalInUT(true);
+        JXPathUtils.clearSchemaExpressions();
+    }
+
+    @After
+    public void tearDown() {
+        JXPathUtils.clearSchemaExpressions();
+        RequestScope.resetScope();
+        RequestScope.setEnableThreadLocalInUT(false);
+    }
+
     @Test
     public void testGetExpression() {
         Expression[] expressions = new Expression[2];
@@ -42,4 +67,76 @@ public class JXPathUtilsTest {
     public void testNull() {
         assertNull(JXPathUtils.getExpression((JXPathCompiledExpression) null));
     }
+
+    @Test
+    public void testSchemaExpressionsAreSharedAcrossRequests() {
+        String schemaPath = "../interface[name = current()/../name]/enabled = 'true'";
+        Expression schemaExpression = JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1", schemaPath);
+        assertEquals(schemaPath, schemaExpression.toString());
+        assertEquals(1, JXPathUtils.getSchemaExpressionCount());
+        assertSame(schemaExpression, JXPathUtils.getExpression(schemaPath));
+
+        RequestScope.resetScope();
+        assertSame(schemaExpression, JXPathUtils.getExpression(schemaPath));
+        assertSame(schemaExpression, JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1", schemaPath));
+        assertEquals(1, JXPathUtils.getSchemaExpressionCount());
+    }
+
+    @Test
+    public void testAlignedFormOfSchemaExpressionsIsBuiltOnce() {
+        String schemaPath = "../class = 'gold'";
+        Expression schemaExpression = JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1", schemaPath);
+        Expression aligned = JXPathUtils.getDynaBeanAlignedExpression(schemaExpression);
+        assertNotSame(schemaExpression, aligned);
+        assertSame(aligned, JXPathUtils.getDynaBeanAlignedExpression(schemaExpression));
+
+        Expression otherExpression = JXPathUtils.getExpression("../class = 'silver'");
+        assertEquals(JXPathUtils.getDynaBeanAlignedExpression(otherExpression).toString(), JXPathUtils
+                .getDynaBeanAlignedExpression(otherExpression).toString());
+        assertNotSame(JXPathUtils.getDynaBeanAlignedExpression(otherExpression), JXPathUtils
+                .getDynaBeanAlignedExpression(otherExpression));
+    }
+
+    @Test
+    public void testSchemaPathsThatDoNotCompileAreNotCached() {
+        assertNull(JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1", "../a[="));
+        assertNull(JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1", null));
+        assertEquals(0, JXPathUtils.getSchemaExpressionCount());
+    }
+
+    @Test
+    public void testSchemaExpressionsAreDroppedWithTheLastComponentThatDeployedThem() {
+        SchemaRegistry otherRegistry = mock(SchemaRegistry.class);
+        String sharedPath = "../type = 'ethernet'";
+        String component2Path = "../mtu > 1500";
+        Expression sharedExpression = JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1", sharedPath);
+        JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component2", sharedPath);
+        JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component2", component2Path);
+        JXPathUtils.compileSchemaExpression(otherRegistry, "component2", sharedPath);
+        assertEquals(2, JXPathUtils.getSchemaExpressionCount());
+
+        JXPathUtils.releaseSchemaExpressions(m_schemaRegistry, "component2");
+        assertEquals(1, JXPathUtils.getSchemaExpressionCount());
+        assertSame(sharedExpression, JXPathUtils.getExpression(sharedPath));
+
+        JXPathUtils.releaseSchemaExpressions(m_schemaRegistry, null);
+        assertEquals(1, JXPathUtils.getSchemaExpressionCount());
+        JXPathUtils.releaseSchemaExpressions(otherRegistry, "component2");
+        assertEquals(0, JXPathUtils.getSchemaExpressionCount());
+    }
+
+    @Test
+    public void testNativeSchemaExpressionsAreSelectedAtDeployment() {
+        Expression nativeExpression = JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1",
+                "../type = 'ethernet' and ../mtu > 1500");
+        Expression currentExpression = JXPathUtils.compileSchemaExpression(m_schemaRegistry, "component1",
+                "../name = current()/../name");
+        assertTrue(JXPathUtils.isNativeSchemaExpression(nativeExpression));
+        assertFalse(JXPathUtils.isNativeSchemaExpression(currentExpression));
+        assertFalse(JXPathUtils.isNativeSchemaExpression(JXPathUtils.getExpression("../speed = 'fast'")));
+        assertFalse(JXPathUtils.isNativeSchemaExpression(null));
+
+        JXPathUtils.releaseSchemaExpressions(m_schemaRegistry, "component1");
+        assertFalse(JXPathUtils.isNativeSchemaExpression(nativeExpression));
+    }
 }
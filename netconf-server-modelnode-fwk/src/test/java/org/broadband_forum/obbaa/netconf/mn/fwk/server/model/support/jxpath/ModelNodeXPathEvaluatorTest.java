@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.jxpath;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.apache.commons.jxpath.JXPathContext;
+import org.apache.commons.jxpath.ri.JXPathCompiledExpression;
+import org.apache.commons.jxpath.ri.compiler.Expression;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildContainerHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ChildListHelper;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeHelperRegistry;
+import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ModelNodeWithAttributes;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.SchemaPath;
+
+public class ModelNodeXPathEvaluatorTest {
+
+    private static final String NS = "urn:example:interfaces";
+    private static final String REVISION = "2018-01-01";
+
+    private ModelNodeWithAttributes m_interface;
+    private ModelNodeWithAttributes m_statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        ModelNodeHelperRegistry helperRegistry = mock(ModelNodeHelperRegistry.class);
+        SchemaPath interfacePath = SchemaPath.create(true, qName("interface"));
+        SchemaPath statisticsPath = interfacePath.createChild(qName("statistics"));
+
+        m_interface = mock(ModelNodeWithAttributes.class);
+        Map<QName, ConfigLeafAttribute> attributes = new LinkedHashMap<>();
+        attributes.put(qName("type"), new GenericConfigAttribute("type", NS, "ethernet"));
+        attributes.put(qName("mtu"), new GenericConfigAttribute("mtu", NS, "1500"));
+        when(m_interface.getAttributes()).thenReturn(attributes);
+        Map<QName, LinkedHashSet<ConfigLeafAttribute>> leafLists = new LinkedHashMap<>();
+        leafLists.put(qName("tag"), new LinkedHashSet<ConfigLeafAttribute>(Arrays.asList(new GenericConfigAttribute(
+                "tag", NS, "uplink"), new GenericConfigAttribute("tag", NS, "trunk"))));
+        when(m_interface.getLeafLists()).thenReturn(leafLists);
+        when(m_interface.getModelNodeHelperRegistry()).thenReturn(helperRegistry);
+        when(m_interface.getModelNodeSchemaPath()).thenReturn(interfacePath);
+
+        m_statistics = mock(ModelNodeWithAttributes.class);
+        when(m_statistics.getAttributes()).thenReturn(Collections.<QName, ConfigLeafAttribute>singletonMap(qName
+                ("errors"), new GenericConfigAttribute("errors", NS, "3")));
+        when(m_statistics.getLeafLists()).thenReturn(Collections.<QName, LinkedHashSet<ConfigLeafAttribute>>
+                emptyMap());
+        when(m_statistics.getModelNodeHelperRegistry()).thenReturn(helperRegistry);
+        when(m_statistics.getModelNodeSchemaPath()).thenReturn(statisticsPath);
+        when(m_statistics.getParent()).thenReturn(m_interface);
+
+        ChildContainerHelper statisticsHelper = mock(ChildContainerHelper.class);
+        when(statisticsHelper.getValue(m_interface)).thenReturn(m_statistics);
+        when(helperRegistry.getChildContainerHelpers(interfacePath)).thenReturn(Collections.singletonMap(qName
+                ("statistics"), statisticsHelper));
+        when(helperRegistry.getChildContainerHelpers(statisticsPath)).thenReturn(Collections.<QName,
+                ChildContainerHelper>emptyMap());
+        when(helperRegistry.getChildListHelpers(interfacePath)).thenReturn(Collections.<QName,
+                ChildListHelper>emptyMap());
+        when(helperRegistry.getChildListHelpers(statisticsPath)).thenReturn(Collections.<QName,
+                ChildListHelper>emptyMap());
+    }
+
+    @Test
+    public void testSupportedExpressions() {
+        assertTrue(ModelNodeXPathEvaluator.isSupported(compile("../type = 'ethernet' and ../mtu >= 1500")));
+        assertTrue(ModelNodeXPathEvaluator.isSupported(compile(". > 10 or boolean(../if:enabled)")));
+        assertTrue(ModelNodeXPathEvaluator.isSupported(compile("true()")));
+
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("not(../type)")));
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("count(../tag) > 1")));
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("../interface[name = 'eth0']/mtu > 1000")));
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("/interfaces/interface/mtu > 1000")));
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("../name = current()/../name")));
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("../*")));
+        assertFalse(ModelNodeXPathEvaluator.isSupported(compile("../mtu + 1 > 1000")));
+    }
+
+    @Test
+    public void testLeafExpressions() {
+        assertTrue(ModelNodeXPathEvaluator.isTrueOnLeaf(compile(". > 1000"), m_interface, "1500"));
+        assertFalse(ModelNodeXPathEvaluator.isTrueOnLeaf(compile(". > 1000"), m_interface, "900"));
+        assertTrue(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../type = 'ethernet' and ../mtu >= 1500"),
+                m_interface, "1500"));
+        assertFalse(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../type != 'ethernet'"), m_interface, "1500"));
+        assertTrue(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../if:type = 'ethernet'"), m_interface, "1500"));
+        assertFalse(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../speed"), m_interface, "1500"));
+        assertFalse(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../speed = 'fast' or false()"), m_interface,
+                "1500"));
+    }
+
+    @Test
+    public void testComparisonsWithLeafListsHoldForOneOfTheEntries() {
+        assertTrue(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../tag = 'trunk'"), m_interface, "1500"));
+        assertTrue(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../tag != 'trunk'"), m_interface, "1500"));
+        assertFalse(ModelNodeXPathEvaluator.isTrueOnLeaf(compile("../tag = 'access'"), m_interface, "1500"));
+    }
+
+    @Test
+    public void testPathsThroughContainers() {
+        assertTrue(ModelNodeXPathEvaluator.isTrue(compile("statistics/errors < 5"), m_interface));
+        assertTrue(ModelNodeXPathEvaluator.isTrue(compile("../mtu = 1500 and ./errors = 3"), m_statistics));
+        assertTrue(ModelNodeXPathEvaluator.isTrue(compile("boolean(statistics)"), m_interface));
+        assertFalse(ModelNodeXPathEvaluator.isTrue(compile("statistics/errors > 5"), m_interface));
+    }
+
+    @Test
+    public void testExpressionsThatCannotBeDecidedAreNotTrue() {
+        // above the root node and the string value of a container are left to the DynaBean based evaluation
+        assertFalse(ModelNodeXPathEvaluator.isTrue(compile("../../type = 'ethernet' or ../mtu = 1500"),
+                m_interface));
+        assertFalse(ModelNodeXPathEvaluator.isTrue(compile("statistics = '3'"), m_interface));
+    }
+
+    private static Expression compile(String xPath) {
+        return JXPathUtils.getExpression((JXPathCompiledExpression) JXPathContext.compile(xPath));
+    }
+
+    private static QName qName(String localName) {
+        return QName.create(NS, REVISION, localName);
+    }
+}
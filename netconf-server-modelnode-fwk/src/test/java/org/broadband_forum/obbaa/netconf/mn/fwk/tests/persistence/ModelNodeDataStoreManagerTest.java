@@ -65,7 +65,10 @@ import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebo
 import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants.TELEPHONE_NUMBER_QNAME;
 import static org.broadband_forum.obbaa.netconf.persistence.test.entities.jukebox3.JukeboxConstants.TELEPHONE_TYPE_QNAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -94,6 +97,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.certi
 import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.certificates.v2.Certificate;
 import org.broadband_forum.obbaa.netconf.mn.fwk.tests.persistence.entities.certificates.v2.TrustedCaCerts;
 import org.broadband_forum.obbaa.netconf.mn.fwk.util.NoLockService;
+import org.hibernate.Session;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -124,6 +128,7 @@ import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.ConfigLeafA
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.GenericConfigAttribute;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.emn.EntityRegistry;
 import org.broadband_forum.obbaa.netconf.mn.fwk.server.model.support.utils.TestTxUtils;
+import org.broadband_forum.obbaa.netconf.server.RequestScope;
 import org.broadband_forum.obbaa.netconf.server.util.TestUtil;
 import org.broadband_forum.obbaa.netconf.persistence.EntityDataStoreManager;
 import org.broadband_forum.obbaa.netconf.persistence.PersistenceManagerUtil;
@@ -276,6 +281,61 @@ public class ModelNodeDataStoreManagerTest {
         assertEquals(1, m_dataStoreManager.listChildNodes(SONG_SCHEMA_PATH, m_albumId).size());
     }
 
+    @Test
+    public void testPrefetchChildNodes() throws DataStoreException {
+        RequestScope.setEnableThreadLocalInUT(true);
+        try {
+            Jukebox jukebox = m_jukeboxDao.findByIdWithWriteLock(TestConstants.EMPTY_NODE_ID.getModelNodeIdAsString());
+            Album prefetchTimes = new Album();
+            prefetchTimes.setSchemaPath(SchemaPathUtil.toString(ALBUM_SCHEMA_PATH));
+            prefetchTimes.setParentId(m_artistId.getModelNodeIdAsString());
+            prefetchTimes.setName("Prefetch Times");
+            prefetchTimes.setInsertOrder(1);
+            ModelNodeId prefetchTimesId = new ModelNodeId(m_artistId).addRdn(new ModelNodeRdn(CONTAINER, JB_NS,
+                    ALBUM_LOCAL_NAME)).addRdn(new ModelNodeRdn("name", JB_NS, "Prefetch Times"));
+            prefetchTimes.getSongs().add(createSong(prefetchTimesId, "Batched Song", 0));
+            jukebox.getLibrary().getArtists().get(0).getAlbums().add(prefetchTimes);
+            m_jukeboxDao.create(jukebox);
+
+            m_dataStoreManager.prefetchChildNodes(SONG_SCHEMA_PATH, Arrays.asList(m_albumId, prefetchTimesId));
+
+            // a song added after the prefetch is seen once the prefetched songs of its album have been read
+            jukebox = m_jukeboxDao.findByIdWithWriteLock(TestConstants.EMPTY_NODE_ID.getModelNodeIdAsString());
+            for (Album album : jukebox.getLibrary().getArtists().get(0).getAlbums()) {
+                if ("Refactor Times".equals(album.getName())) {
+                    album.getSongs().add(createSong(m_albumId, "Late Song", 1));
+                }
+            }
+            m_jukeboxDao.create(jukebox);
+
+            assertEquals(Arrays.asList("Entity Refactor"), getNames(m_dataStoreManager.findNodes(SONG_SCHEMA_PATH,
+                    Collections.emptyMap(), m_albumId)));
+            assertEquals(Arrays.asList("Batched Song"), getNames(m_dataStoreManager.findNodes(SONG_SCHEMA_PATH,
+                    Collections.emptyMap(), prefetchTimesId)));
+            assertEquals(Arrays.asList("Entity Refactor", "Late Song"), getNames(m_dataStoreManager.findNodes(
+                    SONG_SCHEMA_PATH, Collections.emptyMap(), m_albumId)));
+        } finally {
+            RequestScope.setEnableThreadLocalInUT(false);
+        }
+    }
+
+    private Song createSong(ModelNodeId albumId, String name, int insertOrder) {
+        Song song = new Song();
+        song.setSchemaPath(SchemaPathUtil.toString(SONG_SCHEMA_PATH));
+        song.setParentId(albumId.getModelNodeIdAsString());
+        song.setName(name);
+        song.setInsertOrder(insertOrder);
+        return song;
+    }
+
+    private List<String> getNames(List<ModelNode> modelNodes) {
+        List<String> names = new ArrayList<>();
+        for (ModelNode modelNode : modelNodes) {
+            names.add(((ModelNodeWithAttributes) modelNode).getAttribute(NAME_QNAME).getStringValue());
+        }
+        return names;
+    }
+
     @Test
     public void testListNodeWithParentKey() throws DataStoreException, SchemaBuildException {
         addHomeAddresses();
@@ -423,6 +483,51 @@ public class ModelNodeDataStoreManagerTest {
 
     }
 
+    @Test
+    public void testNodesCreatedDuringAModificationAreFlushedInBatches() throws DataStoreException {
+        AnnotationBasedModelNodeDataStoreManager batchingDSM = new AnnotationBasedModelNodeDataStoreManager(
+                m_persistenceManagerUtil, m_entityRegistry, m_schemaRegistry, m_modelNodeHelperRegistry, null,
+                m_modelNodeDSMRegistry);
+        assertEquals(AnnotationBasedModelNodeDataStoreManager.DEFAULT_WRITE_BATCH_SIZE, batchingDSM
+                .getWriteBatchSize());
+        batchingDSM.setWriteBatchSize(100);
+        ModelNodeDataStoreManager dataStoreManager = TestTxUtils.getTxDecoratedDSM(m_persistenceManagerUtil,
+                batchingDSM);
+        RequestScope.setEnableThreadLocalInUT(true);
+        EntityDataStoreManager entityDSM = m_persistenceManagerUtil.getEntityDataStoreManager();
+        entityDSM.beginTransaction();
+        try {
+            ModelNodeId newArtistId = new ModelNodeId(m_libraryNodeId).addRdn(new ModelNodeRdn(CONTAINER, JB_NS,
+                    ARTIST_LOCAL_NAME)).addRdn(new ModelNodeRdn("name", JB_NS, "new-artist"));
+            ModelNodeId newAlbumId = new ModelNodeId(newArtistId).addRdn(new ModelNodeRdn(CONTAINER, JB_NS,
+                    ALBUM_LOCAL_NAME)).addRdn(new ModelNodeRdn("name", JB_NS, "new-album"));
+            dataStoreManager.beginModify();
+            dataStoreManager.createNode(getArtistModelNode("new-artist"), m_libraryNodeId);
+            dataStoreManager.createNode(getAlbumModelNode("new-album", newArtistId), newArtistId);
+            for (int i = 0; i < 3; i++) {
+                dataStoreManager.createNode(getSongModelNode("song-" + i, newAlbumId), newAlbumId);
+            }
+            Session session = entityDSM.getEntityManager().unwrap(Session.class);
+            // the new songs are only attached to their album, the cascade persists them on flush
+            for (Object entityKey : session.getStatistics().getEntityKeys()) {
+                assertFalse(entityKey.toString(), entityKey.toString().contains("parentId=" + newAlbumId
+                        .getModelNodeIdAsString()));
+            }
+            assertTrue(session.isDirty());
+            assertNotNull(dataStoreManager.findNode(ALBUM_SCHEMA_PATH, new ModelNodeKeyBuilder().appendKey(NAME_QNAME,
+                    "new-album").build(), newArtistId));
+
+            dataStoreManager.endModify();
+            assertFalse(session.isDirty());
+            entityDSM.commitTransaction();
+        } finally {
+            RequestScope.setEnableThreadLocalInUT(false);
+        }
+        assertEquals(2, m_dataStoreManager.listNodes(ARTIST_SCHEMA_PATH).size());
+        assertEquals(2, m_dataStoreManager.listNodes(ALBUM_SCHEMA_PATH).size());
+        assertEquals(4, m_dataStoreManager.listNodes(SONG_SCHEMA_PATH).size());
+    }
+
     @Test
     public void testCreateModelNodeJukeboxWithInsertIndex() throws DataStoreException {
         List<ModelNode> listArtistNodes = m_dataStoreManager.listNodes(ARTIST_SCHEMA_PATH);
@@ -27,25 +27,42 @@ import org.apache.log4j.Logger;
 
 /**
  * Simply queues incoming requests.
+ *
+ * Without a RequestScheduler every request is executed on the calling thread, one at a time across all sessions. When
+ * a RequestScheduler (e.g. SessionOrderedRequestScheduler) is supplied, requests are handed to it instead and the
+ * scheduler decides the ordering and concurrency.
  */
 public class QueuingMessageHandler implements ServerMessageHandler {
     private static final Logger LOGGER = Logger.getLogger(QueuingMessageHandler.class);
     private final NetconfServerMessageListener m_netconfServerMessageListener;
+    private final RequestScheduler m_requestScheduler;
+    private final Object m_lock = new Object();
     private NetconfLogger m_netconfLogger;
 
     public QueuingMessageHandler(NetconfServerMessageListener netconfServerMessageListener) {
+        this(netconfServerMessageListener, null);
+    }
+
+    public QueuingMessageHandler(NetconfServerMessageListener netconfServerMessageListener, RequestScheduler
+            requestScheduler) {
         m_netconfServerMessageListener = netconfServerMessageListener;
+        m_requestScheduler = requestScheduler;
         m_netconfLogger = new DefaultNetconfLogger();
     }
 
     @Override
-    public synchronized void processRequest(NetconfClientInfo clientInfo, AbstractNetconfRequest request,
-                                            ResponseChannel channel) {
+    public void processRequest(NetconfClientInfo clientInfo, AbstractNetconfRequest request, ResponseChannel channel) {
         LOGGER.debug(String.format("processing incoming request %s from client %s on channel %s", request,
                 clientInfo, channel));
         RequestTask task = new RequestTask(clientInfo, request, channel, m_netconfServerMessageListener,
                 m_netconfLogger);
-        task.run();
+        if (m_requestScheduler != null) {
+            m_requestScheduler.scheduleTask(task);
+        } else {
+            synchronized (m_lock) {
+                task.run();
+            }
+        }
         LOGGER.debug(String.format("done processing incoming request %s from client %s on channel %s", request,
                 clientInfo, channel));
     }
@@ -16,8 +16,9 @@
 
 package org.broadband_forum.obbaa.netconf.server;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RequestScope {
 
@@ -61,10 +62,29 @@ public class RequestScope {
         m_requestScope.remove();
     }
 
-    private final Map<String, Object> m_cache = new HashMap<>();
+    /**
+     * Runs the callable on the current thread with the given scope as its current scope, so that work a request hands
+     * to another thread still sees the scope of that request. The previous scope of the thread is restored afterwards.
+     */
+    public static <T> T withScope(RequestScope scope, Callable<T> callable) throws Exception {
+        RequestScope previousScope = m_requestScope.get();
+        m_requestScope.set(scope);
+        try {
+            return callable.call();
+        } finally {
+            m_requestScope.set(previousScope);
+        }
+    }
+
+    // a scope can be shared by the threads working on one request, see withScope
+    private final Map<String, Object> m_cache = new ConcurrentHashMap<>();
 
     public void putInCache(String key, Object value) {
-        m_cache.put(key, value);
+        if (value == null) {
+            m_cache.remove(key);
+        } else {
+            m_cache.put(key, value);
+        }
     }
 
     public Object getFromCache(String key) {
@@ -58,10 +58,10 @@ public class RequestTask implements Runnable {
     private List<RequestTaskListener> m_listeners = new ArrayList<>();
     private List<Notification> m_netconfConfigChangeNotifications;
     private NotificationService m_notificationService;
-    private long m_queuedTime;
-    private long m_offeredTime;
-    private long m_executionStartTime;
-    private long m_executionEndTime;
+    private volatile long m_queuedTime;
+    private volatile long m_offeredTime;
+    private volatile long m_executionStartTime;
+    private volatile long m_executionEndTime;
     private final NetconfLogger m_netconfLogger;
 
     public RequestTask(NetconfClientInfo clientInfo, AbstractNetconfRequest netconfRequest, ResponseChannel channel,
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import org.broadband_forum.obbaa.netconf.api.messages.LogUtil;
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcError;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorSeverity;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorType;
+import org.broadband_forum.obbaa.netconf.server.ssh.NamedThreadFactory;
+
+/**
+ * A RequestScheduler that keeps the requests of a session in the order they arrived, while requests of different
+ * sessions run concurrently.
+ *
+ * Each session has its own queue and at most one request of a session is executing at any time. A request that is a
+ * get/get-config is executed on a pool of reader threads so that reads from different sessions run in parallel. All
+ * other requests modify the datastore (or its locks/sessions) and are executed one at a time on a single writer
+ * thread, which keeps the write path serialized the same way QueuingMessageHandler did.
+ */
+public class SessionOrderedRequestScheduler implements RequestScheduler {
+    private static final Logger LOGGER = Logger.getLogger(SessionOrderedRequestScheduler.class);
+    public static final int DEFAULT_READER_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final long SHUTDOWN_TIMEOUT_SECS = 30;
+
+    private final int m_readerThreads;
+    private final Map<Integer, Deque<RequestTask>> m_sessionQueues = new HashMap<>();
+    private final Set<RequestTask> m_runningRequests = ConcurrentHashMap.newKeySet();
+    private ExecutorService m_readExecutor;
+    private ExecutorService m_writeExecutor;
+
+    public SessionOrderedRequestScheduler() {
+        this(DEFAULT_READER_THREADS);
+    }
+
+    public SessionOrderedRequestScheduler(int readerThreads) {
+        if (readerThreads < 1) {
+            throw new IllegalArgumentException("readerThreads must be at least 1, got " + readerThreads);
+        }
+        m_readerThreads = readerThreads;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (m_readExecutor == null) {
+            m_readExecutor = Executors.newFixedThreadPool(m_readerThreads, new NamedThreadFactory("NetconfReadRequests"));
+            m_writeExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("NetconfWriteRequests"));
+        }
+    }
+
+    @Override
+    public void stop() {
+        ExecutorService readExecutor;
+        ExecutorService writeExecutor;
+        synchronized (this) {
+            readExecutor = m_readExecutor;
+            writeExecutor = m_writeExecutor;
+            m_readExecutor = null;
+            m_writeExecutor = null;
+        }
+        List<RequestTask> pendingRequests = new ArrayList<>();
+        synchronized (m_sessionQueues) {
+            for (Deque<RequestTask> sessionQueue : m_sessionQueues.values()) {
+                for (RequestTask task : sessionQueue) {
+                    if (!m_runningRequests.contains(task)) {
+                        pendingRequests.add(task);
+                    }
+                }
+            }
+            m_sessionQueues.clear();
+        }
+        rejectRequests(pendingRequests, "The server is stopping");
+        shutdown(readExecutor);
+        shutdown(writeExecutor);
+    }
+
+    private void shutdown(ExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void scheduleTask(RequestTask requestTask) {
+        requestTask.setQueuedTime(System.currentTimeMillis());
+        Integer sessionId = requestTask.getClientInfo().getSessionId();
+        boolean dispatchNow;
+        synchronized (m_sessionQueues) {
+            // the head of a session queue is the request being executed for that session, the rest wait behind it
+            Deque<RequestTask> sessionQueue = m_sessionQueues.get(sessionId);
+            if (sessionQueue == null) {
+                sessionQueue = new ArrayDeque<>();
+                m_sessionQueues.put(sessionId, sessionQueue);
+            }
+            sessionQueue.addLast(requestTask);
+            dispatchNow = sessionQueue.size() == 1;
+        }
+        if (dispatchNow) {
+            dispatch(sessionId, requestTask);
+        }
+    }
+
+    private void dispatch(Integer sessionId, RequestTask requestTask) {
+        ExecutorService executor = requestTask.isGetOrGetConfig() ? getReadExecutor() : getWriteExecutor();
+        requestTask.setOfferedTime(System.currentTimeMillis());
+        try {
+            if (executor == null) {
+                throw new RejectedExecutionException("Scheduler is not started");
+            }
+            executor.execute(() -> execute(sessionId, requestTask));
+        } catch (RejectedExecutionException e) {
+            LOGGER.error(String.format("Rejecting request with message-id %s and the remaining requests of session %s",
+                    requestTask.getRequest().getMessageId(), sessionId), e);
+            List<RequestTask> pendingRequests;
+            synchronized (m_sessionQueues) {
+                Deque<RequestTask> sessionQueue = m_sessionQueues.remove(sessionId);
+                pendingRequests = sessionQueue == null ? Collections.singletonList(requestTask) : new ArrayList<>(
+                        sessionQueue);
+            }
+            rejectRequests(pendingRequests, "The server cannot execute the request");
+        }
+    }
+
+    /**
+     * Replies with a resource-denied rpc-error to each of the requests, so that the clients do not wait for replies
+     * that would never come.
+     */
+    private void rejectRequests(List<RequestTask> requestTasks, String errorMessage) {
+        for (RequestTask requestTask : requestTasks) {
+            try {
+                NetConfResponse response = new NetConfResponse();
+                response.addError(new NetconfRpcError(NetconfRpcErrorTag.RESOURCE_DENIED, NetconfRpcErrorType.RPC,
+                        NetconfRpcErrorSeverity.Error, errorMessage));
+                requestTask.sendResponse(response);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while rejecting request with message-id " + requestTask.getRequest()
+                        .getMessageId(), e);
+            }
+        }
+    }
+
+    private void execute(Integer sessionId, RequestTask requestTask) {
+        m_runningRequests.add(requestTask);
+        try {
+            if (requestTask.isGetOrGetConfig() && requestTask.isSessionClosed()) {
+                LogUtil.logDebug(LOGGER, "Skipping request with message-id %s, session %s is already closed",
+                        requestTask.getRequest().getMessageId(), sessionId);
+            } else {
+                requestTask.run();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while executing request from session " + sessionId, e);
+        } finally {
+            m_runningRequests.remove(requestTask);
+            RequestTask next = null;
+            synchronized (m_sessionQueues) {
+                Deque<RequestTask> sessionQueue = m_sessionQueues.get(sessionId);
+                if (sessionQueue != null) {
+                    sessionQueue.pollFirst();
+                    next = sessionQueue.peekFirst();
+                    if (next == null) {
+                        m_sessionQueues.remove(sessionId);
+                    }
+                }
+            }
+            if (next != null) {
+                dispatch(sessionId, next);
+            }
+        }
+    }
+
+    private synchronized ExecutorService getReadExecutor() {
+        return m_readExecutor;
+    }
+
+    private synchronized ExecutorService getWriteExecutor() {
+        return m_writeExecutor;
+    }
+
+    @Override
+    public List<RequestTask> getQueuedRequests() {
+        List<RequestTask> queued = new ArrayList<>();
+        synchronized (m_sessionQueues) {
+            for (Deque<RequestTask> sessionQueue : m_sessionQueues.values()) {
+                for (RequestTask task : sessionQueue) {
+                    if (!m_runningRequests.contains(task)) {
+                        queued.add(task);
+                    }
+                }
+            }
+        }
+        return queued;
+    }
+
+    @Override
+    public List<RequestTask> getRunningRequests() {
+        return new ArrayList<>(m_runningRequests);
+    }
+}
@@ -18,8 +18,12 @@ package org.broadband_forum.obbaa.netconf.server.ssh;
 
 import static org.broadband_forum.obbaa.netconf.api.server.NetconfServerMessageListener.CLOSE_RESPONSE_TIME_OUT_SECS;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
@@ -41,6 +45,9 @@ import org.broadband_forum.obbaa.netconf.api.messages.CompletableMessage;
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
 import org.broadband_forum.obbaa.netconf.api.messages.KillSessionRequest;
 import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingOutputStream;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfMessageStreamWriter;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcError;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorInfo;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorSeverity;
@@ -94,12 +101,21 @@ public abstract class AbstractSshNetconfServerMessageHandler implements SshServe
 
     @Override
     public void processRequest(String rpcMessage) throws NetconfMessageBuilderException {
+        processRequest(() -> getRequestDocument(rpcMessage));
+    }
+
+    @Override
+    public void processRequest(InputStream rpcMessage) throws NetconfMessageBuilderException {
+        processRequest(() -> DocumentUtils.inputStreamToDocument(rpcMessage));
+    }
+
+    private void processRequest(RequestDocumentSupplier requestSupplier) throws NetconfMessageBuilderException {
         boolean invalidRequest = false;
         Document request = null;
         NetConfResponse response = new NetConfResponse();
         AbstractNetconfRequest netconfRequest = null;
         try {
-            request = getRequestDocument(rpcMessage);
+            request = requestSupplier.get();
             String requestType = DocumentToPojoTransformer.getTypeOfNetconfRequest(request);
             if (AnvTracingUtil.isEmptyRequest(request, requestType)) {
                 NetconfLoggingContext.suppress();
@@ -222,7 +238,31 @@ public abstract class AbstractSshNetconfServerMessageHandler implements SshServe
         m_responseChannel.markSessionClosed();
     }
 
-    protected abstract byte[] getResponseBytes(Document responseDoc) throws NetconfMessageBuilderException;
+    /**
+     * The framing of the messages written by this handler.
+     */
+    protected abstract Framing getFraming();
+
+    /**
+     * Frames and serializes the response to the stream, closing it when the response is complete.
+     */
+    protected void writeResponse(NetConfResponse response, OutputStream out) throws NetconfMessageBuilderException {
+        try (OutputStream framedOut = new NetconfFramingOutputStream(out, getFraming())) {
+            NetconfMessageStreamWriter.writeResponse(response, framedOut);
+        } catch (IOException e) {
+            throw new NetconfMessageBuilderException("Error while writing response ", e);
+        }
+    }
+
+    protected byte[] getResponseBytes(Document responseDoc) throws NetconfMessageBuilderException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream framedOut = new NetconfFramingOutputStream(bytes, getFraming())) {
+            NetconfMessageStreamWriter.writeNode(responseDoc, framedOut);
+        } catch (IOException e) {
+            throw new NetconfMessageBuilderException("Error while writing response ", e);
+        }
+        return bytes.toByteArray();
+    }
 
     protected abstract Document getRequestDocument(String rpcMessage) throws NetconfMessageBuilderException;
 
@@ -230,6 +270,10 @@ public abstract class AbstractSshNetconfServerMessageHandler implements SshServe
         return m_responseChannel;
     }
 
+    private interface RequestDocumentSupplier {
+        Document get() throws NetconfMessageBuilderException;
+    }
+
     private class SSHChannel extends AbstractResponseChannel {
         public synchronized void sendResponse(NetConfResponse response, AbstractNetconfRequest request) throws
                 NetconfMessageBuilderException {
@@ -259,13 +303,12 @@ public abstract class AbstractSshNetconfServerMessageHandler implements SshServe
             }
 
             try {
-                Document responseDoc = response.getResponseDocument();
-                byte[] responseBytes = getResponseBytes(responseDoc);
+                Document responseDoc = null;
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug(String.format("Sending response: %s , bytes to be sent: %s", DocumentUtils
-                            .prettyPrint(responseDoc), responseBytes));
+                    responseDoc = response.getResponseDocument();
+                    LOGGER.debug(String.format("Sending response: %s", DocumentUtils.prettyPrint(responseDoc)));
                 }
-                writeBytes(response, responseBytes);
+                streamResponse(response);
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug(String.format("Sent response: %s", DocumentUtils.prettyPrint(responseDoc)));
                 }
@@ -316,27 +359,32 @@ public abstract class AbstractSshNetconfServerMessageHandler implements SshServe
             }
         }
 
-        private void writeBytes(CompletableMessage message, byte[] responseBytes) {
+        /**
+         * Streams the response to the channel frame by frame, so neither the reply document nor the serialized
+         * response is held in memory as a whole. A slow client makes the serializer wait for room in the queue of
+         * frames, unless this runs on the thread reading the channel.
+         */
+        private void streamResponse(NetConfResponse response) throws NetconfMessageBuilderException {
+            SshResponseOutputStream out = new SshResponseOutputStream(m_out);
             try {
-                IoWriteFuture writeFuture = m_out.write(new ByteArrayBuffer(responseBytes));
-                writeFuture.addListener(new SshFutureListener<IoWriteFuture>() {
-                    public void operationComplete(IoWriteFuture future) {
-                        if (future.isWritten()) {
-                            message.getMessageSentFuture().complete("Response Sent");
-                        } else {
-                            LOGGER.error("Message not sent to " + m_clientInfo.toString(), future.getException());
-                            message.getMessageSentFuture().completeExceptionally(future.getException());
-                        }
-                    }
-                });
-
-                if (m_closeSession) {
-                    try {
-                        writeFuture.await(CLOSE_RESPONSE_TIME_OUT_SECS, TimeUnit.SECONDS);
-                    } catch (IOException e) {
-                        LOGGER.warn("Interrupted while sending close/kill session response", e);
-                    }
+                writeResponse(response, out);
+                completeOnWrite(response, out.getWritten());
+                if (m_closeSession && out.getLastWrite() != null) {
+                    // a close-session reply fits in a single frame, so its last write is the whole reply
+                    awaitCloseResponse(out.getLastWrite());
                 }
+            } catch (NetconfMessageBuilderException e) {
+                response.getMessageSentFuture().completeExceptionally(e);
+                throw e;
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while sending the reponse to " + m_clientInfo.toString(), e);
+                response.getMessageSentFuture().completeExceptionally(e);
+            }
+        }
+
+        private void writeBytes(CompletableMessage message, byte[] responseBytes) {
+            try {
+                completeOnWrite(message, m_out.write(new ByteArrayBuffer(responseBytes)));
             } catch (Exception e) {
                 LOGGER.error("Error while sending the reponse to " + m_clientInfo.toString(), e);
                 message.getMessageSentFuture().completeExceptionally(e);
@@ -346,6 +394,42 @@ public abstract class AbstractSshNetconfServerMessageHandler implements SshServe
             }
         }
 
+        private void completeOnWrite(CompletableMessage message, CompletableFuture<Void> written) {
+            written.whenComplete((result, error) -> {
+                if (error == null) {
+                    message.getMessageSentFuture().complete("Response Sent");
+                } else {
+                    LOGGER.error("Message not sent to " + m_clientInfo.toString(), error);
+                    message.getMessageSentFuture().completeExceptionally(error);
+                }
+            });
+        }
+
+        private void completeOnWrite(CompletableMessage message, IoWriteFuture writeFuture) {
+            writeFuture.addListener(new SshFutureListener<IoWriteFuture>() {
+                public void operationComplete(IoWriteFuture future) {
+                    if (future.isWritten()) {
+                        message.getMessageSentFuture().complete("Response Sent");
+                    } else {
+                        LOGGER.error("Message not sent to " + m_clientInfo.toString(), future.getException());
+                        message.getMessageSentFuture().completeExceptionally(future.getException());
+                    }
+                }
+            });
+
+            if (m_closeSession) {
+                awaitCloseResponse(writeFuture);
+            }
+        }
+
+        private void awaitCloseResponse(IoWriteFuture writeFuture) {
+            try {
+                writeFuture.await(CLOSE_RESPONSE_TIME_OUT_SECS, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                LOGGER.warn("Interrupted while sending close/kill session response", e);
+            }
+        }
+
     }
 
     /**
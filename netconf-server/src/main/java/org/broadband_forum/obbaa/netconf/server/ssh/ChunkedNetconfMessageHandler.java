@@ -23,6 +23,7 @@ import org.apache.sshd.server.channel.ChannelSession;
 import org.w3c.dom.Document;
 
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
 import org.broadband_forum.obbaa.netconf.api.server.NetconfServerMessageListener;
 import org.broadband_forum.obbaa.netconf.api.server.ServerMessageHandler;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
@@ -51,9 +52,8 @@ public class ChunkedNetconfMessageHandler extends AbstractSshNetconfServerMessag
     }
 
     @Override
-    protected byte[] getResponseBytes(Document responseDoc) throws NetconfMessageBuilderException {
-        return DocumentToPojoTransformer.chunkMessage(Integer.MAX_VALUE, DocumentUtils.documentToString(responseDoc))
-                .getBytes();
+    protected Framing getFraming() {
+        return Framing.CHUNKED;
     }
 
 }
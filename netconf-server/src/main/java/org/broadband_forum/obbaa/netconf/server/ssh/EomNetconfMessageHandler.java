@@ -22,7 +22,7 @@ import org.apache.sshd.server.ExitCallback;
 import org.apache.sshd.server.channel.ChannelSession;
 import org.w3c.dom.Document;
 
-import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
 import org.broadband_forum.obbaa.netconf.api.server.NetconfServerMessageListener;
 import org.broadband_forum.obbaa.netconf.api.server.ServerMessageHandler;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
@@ -50,7 +50,7 @@ public class EomNetconfMessageHandler extends AbstractSshNetconfServerMessageHan
     }
 
     @Override
-    protected byte[] getResponseBytes(Document responseDoc) throws NetconfMessageBuilderException {
-        return DocumentToPojoTransformer.addRpcDelimiter(DocumentToPojoTransformer.getBytesFromDocument(responseDoc));
+    protected Framing getFraming() {
+        return Framing.EOM;
     }
 }
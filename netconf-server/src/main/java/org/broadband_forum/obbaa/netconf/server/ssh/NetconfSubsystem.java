@@ -44,6 +44,8 @@ import org.w3c.dom.Node;
 
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfHelloMessage;
 import org.broadband_forum.obbaa.netconf.api.messages.PojoToDocumentTransformer;
 import org.broadband_forum.obbaa.netconf.api.server.NetconfServerMessageListener;
@@ -56,7 +58,6 @@ import org.broadband_forum.obbaa.netconf.api.util.NetconfResources;
 public class NetconfSubsystem implements AsyncCommand, ChannelDataReceiver, ChannelSessionAware {
     private static final String USER = "USER";
     public static final String HELLO_MESSAGE_NOT_RECIEVED = "hello message not received";
-    private static final int MESSAGE_MAX_SIZE = 100000;
     private static Map<Integer, SshSessionInfo> m_sessions = new ConcurrentHashMap<>();
     private static final Logger LOGGER = Logger.getLogger(NetconfSubsystem.class);
 
@@ -70,14 +71,13 @@ public class NetconfSubsystem implements AsyncCommand, ChannelDataReceiver, Chan
     private ServerMessageHandler m_serverMessageHandler;
     private Set<String> m_caps;
     private boolean m_helloRecieved = false;
-    private String m_currentDelimiter = NetconfResources.RPC_EOM_DELIMITER;
     private Set<String> m_clientCaps;
     private SshServerNetconfMessageHandler m_messageHandler;
     private NetconfClientInfo m_clientInfo;
     private Integer m_sessionId;
     private ChannelSession m_session;
     private Environment m_environment;
-    private StringBuilder m_buffer = new StringBuilder(MESSAGE_MAX_SIZE);
+    private NetconfFramingDecoder m_decoder = new NetconfFramingDecoder(Framing.EOM);
     private final NetconfSessionIdProvider m_sessionIdProvider;
 
     public NetconfSubsystem(NetconfServerMessageListener netconfServerMessageListener,
@@ -168,7 +168,7 @@ public class NetconfSubsystem implements AsyncCommand, ChannelDataReceiver, Chan
     @Override
     public String toString() {
         return "NetconfSubsystem [m_caps=" + m_caps + ", m_helloRecieved=" + m_helloRecieved + ", " +
-                "m_currentDelimiter=" + m_currentDelimiter
+                "m_framing=" + m_decoder.getFraming()
                 + ", m_clientCaps=" + m_clientCaps + "]";
     }
 
@@ -188,63 +188,74 @@ public class NetconfSubsystem implements AsyncCommand, ChannelDataReceiver, Chan
 
     @Override
     public int data(final ChannelSession channel, byte[] buf, int start, int len) throws IOException {
-        String rpcMessage = new String(buf, start, len);
-        if (rpcMessage.endsWith(m_currentDelimiter)) {
-            if (m_buffer.length() > 0) {
-                rpcMessage = m_buffer.toString() + rpcMessage;
-                m_buffer.setLength(0);
+        // the replies of requests handled on this thread must not wait for the client to read them
+        boolean readingChannel = SshResponseOutputStream.setReadingChannel(true);
+        try {
+            m_decoder.decode(buf, start, len, message -> messageReceived(channel, message));
+        } catch (NetconfMessageBuilderException e) {
+            // the framing can no longer be trusted, RFC 6242 requires the session to be terminated
+            LOGGER.error("Invalid NETCONF framing received on session " + m_sessionId + ", closing session", e);
+            m_exitCallback.onExit(1, e.getMessage());
+            m_netconfServerMessageListener.sessionClosed(e.getMessage(), m_sessionId);
+            throw new IOException(e);
+        } finally {
+            SshResponseOutputStream.setReadingChannel(readingChannel);
+        }
+        return len;
+    }
+
+    private void messageReceived(ChannelSession channel, InputStream rpcMessage) throws IOException {
+        if (!m_helloRecieved) {
+            Document rpcDoc;
+            try {
+                rpcDoc = DocumentUtils.inputStreamToDocument(rpcMessage);
+            } catch (NetconfMessageBuilderException exp) {
+                LOGGER.error("Error during procession request : ", exp);
+                m_exitCallback.onExit(1, HELLO_MESSAGE_NOT_RECIEVED);
+                m_netconfServerMessageListener.sessionClosed(HELLO_MESSAGE_NOT_RECIEVED, m_sessionId);
+                return;
             }
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("RPC Message is : " + rpcMessage);
-            }
-            if (!m_helloRecieved) {
-                rpcMessage = rpcMessage.substring(0, rpcMessage.indexOf(NetconfResources.RPC_EOM_DELIMITER));
-                Document rpcDoc = null;
                 try {
-                    rpcDoc = DocumentUtils.stringToDocument(rpcMessage);
-                } catch (NetconfMessageBuilderException exp) {
-                    LOGGER.error("Error during procession request : ", exp);
-                    m_exitCallback.onExit(1, HELLO_MESSAGE_NOT_RECIEVED);
-                    m_netconfServerMessageListener.sessionClosed(HELLO_MESSAGE_NOT_RECIEVED, m_sessionId);
+                    LOGGER.debug("Hello Message is : " + DocumentUtils.documentToString(rpcDoc));
+                } catch (Exception e) {
+                    LOGGER.error("Error while logging hello message", e);
                 }
+            }
 
-                if (!NetconfResources.HELLO.equals(rpcDoc.getFirstChild().getLocalName()) && isBase10NS(rpcDoc
-                        .getFirstChild())) {
-                    LOGGER.error(HELLO_MESSAGE_NOT_RECIEVED);
-                    m_exitCallback.onExit(1, HELLO_MESSAGE_NOT_RECIEVED);
-                    m_netconfServerMessageListener.sessionClosed(HELLO_MESSAGE_NOT_RECIEVED, m_sessionId);
-                } else {
-                    LOGGER.info("Hello Message received from Client Successfully, m_out state: " + m_out.isClosed() +
-                            ", " + m_out.isClosing());
-                    m_helloRecieved = true;
-                    NetconfHelloMessage hello = DocumentToPojoTransformer.getHelloMessage(rpcDoc);
-                    this.m_clientCaps = hello.getCapabilities();
-                    if (this.m_clientCaps.contains(NetconfResources.NETCONF_BASE_CAP_1_1)
-                            && this.m_caps.contains(NetconfResources.NETCONF_BASE_CAP_1_1)) {
-                        m_currentDelimiter = NetconfResources.RPC_CHUNKED_DELIMITER;
-                        m_messageHandler = new ChunkedNetconfMessageHandler(m_netconfServerMessageListener, m_out,
-                                m_exitCallback,
-                                m_serverMessageHandler, channel);
-                    } else {
-                        m_messageHandler = new EomNetconfMessageHandler(m_netconfServerMessageListener, m_out,
-                                m_exitCallback,
-                                m_serverMessageHandler, channel);
-                    }
-                    m_messageHandler.onHello(m_clientInfo, this.m_clientCaps);
-                }
+            if (!NetconfResources.HELLO.equals(rpcDoc.getDocumentElement().getLocalName()) && isBase10NS(rpcDoc
+                    .getDocumentElement())) {
+                LOGGER.error(HELLO_MESSAGE_NOT_RECIEVED);
+                m_exitCallback.onExit(1, HELLO_MESSAGE_NOT_RECIEVED);
+                m_netconfServerMessageListener.sessionClosed(HELLO_MESSAGE_NOT_RECIEVED, m_sessionId);
             } else {
-                try {
-                    m_messageHandler.processRequest(rpcMessage);
-                } catch (Exception exp) {
-                    LOGGER.error("Error during processing request : ", exp);
-                    throw new IOException(exp);
-
+                LOGGER.info("Hello Message received from Client Successfully, m_out state: " + m_out.isClosed() +
+                        ", " + m_out.isClosing());
+                m_helloRecieved = true;
+                NetconfHelloMessage hello = DocumentToPojoTransformer.getHelloMessage(rpcDoc);
+                this.m_clientCaps = hello.getCapabilities();
+                if (this.m_clientCaps.contains(NetconfResources.NETCONF_BASE_CAP_1_1)
+                        && this.m_caps.contains(NetconfResources.NETCONF_BASE_CAP_1_1)) {
+                    m_decoder.setFraming(Framing.CHUNKED);
+                    m_messageHandler = new ChunkedNetconfMessageHandler(m_netconfServerMessageListener, m_out,
+                            m_exitCallback,
+                            m_serverMessageHandler, channel);
+                } else {
+                    m_messageHandler = new EomNetconfMessageHandler(m_netconfServerMessageListener, m_out,
+                            m_exitCallback,
+                            m_serverMessageHandler, channel);
                 }
+                m_messageHandler.onHello(m_clientInfo, this.m_clientCaps);
             }
         } else {
-            m_buffer.append(rpcMessage);
+            try {
+                m_messageHandler.processRequest(rpcMessage);
+            } catch (Exception exp) {
+                LOGGER.error("Error during processing request : ", exp);
+                throw new IOException(exp);
+
+            }
         }
-        return len;
     }
 
     private boolean isBase10NS(Node node) {
@@ -289,6 +300,13 @@ public class NetconfSubsystem implements AsyncCommand, ChannelDataReceiver, Chan
         return m_helloRecieved;
     }
 
+    /**
+     * Limits the size of a single incoming message, larger messages terminate the session.
+     */
+    public void setMaxMessageSize(int maxMessageSize) {
+        m_decoder = new NetconfFramingDecoder(m_decoder.getFraming(), maxMessageSize);
+    }
+
     public void setSessionId(int sessionId) {
         m_sessionId = sessionId;
     }
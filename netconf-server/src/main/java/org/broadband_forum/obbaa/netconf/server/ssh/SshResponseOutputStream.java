@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.server.ssh;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+
+/**
+ * Writes the frames of a response to the SSH channel as they are produced.
+ *
+ * The channel accepts a single pending write, so a frame produced while the previous one is being written is queued
+ * and written once the previous write completes, from the listener of that write. The queue is bounded: a producer
+ * writing while the queue is full waits until the client has read enough of the response for a frame to be taken
+ * off the queue, so a slow client throttles the serializer instead of letting the response pile up in memory.
+ *
+ * The thread reading the channel never waits: it must stay free to read the window adjustments of the client, which
+ * are what let the queued frames be written. A response sent from that thread, see {@link #setReadingChannel}, is
+ * queued whatever the size of the queue. The completion of the whole response is available from
+ * {@link #getWritten()} once the stream is closed.
+ */
+class SshResponseOutputStream extends OutputStream {
+
+    static final int DEFAULT_MAX_PENDING_FRAMES = 4;
+    static final long DEFAULT_WRITE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final ThreadLocal<Boolean> c_readingChannel = new ThreadLocal<>();
+
+    private final IoOutputStream m_out;
+    private final int m_maxPendingFrames;
+    private final long m_writeTimeoutMillis;
+    private final Deque<ByteArrayBuffer> m_pendingFrames = new ArrayDeque<>();
+    private final CompletableFuture<Void> m_written = new CompletableFuture<>();
+    private final SshFutureListener<IoWriteFuture> m_writeListener = this::frameWritten;
+    private boolean m_writing;
+    private boolean m_closed;
+    private boolean m_failed;
+    // a write completing within the call writing it is followed up by the caller rather than by the listener, so
+    // writes completing synchronously don't recurse
+    private boolean m_inWriteCall;
+    private boolean m_writtenInWriteCall;
+    private volatile IoWriteFuture m_lastWrite;
+
+    SshResponseOutputStream(IoOutputStream out) {
+        this(out, DEFAULT_MAX_PENDING_FRAMES, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    SshResponseOutputStream(IoOutputStream out, int maxPendingFrames, long writeTimeoutMillis) {
+        m_out = out;
+        m_maxPendingFrames = maxPendingFrames;
+        m_writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    /**
+     * Marks the current thread as the one reading the channel, or clears the mark. Responses written from a thread
+     * reading the channel never wait for the queue. Returns the previous mark.
+     */
+    static boolean setReadingChannel(boolean readingChannel) {
+        boolean previous = isReadingChannel();
+        if (readingChannel) {
+            c_readingChannel.set(Boolean.TRUE);
+        } else {
+            c_readingChannel.remove();
+        }
+        return previous;
+    }
+
+    private static boolean isReadingChannel() {
+        return c_readingChannel.get() != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        // the caller may reuse its array once we return, the channel writes asynchronously
+        ByteArrayBuffer frame = new ByteArrayBuffer(Arrays.copyOfRange(bytes, offset, offset + length));
+        IOException timeout;
+        synchronized (this) {
+            if (m_closed) {
+                throw new IOException("Stream is closed");
+            }
+            timeout = awaitRoomInQueue();
+            if (timeout == null) {
+                if (m_failed) {
+                    throw new IOException("Error while writing the response", getWriteError());
+                }
+                if (m_writing) {
+                    m_pendingFrames.add(frame);
+                    return;
+                }
+                m_writing = true;
+            }
+        }
+        if (timeout != null) {
+            failed(timeout);
+            throw timeout;
+        }
+        writeFrames(frame);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            m_closed = true;
+        }
+        completeIfWritten();
+    }
+
+    /**
+     * Completes once every frame of the closed stream is written, exceptionally if a write failed.
+     */
+    CompletableFuture<Void> getWritten() {
+        return m_written;
+    }
+
+    /**
+     * The last write issued to the channel, null if nothing has been written. Frames still queued are not covered by
+     * it.
+     */
+    IoWriteFuture getLastWrite() {
+        return m_lastWrite;
+    }
+
+    /**
+     * Waits while the queue is full, unless the current thread reads the channel. Returns the error to fail the
+     * response with if the client did not read the response in time, null otherwise. Called with the lock held.
+     */
+    private IOException awaitRoomInQueue() throws IOException {
+        if (isReadingChannel()) {
+            return null;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_writeTimeoutMillis);
+        while (m_writing && m_pendingFrames.size() >= m_maxPendingFrames && !m_failed) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return new IOException("Timed out after " + m_writeTimeoutMillis + " ms waiting for the client to "
+                        + "read the response");
+            }
+            try {
+                wait(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the client to read the response");
+            }
+        }
+        return null;
+    }
+
+    private void writeFrames(ByteArrayBuffer firstFrame) {
+        ByteArrayBuffer frame = firstFrame;
+        while (frame != null) {
+            synchronized (this) {
+                m_inWriteCall = true;
+                m_writtenInWriteCall = false;
+            }
+            try {
+                IoWriteFuture write = m_out.write(frame);
+                m_lastWrite = write;
+                write.addListener(m_writeListener);
+            } catch (RuntimeException e) {
+                failed(e);
+                return;
+            }
+            synchronized (this) {
+                m_inWriteCall = false;
+                if (!m_writtenInWriteCall) {
+                    // the listener writes the next frame
+                    return;
+                }
+                frame = nextFrame();
+            }
+        }
+        completeIfWritten();
+    }
+
+    private void frameWritten(IoWriteFuture future) {
+        if (!future.isWritten()) {
+            failed(future.getException());
+            return;
+        }
+        ByteArrayBuffer next;
+        synchronized (this) {
+            if (m_inWriteCall) {
+                m_writtenInWriteCall = true;
+                return;
+            }
+            next = nextFrame();
+        }
+        writeFrames(next);
+    }
+
+    /**
+     * The next frame to write, null when there is none left. Called with the lock held.
+     */
+    private ByteArrayBuffer nextFrame() {
+        ByteArrayBuffer next = m_pendingFrames.poll();
+        if (next == null) {
+            m_writing = false;
+        }
+        // a producer waiting for room in the queue
+        notifyAll();
+        return next;
+    }
+
+    private void completeIfWritten() {
+        boolean written;
+        synchronized (this) {
+            written = m_closed && !m_writing;
+        }
+        if (written) {
+            // a no-op when a write failed
+            m_written.complete(null);
+        }
+    }
+
+    private void failed(Throwable error) {
+        synchronized (this) {
+            // the stream stays marked as writing, nothing is written after a failure
+            m_pendingFrames.clear();
+            m_inWriteCall = false;
+            m_failed = true;
+            notifyAll();
+        }
+        m_written.completeExceptionally(error != null ? error : new IOException("Error while writing the response"));
+    }
+
+    private Throwable getWriteError() {
+        try {
+            m_written.getNow(null);
+            return null;
+        } catch (RuntimeException e) {
+            return e.getCause();
+        }
+    }
+}
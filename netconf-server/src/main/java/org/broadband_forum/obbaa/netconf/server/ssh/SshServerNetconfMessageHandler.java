@@ -19,6 +19,7 @@ package org.broadband_forum.obbaa.netconf.server.ssh;
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
 
+import java.io.InputStream;
 import java.util.Set;
 
 public interface SshServerNetconfMessageHandler {
@@ -27,4 +28,9 @@ public interface SshServerNetconfMessageHandler {
 
     public void processRequest(String rpcMessage) throws NetconfMessageBuilderException;
 
+    /**
+     * Processes a message whose framing has already been removed.
+     */
+    public void processRequest(InputStream rpcMessage) throws NetconfMessageBuilderException;
+
 }
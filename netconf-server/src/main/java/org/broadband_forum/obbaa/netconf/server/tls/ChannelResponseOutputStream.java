@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.server.tls;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+
+/**
+ * Writes the frames of a response to the netty channel as they are produced.
+ *
+ * Netty queues writes without limit, so once the channel's outbound buffer is above its high water mark the write of
+ * the previous frame is waited for before the next frame is written. This keeps the serializer from running ahead of
+ * a slow client. There is no waiting on the channel's event loop, which is the thread that completes the writes.
+ */
+class ChannelResponseOutputStream extends OutputStream {
+    static final long DEFAULT_WRITE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final Channel m_channel;
+    private final long m_writeTimeoutMillis;
+    private ChannelFuture m_lastWrite;
+
+    ChannelResponseOutputStream(Channel channel) {
+        this(channel, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    ChannelResponseOutputStream(Channel channel, long writeTimeoutMillis) {
+        m_channel = channel;
+        m_writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (m_lastWrite != null && !m_channel.isWritable() && !m_channel.eventLoop().inEventLoop()) {
+            awaitLastWrite();
+        }
+        m_lastWrite = m_channel.writeAndFlush(Unpooled.copiedBuffer(bytes, offset, length));
+    }
+
+    /**
+     * The write of the last frame, null if nothing has been written.
+     */
+    ChannelFuture getLastWrite() {
+        return m_lastWrite;
+    }
+
+    private void awaitLastWrite() throws IOException {
+        try {
+            if (!m_lastWrite.await(m_writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out after " + m_writeTimeoutMillis + " ms waiting for the client to "
+                        + "read the response");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the response");
+        }
+        if (!m_lastWrite.isSuccess()) {
+            throw new IOException("Error while writing the response", m_lastWrite.cause());
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.broadband_forum.obbaa.netconf.server.tls;
 
 import static org.broadband_forum.obbaa.netconf.api.server.NetconfServerMessageListener.CLOSE_RESPONSE_TIME_OUT_SECS;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.concurrent.TimeUnit;
@@ -37,6 +39,9 @@ import org.broadband_forum.obbaa.netconf.api.messages.CompletableMessage;
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
 import org.broadband_forum.obbaa.netconf.api.messages.KillSessionRequest;
 import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingDecoder.Framing;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingOutputStream;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfMessageStreamWriter;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfHelloMessage;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcError;
 import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorInfo;
@@ -305,13 +310,12 @@ public class SecureNetconfServerHandler extends SimpleChannelInboundHandler<Stri
                 }
             }
 
-            Document responseDoc = response.getResponseDocument();
-            String responseString = DocumentUtils.documentToString(responseDoc) + NetconfResources.RPC_EOM_DELIMITER;
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(String.format("SERVER: sending Response : %s", responseString));
+                LOGGER.debug(String.format("SERVER: sending Response : %s", DocumentUtils.documentToString(
+                        response.getResponseDocument())));
             }
             try {
-                doWrite(response, responseString);
+                writeResponse(response);
             } catch (InterruptedException e) {
                 LOGGER.warn("Interrupted while sending close/kill session response", e);
             } finally {
@@ -355,13 +359,30 @@ public class SecureNetconfServerHandler extends SimpleChannelInboundHandler<Stri
             }
         }
 
-        private void doWrite(CompletableMessage message, String responseString) throws InterruptedException {
+        /**
+         * Streams the response to the channel frame by frame, so neither the reply document nor the serialized
+         * response is held in memory as a whole.
+         */
+        private void writeResponse(NetConfResponse message) throws NetconfMessageBuilderException,
+                InterruptedException {
+            ChannelResponseOutputStream out = new ChannelResponseOutputStream(m_channel);
             try {
-                ChannelFuture channelFuture = m_channel.writeAndFlush(responseString);
-                channelFuture.addListener(new SecureChannelFutureListener(message, m_clientInfo));
-                if (m_closeSession) {
-                    channelFuture.await(CLOSE_RESPONSE_TIME_OUT_SECS, TimeUnit.SECONDS);
+                try (OutputStream framedOut = new NetconfFramingOutputStream(out, Framing.EOM)) {
+                    NetconfMessageStreamWriter.writeResponse(message, framedOut);
                 }
+                completeOnWrite(message, out.getLastWrite());
+            } catch (NetconfMessageBuilderException e) {
+                message.getMessageSentFuture().completeExceptionally(e);
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Error while sending the reponse to " + m_clientInfo.toString(), e);
+                message.getMessageSentFuture().completeExceptionally(e);
+            }
+        }
+
+        private void doWrite(CompletableMessage message, String responseString) throws InterruptedException {
+            try {
+                completeOnWrite(message, m_channel.writeAndFlush(responseString));
             } catch (Exception e) {
                 LOGGER.error("Error while sending the reponse to " + m_clientInfo.toString(), e);
                 message.getMessageSentFuture().completeExceptionally(e);
@@ -370,6 +391,14 @@ public class SecureNetconfServerHandler extends SimpleChannelInboundHandler<Stri
                 }
             }
         }
+
+        private void completeOnWrite(CompletableMessage message, ChannelFuture channelFuture) throws
+                InterruptedException {
+            channelFuture.addListener(new SecureChannelFutureListener(message, m_clientInfo));
+            if (m_closeSession) {
+                channelFuture.await(CLOSE_RESPONSE_TIME_OUT_SECS, TimeUnit.SECONDS);
+            }
+        }
     }
 }
 
@@ -200,4 +200,16 @@ public class NetconfSubsystemTest {
             assertEquals(exception, e.getCause());
         }
     }
+
+    @Test
+    public void testData_RequestSplitAcrossBuffers() throws IOException {
+        ChannelSession channel = mock(ChannelSession.class);
+        m_subsystem.data(channel, HELLO_MSG.getBytes(), 0, HELLO_MSG.getBytes().length);
+        byte[] request = GET.getBytes();
+        int split = request.length - 3;
+        m_subsystem.data(channel, request, 0, split);
+        verify(m_serverMsgHandler, never()).processRequest(anyObject(), anyObject(), anyObject());
+        m_subsystem.data(channel, request, split, request.length - split);
+        verify(m_serverMsgHandler).processRequest(anyObject(), anyObject(), anyObject());
+    }
 }
@@ -16,10 +16,15 @@
 
 package org.broadband_forum.obbaa.netconf.server;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.AfterClass;
@@ -76,4 +81,25 @@ public class RequestScopeTest {
         completeThreads.countDown();
     }
 
+    @Test
+    public void testWithScopeRunsCallableInRequestScope() throws Exception {
+        RequestScope requestScope = RequestScope.getCurrentScope();
+        requestScope.putInCache("key", "value");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RequestScope workerScope = executor.submit(RequestScope::getCurrentScope).get();
+            assertNotSame(requestScope, workerScope);
+
+            Object value = executor.submit(() -> RequestScope.withScope(requestScope, () -> RequestScope
+                    .getCurrentScope().getFromCache("key"))).get();
+            assertEquals("value", value);
+            // the worker gets its own scope back afterwards
+            assertSame(workerScope, executor.submit(RequestScope::getCurrentScope).get());
+        } finally {
+            executor.shutdown();
+        }
+
+        requestScope.putInCache("key", null);
+        assertNull(requestScope.getFromCache("key"));
+    }
 }
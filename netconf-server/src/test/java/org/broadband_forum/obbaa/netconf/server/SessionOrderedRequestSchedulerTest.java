@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
+import org.broadband_forum.obbaa.netconf.api.logger.NetconfLogger;
+import org.broadband_forum.obbaa.netconf.api.messages.AbstractNetconfRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.CloseSessionRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.GetRequest;
+import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfRpcErrorTag;
+import org.broadband_forum.obbaa.netconf.api.server.ResponseChannel;
+
+public class SessionOrderedRequestSchedulerTest {
+
+    private SessionOrderedRequestScheduler m_scheduler;
+    private List<String> m_executed;
+
+    @Before
+    public void setUp() {
+        m_scheduler = new SessionOrderedRequestScheduler(4);
+        m_scheduler.start();
+        m_executed = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        m_scheduler.stop();
+    }
+
+    @Test
+    public void testRequestsOfASessionAreExecutedInOrder() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(4);
+        ServerMessageListenerAdapter listener = new ServerMessageListenerAdapter() {
+            @Override
+            public void onGet(NetconfClientInfo info, GetRequest req, NetConfResponse resp) {
+                m_executed.add(req.getMessageId());
+                done.countDown();
+            }
+
+            @Override
+            public void onCloseSession(NetconfClientInfo info, CloseSessionRequest req, NetConfResponse resp) {
+                m_executed.add(req.getMessageId());
+                done.countDown();
+            }
+        };
+        NetconfClientInfo clientInfo = new NetconfClientInfo("ut", 1);
+        m_scheduler.scheduleTask(task(clientInfo, request(new GetRequest(), "1"), listener));
+        m_scheduler.scheduleTask(task(clientInfo, request(new CloseSessionRequest(), "2"), listener));
+        m_scheduler.scheduleTask(task(clientInfo, request(new GetRequest(), "3"), listener));
+        m_scheduler.scheduleTask(task(clientInfo, request(new CloseSessionRequest(), "4"), listener));
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals("[1, 2, 3, 4]", m_executed.toString());
+    }
+
+    @Test
+    public void testReadsFromDifferentSessionsRunInParallel() throws InterruptedException {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        ServerMessageListenerAdapter listener = new ServerMessageListenerAdapter() {
+            @Override
+            public void onGet(NetconfClientInfo info, GetRequest req, NetConfResponse resp) {
+                bothStarted.countDown();
+                try {
+                    // would time out if the other session's get was waiting behind this one
+                    if (bothStarted.await(10, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        m_scheduler.scheduleTask(task(new NetconfClientInfo("ut", 1), request(new GetRequest(), "1"), listener));
+        m_scheduler.scheduleTask(task(new NetconfClientInfo("ut", 2), request(new GetRequest(), "1"), listener));
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedAndRunningRequests() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        ServerMessageListenerAdapter listener = new ServerMessageListenerAdapter() {
+            @Override
+            public void onGet(NetconfClientInfo info, GetRequest req, NetConfResponse resp) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        };
+        NetconfClientInfo clientInfo = new NetconfClientInfo("ut", 1);
+        RequestTask first = task(clientInfo, request(new GetRequest(), "1"), listener);
+        RequestTask second = task(clientInfo, request(new GetRequest(), "2"), listener);
+        m_scheduler.scheduleTask(first);
+        m_scheduler.scheduleTask(second);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(first), m_scheduler.getRunningRequests());
+        assertEquals(Collections.singletonList(second), m_scheduler.getQueuedRequests());
+        assertTrue(first.getQueuedTime() > 0);
+        assertTrue(first.getOfferedTime() >= first.getQueuedTime());
+        assertTrue(first.getExecutionStartTime() >= first.getOfferedTime());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(second.getOfferedTime() >= first.getExecutionStartTime());
+    }
+
+    @Test
+    public void testRejectedRequestsAreAnsweredWithAnRpcError() throws Exception {
+        SessionOrderedRequestScheduler scheduler = new SessionOrderedRequestScheduler(1);
+        ResponseChannel channel = mock(ResponseChannel.class);
+        AbstractNetconfRequest request = request(new GetRequest(), "1");
+        scheduler.scheduleTask(new RequestTask(new NetconfClientInfo("ut", 1), request, channel,
+                mock(ServerMessageListenerAdapter.class), mock(NetconfLogger.class)));
+
+        verifyResourceDenied(channel, request, "1");
+        assertTrue(scheduler.getQueuedRequests().isEmpty());
+    }
+
+    @Test
+    public void testRequestsQueuedWhenTheSchedulerStopsAreAnsweredWithAnRpcError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ServerMessageListenerAdapter listener = new ServerMessageListenerAdapter() {
+            @Override
+            public void onGet(NetconfClientInfo info, GetRequest req, NetConfResponse resp) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        NetconfClientInfo clientInfo = new NetconfClientInfo("ut", 1);
+        ResponseChannel channel = mock(ResponseChannel.class);
+        AbstractNetconfRequest first = request(new GetRequest(), "1");
+        AbstractNetconfRequest second = request(new GetRequest(), "2");
+        AbstractNetconfRequest third = request(new CloseSessionRequest(), "3");
+        m_scheduler.scheduleTask(new RequestTask(clientInfo, first, channel, listener, mock(NetconfLogger.class)));
+        m_scheduler.scheduleTask(new RequestTask(clientInfo, second, channel, listener, mock(NetconfLogger.class)));
+        m_scheduler.scheduleTask(new RequestTask(clientInfo, third, channel, listener, mock(NetconfLogger.class)));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        Thread stopper = new Thread(() -> m_scheduler.stop());
+        stopper.start();
+        verifyResourceDenied(channel, second, "2");
+        verifyResourceDenied(channel, third, "3");
+        release.countDown();
+        stopper.join(10000);
+    }
+
+    private void verifyResourceDenied(ResponseChannel channel, AbstractNetconfRequest request, String messageId)
+            throws Exception {
+        ArgumentCaptor<NetConfResponse> response = ArgumentCaptor.forClass(NetConfResponse.class);
+        verify(channel, timeout(10000)).sendResponse(response.capture(), eq(request));
+        assertEquals(messageId, response.getValue().getMessageId());
+        assertEquals(NetconfRpcErrorTag.RESOURCE_DENIED, response.getValue().getErrors().get(0).getErrorTag());
+    }
+
+    private AbstractNetconfRequest request(AbstractNetconfRequest request, String messageId) {
+        request.setMessageId(messageId);
+        return request;
+    }
+
+    private RequestTask task(NetconfClientInfo clientInfo, AbstractNetconfRequest request,
+                             ServerMessageListenerAdapter listener) {
+        return new RequestTask(clientInfo, request, mock(ResponseChannel.class), listener, mock(NetconfLogger.class));
+    }
+}
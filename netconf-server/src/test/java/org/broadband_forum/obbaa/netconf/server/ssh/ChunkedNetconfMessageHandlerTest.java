@@ -17,21 +17,29 @@
 package org.broadband_forum.obbaa.netconf.server.ssh;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.io.IoOutputStream;
 import org.apache.sshd.common.io.IoWriteFuture;
 import org.apache.sshd.common.util.buffer.Buffer;
@@ -45,6 +53,7 @@ import org.w3c.dom.Document;
 import org.broadband_forum.obbaa.netconf.api.client.NetconfClientInfo;
 import org.broadband_forum.obbaa.netconf.api.messages.DocumentToPojoTransformer;
 import org.broadband_forum.obbaa.netconf.api.messages.NetConfResponse;
+import org.broadband_forum.obbaa.netconf.api.messages.NetconfFramingOutputStream;
 import org.broadband_forum.obbaa.netconf.api.server.NetconfServerMessageListener;
 import org.broadband_forum.obbaa.netconf.api.util.DocumentUtils;
 import org.broadband_forum.obbaa.netconf.api.util.NetconfMessageBuilderException;
@@ -180,4 +189,59 @@ public class ChunkedNetconfMessageHandlerTest {
         verify(ioStream).write(anyObject());
         verify(writeFuture, never()).await(anyInt(), anyObject());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLargeResponseIsStreamedFrameByFrame() throws Exception {
+        IoOutputStream ioStream = mock(IoOutputStream.class);
+        List<SshFutureListener<IoWriteFuture>> writeListeners = new ArrayList<>();
+        IoWriteFuture writeFuture = mock(IoWriteFuture.class);
+        when(writeFuture.isWritten()).thenReturn(true);
+        when(writeFuture.addListener(anyObject())).thenAnswer(invocation -> {
+            writeListeners.add((SshFutureListener<IoWriteFuture>) invocation.getArguments()[0]);
+            return writeFuture;
+        });
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        when(ioStream.write(anyObject())).thenAnswer(invocation -> {
+            Buffer buffer = (Buffer) invocation.getArguments()[0];
+            written.write(buffer.array(), buffer.rpos(), buffer.available());
+            return writeFuture;
+        });
+        ChunkedNetconfMessageHandler messageHandler = new ChunkedNetconfMessageHandler(null, ioStream, mock
+                (ExitCallback.class), null, null);
+        StringBuilder data = new StringBuilder("<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">");
+        for (int onu = 0; onu < 10000; onu++) {
+            data.append("<onu xmlns=\"urn:onu\"><name>onu-").append(onu).append("</name></onu>");
+        }
+        NetConfResponse response = new NetConfResponse();
+        response.setMessageId("1");
+        response.setData(DocumentUtils.stringToDocument(data.append("</data>").toString()).getDocumentElement());
+        // a request handled on the thread reading the channel is answered without waiting for the channel
+        boolean readingChannel = SshResponseOutputStream.setReadingChannel(true);
+        try {
+            messageHandler.getResponseChannel().sendResponse(response, DocumentToPojoTransformer.getGet(
+                    DocumentUtils.stringToDocument("<rpc message-id=\"1\" " +
+                            "xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><get/></rpc>")));
+        } finally {
+            SshResponseOutputStream.setReadingChannel(readingChannel);
+        }
+
+        // the frames after the first one are queued
+        verify(ioStream, times(1)).write(anyObject());
+        verify(writeFuture, never()).await(anyLong(), anyObject());
+        assertFalse(response.getMessageSentFuture().isDone());
+
+        // every completed write writes the next frame
+        for (int i = 0; i < writeListeners.size(); i++) {
+            writeListeners.get(i).operationComplete(writeFuture);
+        }
+        byte[] responseBytes = messageHandler.getResponseBytes(response.getResponseDocument());
+        int frames = (responseBytes.length + NetconfFramingOutputStream.DEFAULT_CHUNK_SIZE - 1) /
+                NetconfFramingOutputStream.DEFAULT_CHUNK_SIZE;
+        assertTrue(frames > 1);
+        verify(ioStream, times(frames)).write(anyObject());
+        assertTrue(Arrays.equals(responseBytes, written.toByteArray()));
+        assertTrue(response.getMessageSentFuture().isDone());
+        assertFalse(response.getMessageSentFuture().isCompletedExceptionally());
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Broadband Forum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.broadband_forum.obbaa.netconf.server.ssh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SshResponseOutputStreamTest {
+
+    private IoOutputStream m_out;
+    private IoWriteFuture m_writeFuture;
+    private List<SshFutureListener<IoWriteFuture>> m_listeners;
+    private boolean m_completeSynchronously;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        m_out = mock(IoOutputStream.class);
+        m_writeFuture = mock(IoWriteFuture.class);
+        m_listeners = new ArrayList<>();
+        when(m_out.write(anyObject())).thenReturn(m_writeFuture);
+        when(m_writeFuture.isWritten()).thenReturn(true);
+        when(m_writeFuture.addListener(anyObject())).thenAnswer(invocation -> {
+            SshFutureListener<IoWriteFuture> listener = (SshFutureListener<IoWriteFuture>) invocation
+                    .getArguments()[0];
+            if (m_completeSynchronously) {
+                listener.operationComplete(m_writeFuture);
+            } else {
+                m_listeners.add(listener);
+            }
+            return m_writeFuture;
+        });
+    }
+
+    @Test
+    public void testFramesAreQueuedWhileAWriteIsPending() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out);
+        out.write(new byte[10], 0, 10);
+        out.write(new byte[10], 0, 10);
+        out.write(new byte[10], 0, 10);
+        out.close();
+        verify(m_out, times(1)).write(anyObject());
+        assertFalse(out.getWritten().isDone());
+
+        m_listeners.get(0).operationComplete(m_writeFuture);
+        verify(m_out, times(2)).write(anyObject());
+        m_listeners.get(1).operationComplete(m_writeFuture);
+        verify(m_out, times(3)).write(anyObject());
+        assertFalse(out.getWritten().isDone());
+
+        m_listeners.get(2).operationComplete(m_writeFuture);
+        assertTrue(out.getWritten().isDone());
+        assertFalse(out.getWritten().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testWritesCompletingSynchronouslyDoNotRecurse() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out);
+        out.write(new byte[10], 0, 10);
+        // the thread reading the channel queues frames beyond the limit
+        boolean readingChannel = SshResponseOutputStream.setReadingChannel(true);
+        try {
+            for (int i = 0; i < 20000; i++) {
+                out.write(new byte[10], 0, 10);
+            }
+        } finally {
+            SshResponseOutputStream.setReadingChannel(readingChannel);
+        }
+        m_completeSynchronously = true;
+        // the listener of the first write drains the 20000 queued frames
+        m_listeners.get(0).operationComplete(m_writeFuture);
+        out.close();
+        verify(m_out, times(20001)).write(anyObject());
+        assertTrue(out.getWritten().isDone());
+        assertFalse(out.getWritten().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testFailedWriteFailsTheResponse() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out);
+        out.write(new byte[10], 0, 10);
+        out.write(new byte[10], 0, 10);
+        IOException error = new IOException("channel closed");
+        when(m_writeFuture.isWritten()).thenReturn(false);
+        when(m_writeFuture.getException()).thenReturn(error);
+        m_listeners.get(0).operationComplete(m_writeFuture);
+
+        // the queued frame is dropped and the serializer is stopped
+        verify(m_out, times(1)).write(anyObject());
+        assertTrue(out.getWritten().isCompletedExceptionally());
+        try {
+            out.write(new byte[10], 0, 10);
+            fail("Expected the write to fail");
+        } catch (IOException e) {
+            assertEquals(error, e.getCause());
+        }
+        out.close();
+        assertTrue(out.getWritten().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testProducerWaitsWhileTheQueueIsFull() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out, 2, TimeUnit.SECONDS.toMillis(30));
+        out.write(new byte[10], 0, 10);
+        out.write(new byte[10], 0, 10);
+        out.write(new byte[10], 0, 10);
+
+        CountDownLatch fourthFrameQueued = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                out.write(new byte[10], 0, 10);
+                fourthFrameQueued.countDown();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+        assertFalse(fourthFrameQueued.await(200, TimeUnit.MILLISECONDS));
+
+        // writing the first frame takes the second one off the queue, which makes room for the fourth
+        m_listeners.get(0).operationComplete(m_writeFuture);
+        assertTrue(fourthFrameQueued.await(10, TimeUnit.SECONDS));
+        producer.join();
+        out.close();
+        for (int i = 1; i < 4; i++) {
+            m_listeners.get(i).operationComplete(m_writeFuture);
+        }
+        verify(m_out, times(4)).write(anyObject());
+        assertTrue(out.getWritten().isDone());
+        assertFalse(out.getWritten().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testThreadReadingTheChannelDoesNotWait() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out, 1, TimeUnit.SECONDS.toMillis(30));
+        boolean readingChannel = SshResponseOutputStream.setReadingChannel(true);
+        try {
+            for (int i = 0; i < 5; i++) {
+                out.write(new byte[10], 0, 10);
+            }
+        } finally {
+            SshResponseOutputStream.setReadingChannel(readingChannel);
+        }
+        verify(m_out, times(1)).write(anyObject());
+    }
+
+    @Test
+    public void testProducerTimesOutWhenTheClientDoesNotRead() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out, 1, 50);
+        out.write(new byte[10], 0, 10);
+        out.write(new byte[10], 0, 10);
+        try {
+            out.write(new byte[10], 0, 10);
+            fail("Expected the write to time out");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Timed out after 50 ms"));
+        }
+        assertTrue(out.getWritten().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testEmptyStreamIsWrittenOnClose() throws Exception {
+        SshResponseOutputStream out = new SshResponseOutputStream(m_out);
+        out.close();
+        assertTrue(out.getWritten().isDone());
+        assertEquals(null, out.getLastWrite());
+    }
+}
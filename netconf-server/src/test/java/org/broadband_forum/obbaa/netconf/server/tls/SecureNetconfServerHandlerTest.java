@@ -88,26 +88,26 @@ public class SecureNetconfServerHandlerTest extends TestCase {
     }
 
     public void testInvalidXmlRequest() throws Exception {
-        when(m_channel.writeAndFlush(anyString())).thenReturn(m_writeFuture);
+        when(m_channel.writeAndFlush(anyObject())).thenReturn(m_writeFuture);
         m_msgHandler.channelRead0(m_context, "<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" " +
                 "message-id=\"1001\"> <get> </rpc>");
-        verify(m_channel).writeAndFlush(anyString());
+        verify(m_channel).writeAndFlush(anyObject());
     }
 
     public void testCloseSessionRequest() throws Exception {
-        when(m_channel.writeAndFlush(anyString())).thenReturn(m_writeFuture);
+        when(m_channel.writeAndFlush(anyObject())).thenReturn(m_writeFuture);
         NetConfResponse response = new NetConfResponse();
         response.setMessageId("1");
         response.setOk(true);
         m_msgHandler.getResponseChannel().sendResponse(response, DocumentToPojoTransformer.getCloseSession(
                 DocumentUtils.stringToDocument("<rpc message-id=\"2\" " +
                         "xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><close-session/></rpc>")));
-        verify(m_channel).writeAndFlush(anyString());
+        verify(m_channel).writeAndFlush(anyObject());
         verify(m_writeFuture).await(10, TimeUnit.SECONDS);
     }
 
     public void testSendResponse_exception() throws Exception {
-        when(m_channel.writeAndFlush(anyString())).thenThrow(new RuntimeException("closed"));
+        when(m_channel.writeAndFlush(anyObject())).thenThrow(new RuntimeException("closed"));
         NetConfResponse response = new NetConfResponse();
         response.setMessageId("1");
         response.setOk(true);
@@ -119,18 +119,18 @@ public class SecureNetconfServerHandlerTest extends TestCase {
     }
 
     public void testSendResponseToGetRequest() throws Exception {
-        when(m_channel.writeAndFlush(anyString())).thenReturn(m_writeFuture);
+        when(m_channel.writeAndFlush(anyObject())).thenReturn(m_writeFuture);
         NetConfResponse response = new NetConfResponse();
         response.setMessageId("1");
         m_msgHandler.getResponseChannel().sendResponse(response, DocumentToPojoTransformer.getGet(
                 DocumentUtils.stringToDocument("<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" " +
                         "message-id=\"1001\"> <get/> </rpc>")));
-        verify(m_channel).writeAndFlush(anyString());
+        verify(m_channel).writeAndFlush(anyObject());
         verify(m_writeFuture, never()).await(anyInt(), anyObject());
     }
 
     public void testValidXmlRequest() throws Exception {
-        when(m_channel.writeAndFlush(anyString())).thenReturn(m_writeFuture);
+        when(m_channel.writeAndFlush(anyObject())).thenReturn(m_writeFuture);
         ArgumentCaptor<NetconfClientInfo> clientCaptor = ArgumentCaptor.forClass(NetconfClientInfo.class);
         m_msgHandler.channelRead0(m_context,
                 "<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1001\"> <get> </get></rpc>");